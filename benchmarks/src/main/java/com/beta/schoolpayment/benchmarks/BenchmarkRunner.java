@@ -0,0 +1,96 @@
+package com.beta.schoolpayment.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Menjalankan benchmark dan menyimpan hasilnya sebagai JSON (format JMH).
+ *
+ * <pre>
+ * java -Dbenchmarks.result=target/jmh-result.json \
+ *      -Dbenchmarks.baseline=baseline.json -Dbenchmarks.tolerance=0.10 \
+ *      -jar target/benchmarks.jar [regex benchmark]
+ * </pre>
+ *
+ * Property -D harus ditulis sebelum -jar; setelah nama jar ia menjadi argumen program.
+ *
+ * Jika baseline diberikan, hasil dibandingkan per benchmark (+ parameter) dan proses keluar
+ * dengan kode 1 bila ada yang lebih lambat dari toleransi, sehingga bisa dipakai sebagai gate di CI.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = args.length > 0 ? args[0] : BenchmarkRunner.class.getPackageName() + ".*";
+        String resultFile = System.getProperty("benchmarks.result", "target/jmh-result.json");
+        String baselineFile = System.getProperty("benchmarks.baseline");
+        double tolerance = Double.parseDouble(System.getProperty("benchmarks.tolerance", "0.10"));
+
+        new File(resultFile).getAbsoluteFile().getParentFile().mkdirs();
+        Options options = new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile)
+                .build();
+        new Runner(options).run();
+        System.out.println("Hasil benchmark: " + resultFile);
+
+        if (baselineFile != null) {
+            int regressions = compare(new File(baselineFile), new File(resultFile), tolerance);
+            if (regressions > 0) {
+                System.err.println(regressions + " benchmark lebih lambat dari baseline");
+                System.exit(1);
+            }
+        }
+    }
+
+    static int compare(File baselineFile, File resultFile, double tolerance) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, JsonNode> baseline = index(mapper.readTree(baselineFile));
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : index(mapper.readTree(resultFile)).entrySet()) {
+            JsonNode previous = baseline.get(entry.getKey());
+            if (previous == null) {
+                continue;
+            }
+            double before = previous.path("primaryMetric").path("score").asDouble();
+            double after = entry.getValue().path("primaryMetric").path("score").asDouble();
+            // Throughput: makin besar makin baik; mode waktu (avgt, sample, ss): makin kecil makin baik
+            boolean higherIsBetter = "thrpt".equals(entry.getValue().path("mode").asText());
+            double change = higherIsBetter ? (before - after) / before : (after - before) / before;
+            boolean regressed = change > tolerance;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%s %s: %.3f -> %.3f (%+.1f%%)%n", regressed ? "REGRESI" : "OK     ",
+                    entry.getKey(), before, after, -change * 100);
+        }
+        return regressions;
+    }
+
+    // Kunci: nama benchmark + parameter, misalnya ExportBenchmark.exportPaymentsToExcel{rows=1000}
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> byKey = new HashMap<>();
+        for (JsonNode result : results) {
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = result.path("params").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> param = fields.next();
+                params.put(param.getKey(), param.getValue().asText());
+            }
+            byKey.put(result.path("benchmark").asText() + (params.isEmpty() ? "" : params.toString()), result);
+        }
+        return byKey;
+    }
+}
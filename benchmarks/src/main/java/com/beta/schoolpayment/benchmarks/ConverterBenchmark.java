@@ -0,0 +1,46 @@
+package com.beta.schoolpayment.benchmarks;
+
+import com.beta.schoolpayment.dto.response.PaymentResponse;
+import com.beta.schoolpayment.dto.response.StudentResponse;
+import com.beta.schoolpayment.model.Payment;
+import com.beta.schoolpayment.model.Student;
+import com.beta.schoolpayment.service.PaymentService;
+import com.beta.schoolpayment.service.StudentService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Biaya konversi entity -> DTO per baris
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConverterBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private final Payment[] payments = new Payment[SAMPLES];
+    private final Student[] students = new Student[SAMPLES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SyntheticData data = new SyntheticData(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            payments[i] = data.payment(i);
+            students[i] = data.student(i);
+        }
+    }
+
+    @Benchmark
+    public PaymentResponse paymentConvertToResponse() {
+        return PaymentService.convertToResponse(payments[next++ & (SAMPLES - 1)]);
+    }
+
+    @Benchmark
+    public StudentResponse studentConvertToResponse() {
+        return StudentService.convertToResponse(students[next++ & (SAMPLES - 1)]);
+    }
+}
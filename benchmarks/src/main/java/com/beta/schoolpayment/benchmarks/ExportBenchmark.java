@@ -0,0 +1,65 @@
+package com.beta.schoolpayment.benchmarks;
+
+import com.beta.schoolpayment.dto.request.PaymentFilterCriteria;
+import com.beta.schoolpayment.dto.response.PaymentResponse;
+import com.beta.schoolpayment.service.PaymentExportService;
+import com.beta.schoolpayment.service.PaymentService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Waktu export Excel (SXSSF) per ukuran data. Sumber data diganti generator sintetis
+// sehingga yang diukur hanya penulisan workbook, tanpa database.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx512m"})
+public class ExportBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public long rows;
+
+    private PaymentExportService exportService;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        PaymentService syntheticSource = new PaymentService() {
+            @Override
+            public void forEachPayment(PaymentFilterCriteria criteria, Consumer<PaymentResponse> action) {
+                new SyntheticData(42).forEachPaymentResponse(rows, action);
+            }
+        };
+        exportService = new PaymentExportService();
+        Field field = PaymentExportService.class.getDeclaredField("paymentService");
+        field.setAccessible(true);
+        field.set(exportService, syntheticSource);
+    }
+
+    // Heap dibatasi 512 MB: 1M baris harus tetap lolos karena export di-stream
+    @Benchmark
+    public long exportPaymentsToExcel() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        exportService.exportPaymentsToExcel(new PaymentFilterCriteria(), out);
+        return out.count;
+    }
+
+    static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.beta.schoolpayment.benchmarks;
+
+import com.beta.schoolpayment.model.User;
+import com.beta.schoolpayment.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Token/detik untuk sign dan parse: JwtUtil (key + parser dibuat sekali) dibandingkan cara lama
+// (key dan parser dibuat ulang di setiap panggilan, tiga kali parse per request).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final String SECRET = "my-very-secure-secret-key-with-min-32-characters-long";
+
+    private JwtUtil jwtUtil;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(SECRET, "primary", List.of());
+        user = new User();
+        user.setUserId(UUID.randomUUID());
+        user.setEmail("johndoe@example.com");
+        user.setName("John Doe");
+        user.setNis(12345L);
+        user.setRole("STUDENT");
+        token = jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String signCached() {
+        return jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public Claims parseCached() {
+        return jwtUtil.parseClaims(token);
+    }
+
+    @Benchmark
+    public String signLegacy() {
+        return Jwts.builder()
+                .claim("role", user.getRole())
+                .claim("userId", user.getUserId())
+                .claim("name", user.getName())
+                .claim("email", user.getEmail())
+                .claim("nis", user.getNis())
+                .setSubject(user.getEmail())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + JwtUtil.TOKEN_VALIDITY.toMillis()))
+                .signWith(legacyKey(), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    @Benchmark
+    public Claims parseLegacy() {
+        return legacyParse(token);
+    }
+
+    // Alur filter lama per request: extractUsername, lalu validateToken (username + expiration)
+    @Benchmark
+    public void requestLegacy(Blackhole blackhole) {
+        blackhole.consume(legacyParse(token).getSubject());
+        blackhole.consume(legacyParse(token).getSubject());
+        blackhole.consume(legacyParse(token).getExpiration());
+    }
+
+    // Alur filter sekarang: satu kali parse, claims dipakai ulang
+    @Benchmark
+    public void requestCached(Blackhole blackhole) {
+        Claims claims = jwtUtil.parseClaims(token);
+        blackhole.consume(claims.getSubject());
+        blackhole.consume(claims.getExpiration());
+    }
+
+    private static SecretKey legacyKey() {
+        return Keys.hmacShaKeyFor(SECRET.getBytes());
+    }
+
+    private static Claims legacyParse(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(legacyKey())
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
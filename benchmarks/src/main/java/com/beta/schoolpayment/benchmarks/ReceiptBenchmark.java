@@ -0,0 +1,31 @@
+package com.beta.schoolpayment.benchmarks;
+
+import com.beta.schoolpayment.dto.response.PaymentResponse;
+import com.beta.schoolpayment.service.PaymentReceiptService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Throughput pembuatan PDF tanda terima
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReceiptBenchmark {
+
+    private PaymentReceiptService receiptService;
+    private PaymentResponse payment;
+
+    @Setup
+    public void setUp() {
+        receiptService = new PaymentReceiptService();
+        payment = new SyntheticData(42).paymentResponse(1);
+    }
+
+    @Benchmark
+    public byte[] generatePaymentReceipt() {
+        return receiptService.generatePaymentReceipt(payment);
+    }
+}
@@ -0,0 +1,96 @@
+package com.beta.schoolpayment.benchmarks;
+
+import com.beta.schoolpayment.dto.response.PaymentResponse;
+import com.beta.schoolpayment.model.Classes;
+import com.beta.schoolpayment.model.Payment;
+import com.beta.schoolpayment.model.PaymentType;
+import com.beta.schoolpayment.model.Student;
+import com.beta.schoolpayment.model.User;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Generator data sintetis dengan seed tetap agar hasil benchmark bisa dibandingkan antar run
+public final class SyntheticData {
+
+    private static final String[] STATUSES = {"PENDING", "COMPLETED", "FAILED", "REFUNDED"};
+    private static final String[] FIRST_NAMES = {"Adi", "Budi", "Citra", "Dewi", "Eka", "Fajar", "Gita", "Hadi", "Indah", "Joko"};
+    private static final String[] LAST_NAMES = {"Pratama", "Saputra", "Wijaya", "Lestari", "Hidayat", "Kusuma", "Santoso", "Nugroho"};
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 7, 1, 7, 0);
+
+    private final SplittableRandom random;
+
+    public SyntheticData(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    public String studentName() {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    }
+
+    public PaymentResponse paymentResponse(long index) {
+        PaymentResponse response = new PaymentResponse();
+        response.setPaymentId(new UUID(random.nextLong(), random.nextLong()));
+        response.setPaymentName("SPP Bulan " + (index % 12 + 1));
+        response.setPaymentStatus(STATUSES[random.nextInt(STATUSES.length)]);
+        response.setAmount(BigDecimal.valueOf(50_000 + random.nextInt(20) * 25_000L));
+        response.setUserId(new UUID(random.nextLong(), random.nextLong()));
+        response.setStudentId(1 + index % 5_000);
+        response.setStudentName(studentName());
+        response.setPaymentTypeId(1L + index % 4);
+        response.setPaymentTypeName("SPP");
+        response.setCreatedAt(EPOCH.plusMinutes(index));
+        response.setUpdatedAt(EPOCH.plusMinutes(index + 30));
+        return response;
+    }
+
+    // Baris dibuat satu per satu tanpa ditampung di list, seperti cursor database
+    public void forEachPaymentResponse(long rows, Consumer<PaymentResponse> action) {
+        for (long i = 0; i < rows; i++) {
+            action.accept(paymentResponse(i));
+        }
+    }
+
+    public Student student(long index) {
+        Classes classes = new Classes();
+        classes.setClassesId(1 + index % 30);
+        classes.setClassesName("Kelas " + (index % 12 + 1));
+
+        Student student = new Student();
+        student.setId(index + 1);
+        student.setNis(100_000 + index);
+        student.setName(studentName());
+        student.setClasses(classes);
+        student.setBirthdate(LocalDate.of(2010, 1, 1).plusDays(random.nextInt(1_500)));
+        student.setAddress("Jl. Merdeka No. " + random.nextInt(1, 200));
+        student.setPhoneNumber("08" + (1_000_000_000L + random.nextInt(1_000_000_000)));
+        student.setCreatedAt(EPOCH.plusDays(index % 365));
+        student.setUpdatedAt(EPOCH.plusDays(index % 365));
+        return student;
+    }
+
+    public Payment payment(long index) {
+        User user = new User();
+        user.setUserId(new UUID(random.nextLong(), random.nextLong()));
+
+        PaymentType paymentType = new PaymentType();
+        paymentType.setPaymentTypeId(1L + index % 4);
+        paymentType.setPaymentTypeName("SPP");
+
+        Payment payment = new Payment();
+        payment.setPaymentId(new UUID(random.nextLong(), random.nextLong()));
+        payment.setPaymentName("SPP Bulan " + (index % 12 + 1));
+        payment.setUser(user);
+        payment.setStudent(student(index));
+        payment.setPaymentType(paymentType);
+        payment.setAmount(BigDecimal.valueOf(50_000 + random.nextInt(20) * 25_000L));
+        payment.setPaymentStatus(STATUSES[random.nextInt(STATUSES.length)]);
+        payment.setCreatedAt(EPOCH.plusMinutes(index));
+        payment.setUpdatedAt(EPOCH.plusMinutes(index + 30));
+        return payment;
+    }
+}
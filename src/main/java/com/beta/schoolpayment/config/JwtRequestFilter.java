@@ -1,12 +1,16 @@
 package com.beta.schoolpayment.config;
 
+import com.beta.schoolpayment.security.CustomUserDetails;
+import com.beta.schoolpayment.security.TokenRevocationRegistry;
 import com.beta.schoolpayment.service.UserService;
 import com.beta.schoolpayment.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -25,17 +29,26 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserService userService;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+
+    // true: principal dibangun dari claims token, tanpa lookup user ke database/cache
+    @Value("${auth.stateless:false}")
+    private boolean stateless;
 
     // Daftar endpoint yang tidak memerlukan autentikasi JWT
     private static final List<String> PUBLIC_ENDPOINTS = List.of(
             "/api/users/register",
-            "/api/users/login"
+            "/api/users/login",
+            "/api/users/refresh",
+            "/api/users/logout"
     );
 
     @Autowired
-    public JwtRequestFilter(@Lazy UserService userService, JwtUtil jwtUtil) {
+    public JwtRequestFilter(@Lazy UserService userService, JwtUtil jwtUtil,
+                            TokenRevocationRegistry tokenRevocationRegistry) {
         this.userService = userService;
         this.jwtUtil = jwtUtil;
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
     }
 
     @Override
@@ -52,13 +65,15 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         final String authorizationHeader = request.getHeader("Authorization");
         String username = null;
-        String jwt = null;
+        Claims claims = null;
 
         // Periksa apakah header Authorization ada dan dimulai dengan "Bearer "
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+            String jwt = authorizationHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwt);
+                // Token cukup di-parse sekali, semua claims dipakai ulang di bawah
+                claims = jwtUtil.parseClaims(jwt);
+                username = claims.getSubject();
             } catch (Exception e) {
                 sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED, "Invalid JWT token: " + e.getMessage());
                 return;
@@ -67,10 +82,19 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         // Autentikasi user jika token valid dan SecurityContext belum di-set
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userService.loadUserByUsername(username);
+            UserDetails userDetails;
+            if (stateless) {
+                if (tokenRevocationRegistry.isRevoked(username, claims.getIssuedAt())) {
+                    sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED, "JWT token has been revoked.");
+                    return;
+                }
+                userDetails = CustomUserDetails.fromClaims(claims);
+            } else {
+                userDetails = userService.loadUserBySubject(username);
+            }
 
             // Validasi token dan set autentikasi ke dalam context
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+            if (jwtUtil.validateClaims(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authenticationToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
 
@@ -0,0 +1,22 @@
+package com.beta.schoolpayment.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// Satu PasswordEncoder untuk seluruh aplikasi (register, update profil, verifikasi login).
+// Dipisah dari SecurityConfig agar UserService bisa memakainya tanpa dependensi melingkar.
+@Configuration
+public class PasswordConfig {
+
+    // Hash dengan cost lebih rendah (mis. dari sebelum nilai ini dinaikkan) di-rehash saat login berhasil
+    @Value("${security.password.bcrypt-cost:10}")
+    private int bcryptCost;
+
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return new BCryptPasswordEncoder(bcryptCost);
+    }
+}
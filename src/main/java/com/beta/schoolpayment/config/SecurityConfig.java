@@ -11,7 +11,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -25,10 +24,12 @@ import java.util.List;
 public class SecurityConfig {
     private final JwtRequestFilter jwtRequestFilter;
     private final UserService userService;
+    private final PasswordEncoder passwordEncoder;
 
-    public SecurityConfig(JwtRequestFilter jwtRequestFilter, UserService userService) {
+    public SecurityConfig(JwtRequestFilter jwtRequestFilter, UserService userService, PasswordEncoder passwordEncoder) {
         this.jwtRequestFilter = jwtRequestFilter;
         this.userService = userService;
+        this.passwordEncoder = passwordEncoder;
     }
 
     @Bean
@@ -40,13 +41,17 @@ public class SecurityConfig {
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html",
                                 "/swagger-ui/index.html").permitAll()
                         //public
-                        .requestMatchers(HttpMethod.POST,"/api/users/login", "/api/users/register").permitAll()
+                        .requestMatchers(HttpMethod.POST,"/api/users/login", "/api/users/register",
+                                "/api/users/refresh", "/api/users/logout").permitAll()
                         //admin authenticated
                         .requestMatchers(HttpMethod.GET, "/api/users/filter", "/api/users", "/api/students",
                                 "/api/students/search", "/api/school-years/search","/api/school-years/all",
-                                "/api/payments","/api/classes/search","/api/classes/all","/api/students/{id}").hasRole("ADMIN")
-                        .requestMatchers(HttpMethod.POST,"/api/students", "/api/school-years/create",
-                                "/api/classes/create").hasRole("ADMIN")
+                                "/api/payments","/api/classes/search","/api/classes/all","/api/students/{id}",
+                                "/api/billing-runs/{runId}", "/api/reports/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST,"/api/students", "/api/students/import", "/api/school-years/create",
+                                "/api/classes/create", "/api/payments/batch", "/api/billing-runs",
+                                "/api/reports/**", "/api/payments/receipts/bulk",
+                                "/api/exports/payments").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PUT,"/api/users/role/{id}", "/api/students/{id}",
                                 "/api/students/delete/{id}","/api/students/delete/{id}","/api/payments/status/{id}",
                                 "/api/classes/update/{id}").hasRole("ADMIN")
@@ -84,7 +89,7 @@ public class SecurityConfig {
     public AuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailService());
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
@@ -93,11 +98,6 @@ public class SecurityConfig {
         return userService::loadUserByUsername;
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration authConfig) throws Exception {
         return authConfig.getAuthenticationManager();
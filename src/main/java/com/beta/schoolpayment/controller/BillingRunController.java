@@ -0,0 +1,55 @@
+package com.beta.schoolpayment.controller;
+
+import com.beta.schoolpayment.dto.request.BillingRunRequest;
+import com.beta.schoolpayment.exception.DataNotFoundException;
+import com.beta.schoolpayment.exception.DuplicateDataException;
+import com.beta.schoolpayment.exception.ValidationException;
+import com.beta.schoolpayment.security.CustomUserDetails;
+import com.beta.schoolpayment.service.BillingRunService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/billing-runs")
+public class BillingRunController {
+
+    @Autowired
+    private BillingRunService billingRunService;
+
+    // 🔹 Mulai (atau lanjutkan) tagihan berulang untuk satu kelas / tahun ajaran; progres lewat GET /{runId}
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @PostMapping
+    public ResponseEntity<?> startRun(@RequestBody BillingRunRequest request,
+                                      @AuthenticationPrincipal CustomUserDetails userDetails) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(billingRunService.startRun(request, userDetails.getUserId()));
+        } catch (ValidationException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (DuplicateDataException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(Map.of("error", "Terjadi kesalahan pada server: " + e.getMessage()));
+        }
+    }
+
+    // 🔹 Status billing run (checkpoint, jumlah student diproses, jumlah tagihan dibuat)
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @GetMapping("/{runId}")
+    public ResponseEntity<?> getRun(@PathVariable UUID runId) {
+        try {
+            return ResponseEntity.ok(billingRunService.getRun(runId));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
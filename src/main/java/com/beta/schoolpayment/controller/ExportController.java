@@ -0,0 +1,113 @@
+package com.beta.schoolpayment.controller;
+
+import com.beta.schoolpayment.dto.request.PaymentFilterCriteria;
+import com.beta.schoolpayment.dto.response.ExportJobResponse;
+import com.beta.schoolpayment.exception.DataNotFoundException;
+import com.beta.schoolpayment.exception.TooManyJobsException;
+import com.beta.schoolpayment.job.ExportJob;
+import com.beta.schoolpayment.job.ExportJobService;
+import com.beta.schoolpayment.security.CustomUserDetails;
+import com.beta.schoolpayment.service.PaymentExportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+// Job export asinkron: submit -> 202 + jobId, polling status, lalu download file hasil
+@RestController
+@RequestMapping("/api/exports")
+public class ExportController {
+
+    private static final String XLSX = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    @Autowired
+    private ExportJobService exportJobService;
+
+    @Autowired
+    private PaymentExportService paymentExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 🔹 Export payments ke Excel (filter sama dengan GET /api/payments)
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @PostMapping("/payments")
+    public ResponseEntity<?> exportPayments(@ModelAttribute PaymentFilterCriteria criteria,
+                                            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        return submit(() -> exportJobService.submit(userDetails.getUserId(), "payments", "payments.xlsx", XLSX,
+                (outputStream, progress) -> paymentExportService.exportPaymentsToExcel(criteria, outputStream, progress)));
+    }
+
+    // 🔹 Daftar job milik user (admin: semua job)
+    @GetMapping
+    public ResponseEntity<List<ExportJobResponse>> getJobs(@AuthenticationPrincipal CustomUserDetails userDetails) {
+        return ResponseEntity.ok(exportJobService.getJobs(userDetails));
+    }
+
+    // 🔹 Status job (QUEUED, RUNNING, COMPLETED, FAILED)
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getJob(@PathVariable UUID jobId, @AuthenticationPrincipal CustomUserDetails userDetails) {
+        try {
+            return ResponseEntity.ok(exportJobService.getJob(jobId, userDetails));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // 🔹 Download file hasil; 409 jika job belum selesai
+    @GetMapping("/{jobId}/download")
+    public ResponseEntity<StreamingResponseBody> download(@PathVariable UUID jobId,
+                                                          @AuthenticationPrincipal CustomUserDetails userDetails) {
+        try {
+            ExportJob job = exportJobService.getCompletedJob(jobId, userDetails);
+            return FileResponses.file(job.getFile(), MediaType.parseMediaType(job.getContentType()), null,
+                    job.getFilename());
+        } catch (DataNotFoundException e) {
+            return errorBody(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IllegalStateException e) {
+            return errorBody(HttpStatus.CONFLICT, e.getMessage());
+        } catch (Exception e) {
+            return errorBody(HttpStatus.INTERNAL_SERVER_ERROR, "Gagal mengunduh export: " + e.getMessage());
+        }
+    }
+
+    // 🔹 Batalkan job yang berjalan atau hapus hasilnya lebih awal
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<?> cancel(@PathVariable UUID jobId, @AuthenticationPrincipal CustomUserDetails userDetails) {
+        try {
+            return ResponseEntity.ok(exportJobService.cancel(jobId, userDetails));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<?> submit(Supplier<ExportJobResponse> submission) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(submission.get());
+        } catch (TooManyJobsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("error", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(Map.of("error", "Antrian export penuh, coba lagi nanti"));
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> errorBody(HttpStatus status, String message) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> outputStream.write(objectMapper.writeValueAsBytes(Map.of("error", message))));
+    }
+}
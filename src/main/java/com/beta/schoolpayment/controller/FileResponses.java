@@ -0,0 +1,68 @@
+package com.beta.schoolpayment.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Response download file dari disk (receipt, hasil export, foto profil)
+final class FileResponses {
+
+    private FileResponses() {
+    }
+
+    // File dialirkan per blok dengan FileChannel.transferTo, tidak dimuat utuh ke memori.
+    // Tujuannya OutputStream servlet (dibungkus Channels.newChannel), jadi tetap disalin lewat buffer, bukan zero-copy.
+    static ResponseEntity<StreamingResponseBody> file(Path file, MediaType contentType, String etag, String filename) {
+        try {
+            long size = Files.size(file);
+            StreamingResponseBody body = outputStream -> {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    WritableByteChannel target = Channels.newChannel(outputStream);
+                    long position = 0;
+                    while (position < size) {
+                        position += channel.transferTo(position, size - position, target);
+                    }
+                }
+            };
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                    .contentType(contentType)
+                    .contentLength(size)
+                    .cacheControl(CacheControl.noCache().cachePrivate());
+            if (etag != null) {
+                response.eTag(etag);
+            }
+            return response.body(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // If-None-Match berisi ETag ini (atau *); perbandingan lemah sesuai RFC 9110 untuk GET
+    static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
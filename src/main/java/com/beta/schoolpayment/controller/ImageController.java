@@ -0,0 +1,80 @@
+package com.beta.schoolpayment.controller;
+
+import com.beta.schoolpayment.service.ImageService;
+import com.beta.schoolpayment.service.ProfilePictureThumbnailService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Gambar content-addressed dari ImageStore. Isi untuk key yang sama tidak pernah berubah, jadi semua node API
+// menyajikan URL yang sama dengan cache immutable; Range didukung oleh Spring untuk body Resource.
+@RestController
+@RequestMapping("/api/images")
+public class ImageController {
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable();
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    @Autowired
+    private ImageService imageService;
+
+    // 🔹 ?size=64|256 mengirim thumbnail; selama thumbnail belum ada, file asli dikirim tanpa cache jangka panjang
+    // (isi URL ini akan berubah begitu thumbnail jadi). If-None-Match yang cocok dibalas 304 tanpa akses storage.
+    @GetMapping("/{key}")
+    public ResponseEntity<?> getImage(@PathVariable String key,
+                                      @RequestParam(value = "size", required = false) Integer size,
+                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (!ImageService.isImageKey(key)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Gambar tidak ditemukan"));
+        }
+        if (size != null && !imageService.isSupportedThumbnailSize(size)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Ukuran gambar tidak didukung: " + size));
+        }
+        String requestedKey = size == null ? key : ProfilePictureThumbnailService.thumbnailKey(key, size);
+        String etag = ImageService.etag(requestedKey);
+        if (FileResponses.matchesEtag(ifNoneMatch, etag)) {
+            return notModified(etag, IMMUTABLE);
+        }
+        Optional<Resource> image = imageService.find(requestedKey);
+        if (image.isPresent()) {
+            return image(image.get(), etag, IMMUTABLE);
+        }
+        if (size != null) {
+            Optional<Resource> original = imageService.find(key);
+            if (original.isPresent()) {
+                imageService.requestThumbnails(key);
+                String originalEtag = ImageService.etag(key);
+                if (FileResponses.matchesEtag(ifNoneMatch, originalEtag)) {
+                    return notModified(originalEtag, REVALIDATE);
+                }
+                return image(original.get(), originalEtag, REVALIDATE);
+            }
+        }
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Gambar tidak ditemukan"));
+    }
+
+    private static ResponseEntity<?> notModified(String etag, CacheControl cacheControl) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .build();
+    }
+
+    private static ResponseEntity<?> image(Resource image, String etag, CacheControl cacheControl) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(MediaTypeFactory.getMediaType(image).orElse(MediaType.APPLICATION_OCTET_STREAM))
+                .body(image);
+    }
+}
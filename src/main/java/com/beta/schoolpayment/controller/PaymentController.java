@@ -1,17 +1,32 @@
 package com.beta.schoolpayment.controller;
 
+import com.beta.schoolpayment.dto.request.PaymentCursor;
 import com.beta.schoolpayment.dto.request.PaymentFilterCriteria;
 import com.beta.schoolpayment.dto.request.PaymentRequest;
+import com.beta.schoolpayment.dto.response.CursorPaginatedResponse;
+import com.beta.schoolpayment.dto.response.ExportJobResponse;
 import com.beta.schoolpayment.dto.response.PaymentResponse;
+import com.beta.schoolpayment.exception.DataNotFoundException;
+import com.beta.schoolpayment.exception.PaymentStatusConflictException;
+import com.beta.schoolpayment.exception.TooManyJobsException;
+import com.beta.schoolpayment.exception.ValidationException;
 import com.beta.schoolpayment.security.CustomUserDetails;
+import com.beta.schoolpayment.service.BulkReceiptService;
 import com.beta.schoolpayment.service.PaymentExportService;
 import com.beta.schoolpayment.service.PaymentReceiptService;
+import com.beta.schoolpayment.service.PaymentReceiptStore;
 import com.beta.schoolpayment.service.PaymentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -19,12 +34,14 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/payments")
@@ -39,6 +56,18 @@ public class PaymentController {
     @Autowired
     private PaymentReceiptService paymentReceiptService;
 
+    @Autowired
+    private PaymentReceiptStore paymentReceiptStore;
+
+    @Autowired
+    private BulkReceiptService bulkReceiptService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${payment.batch.max-size:5000}")
+    private int maxBatchSize;
+
     // 🔹 Endpoint untuk membuat pembayaran baru
     @PostMapping
     public ResponseEntity<?> createPayment(
@@ -54,6 +83,25 @@ public class PaymentController {
         }
     }
 
+    // 🔹 Endpoint untuk membuat banyak pembayaran sekaligus (hasil per item sesuai urutan request)
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @PostMapping("/batch")
+    public ResponseEntity<?> createPayments(
+            @RequestBody List<PaymentRequest> paymentRequests,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        if (paymentRequests == null || paymentRequests.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Daftar pembayaran tidak boleh kosong"));
+        }
+        if (paymentRequests.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Maksimal " + maxBatchSize + " pembayaran per batch"));
+        }
+        try {
+            return ResponseEntity.ok(paymentService.createPayments(paymentRequests, userDetails));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(Map.of("error", "Terjadi kesalahan pada server: " + e.getMessage()));
+        }
+    }
+
     // 🔹 Endpoint untuk mendapatkan semua pembayaran
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     @GetMapping
@@ -67,15 +115,20 @@ public class PaymentController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDirection) {
+            @RequestParam(defaultValue = "desc") String sortDirection,
+            @RequestParam(defaultValue = "false") boolean keyset,
+            @RequestParam(required = false) String cursor) {
         try {
-            PaymentFilterCriteria criteria = new PaymentFilterCriteria();
-            criteria.setPaymentName(paymentName);
-            criteria.setStudentName(studentName);
-            criteria.setUserName(userName);
-            criteria.setSchoolYearStartDate(schoolYearStartDate);
-            criteria.setSchoolYearEndDate(schoolYearEndDate);
-            criteria.setPaymentStatus(paymentStatus);
+            PaymentFilterCriteria criteria = toFilterCriteria(paymentName, studentName, userName, paymentStatus,
+                    schoolYearStartDate, schoolYearEndDate);
+
+            // Mode keyset: selalu urut createdAt + paymentId, halaman berikutnya lewat nextCursor
+            if (keyset || cursor != null) {
+                Slice<PaymentResponse> slice = paymentService.getPaymentsByCursor(criteria, cursor, size, sortDirection);
+                Sort.Direction direction = Sort.Direction.fromString(sortDirection);
+                return ResponseEntity.ok(new CursorPaginatedResponse<>(200, slice,
+                        payment -> new PaymentCursor(payment.getCreatedAt(), payment.getPaymentId(), direction).encode()));
+            }
 
             Page<PaymentResponse> response = paymentService.getAllPayments(criteria, page, size, sortBy, sortDirection);
 
@@ -83,6 +136,8 @@ public class PaymentController {
                 return ResponseEntity.status(HttpStatus.NO_CONTENT).body(Map.of("message", "No payments found"));
             }
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body(Map.of("error", "Terjadi kesalahan pada server: " + e.getMessage()));
         }
@@ -102,37 +157,49 @@ public class PaymentController {
         }
     }
 
-    // 🔹 Endpoint untuk update status pembayaran
+    // 🔹 Endpoint untuk update status pembayaran.
+    // Body: status (wajib), expectedStatus (opsional, status saat ini menurut client). Header Idempotency-Key
+    // (opsional): retry dengan key yang sama tidak mengubah apa pun. 409 jika transisi tidak diizinkan
+    // atau status sudah diubah request lain.
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     @PutMapping("/status/{id}")
-    public ResponseEntity<?> updatePaymentStatus(@PathVariable UUID id, @RequestBody Map<String, String> requestBody) {
+    public ResponseEntity<?> updatePaymentStatus(@PathVariable UUID id, @RequestBody Map<String, String> requestBody,
+                                                 @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
             if (!requestBody.containsKey("status") || requestBody.get("status").trim().isEmpty()) {
                 return ResponseEntity.badRequest().body(Map.of("error", "Status tidak boleh kosong"));
             }
-            PaymentResponse updatedPayment = paymentService.updatePaymentStatus(id, requestBody.get("status"));
+            PaymentResponse updatedPayment = paymentService.updatePaymentStatus(id, requestBody.get("status"),
+                    requestBody.get("expectedStatus"), idempotencyKey);
             return ResponseEntity.ok(updatedPayment);
         } catch (EntityNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Payment not found"));
+        } catch (PaymentStatusConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException | ValidationException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body(Map.of("error", "Terjadi kesalahan pada server: " + e.getMessage()));
         }
     }
 
-    // 🔹 Endpoint untuk export payments ke Excel
+    // 🔹 Endpoint untuk export payments ke Excel (streaming langsung ke response)
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     @GetMapping("/export")
-    public ResponseEntity<byte[]> exportPaymentsToExcel() {
-        try {
-            List<PaymentResponse> payments = paymentService.getAllActivePayments();
-            byte[] excelData = paymentExportService.exportPaymentsToExcel(payments);
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=payments.xlsx")
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .body(excelData);
-        } catch (IOException e) {
-            return ResponseEntity.internalServerError().body(null);
-        }
+    public ResponseEntity<StreamingResponseBody> exportPaymentsToExcel(
+            @RequestParam(required = false) String paymentName,
+            @RequestParam(required = false) String studentName,
+            @RequestParam(required = false) String userName,
+            @RequestParam(required = false) String paymentStatus,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate schoolYearStartDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate schoolYearEndDate) {
+        PaymentFilterCriteria criteria = toFilterCriteria(paymentName, studentName, userName, paymentStatus,
+                schoolYearStartDate, schoolYearEndDate);
+        StreamingResponseBody body = outputStream -> paymentExportService.exportPaymentsToExcel(criteria, outputStream);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=payments.xlsx")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
     }
 
     // 🔹 Mendapatkan pembayaran user yang sedang login
@@ -155,6 +222,9 @@ public class PaymentController {
             return ResponseEntity.ok(Map.of("message", "Payment deleted successfully"));
         } catch (EntityNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Payment not found"));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Payment diubah request lain (version berbeda) di antara baca dan simpan
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Payment sedang diubah, silakan coba lagi"));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body(Map.of("error", "Terjadi kesalahan pada server: " + e.getMessage()));
         }
@@ -162,20 +232,90 @@ public class PaymentController {
 
     // 🔹 Download bukti pembayaran (PDF)
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STUDENT')")
+    // 🔹 Receipt dilayani dari store di disk; If-None-Match yang cocok dibalas 304 tanpa membaca file
     @GetMapping("/receipt/{id}")
-    public ResponseEntity<?> downloadPaymentReceipt(@PathVariable UUID id) {
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> downloadPaymentReceipt(
+            @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             PaymentResponse payment = paymentService.getPaymentById(id);
             if (!"COMPLETED".equalsIgnoreCase(payment.getPaymentStatus())) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Receipt hanya tersedia untuk pembayaran COMPLETED"));
+                return CompletableFuture.completedFuture(
+                        errorBody(HttpStatus.BAD_REQUEST, "Receipt hanya tersedia untuk pembayaran COMPLETED"));
             }
-            byte[] pdfBytes = paymentReceiptService.generatePaymentReceipt(payment);
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=receipt_" + id + ".pdf")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(pdfBytes);
+            String etag = paymentReceiptStore.etag(payment);
+            if (FileResponses.matchesEtag(ifNoneMatch, etag)) {
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag)
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .build());
+            }
+            // Render di executor receipt yang terbatas hanya jika versi ini belum tersimpan
+            return paymentReceiptService.receiptFile(payment)
+                    .thenApply(file -> FileResponses.file(file, MediaType.APPLICATION_PDF, etag, "receipt_" + id + ".pdf"))
+                    .exceptionally(e -> errorBody(HttpStatus.INTERNAL_SERVER_ERROR,
+                            "Gagal mengunduh tanda terima: " + e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            // Antrian render penuh: minta client mencoba lagi
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(jsonError("Server sedang sibuk membuat tanda terima, coba lagi")));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(
+                    errorBody(HttpStatus.INTERNAL_SERVER_ERROR, "Gagal mengunduh tanda terima: " + e.getMessage()));
+        }
+    }
+
+    // 🔹 Mulai job ZIP receipt untuk satu kelas atau satu tahun ajaran; status dan download lewat /api/exports/{jobId}
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @PostMapping("/receipts/bulk")
+    public ResponseEntity<?> startBulkReceipts(
+            @RequestParam(required = false) Long classId,
+            @RequestParam(required = false) Long schoolYearId,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        if ((classId == null) == (schoolYearId == null)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Isi salah satu dari classId atau schoolYearId"));
+        }
+        try {
+            ExportJobResponse job = classId != null
+                    ? bulkReceiptService.startForClass(classId, userDetails.getUserId())
+                    : bulkReceiptService.startForSchoolYear(schoolYearId, userDetails.getUserId());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (TooManyJobsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("error", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(Map.of("error", "Antrian export penuh, coba lagi nanti"));
         } catch (Exception e) {
-            return ResponseEntity.internalServerError().body(Map.of("error", "Gagal mengunduh tanda terima: " + e.getMessage()));
+            return ResponseEntity.internalServerError().body(Map.of("error", "Terjadi kesalahan pada server: " + e.getMessage()));
         }
     }
+
+    private ResponseEntity<StreamingResponseBody> errorBody(HttpStatus status, String message) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jsonError(message));
+    }
+
+    // Body error {"error": ...} untuk endpoint yang tipe body-nya StreamingResponseBody
+    private StreamingResponseBody jsonError(String message) {
+        return outputStream -> outputStream.write(objectMapper.writeValueAsBytes(Map.of("error", message)));
+    }
+
+    private PaymentFilterCriteria toFilterCriteria(String paymentName, String studentName, String userName,
+                                                   String paymentStatus, LocalDate schoolYearStartDate,
+                                                   LocalDate schoolYearEndDate) {
+        PaymentFilterCriteria criteria = new PaymentFilterCriteria();
+        criteria.setPaymentName(paymentName);
+        criteria.setStudentName(studentName);
+        criteria.setUserName(userName);
+        criteria.setSchoolYearStartDate(schoolYearStartDate);
+        criteria.setSchoolYearEndDate(schoolYearEndDate);
+        criteria.setPaymentStatus(paymentStatus);
+        return criteria;
+    }
 }
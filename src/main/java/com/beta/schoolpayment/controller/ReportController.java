@@ -0,0 +1,102 @@
+package com.beta.schoolpayment.controller;
+
+import com.beta.schoolpayment.dto.request.ArrearsCriteria;
+import com.beta.schoolpayment.exception.ValidationException;
+import com.beta.schoolpayment.service.ArrearsReportService;
+import com.beta.schoolpayment.service.PaymentSummaryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reports")
+public class ReportController {
+
+    private static final String XLSX = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    @Autowired
+    private PaymentSummaryService paymentSummaryService;
+
+    @Autowired
+    private ArrearsReportService arrearsReportService;
+
+    // 🔹 Rekap jumlah & total pembayaran per status, dikelompokkan per student / class / school-year / payment-type.
+    // Dibaca dari payment_summaries, bukan dari tabel payments.
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @GetMapping("/payment-summary")
+    public ResponseEntity<?> getPaymentSummary(
+            @RequestParam(defaultValue = "class") String groupBy,
+            @RequestParam(required = false) Long schoolYearId,
+            @RequestParam(required = false) Long classId,
+            @RequestParam(required = false) Long paymentTypeId) {
+        try {
+            return ResponseEntity.ok(paymentSummaryService.getSummary(groupBy, schoolYearId, classId, paymentTypeId));
+        } catch (ValidationException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(Map.of("error", "Terjadi kesalahan pada server: " + e.getMessage()));
+        }
+    }
+
+    // 🔹 Bangun ulang ringkasan sekarang (biasanya dijalankan otomatis tiap malam)
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @PostMapping("/payment-summary/rebuild")
+    public ResponseEntity<?> rebuildPaymentSummary() {
+        try {
+            paymentSummaryService.rebuild();
+            return ResponseEntity.ok(Map.of("message", "Ringkasan pembayaran berhasil dibangun ulang"));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(Map.of("error", "Terjadi kesalahan pada server: " + e.getMessage()));
+        }
+    }
+
+    // 🔹 Tunggakan (PENDING/FAILED lewat jatuh tempo per asOf, default hari ini) dikelompokkan per kelas.
+    // size = jumlah kelas per halaman (maks 100).
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @GetMapping("/arrears")
+    public ResponseEntity<?> getArrears(@ModelAttribute ArrearsCriteria criteria,
+                                        @RequestParam(defaultValue = "0") int page,
+                                        @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(arrearsReportService.getReport(criteria, page, size));
+        } catch (ValidationException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(Map.of("error", "Terjadi kesalahan pada server: " + e.getMessage()));
+        }
+    }
+
+    // 🔹 Export seluruh tunggakan sesuai filter (format csv atau xlsx), ditulis langsung ke response
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @GetMapping("/arrears/export")
+    public ResponseEntity<?> exportArrears(@ModelAttribute ArrearsCriteria criteria,
+                                           @RequestParam(defaultValue = "xlsx") String format) {
+        StreamingResponseBody body;
+        MediaType contentType;
+        switch (format.toLowerCase(Locale.ROOT)) {
+            case "csv" -> {
+                body = outputStream -> arrearsReportService.exportCsv(criteria, outputStream);
+                contentType = new MediaType("text", "csv", StandardCharsets.UTF_8);
+            }
+            case "xlsx" -> {
+                body = outputStream -> arrearsReportService.exportXlsx(criteria, outputStream);
+                contentType = MediaType.parseMediaType(XLSX);
+            }
+            default -> {
+                return ResponseEntity.badRequest().body(Map.of("error", "format tidak valid. Pilihan: csv, xlsx"));
+            }
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=arrears." + format.toLowerCase(Locale.ROOT))
+                .contentType(contentType)
+                .body(body);
+    }
+}
@@ -6,8 +6,10 @@ import com.beta.schoolpayment.dto.response.ErrorResponse;
 import com.beta.schoolpayment.dto.response.PaginatedResponse;
 import com.beta.schoolpayment.dto.response.StudentResponse;
 import com.beta.schoolpayment.exception.DataNotFoundException;
+import com.beta.schoolpayment.exception.FileInvalidException;
 import com.beta.schoolpayment.exception.ValidationException;
 import com.beta.schoolpayment.model.Student;
+import com.beta.schoolpayment.service.StudentImportService;
 import com.beta.schoolpayment.service.StudentService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -15,6 +17,7 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -26,6 +29,9 @@ public class StudentController {
     @Autowired
     private StudentService studentService;
 
+    @Autowired
+    private StudentImportService studentImportService;
+
     @GetMapping
     public ResponseEntity<?> getAllStudent(
             @RequestParam(defaultValue = "0") int page,
@@ -89,6 +95,28 @@ public class StudentController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
+    // Import student massal dari file .xlsx / .csv (header: nis, name, classId, birthdate, address, phoneNumber).
+    // Baris yang gagal dilaporkan per nomor baris, baris lain tetap disimpan.
+    @PostMapping("/import")
+    public ResponseEntity<?> importStudents(@RequestParam("file") MultipartFile file) {
+        try {
+            return ResponseEntity.ok(new ApiResponse<>(200, studentImportService.importStudents(file)));
+        } catch (FileInvalidException | ValidationException e) {
+            ErrorResponse errorResponse = ( new ErrorResponse(
+                    HttpStatus.BAD_REQUEST.value(),
+                    "Validation Error",
+                    e.getMessage()
+            ));
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        } catch (Exception e) {
+            ErrorResponse errorResponse = ( new ErrorResponse(
+                    HttpStatus.INTERNAL_SERVER_ERROR.value(),
+                    "Internal Server Error",
+                    "An unexpected error occurred."
+            ));
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
     @PutMapping("/{id}")
     public ResponseEntity<?> updateStudent(@PathVariable Long id, @RequestBody StudentRequest studentRequest) {
         try {
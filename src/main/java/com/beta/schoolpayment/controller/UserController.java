@@ -1,23 +1,31 @@
 package com.beta.schoolpayment.controller;
 
 import com.beta.schoolpayment.dto.request.AuthRequest;
+import com.beta.schoolpayment.dto.request.RefreshTokenRequest;
 import com.beta.schoolpayment.dto.request.UserRequest;
 import com.beta.schoolpayment.dto.response.ApiResponse;
+import com.beta.schoolpayment.dto.response.AuthResponse;
 import com.beta.schoolpayment.dto.response.ErrorResponse;
 import com.beta.schoolpayment.dto.response.PaginatedResponse;
 import com.beta.schoolpayment.dto.response.UserResponse;
 import com.beta.schoolpayment.exception.DataNotFoundException;
+import com.beta.schoolpayment.exception.UnauthorizedException;
 import com.beta.schoolpayment.exception.ValidationException;
+import com.beta.schoolpayment.service.ImageService;
 import com.beta.schoolpayment.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("api/users")
@@ -52,8 +60,17 @@ public class UserController {
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody AuthRequest authRequest){
         try {
-            String token = userService.login(authRequest).getToken();
-            return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), token));
+            // token (access, umur pendek) + refreshToken untuk /api/users/refresh
+            AuthResponse authResponse = userService.login(authRequest);
+            return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), authResponse));
+        } catch (RejectedExecutionException e) {
+            // Antrian verifikasi password penuh (lonjakan login): minta client mencoba lagi
+            ErrorResponse errorResponse = new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(),
+                    "Service Unavailable",
+                    "Server sedang sibuk, coba lagi");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(errorResponse);
         } catch (RuntimeException e) {
             ErrorResponse errorResponse = new ErrorResponse(HttpStatus.BAD_REQUEST.value(),
                     "Token invalid",
@@ -66,6 +83,37 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
+    // 🔹 Tukar refresh token dengan access token + refresh token baru (token lama tidak berlaku lagi)
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshTokenRequest refreshTokenRequest) {
+        try {
+            AuthResponse authResponse = userService.refresh(refreshTokenRequest.getRefreshToken());
+            return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), authResponse));
+        } catch (UnauthorizedException e) {
+            ErrorResponse errorResponse = new ErrorResponse(HttpStatus.UNAUTHORIZED.value(),
+                    "Unauthorized",
+                    e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
+        } catch (Exception e) {
+            ErrorResponse errorResponse = new ErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR.value(),
+                    "Internal Server Error",
+                    "An unexpected error occurred.");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+    // 🔹 Cabut sesi dari refresh token ini (access token yang sudah terbit tetap berlaku sampai kadaluarsa)
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestBody RefreshTokenRequest refreshTokenRequest) {
+        try {
+            userService.logout(refreshTokenRequest.getRefreshToken());
+            return ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            ErrorResponse errorResponse = new ErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR.value(),
+                    "Internal Server Error",
+                    "An unexpected error occurred.");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
     @GetMapping("/me")
     public ResponseEntity<?> me(Authentication authentication) {
         try {
@@ -151,11 +199,27 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
+    // 🔹 Foto profil user: redirect ke URL content-addressed /api/images/{key} (yang boleh di-cache selamanya).
+    // Redirect-nya sendiri tidak di-cache karena key berubah setiap kali foto diganti.
     @GetMapping("/profile/picture/{id}")
-    public ResponseEntity<?> getProfilePicture(@PathVariable UUID id) {
+    public ResponseEntity<?> getProfilePicture(@PathVariable UUID id,
+                                               @RequestParam(value = "size", required = false) Integer size) {
         try {
-            byte[] image = userService.getImageById(id);
-            return ResponseEntity.ok(image);
+            String key = userService.getProfilePictureKey(id);
+            if (!ImageService.isImageKey(key)) {
+                // Foto lama yang file-nya tidak ditemukan saat migrasi ke ImageStore
+                throw new DataNotFoundException("Profile picture not found for user: " + id);
+            }
+            String location = "/api/images/" + key + (size != null ? "?size=" + size : "");
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(URI.create(location))
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .build();
+        } catch (DataNotFoundException e) {
+            ErrorResponse errorResponse = new ErrorResponse(HttpStatus.NOT_FOUND.value(),
+                    "Data Not Found",
+                    e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
         } catch (RuntimeException e) {
             ErrorResponse errorResponse = new ErrorResponse(HttpStatus.BAD_REQUEST.value(),
                     "Failed to get image",
@@ -0,0 +1,16 @@
+package com.beta.schoolpayment.dto.request;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+// Filter laporan tunggakan: payment PENDING/FAILED dengan jatuh tempo sebelum asOf
+@Data
+public class ArrearsCriteria {
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate asOf; // default: hari ini
+    private Long schoolYearId;
+    private Long classId;
+    private Long paymentTypeId;
+}
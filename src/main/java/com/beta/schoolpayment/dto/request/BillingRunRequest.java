@@ -0,0 +1,21 @@
+package com.beta.schoolpayment.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Scope: isi salah satu dari classId atau schoolYearId
+@Data
+public class BillingRunRequest {
+    private Long paymentTypeId;
+    private BigDecimal amount;
+    private String billingPeriod; // yyyy-MM
+    private Long classId;
+    private Long schoolYearId;
+    private String paymentName; // default: <nama jenis pembayaran> <periode>
+    private String description;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private LocalDate dueDate; // default: akhir bulan periode
+}
@@ -0,0 +1,47 @@
+package com.beta.schoolpayment.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+// Posisi keyset pada urutan (createdAt, paymentId). Arah urutan ikut disimpan di token untuk klien,
+// agar cursor dari halaman asc tidak dipakai untuk halaman desc (hasilnya akan melompati data).
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaymentCursor {
+    private LocalDateTime createdAt;
+    private UUID paymentId;
+    private Sort.Direction direction;
+
+    // Batas partisi export (selalu urut naik, tidak dikirim ke klien)
+    public PaymentCursor(LocalDateTime createdAt, UUID paymentId) {
+        this(createdAt, paymentId, null);
+    }
+
+    // Token opaque untuk klien: base64url dari "createdAt|paymentId|direction"
+    public String encode() {
+        String raw = createdAt + "|" + paymentId + "|" + direction;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PaymentCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException(raw);
+            }
+            return new PaymentCursor(LocalDateTime.parse(parts[0]), UUID.fromString(parts[1]),
+                    Sort.Direction.valueOf(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor tidak valid");
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.beta.schoolpayment.dto.request;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
 import lombok.Data;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.UUID;
 
 @Data
@@ -13,4 +15,6 @@ public class PaymentRequest {
     private BigDecimal amount;
     private String paymentStatus;
     private String description;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private LocalDate dueDate;
 }
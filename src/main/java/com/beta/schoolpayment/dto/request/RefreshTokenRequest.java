@@ -0,0 +1,8 @@
+package com.beta.schoolpayment.dto.request;
+
+import lombok.Data;
+
+@Data
+public class RefreshTokenRequest {
+    private String refreshToken;
+}
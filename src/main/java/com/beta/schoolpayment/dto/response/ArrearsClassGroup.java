@@ -0,0 +1,18 @@
+package com.beta.schoolpayment.dto.response;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ArrearsClassGroup {
+    private Long classId;
+    private String className;
+    private long overdueCount;
+    private BigDecimal overdueAmount = BigDecimal.ZERO;
+    private List<ArrearsStudentRow> students = new ArrayList<>();
+}
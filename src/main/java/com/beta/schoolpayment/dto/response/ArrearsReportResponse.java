@@ -0,0 +1,21 @@
+package com.beta.schoolpayment.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Satu halaman laporan tunggakan; pagination per kelas (size = jumlah kelas per halaman)
+@Data
+@NoArgsConstructor
+public class ArrearsReportResponse {
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private LocalDate asOf;
+    private int page;
+    private int size;
+    private long totalClasses;
+    private int totalPages;
+    private List<ArrearsClassGroup> classes;
+}
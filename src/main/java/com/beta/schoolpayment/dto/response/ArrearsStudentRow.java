@@ -0,0 +1,26 @@
+package com.beta.schoolpayment.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Tunggakan satu student: jumlah dan total payment terbuka yang lewat jatuh tempo
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArrearsStudentRow {
+    private Long classId;
+    private String className;
+    private Long studentId;
+    private Long nis;
+    private String studentName;
+    private long overdueCount;
+    private BigDecimal overdueAmount;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private LocalDate oldestDueDate;
+    private long daysOverdue;
+}
@@ -9,4 +9,10 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class AuthResponse {
     private String token;
+    // Opaque, dirotasi setiap dipakai di /api/users/refresh; null pada /me/refresh
+    private String refreshToken;
+
+    public AuthResponse(String token) {
+        this.token = token;
+    }
 }
@@ -0,0 +1,36 @@
+package com.beta.schoolpayment.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+public class BillingRunResponse {
+    private UUID runId;
+    private Long paymentTypeId;
+    private String billingPeriod;
+    private String scopeType;
+    private Long scopeId;
+    private String paymentName;
+    private BigDecimal amount;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private LocalDate dueDate;
+    private String status;
+    private Long lastStudentId;
+    private int studentsProcessed;
+    private int paymentsCreated;
+    private String error;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime updatedAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,30 @@
+package com.beta.schoolpayment.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPaginatedResponse<T> {
+    public int status;
+    public List<T> data;
+    public int size;
+    public boolean hasNext;
+    public String nextCursor;
+
+    public CursorPaginatedResponse(int status, Slice<T> slice, Function<T, String> cursorOf) {
+        this.status = status;
+        this.data = slice.getContent();
+        this.size = slice.getSize();
+        this.hasNext = slice.hasNext();
+        this.nextCursor = slice.hasNext() && slice.hasContent()
+                ? cursorOf.apply(slice.getContent().get(slice.getNumberOfElements() - 1))
+                : null;
+    }
+}
@@ -0,0 +1,29 @@
+package com.beta.schoolpayment.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+public class ExportJobResponse {
+    private UUID jobId;
+    private String type; // payments, receipts, ...
+    private String status; // QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    private String filename;
+    private int total;
+    private int processed;
+    private int failed;
+    private String error;
+    private String downloadUrl; // hanya terisi jika COMPLETED
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime finishedAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime expiresAt;
+}
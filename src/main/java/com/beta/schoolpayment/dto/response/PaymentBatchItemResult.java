@@ -0,0 +1,24 @@
+package com.beta.schoolpayment.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Hasil satu item batch, index sesuai urutan di request
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentBatchItemResult {
+    private int index;
+    private String status; // CREATED, FAILED
+    private PaymentResponse payment;
+    private String error;
+
+    public static PaymentBatchItemResult created(int index, PaymentResponse payment) {
+        return new PaymentBatchItemResult(index, "CREATED", payment, null);
+    }
+
+    public static PaymentBatchItemResult failed(int index, String error) {
+        return new PaymentBatchItemResult(index, "FAILED", null, error);
+    }
+}
@@ -0,0 +1,17 @@
+package com.beta.schoolpayment.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentBatchResponse {
+    private int total;
+    private int created;
+    private int failed;
+    private List<PaymentBatchItemResult> results;
+}
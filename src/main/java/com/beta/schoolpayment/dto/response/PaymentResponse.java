@@ -1,12 +1,17 @@
 package com.beta.schoolpayment.dto.response;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+// Urutan field dipakai oleh constructor projection di PaymentRepository
 @Data
+@AllArgsConstructor
+@NoArgsConstructor
 public class PaymentResponse {
     private UUID paymentId;
     private String paymentName;
@@ -0,0 +1,15 @@
+package com.beta.schoolpayment.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentStatusTotal {
+    private long count;
+    private BigDecimal amount;
+}
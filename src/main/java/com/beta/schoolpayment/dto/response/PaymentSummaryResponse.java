@@ -0,0 +1,21 @@
+package com.beta.schoolpayment.dto.response;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+public class PaymentSummaryResponse {
+    private Long id;
+    private String name;
+    // Jumlah dan total amount per status pembayaran (PENDING, COMPLETED, FAILED, REFUNDED)
+    private Map<String, PaymentStatusTotal> statuses;
+    private long totalCount;
+    // Tagihan yang belum dibayar (PENDING)
+    private BigDecimal outstandingAmount;
+    // Pembayaran yang sudah diterima (COMPLETED)
+    private BigDecimal collectedAmount;
+}
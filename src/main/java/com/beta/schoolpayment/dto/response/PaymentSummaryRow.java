@@ -0,0 +1,19 @@
+package com.beta.schoolpayment.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Satu baris hasil agregasi payment_summaries: (kelompok, status) -> jumlah dan total amount
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentSummaryRow {
+    private Long groupId;
+    private String groupName;
+    private String paymentStatus;
+    private Long paymentCount;
+    private BigDecimal totalAmount;
+}
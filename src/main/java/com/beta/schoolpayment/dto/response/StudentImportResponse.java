@@ -0,0 +1,19 @@
+package com.beta.schoolpayment.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentImportResponse {
+    private int total;
+    private int created;
+    private int failed;
+    // true jika jumlah baris gagal melebihi batas laporan; failed tetap menghitung semuanya
+    private boolean errorsTruncated;
+    private List<StudentImportError> errors;
+}
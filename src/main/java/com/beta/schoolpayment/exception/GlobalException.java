@@ -51,6 +51,18 @@ public class GlobalException {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
     }
 
+    @ExceptionHandler(PaymentStatusConflictException.class)
+    public ResponseEntity<String> handlePaymentStatusConflictException(PaymentStatusConflictException ex) {
+        logger.warn("Payment status conflict: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(TooManyJobsException.class)
+    public ResponseEntity<String> handleTooManyJobsException(TooManyJobsException ex) {
+        logger.warn("Too many jobs: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(ex.getMessage());
+    }
+
     @ExceptionHandler(NoHandlerFoundException.class)
     public ResponseEntity<String> handleNotFound(NoHandlerFoundException ex, WebRequest request) {
         logger.error("Endpoint not found: {}", request.getDescription(false));
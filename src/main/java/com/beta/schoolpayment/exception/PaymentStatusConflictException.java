@@ -0,0 +1,8 @@
+package com.beta.schoolpayment.exception;
+
+// Transisi status tidak diizinkan, atau status payment sudah diubah request lain
+public class PaymentStatusConflictException extends RuntimeException {
+    public PaymentStatusConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.beta.schoolpayment.exception;
+
+public class TooManyJobsException extends RuntimeException {
+    public TooManyJobsException(String message) {
+        super(message);
+    }
+}
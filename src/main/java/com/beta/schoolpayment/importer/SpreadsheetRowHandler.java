@@ -0,0 +1,11 @@
+package com.beta.schoolpayment.importer;
+
+import java.util.List;
+
+// Dipanggil sekali per baris saat file dibaca secara streaming (baris header juga ikut dikirim)
+@FunctionalInterface
+public interface SpreadsheetRowHandler {
+
+    // rowNumber mengikuti nomor baris di file (mulai 1), cells berisi nilai teks per kolom
+    void row(int rowNumber, List<String> cells);
+}
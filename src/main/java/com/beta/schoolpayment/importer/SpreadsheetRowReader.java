@@ -0,0 +1,194 @@
+package com.beta.schoolpayment.importer;
+
+import com.beta.schoolpayment.exception.FileInvalidException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+// Pembaca spreadsheet baris per baris. Tidak ada yang menampung seluruh isi file di memori:
+// XLSX dibaca dengan API event (SAX) POI, CSV dibaca per karakter dari stream.
+public final class SpreadsheetRowReader {
+
+    private SpreadsheetRowReader() {
+    }
+
+    // 🔹 Sheet pertama file XLSX. File dibuka dari disk (bukan dari InputStream) agar POI tidak
+    // memuat seluruh zip ke memori; hanya shared strings table yang dibaca penuh.
+    public static void readXlsx(Path file, SpreadsheetRowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new FileInvalidException("File Excel tidak memiliki sheet");
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), strings,
+                        new SheetRows(handler), new ImportDataFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new FileInvalidException("File Excel tidak valid: " + e.getMessage());
+        }
+    }
+
+    // 🔹 CSV (RFC 4180: field boleh diberi tanda kutip, "" di dalam kutip = satu kutip, newline di dalam kutip).
+    // Pemisah ',' atau ';' (ekspor Excel berlocale Indonesia) ditentukan dari baris header.
+    // Nomor baris yang dilaporkan = baris fisik tempat record dimulai; newline di dalam kutip ikut dihitung.
+    public static void readCsv(InputStream in, SpreadsheetRowHandler handler) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+        char delimiter = detectDelimiter(reader);
+
+        List<String> cells = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean rowHasContent = false;
+        int line = 1;
+        int rowNumber = 1;
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                    // \r\n dihitung sekali (pada \n)
+                    if (c == '\n' || (c == '\r' && !nextIs(reader, '\n'))) {
+                        line++;
+                    }
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+                rowHasContent = true;
+            } else if (c == delimiter) {
+                cells.add(field.toString());
+                field.setLength(0);
+                rowHasContent = true;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                if (rowHasContent || !field.isEmpty()) {
+                    cells.add(field.toString());
+                    handler.row(rowNumber, cells);
+                    cells = new ArrayList<>();
+                }
+                field.setLength(0);
+                rowHasContent = false;
+                rowNumber = ++line;
+            } else {
+                field.append((char) c);
+            }
+        }
+        if (rowHasContent || !field.isEmpty()) {
+            cells.add(field.toString());
+            handler.row(rowNumber, cells);
+        }
+    }
+
+    private static boolean nextIs(Reader reader, char expected) throws IOException {
+        reader.mark(1);
+        boolean matches = reader.read() == expected;
+        reader.reset();
+        return matches;
+    }
+
+    private static char detectDelimiter(Reader reader) throws IOException {
+        reader.mark(4096);
+        int commas = 0;
+        int semicolons = 0;
+        for (int i = 0, c; i < 4096 && (c = reader.read()) != -1 && c != '\n'; i++) {
+            if (c == ',') {
+                commas++;
+            } else if (c == ';') {
+                semicolons++;
+            }
+        }
+        reader.reset();
+        return semicolons > commas ? ';' : ',';
+    }
+
+    // Mengumpulkan sel satu baris; sel kosong tidak dikirim oleh POI sehingga posisi kolom diambil dari cellRef
+    private static class SheetRows implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final SpreadsheetRowHandler handler;
+        private List<String> cells = new ArrayList<>();
+        private int column;
+
+        SheetRows(SpreadsheetRowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells = new ArrayList<>();
+            column = 0;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            handler.row(rowNum + 1, cells);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int index = cellReference != null ? new CellReference(cellReference).getCol() : column;
+            while (cells.size() < index) {
+                cells.add("");
+            }
+            cells.add(formattedValue);
+            column = index + 1;
+        }
+    }
+
+    // Nilai numerik tidak diformat sesuai tampilan Excel: tanggal menjadi yyyy-MM-dd dan angka ditulis
+    // lengkap (NIS 12 digit tidak berubah menjadi 1.23457E+11)
+    private static class ImportDataFormatter extends DataFormatter {
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                return DateUtil.getLocalDateTime(value).toLocalDate().toString();
+            }
+            return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.beta.schoolpayment.job;
+
+import com.beta.schoolpayment.dto.response.ExportJobResponse;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// State satu job export di memori; file hasilnya ada di folder spool
+public class ExportJob implements ExportProgress {
+
+    private final UUID id = UUID.randomUUID();
+    private final UUID ownerId;
+    private final String type;
+    private final String filename;
+    private final String contentType;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final AtomicInteger processed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicBoolean slotReleased = new AtomicBoolean();
+
+    private volatile ExportJobStatus status = ExportJobStatus.QUEUED;
+    private volatile int total;
+    private volatile String error;
+    private volatile LocalDateTime finishedAt;
+    private volatile LocalDateTime expiresAt;
+    private volatile Path file;
+    private volatile Future<?> future;
+
+    ExportJob(UUID ownerId, String type, String filename, String contentType) {
+        this.ownerId = ownerId;
+        this.type = type;
+        this.filename = filename;
+        this.contentType = contentType;
+    }
+
+    @Override
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    @Override
+    public void itemProcessed() {
+        processed.incrementAndGet();
+    }
+
+    @Override
+    public void itemFailed() {
+        failed.incrementAndGet();
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public UUID getOwnerId() {
+        return ownerId;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public ExportJobStatus getStatus() {
+        return status;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    Future<?> getFuture() {
+        return future;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    // true hanya untuk pemanggil pertama, agar slot per user tidak dilepas dua kali
+    boolean releaseSlot() {
+        return slotReleased.compareAndSet(false, true);
+    }
+
+    boolean isFinished() {
+        return status == ExportJobStatus.COMPLETED || status == ExportJobStatus.FAILED
+                || status == ExportJobStatus.CANCELLED;
+    }
+
+    // Perpindahan status disinkronkan agar cancel() dan worker tidak saling menimpa status final
+
+    // false jika job sudah dibatalkan sebelum worker mengambilnya
+    synchronized boolean markRunning() {
+        if (status != ExportJobStatus.QUEUED) {
+            return false;
+        }
+        status = ExportJobStatus.RUNNING;
+        return true;
+    }
+
+    synchronized boolean complete(Path file, LocalDateTime expiresAt) {
+        if (isFinished()) {
+            return false;
+        }
+        this.file = file;
+        return finish(ExportJobStatus.COMPLETED, null, expiresAt);
+    }
+
+    // false jika job sudah berstatus final (mis. dibatalkan selagi berjalan)
+    synchronized boolean finish(ExportJobStatus status, String error, LocalDateTime expiresAt) {
+        if (isFinished()) {
+            return false;
+        }
+        this.error = error;
+        this.finishedAt = LocalDateTime.now();
+        this.expiresAt = expiresAt;
+        this.status = status;
+        return true;
+    }
+
+    // Tandai CANCELLED dan kembalikan status sebelumnya
+    synchronized ExportJobStatus cancel() {
+        ExportJobStatus previous = status;
+        finish(ExportJobStatus.CANCELLED, null, null);
+        return previous;
+    }
+
+    public ExportJobResponse toResponse() {
+        ExportJobResponse response = new ExportJobResponse();
+        response.setJobId(id);
+        response.setType(type);
+        response.setStatus(status.name());
+        response.setFilename(filename);
+        response.setTotal(total);
+        response.setProcessed(processed.get());
+        response.setFailed(failed.get());
+        response.setError(error);
+        response.setCreatedAt(createdAt);
+        response.setFinishedAt(finishedAt);
+        response.setExpiresAt(expiresAt);
+        if (status == ExportJobStatus.COMPLETED) {
+            response.setDownloadUrl("/api/exports/" + id + "/download");
+        }
+        return response;
+    }
+}
@@ -0,0 +1,271 @@
+package com.beta.schoolpayment.job;
+
+import com.beta.schoolpayment.dto.response.ExportJobResponse;
+import com.beta.schoolpayment.exception.DataNotFoundException;
+import com.beta.schoolpayment.exception.TooManyJobsException;
+import com.beta.schoolpayment.security.CustomUserDetails;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Engine job export asinkron: file ditulis di worker pool terbatas ke folder spool,
+// client polling status lalu download. Hasil kedaluwarsa dihapus oleh scheduler.
+// State job hanya disimpan di memori instance ini: hanya untuk deployment satu node (status, download dan cancel
+// harus sampai ke instance yang menerima submit), dan job hilang saat restart. File yatim dari proses sebelumnya
+// ikut dibersihkan oleh scheduler.
+@Service
+public class ExportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportJobService.class);
+
+    private static final String PART_SUFFIX = ".part";
+
+    @Value("${export.jobs.dir:data/exports}")
+    private String spoolDir;
+
+    @Value("${export.jobs.threads:2}")
+    private int threads;
+
+    @Value("${export.jobs.queue-capacity:50}")
+    private int queueCapacity;
+
+    // Jumlah job aktif (QUEUED + RUNNING) maksimal per user
+    @Value("${export.jobs.max-per-user:2}")
+    private int maxPerUser;
+
+    // Lama file hasil disimpan setelah job selesai
+    @Value("${export.jobs.ttl:PT1H}")
+    private Duration ttl;
+
+    private final Map<UUID, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    private final Map<UUID, Integer> activePerOwner = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "export-job-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    // 🔹 Daftarkan job baru. TooManyJobsException jika batas per user tercapai,
+    // RejectedExecutionException jika antrian worker penuh.
+    public ExportJobResponse submit(UUID ownerId, String type, String filename, String contentType, ExportTask task) {
+        if (!acquireSlot(ownerId)) {
+            throw new TooManyJobsException("Maksimal " + maxPerUser + " export berjalan bersamaan per user");
+        }
+        ExportJob job = new ExportJob(ownerId, type, filename, contentType);
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(executor.submit(() -> run(job, task)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            releaseSlot(job);
+            throw e;
+        }
+        return job.toResponse();
+    }
+
+    public ExportJobResponse getJob(UUID jobId, CustomUserDetails requester) {
+        return findJob(jobId, requester).toResponse();
+    }
+
+    // Admin melihat semua job, user lain hanya job miliknya
+    public List<ExportJobResponse> getJobs(CustomUserDetails requester) {
+        return jobs.values().stream()
+                .filter(job -> canAccess(job, requester))
+                .map(ExportJob::toResponse)
+                .sorted(Comparator.comparing(ExportJobResponse::getCreatedAt).reversed())
+                .toList();
+    }
+
+    // 🔹 Job yang sudah COMPLETED beserta file hasilnya
+    public ExportJob getCompletedJob(UUID jobId, CustomUserDetails requester) {
+        ExportJob job = findJob(jobId, requester);
+        if (job.getStatus() != ExportJobStatus.COMPLETED) {
+            throw new IllegalStateException("Export " + jobId + " belum selesai (status " + job.getStatus() + ")");
+        }
+        return job;
+    }
+
+    // 🔹 Batalkan job yang belum selesai atau hapus hasil job yang sudah selesai.
+    // Job yang sedang berjalan tetap tercatat (CANCELLED) dan memegang slot user sampai worker-nya berhenti.
+    public ExportJobResponse cancel(UUID jobId, CustomUserDetails requester) {
+        ExportJob job = findJob(jobId, requester);
+        ExportJobStatus previous = job.cancel();
+        // CANCELLED yang masih tercatat berarti worker-nya belum berhenti
+        if (previous == ExportJobStatus.RUNNING || previous == ExportJobStatus.CANCELLED) {
+            job.getFuture().cancel(true);
+            return job.toResponse();
+        }
+        // Belum diambil worker (run() akan langsung keluar) atau sudah selesai: tidak ada yang melepas slot lagi
+        job.getFuture().cancel(false);
+        jobs.remove(jobId);
+        releaseSlot(job);
+        deleteFiles(job);
+        return job.toResponse();
+    }
+
+    // Hapus hasil yang sudah kedaluwarsa dan file spool yang tidak dimiliki job mana pun
+    @Scheduled(fixedDelayString = "${export.jobs.cleanup-interval:300000}")
+    public void cleanup() {
+        LocalDateTime now = LocalDateTime.now();
+        jobs.values().removeIf(job -> {
+            boolean expired = job.isFinished() && job.getExpiresAt() != null && job.getExpiresAt().isBefore(now);
+            if (expired) {
+                deleteFiles(job);
+            }
+            return expired;
+        });
+
+        Path directory = Path.of(spoolDir);
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Instant orphanBefore = Instant.now().minus(ttl);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                UUID jobId = jobIdOf(file);
+                if ((jobId == null || !jobs.containsKey(jobId))
+                        && Files.getLastModifiedTime(file).toInstant().isBefore(orphanBefore)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Gagal membersihkan folder export {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private void run(ExportJob job, ExportTask task) {
+        if (!job.markRunning()) {
+            // Dibatalkan selagi antri; slot sudah dilepas oleh cancel()
+            return;
+        }
+        Path part = Path.of(spoolDir, job.getId() + PART_SUFFIX);
+        try {
+            Files.createDirectories(part.getParent());
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(part))) {
+                task.write(outputStream, job);
+            }
+            Path result = Path.of(spoolDir, job.getId() + extensionOf(job.getFilename()));
+            Files.move(part, result, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // Slot dilepas sebelum status final, sehingga client yang melihat COMPLETED bisa langsung submit lagi
+            releaseSlot(job);
+            if (!job.complete(result, LocalDateTime.now().plus(ttl))) {
+                // Dibatalkan selagi berjalan: hasilnya tidak dibutuhkan lagi
+                deleteQuietly(result);
+            }
+        } catch (Exception e) {
+            releaseSlot(job);
+            deleteQuietly(part);
+            if (job.finish(ExportJobStatus.FAILED, e.getMessage(), LocalDateTime.now().plus(ttl))) {
+                logger.error("Export {} ({}) gagal: {}", job.getId(), job.getFilename(), e.getMessage(), e);
+            }
+        } finally {
+            releaseSlot(job);
+            if (job.getStatus() == ExportJobStatus.CANCELLED) {
+                jobs.remove(job.getId());
+            }
+        }
+    }
+
+    private ExportJob findJob(UUID jobId, CustomUserDetails requester) {
+        ExportJob job = jobs.get(jobId);
+        // Job milik user lain dilaporkan tidak ada, supaya id job tidak bisa ditebak-tebak
+        if (job == null || !canAccess(job, requester)) {
+            throw new DataNotFoundException("Export job tidak ditemukan: " + jobId);
+        }
+        return job;
+    }
+
+    private static boolean canAccess(ExportJob job, CustomUserDetails requester) {
+        return requester.isAdmin() || job.getOwnerId().equals(requester.getUserId());
+    }
+
+    private boolean acquireSlot(UUID ownerId) {
+        boolean[] acquired = {false};
+        activePerOwner.compute(ownerId, (id, active) -> {
+            int current = active != null ? active : 0;
+            if (current >= maxPerUser) {
+                return active;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+        return acquired[0];
+    }
+
+    // Slot dilepas sekali per job: lewat akhir run(), atau lewat cancel() untuk job yang belum berjalan
+    private void releaseSlot(ExportJob job) {
+        if (job.releaseSlot()) {
+            activePerOwner.computeIfPresent(job.getOwnerId(), (id, active) -> active > 1 ? active - 1 : null);
+        }
+    }
+
+    private void deleteFiles(ExportJob job) {
+        if (job.getFile() != null) {
+            deleteQuietly(job.getFile());
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Gagal menghapus file export {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static UUID jobIdOf(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.indexOf('.');
+        try {
+            return UUID.fromString(dot > 0 ? name.substring(0, dot) : name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String extensionOf(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot >= 0 ? filename.substring(dot) : "";
+    }
+}
@@ -0,0 +1,5 @@
+package com.beta.schoolpayment.job;
+
+public enum ExportJobStatus {
+    QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+}
@@ -0,0 +1,10 @@
+package com.beta.schoolpayment.job;
+
+// Penghitung progres yang bisa dipanggil dari banyak thread sekaligus
+public interface ExportProgress {
+    void setTotal(int total);
+
+    void itemProcessed();
+
+    void itemFailed();
+}
@@ -0,0 +1,9 @@
+package com.beta.schoolpayment.job;
+
+import java.io.OutputStream;
+
+// Isi file export: ditulis ke output stream (file spool), progres dilaporkan lewat ExportProgress
+@FunctionalInterface
+public interface ExportTask {
+    void write(OutputStream outputStream, ExportProgress progress) throws Exception;
+}
@@ -0,0 +1,79 @@
+package com.beta.schoolpayment.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Satu billing run (tagihan berulang per kelas / tahun ajaran) beserta checkpoint-nya
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "billing_runs")
+public class BillingRun {
+
+    @Id
+    @Column(name = "run_id", nullable = false, updatable = false)
+    private UUID runId;
+
+    @Column(name = "payment_type_id", nullable = false)
+    private Long paymentTypeId;
+
+    @Column(name = "billing_period", nullable = false, length = 7)
+    private String billingPeriod;
+
+    @Column(name = "scope_type", nullable = false, length = 20)
+    private String scopeType; // CLASS, SCHOOL_YEAR
+
+    @Column(name = "scope_id", nullable = false)
+    private Long scopeId;
+
+    @Column(name = "payment_name", nullable = false)
+    private String paymentName;
+
+    private String description;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(name = "due_date")
+    private LocalDate dueDate;
+
+    @Column(nullable = false, length = 20)
+    private String status; // RUNNING, COMPLETED, FAILED
+
+    // Checkpoint: student dengan id <= lastStudentId sudah ditagih
+    @Column(name = "last_student_id", nullable = false)
+    private Long lastStudentId = 0L;
+
+    @Column(name = "students_processed", nullable = false)
+    private int studentsProcessed;
+
+    @Column(name = "payments_created", nullable = false)
+    private int paymentsCreated;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    @Column(name = "created_by")
+    private UUID createdBy;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+}
@@ -0,0 +1,27 @@
+package com.beta.schoolpayment.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Blob gambar di ImageStore; refCount = jumlah baris (mis. users.profile_picture) yang memakai key ini
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "image_blobs")
+public class ImageBlob {
+
+    @Id
+    @Column(name = "image_key", nullable = false, length = 100)
+    private String imageKey;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
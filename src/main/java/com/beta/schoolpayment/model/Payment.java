@@ -7,9 +7,11 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UuidGenerator;
 
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -21,7 +23,7 @@ import java.util.UUID;
 public class Payment {
 
     @Id
-    @GeneratedValue(generator = "UUID")
+    @UuidGenerator // UUID dibuat di aplikasi: tidak perlu round-trip ke database, insert tetap bisa di-batch
     @Column(updatable = false, nullable = false)
     private UUID paymentId;
 
@@ -48,6 +50,14 @@ public class Payment {
 
     private String description;
 
+    // Periode tagihan berulang (yyyy-MM), null untuk payment biasa
+    @Column(name = "billing_period", length = 7)
+    private String billingPeriod;
+
+    // Jatuh tempo; null berarti jatuh tempo pada tanggal dibuat
+    @Column(name = "due_date")
+    private LocalDate dueDate;
+
     @Column(nullable = false, updatable = false)
     @JsonSerialize(using = LocalDateTimeSerializer.class)
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm:ss")
@@ -60,6 +70,11 @@ public class Payment {
 
     private LocalDateTime deletedAt;
 
+    // Dinaikkan setiap update; save() entity yang sudah usang (mis. status diubah request lain) ditolak
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
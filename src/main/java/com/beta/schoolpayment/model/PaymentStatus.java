@@ -0,0 +1,36 @@
+package com.beta.schoolpayment.model;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+// Status pembayaran dan transisi yang diizinkan. Kolom payment_status tetap disimpan sebagai teks.
+public enum PaymentStatus {
+    PENDING,
+    COMPLETED,
+    FAILED,
+    REFUNDED;
+
+    // PENDING -> COMPLETED/FAILED, FAILED -> PENDING (dicoba lagi) atau COMPLETED (callback terlambat),
+    // COMPLETED -> REFUNDED. REFUNDED adalah status akhir.
+    public boolean canTransitionTo(PaymentStatus target) {
+        return switch (this) {
+            case PENDING -> target == COMPLETED || target == FAILED;
+            case FAILED -> target == PENDING || target == COMPLETED;
+            case COMPLETED -> target == REFUNDED;
+            case REFUNDED -> false;
+        };
+    }
+
+    public static PaymentStatus from(String value) {
+        if (value != null) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ignored) {
+                // dilaporkan di bawah dengan daftar pilihan
+            }
+        }
+        throw new IllegalArgumentException("Status pembayaran tidak valid. Pilihan: " +
+                Arrays.stream(values()).map(Enum::name).collect(Collectors.joining(", ")));
+    }
+}
@@ -0,0 +1,31 @@
+package com.beta.schoolpayment.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Idempotency-Key perubahan status yang sudah diproses (ditulis oleh PaymentRepository.transitionStatus)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "payment_status_requests")
+public class PaymentStatusRequest {
+
+    @Id
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    private String idempotencyKey;
+
+    @Column(name = "payment_id", nullable = false)
+    private UUID paymentId;
+
+    @Column(name = "target_status", nullable = false, length = 20)
+    private String targetStatus;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,56 @@
+package com.beta.schoolpayment.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Ringkasan pembayaran per student x jenis pembayaran x status (tabel payment_summaries).
+// Hanya diubah lewat query delta / rebuild di PaymentSummaryRepository.
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "payment_summaries")
+@IdClass(PaymentSummary.Key.class)
+public class PaymentSummary {
+
+    @Id
+    @Column(name = "student_id")
+    private Long studentId;
+
+    @Id
+    @Column(name = "payment_type_id")
+    private Long paymentTypeId;
+
+    @Id
+    @Column(name = "payment_status", length = 20)
+    private String paymentStatus;
+
+    @Column(name = "class_id")
+    private Long classId;
+
+    @Column(name = "school_year_id")
+    private Long schoolYearId;
+
+    @Column(name = "payment_count", nullable = false)
+    private long paymentCount;
+
+    @Column(name = "total_amount", nullable = false)
+    private BigDecimal totalAmount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long studentId;
+        private Long paymentTypeId;
+        private String paymentStatus;
+    }
+}
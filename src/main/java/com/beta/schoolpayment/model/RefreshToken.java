@@ -0,0 +1,42 @@
+package com.beta.schoolpayment.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Refresh token yang pernah diterbitkan; tokenHash = sha256 token opaque (token asli tidak disimpan)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "refresh_tokens")
+public class RefreshToken {
+
+    @Id
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
+
+    // Semua token hasil rotasi dari satu login berbagi family yang sama
+    @Column(name = "family_id", nullable = false)
+    private UUID familyId;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Diisi saat token ditukar dengan token baru; sesudahnya token ini tidak bisa dipakai lagi
+    @Column(name = "used_at")
+    private LocalDateTime usedAt;
+
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+}
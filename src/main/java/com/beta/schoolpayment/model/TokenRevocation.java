@@ -0,0 +1,24 @@
+package com.beta.schoolpayment.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Token dengan subject ini yang dibuat sebelum revokedAt tidak berlaku lagi (mode autentikasi stateless)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "token_revocations")
+public class TokenRevocation {
+
+    @Id
+    @Column(name = "subject", nullable = false, length = 255)
+    private String subject;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+}
@@ -0,0 +1,85 @@
+package com.beta.schoolpayment.repository;
+
+import com.beta.schoolpayment.model.BillingRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface BillingRunRepository extends JpaRepository<BillingRun, UUID> {
+
+    Optional<BillingRun> findByPaymentTypeIdAndBillingPeriodAndScopeTypeAndScopeId(
+            Long paymentTypeId, String billingPeriod, String scopeType, Long scopeId);
+
+    // Run yang masih RUNNING tapi tidak diperbarui sejak staleBefore (proses mati di tengah jalan)
+    List<BillingRun> findByStatusAndUpdatedAtBefore(String status, LocalDateTime staleBefore);
+
+    // Id student aktif berikutnya setelah checkpoint (urut student_id, memakai primary key)
+    @Query(value = "SELECT s.student_id FROM students s " +
+            "WHERE s.class_id IN (:classIds) AND s.deleted_at IS NULL AND s.student_id > :afterId " +
+            "ORDER BY s.student_id LIMIT :chunkSize", nativeQuery = true)
+    List<Long> findNextStudentIds(@Param("classIds") Collection<Long> classIds,
+                                  @Param("afterId") Long afterId,
+                                  @Param("chunkSize") int chunkSize);
+
+    // Satu INSERT ... SELECT per chunk; tagihan yang sudah ada (student, jenis, periode) dilewati.
+    // Tagihan yang benar-benar ter-insert (RETURNING) langsung ditambahkan ke payment_summaries di statement yang sama.
+    // Mengembalikan jumlah tagihan yang dibuat.
+    @Query(value = "WITH inserted AS (" +
+            "INSERT INTO payments (payment_id, payment_name, user_id, student_id, payment_type_id, amount, " +
+            "payment_status, description, billing_period, due_date, created_at, updated_at) " +
+            "SELECT gen_random_uuid(), :paymentName, CAST(:userId AS uuid), s.student_id, :paymentTypeId, :amount, " +
+            "'PENDING', CAST(:description AS varchar), :billingPeriod, CAST(:dueDate AS date), now(), now() " +
+            "FROM students s " +
+            "WHERE s.class_id IN (:classIds) AND s.deleted_at IS NULL " +
+            "AND s.student_id > :afterId AND s.student_id <= :upToId " +
+            "ON CONFLICT (student_id, payment_type_id, billing_period) WHERE billing_period IS NOT NULL DO NOTHING " +
+            "RETURNING student_id, amount" +
+            "), summary AS (" +
+            "INSERT INTO payment_summaries (student_id, payment_type_id, payment_status, class_id, school_year_id, " +
+            "payment_count, total_amount, updated_at) " +
+            "SELECT i.student_id, :paymentTypeId, 'PENDING', s.class_id, c.school_year_id, count(*), sum(i.amount), now() " +
+            "FROM inserted i JOIN students s ON s.student_id = i.student_id " +
+            "LEFT JOIN classes c ON c.class_id = s.class_id " +
+            "GROUP BY i.student_id, s.class_id, c.school_year_id " +
+            "ON CONFLICT (student_id, payment_type_id, payment_status) DO UPDATE SET " +
+            "payment_count = payment_summaries.payment_count + EXCLUDED.payment_count, " +
+            "total_amount = payment_summaries.total_amount + EXCLUDED.total_amount, " +
+            "class_id = EXCLUDED.class_id, school_year_id = EXCLUDED.school_year_id, updated_at = EXCLUDED.updated_at" +
+            ") " +
+            "SELECT CAST(count(*) AS integer) FROM inserted",
+            nativeQuery = true)
+    int insertPendingPayments(@Param("classIds") Collection<Long> classIds,
+                              @Param("afterId") Long afterId,
+                              @Param("upToId") Long upToId,
+                              @Param("paymentName") String paymentName,
+                              @Param("description") String description,
+                              @Param("userId") UUID userId,
+                              @Param("paymentTypeId") Long paymentTypeId,
+                              @Param("amount") BigDecimal amount,
+                              @Param("billingPeriod") String billingPeriod,
+                              @Param("dueDate") LocalDate dueDate);
+
+    // Majukan checkpoint hanya jika belum dimajukan worker lain (compare-and-set pada last_student_id)
+    @Modifying
+    @Query("UPDATE BillingRun r SET r.lastStudentId = :upToId, " +
+            "r.studentsProcessed = r.studentsProcessed + :students, " +
+            "r.paymentsCreated = r.paymentsCreated + :created, r.updatedAt = :now " +
+            "WHERE r.runId = :runId AND r.lastStudentId = :afterId AND r.status = 'RUNNING'")
+    int advanceCheckpoint(@Param("runId") UUID runId,
+                          @Param("afterId") Long afterId,
+                          @Param("upToId") Long upToId,
+                          @Param("students") int students,
+                          @Param("created") int created,
+                          @Param("now") LocalDateTime now);
+}
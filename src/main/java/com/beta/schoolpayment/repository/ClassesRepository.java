@@ -5,6 +5,8 @@ import com.beta.schoolpayment.model.SchoolYear;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -12,4 +14,10 @@ public interface ClassesRepository extends JpaRepository<Classes, Long> {
     List<Classes> findByClassesId(Long classesId);
     List<Classes> findBySchoolYear(SchoolYear schoolYear);
     Page<Classes> findByClassesNameContainingIgnoringCase(String classesName, Pageable pageable);
+
+    @Query("SELECT c.classesId FROM Classes c WHERE c.schoolYear.id = :schoolYearId AND c.deletedAt IS NULL")
+    List<Long> findIdsBySchoolYearId(@Param("schoolYearId") Long schoolYearId);
+
+    @Query("SELECT c.classesId FROM Classes c WHERE c.deletedAt IS NULL")
+    List<Long> findActiveIds();
 }
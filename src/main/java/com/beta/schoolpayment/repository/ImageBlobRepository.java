@@ -0,0 +1,51 @@
+package com.beta.schoolpayment.repository;
+
+import com.beta.schoolpayment.model.ImageBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+
+    // Catat blob yang baru di-upload (atau di-upload ulang) tanpa mengubah ref_count. Baris terkunci sampai
+    // transaksi selesai, sehingga garbage collector tidak bisa menghapus blob yang sedang ditulis.
+    @Modifying
+    @Query(value = """
+            INSERT INTO image_blobs (image_key, ref_count, updated_at) VALUES (:key, 0, now())
+            ON CONFLICT (image_key) DO UPDATE SET updated_at = now()
+            """, nativeQuery = true)
+    void register(@Param("key") String key);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO image_blobs (image_key, ref_count, updated_at) VALUES (:key, 1, now())
+            ON CONFLICT (image_key) DO UPDATE SET ref_count = image_blobs.ref_count + 1, updated_at = now()
+            """, nativeQuery = true)
+    void acquire(@Param("key") String key);
+
+    @Modifying
+    @Query(value = """
+            UPDATE image_blobs SET ref_count = GREATEST(ref_count - 1, 0), updated_at = now()
+            WHERE image_key = :key
+            """, nativeQuery = true)
+    int release(@Param("key") String key);
+
+    // Kandidat garbage collection, dikunci agar register/acquire untuk key yang sama menunggu sampai blob terhapus
+    @Query(value = """
+            SELECT image_key FROM image_blobs
+            WHERE ref_count = 0 AND updated_at < :before
+            ORDER BY updated_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<String> lockUnreferenced(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM image_blobs WHERE image_key IN (:keys) AND ref_count = 0", nativeQuery = true)
+    int deleteUnreferenced(@Param("keys") Collection<String> keys);
+}
@@ -1,20 +1,91 @@
 package com.beta.schoolpayment.repository;
 
+import com.beta.schoolpayment.dto.response.PaymentResponse;
 import com.beta.schoolpayment.model.Payment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface PaymentRepository extends JpaRepository<Payment, UUID>, JpaSpecificationExecutor<Payment> {
+public interface PaymentRepository extends JpaRepository<Payment, UUID>, JpaSpecificationExecutor<Payment>, PaymentRepositoryCustom {
     List<Payment> findByUser_UserId(UUID userId);
     List<Payment> findByStudent_Id(Long id);
     List<Payment> findByUser_Nis(Long nis);
     Page<Payment> findByPaymentStatus(String paymentStatus, Pageable pageable);
     List<Payment> findByUser_UserIdAndDeletedAtIsNull(UUID userId);
+
+    // Read model: PaymentResponse langsung dari satu query join, tanpa memuat entity
+    String RESPONSE_PROJECTION = "SELECT new com.beta.schoolpayment.dto.response.PaymentResponse(" +
+            "p.paymentId, p.paymentName, p.paymentStatus, p.amount, p.description, u.userId, s.id, s.name, " +
+            "pt.paymentTypeId, pt.paymentTypeName, p.createdAt, p.updatedAt, p.deletedAt) " +
+            "FROM Payment p JOIN p.student s LEFT JOIN p.user u LEFT JOIN p.paymentType pt ";
+
+    @Query("SELECT p.paymentStatus FROM Payment p WHERE p.paymentId = :paymentId AND p.deletedAt IS NULL")
+    Optional<String> findActiveStatusById(@Param("paymentId") UUID paymentId);
+
+    // Transisi status compare-and-set dalam satu statement, tanpa SELECT ... FOR UPDATE:
+    // Idempotency-Key dicatat (jika ada), status hanya diubah jika masih :expected (dan key baru tercatat),
+    // lalu payment dipindah dari baris ringkasan :expected ke :target. Baris ringkasan ditulis urut status
+    // agar dua transaksi tidak saling menunggu.
+    @Query(value = "WITH claimed AS (" +
+            "INSERT INTO payment_status_requests (idempotency_key, payment_id, target_status, created_at) " +
+            "SELECT CAST(:idempotencyKey AS varchar), :paymentId, :target, now() " +
+            "WHERE CAST(:idempotencyKey AS varchar) IS NOT NULL " +
+            "ON CONFLICT (idempotency_key) DO NOTHING " +
+            "RETURNING idempotency_key" +
+            "), updated AS (" +
+            "UPDATE payments SET payment_status = :target, version = version + 1, updated_at = now() " +
+            "WHERE payment_id = :paymentId AND payment_status = :expected AND deleted_at IS NULL " +
+            "AND (CAST(:idempotencyKey AS varchar) IS NULL OR EXISTS (SELECT 1 FROM claimed)) " +
+            "RETURNING student_id, payment_type_id, amount" +
+            "), summary AS (" +
+            "INSERT INTO payment_summaries (student_id, payment_type_id, payment_status, class_id, school_year_id, " +
+            "payment_count, total_amount, updated_at) " +
+            "SELECT u.student_id, u.payment_type_id, d.status, s.class_id, c.school_year_id, d.sign, d.sign * u.amount, now() " +
+            "FROM updated u JOIN students s ON s.student_id = u.student_id " +
+            "LEFT JOIN classes c ON c.class_id = s.class_id " +
+            "CROSS JOIN (VALUES (CAST(:expected AS varchar), -1), (CAST(:target AS varchar), 1)) AS d(status, sign) " +
+            "ORDER BY d.status " +
+            "ON CONFLICT (student_id, payment_type_id, payment_status) DO UPDATE SET " +
+            "payment_count = payment_summaries.payment_count + EXCLUDED.payment_count, " +
+            "total_amount = payment_summaries.total_amount + EXCLUDED.total_amount, " +
+            "class_id = EXCLUDED.class_id, school_year_id = EXCLUDED.school_year_id, updated_at = EXCLUDED.updated_at" +
+            ") " +
+            "SELECT CAST((SELECT count(*) FROM claimed) AS integer) AS claimed, " +
+            "CAST((SELECT count(*) FROM updated) AS integer) AS updated",
+            nativeQuery = true)
+    StatusTransition transitionStatus(@Param("paymentId") UUID paymentId,
+                                      @Param("expected") String expected,
+                                      @Param("target") String target,
+                                      @Param("idempotencyKey") String idempotencyKey);
+
+    // claimed: Idempotency-Key baru tercatat oleh statement ini; updated: jumlah payment yang berubah (0/1)
+    interface StatusTransition {
+        int getClaimed();
+
+        int getUpdated();
+    }
+
+    @Query(RESPONSE_PROJECTION + "WHERE p.paymentId = :paymentId")
+    Optional<PaymentResponse> findResponseById(@Param("paymentId") UUID paymentId);
+
+    @Query(RESPONSE_PROJECTION + "WHERE u.userId = :userId AND p.deletedAt IS NULL")
+    List<PaymentResponse> findResponsesByUserId(@Param("userId") UUID userId);
+
+    // Bulk receipt: payment COMPLETED per kelas / tahun ajaran (Student -> Classes -> SchoolYear)
+    @Query(RESPONSE_PROJECTION + "JOIN s.classes c WHERE c.classesId = :classId " +
+            "AND p.paymentStatus = 'COMPLETED' AND p.deletedAt IS NULL ORDER BY s.name, p.createdAt")
+    List<PaymentResponse> findCompletedResponsesByClassId(@Param("classId") Long classId);
+
+    @Query(RESPONSE_PROJECTION + "JOIN s.classes c JOIN c.schoolYear sy WHERE sy.id = :schoolYearId " +
+            "AND p.paymentStatus = 'COMPLETED' AND p.deletedAt IS NULL ORDER BY c.classesName, s.name, p.createdAt")
+    List<PaymentResponse> findCompletedResponsesBySchoolYearId(@Param("schoolYearId") Long schoolYearId);
 }
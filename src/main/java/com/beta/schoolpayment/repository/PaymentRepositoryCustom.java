@@ -0,0 +1,43 @@
+package com.beta.schoolpayment.repository;
+
+import com.beta.schoolpayment.dto.request.ArrearsCriteria;
+import com.beta.schoolpayment.dto.request.PaymentCursor;
+import com.beta.schoolpayment.dto.response.ArrearsStudentRow;
+import com.beta.schoolpayment.dto.response.PaymentResponse;
+import com.beta.schoolpayment.model.Payment;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface PaymentRepositoryCustom {
+
+    // Halaman PaymentResponse (projection) sesuai filter, satu statement per halaman
+    Page<PaymentResponse> findResponses(Specification<Payment> spec, Pageable pageable);
+
+    // Halaman keyset setelah cursor (urut createdAt, paymentId), tanpa OFFSET dan tanpa count
+    Slice<PaymentResponse> findResponsesAfter(Specification<Payment> spec, PaymentCursor cursor, int size,
+                                              Sort.Direction direction);
+
+    // Setiap key ke-N (urut createdAt, paymentId) sebagai batas partisi keyset
+    List<PaymentCursor> findPartitionBoundaries(Specification<Payment> spec, int partitionSize);
+
+    // Payment dengan key > after dan key <= upTo, batas null berarti terbuka
+    List<PaymentResponse> findKeysetRange(Specification<Payment> spec, PaymentCursor after, PaymentCursor upTo);
+
+    // Insert payment baru per potongan batchSize: flush (satu JDBC batch) lalu clear persistence context
+    void persistInBatches(List<Payment> payments, int batchSize);
+
+    // Jumlah kelas yang punya minimal satu student menunggak (dasar pagination laporan tunggakan)
+    long countArrearsClasses(ArrearsCriteria criteria);
+
+    // Tunggakan per student untuk kelas ke-firstClass s/d ke-lastClass (urut nama kelas, mulai 1)
+    List<ArrearsStudentRow> findArrears(ArrearsCriteria criteria, long firstClass, long lastClass);
+
+    // Seluruh tunggakan dengan urutan yang sama, dibaca dengan cursor untuk export
+    void forEachArrears(ArrearsCriteria criteria, Consumer<ArrearsStudentRow> action);
+}
@@ -0,0 +1,329 @@
+package com.beta.schoolpayment.repository;
+
+import com.beta.schoolpayment.dto.request.ArrearsCriteria;
+import com.beta.schoolpayment.dto.request.PaymentCursor;
+import com.beta.schoolpayment.dto.response.ArrearsStudentRow;
+import com.beta.schoolpayment.dto.response.PaymentResponse;
+import com.beta.schoolpayment.model.Payment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class PaymentRepositoryImpl implements PaymentRepositoryCustom {
+
+    private static final int KEY_FETCH_SIZE = 1000;
+
+    // Tunggakan dihitung dalam satu query: payment terbuka yang lewat jatuh tempo (partial index
+    // idx_payments_open_due) dijumlahkan per student, lalu kelas diberi nomor urut dengan dense_rank
+    // sehingga satu halaman = rentang nomor kelas. Filter ditambahkan hanya jika diisi.
+    private static final String ARREARS_CTE = "WITH overdue AS (" +
+            "SELECT p.student_id, count(*) AS overdue_count, sum(p.amount) AS overdue_amount, " +
+            "min(COALESCE(p.due_date, CAST(p.created_at AS date))) AS oldest_due_date " +
+            "FROM payments p " +
+            "WHERE p.deleted_at IS NULL AND p.payment_status IN ('PENDING', 'FAILED') " +
+            "AND COALESCE(p.due_date, CAST(p.created_at AS date)) < :asOf " +
+            "%s" +
+            "GROUP BY p.student_id" +
+            "), ranked AS (" +
+            "SELECT c.class_id, c.class_name, s.student_id, s.nis, s.name, " +
+            "o.overdue_count, o.overdue_amount, o.oldest_due_date, " +
+            "dense_rank() OVER (ORDER BY c.class_name, c.class_id) AS class_rank " +
+            "FROM overdue o " +
+            "JOIN students s ON s.student_id = o.student_id " +
+            "LEFT JOIN classes c ON c.class_id = s.class_id " +
+            "WHERE s.deleted_at IS NULL " +
+            "%s" +
+            ") ";
+
+    private static final String ARREARS_COLUMNS = "SELECT class_id, class_name, student_id, nis, name, " +
+            "overdue_count, overdue_amount, oldest_due_date FROM ranked ";
+
+    private static final String ARREARS_ORDER = "ORDER BY class_rank, name, student_id";
+
+    private static final int ARREARS_FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<PaymentResponse> findResponses(Specification<Payment> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PaymentResponse> query = cb.createQuery(PaymentResponse.class);
+        Root<Payment> root = query.from(Payment.class);
+        applySpecification(spec, root, query, cb, null);
+        query.select(responseProjection(cb, root));
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+
+        TypedQuery<PaymentResponse> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        // Count hanya dijalankan jika jumlah total tidak bisa disimpulkan dari isi halaman
+        return PageableExecutionUtils.getPage(typedQuery.getResultList(), pageable, () -> count(spec));
+    }
+
+    @Override
+    public Slice<PaymentResponse> findResponsesAfter(Specification<Payment> spec, PaymentCursor cursor, int size,
+                                                     Sort.Direction direction) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PaymentResponse> query = cb.createQuery(PaymentResponse.class);
+        Root<Payment> root = query.from(Payment.class);
+        List<Predicate> seek = new ArrayList<>();
+        if (cursor != null) {
+            seek.add(direction.isAscending() ? isAfter(cb, root, cursor) : isBefore(cb, root, cursor));
+        }
+        applySpecification(spec, root, query, cb, seek);
+        query.select(responseProjection(cb, root));
+        query.orderBy(direction.isAscending()
+                ? List.of(cb.asc(root.get("createdAt")), cb.asc(root.get("paymentId")))
+                : List.of(cb.desc(root.get("createdAt")), cb.desc(root.get("paymentId"))));
+
+        // Ambil satu baris ekstra untuk mengetahui apakah masih ada halaman berikutnya
+        List<PaymentResponse> content = new ArrayList<>(entityManager.createQuery(query)
+                .setMaxResults(size + 1)
+                .getResultList());
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content.remove(size);
+        }
+        Sort sort = Sort.by(direction, "createdAt", "paymentId");
+        return new SliceImpl<>(content, PageRequest.of(0, size, sort), hasNext);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PaymentCursor> findPartitionBoundaries(Specification<Payment> spec, int partitionSize) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Payment> root = query.from(Payment.class);
+        applySpecification(spec, root, query, cb, null);
+        query.multiselect(root.get("createdAt"), root.get("paymentId"));
+        query.orderBy(cb.asc(root.get("createdAt")), cb.asc(root.get("paymentId")));
+
+        // Hanya kolom key yang dibaca (tanpa entity), dengan cursor agar memori tetap kecil
+        List<PaymentCursor> boundaries = new ArrayList<>();
+        try (Stream<Tuple> keys = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, KEY_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            long count = 0;
+            for (Tuple key : (Iterable<Tuple>) keys::iterator) {
+                if (++count % partitionSize == 0) {
+                    boundaries.add(new PaymentCursor(key.get(0, LocalDateTime.class), key.get(1, UUID.class)));
+                }
+            }
+        }
+        return boundaries;
+    }
+
+    @Override
+    public List<PaymentResponse> findKeysetRange(Specification<Payment> spec, PaymentCursor after, PaymentCursor upTo) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PaymentResponse> query = cb.createQuery(PaymentResponse.class);
+        Root<Payment> root = query.from(Payment.class);
+
+        List<Predicate> bounds = new ArrayList<>();
+        if (after != null) {
+            bounds.add(isAfter(cb, root, after));
+        }
+        if (upTo != null) {
+            bounds.add(cb.not(isAfter(cb, root, upTo)));
+        }
+        applySpecification(spec, root, query, cb, bounds);
+        query.select(responseProjection(cb, root));
+        query.orderBy(cb.asc(root.get("createdAt")), cb.asc(root.get("paymentId")));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    @Transactional
+    public void persistInBatches(List<Payment> payments, int batchSize) {
+        for (int i = 0; i < payments.size(); i++) {
+            entityManager.persist(payments.get(i));
+            if ((i + 1) % batchSize == 0 || i == payments.size() - 1) {
+                entityManager.flush();
+                // Entity yang sudah di-insert dilepas agar persistence context tidak terus membesar
+                entityManager.clear();
+            }
+        }
+    }
+
+    @Override
+    public long countArrearsClasses(ArrearsCriteria criteria) {
+        Query query = arrearsQuery(criteria, "SELECT coalesce(max(class_rank), 0) FROM ranked");
+        return ((Number) query.getSingleResult()).longValue();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ArrearsStudentRow> findArrears(ArrearsCriteria criteria, long firstClass, long lastClass) {
+        Query query = arrearsQuery(criteria,
+                ARREARS_COLUMNS + "WHERE class_rank BETWEEN :firstClass AND :lastClass " + ARREARS_ORDER);
+        query.setParameter("firstClass", firstClass);
+        query.setParameter("lastClass", lastClass);
+        LocalDate asOf = asOf(criteria);
+        return ((List<Tuple>) query.getResultList()).stream().map(row -> toArrearsRow(row, asOf)).toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public void forEachArrears(ArrearsCriteria criteria, Consumer<ArrearsStudentRow> action) {
+        LocalDate asOf = asOf(criteria);
+        try (Stream<Tuple> rows = arrearsQuery(criteria, ARREARS_COLUMNS + ARREARS_ORDER)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, ARREARS_FETCH_SIZE)
+                .getResultStream()) {
+            rows.forEach(row -> action.accept(toArrearsRow(row, asOf)));
+        }
+    }
+
+    private Query arrearsQuery(ArrearsCriteria criteria, String select) {
+        String paymentFilter = criteria.getPaymentTypeId() != null ? "AND p.payment_type_id = :paymentTypeId " : "";
+        String studentFilter = (criteria.getClassId() != null ? "AND s.class_id = :classId " : "")
+                + (criteria.getSchoolYearId() != null ? "AND c.school_year_id = :schoolYearId " : "");
+        Query query = entityManager.createNativeQuery(
+                String.format(ARREARS_CTE, paymentFilter, studentFilter) + select, Tuple.class);
+        query.setParameter("asOf", asOf(criteria));
+        if (criteria.getPaymentTypeId() != null) {
+            query.setParameter("paymentTypeId", criteria.getPaymentTypeId());
+        }
+        if (criteria.getClassId() != null) {
+            query.setParameter("classId", criteria.getClassId());
+        }
+        if (criteria.getSchoolYearId() != null) {
+            query.setParameter("schoolYearId", criteria.getSchoolYearId());
+        }
+        return query;
+    }
+
+    private static LocalDate asOf(ArrearsCriteria criteria) {
+        return criteria.getAsOf() != null ? criteria.getAsOf() : LocalDate.now();
+    }
+
+    private static ArrearsStudentRow toArrearsRow(Tuple row, LocalDate asOf) {
+        LocalDate oldestDueDate = toLocalDate(row.get("oldest_due_date"));
+        return new ArrearsStudentRow(
+                toLong(row.get("class_id")),
+                (String) row.get("class_name"),
+                toLong(row.get("student_id")),
+                toLong(row.get("nis")),
+                (String) row.get("name"),
+                ((Number) row.get("overdue_count")).longValue(),
+                (BigDecimal) row.get("overdue_amount"),
+                oldestDueDate,
+                oldestDueDate != null ? ChronoUnit.DAYS.between(oldestDueDate, asOf) : 0);
+    }
+
+    private static Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof Date date) {
+            return date.toLocalDate();
+        }
+        return (LocalDate) value;
+    }
+
+    private long count(Specification<Payment> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Payment> root = query.from(Payment.class);
+        applySpecification(spec, root, query, cb, null);
+        query.select(query.isDistinct() ? cb.countDistinct(root) : cb.count(root));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    // Kolom PaymentResponse diambil lewat join pada query yang sama (urutan sesuai constructor)
+    private Selection<PaymentResponse> responseProjection(CriteriaBuilder cb, Root<Payment> root) {
+        Join<?, ?> student = join(root, "student", JoinType.INNER);
+        Join<?, ?> user = join(root, "user", JoinType.LEFT);
+        Join<?, ?> paymentType = join(root, "paymentType", JoinType.LEFT);
+        return cb.construct(PaymentResponse.class,
+                root.get("paymentId"),
+                root.get("paymentName"),
+                root.get("paymentStatus"),
+                root.get("amount"),
+                root.get("description"),
+                user.get("userId"),
+                student.get("id"),
+                student.get("name"),
+                paymentType.get("paymentTypeId"),
+                paymentType.get("paymentTypeName"),
+                root.get("createdAt"),
+                root.get("updatedAt"),
+                root.get("deletedAt"));
+    }
+
+    // Pakai ulang join yang sudah dibuat oleh specification agar tidak ada join ganda
+    private Join<?, ?> join(Root<Payment> root, String attribute, JoinType joinType) {
+        for (Join<Payment, ?> join : root.getJoins()) {
+            if (join.getAttribute().getName().equals(attribute)) {
+                return join;
+            }
+        }
+        return root.join(attribute, joinType);
+    }
+
+    // (createdAt, paymentId) > (cursor.createdAt, cursor.paymentId)
+    private Predicate isAfter(CriteriaBuilder cb, Root<Payment> root, PaymentCursor cursor) {
+        Path<LocalDateTime> createdAt = root.get("createdAt");
+        Path<UUID> paymentId = root.get("paymentId");
+        return cb.or(
+                cb.greaterThan(createdAt, cursor.getCreatedAt()),
+                cb.and(cb.equal(createdAt, cursor.getCreatedAt()), cb.greaterThan(paymentId, cursor.getPaymentId()))
+        );
+    }
+
+    // (createdAt, paymentId) < (cursor.createdAt, cursor.paymentId)
+    private Predicate isBefore(CriteriaBuilder cb, Root<Payment> root, PaymentCursor cursor) {
+        Path<LocalDateTime> createdAt = root.get("createdAt");
+        Path<UUID> paymentId = root.get("paymentId");
+        return cb.or(
+                cb.lessThan(createdAt, cursor.getCreatedAt()),
+                cb.and(cb.equal(createdAt, cursor.getCreatedAt()), cb.lessThan(paymentId, cursor.getPaymentId()))
+        );
+    }
+
+    private void applySpecification(Specification<Payment> spec, Root<Payment> root, CriteriaQuery<?> query,
+                                    CriteriaBuilder cb, List<Predicate> extra) {
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (predicate != null) {
+            predicates.add(predicate);
+        }
+        if (extra != null) {
+            predicates.addAll(extra);
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+    }
+}
@@ -0,0 +1,19 @@
+package com.beta.schoolpayment.repository;
+
+import com.beta.schoolpayment.model.PaymentStatusRequest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface PaymentStatusRequestRepository extends JpaRepository<PaymentStatusRequest, String> {
+
+    // Key yang lebih tua dari masa retry tidak perlu disimpan lagi
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PaymentStatusRequest r WHERE r.createdAt < :before")
+    int deleteByCreatedAtBefore(@Param("before") LocalDateTime before);
+}
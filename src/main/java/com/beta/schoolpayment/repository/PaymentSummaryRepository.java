@@ -0,0 +1,102 @@
+package com.beta.schoolpayment.repository;
+
+import com.beta.schoolpayment.dto.response.PaymentSummaryRow;
+import com.beta.schoolpayment.model.PaymentSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface PaymentSummaryRepository extends JpaRepository<PaymentSummary, PaymentSummary.Key> {
+
+    // Tambahkan delta (bisa negatif) ke ringkasan satu student x jenis x status; baris dibuat jika belum ada.
+    // Kelas dan tahun ajaran diambil dari data student saat ini.
+    @Modifying
+    @Query(value = "INSERT INTO payment_summaries (student_id, payment_type_id, payment_status, class_id, school_year_id, " +
+            "payment_count, total_amount, updated_at) " +
+            "SELECT s.student_id, :paymentTypeId, :paymentStatus, s.class_id, c.school_year_id, :countDelta, :amountDelta, now() " +
+            "FROM students s LEFT JOIN classes c ON c.class_id = s.class_id " +
+            "WHERE s.student_id = :studentId " +
+            "ON CONFLICT (student_id, payment_type_id, payment_status) DO UPDATE SET " +
+            "payment_count = payment_summaries.payment_count + EXCLUDED.payment_count, " +
+            "total_amount = payment_summaries.total_amount + EXCLUDED.total_amount, " +
+            "class_id = EXCLUDED.class_id, school_year_id = EXCLUDED.school_year_id, updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    int applyDelta(@Param("studentId") Long studentId,
+                   @Param("paymentTypeId") Long paymentTypeId,
+                   @Param("paymentStatus") String paymentStatus,
+                   @Param("countDelta") long countDelta,
+                   @Param("amountDelta") BigDecimal amountDelta);
+
+    // Rebuild: tahan semua delta sampai rebuild selesai (baca tetap jalan), agar tidak ada delta yang hilang atau terhitung dua kali
+    @Modifying
+    @Query(value = "LOCK TABLE payment_summaries IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    @Modifying
+    @Query(value = "DELETE FROM payment_summaries", nativeQuery = true)
+    int deleteAllRows();
+
+    @Modifying
+    @Query(value = "INSERT INTO payment_summaries (student_id, payment_type_id, payment_status, class_id, school_year_id, " +
+            "payment_count, total_amount, updated_at) " +
+            "SELECT p.student_id, p.payment_type_id, p.payment_status, s.class_id, c.school_year_id, count(*), sum(p.amount), now() " +
+            "FROM payments p " +
+            "JOIN students s ON s.student_id = p.student_id " +
+            "LEFT JOIN classes c ON c.class_id = s.class_id " +
+            "WHERE p.deleted_at IS NULL " +
+            "GROUP BY p.student_id, p.payment_type_id, p.payment_status, s.class_id, c.school_year_id",
+            nativeQuery = true)
+    int insertFromPayments();
+
+    // 🔹 Rekap per student / kelas / tahun ajaran / jenis pembayaran; filter null = semua
+
+    @Query("SELECT new com.beta.schoolpayment.dto.response.PaymentSummaryRow(ps.studentId, s.name, ps.paymentStatus, " +
+            "SUM(ps.paymentCount), SUM(ps.totalAmount)) " +
+            "FROM PaymentSummary ps LEFT JOIN Student s ON s.id = ps.studentId " +
+            "WHERE (:schoolYearId IS NULL OR ps.schoolYearId = :schoolYearId) " +
+            "AND (:classId IS NULL OR ps.classId = :classId) " +
+            "AND (:paymentTypeId IS NULL OR ps.paymentTypeId = :paymentTypeId) " +
+            "GROUP BY ps.studentId, s.name, ps.paymentStatus ORDER BY s.name, ps.studentId")
+    List<PaymentSummaryRow> summarizeByStudent(@Param("schoolYearId") Long schoolYearId,
+                                               @Param("classId") Long classId,
+                                               @Param("paymentTypeId") Long paymentTypeId);
+
+    @Query("SELECT new com.beta.schoolpayment.dto.response.PaymentSummaryRow(ps.classId, c.classesName, ps.paymentStatus, " +
+            "SUM(ps.paymentCount), SUM(ps.totalAmount)) " +
+            "FROM PaymentSummary ps LEFT JOIN Classes c ON c.classesId = ps.classId " +
+            "WHERE (:schoolYearId IS NULL OR ps.schoolYearId = :schoolYearId) " +
+            "AND (:classId IS NULL OR ps.classId = :classId) " +
+            "AND (:paymentTypeId IS NULL OR ps.paymentTypeId = :paymentTypeId) " +
+            "GROUP BY ps.classId, c.classesName, ps.paymentStatus ORDER BY c.classesName, ps.classId")
+    List<PaymentSummaryRow> summarizeByClass(@Param("schoolYearId") Long schoolYearId,
+                                             @Param("classId") Long classId,
+                                             @Param("paymentTypeId") Long paymentTypeId);
+
+    @Query("SELECT new com.beta.schoolpayment.dto.response.PaymentSummaryRow(ps.schoolYearId, sy.schoolYear, ps.paymentStatus, " +
+            "SUM(ps.paymentCount), SUM(ps.totalAmount)) " +
+            "FROM PaymentSummary ps LEFT JOIN SchoolYear sy ON sy.id = ps.schoolYearId " +
+            "WHERE (:schoolYearId IS NULL OR ps.schoolYearId = :schoolYearId) " +
+            "AND (:classId IS NULL OR ps.classId = :classId) " +
+            "AND (:paymentTypeId IS NULL OR ps.paymentTypeId = :paymentTypeId) " +
+            "GROUP BY ps.schoolYearId, sy.schoolYear, ps.paymentStatus ORDER BY sy.schoolYear, ps.schoolYearId")
+    List<PaymentSummaryRow> summarizeBySchoolYear(@Param("schoolYearId") Long schoolYearId,
+                                                  @Param("classId") Long classId,
+                                                  @Param("paymentTypeId") Long paymentTypeId);
+
+    @Query("SELECT new com.beta.schoolpayment.dto.response.PaymentSummaryRow(ps.paymentTypeId, pt.paymentTypeName, ps.paymentStatus, " +
+            "SUM(ps.paymentCount), SUM(ps.totalAmount)) " +
+            "FROM PaymentSummary ps LEFT JOIN PaymentType pt ON pt.paymentTypeId = ps.paymentTypeId " +
+            "WHERE (:schoolYearId IS NULL OR ps.schoolYearId = :schoolYearId) " +
+            "AND (:classId IS NULL OR ps.classId = :classId) " +
+            "AND (:paymentTypeId IS NULL OR ps.paymentTypeId = :paymentTypeId) " +
+            "GROUP BY ps.paymentTypeId, pt.paymentTypeName, ps.paymentStatus ORDER BY pt.paymentTypeName, ps.paymentTypeId")
+    List<PaymentSummaryRow> summarizeByPaymentType(@Param("schoolYearId") Long schoolYearId,
+                                                   @Param("classId") Long classId,
+                                                   @Param("paymentTypeId") Long paymentTypeId);
+}
@@ -0,0 +1,35 @@
+package com.beta.schoolpayment.repository;
+
+import com.beta.schoolpayment.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+
+    // Tandai token terpakai secara atomik; 0 = token tidak ada, kadaluarsa, dicabut, atau sudah dipakai
+    // (dua request rotasi bersamaan dengan token yang sama: hanya satu yang mendapat 1)
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.usedAt = :now WHERE t.tokenHash = :tokenHash "
+            + "AND t.usedAt IS NULL AND t.revokedAt IS NULL AND t.expiresAt > :now")
+    int markUsed(@Param("tokenHash") String tokenHash, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revokedAt = :now WHERE t.familyId = :familyId AND t.revokedAt IS NULL")
+    int revokeFamily(@Param("familyId") UUID familyId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revokedAt = :now WHERE t.userId = :userId AND t.revokedAt IS NULL")
+    int revokeByUserId(@Param("userId") UUID userId, @Param("now") LocalDateTime now);
+
+    // Token kadaluarsa tidak lagi dibutuhkan, termasuk untuk deteksi pemakaian ulang
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken t WHERE t.expiresAt < :before")
+    int deleteByExpiresAtBefore(@Param("before") LocalDateTime before);
+}
@@ -9,11 +9,20 @@ import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface StudentRepository extends JpaRepository<Student, Long> {
+public interface StudentRepository extends JpaRepository<Student, Long>, StudentRepositoryCustom {
     boolean existsByNis(Long nis);
+
+    // Semua NIS terdaftar (termasuk soft-deleted, karena constraint unik berlaku untuk semua baris) untuk validasi import
+    @Query("SELECT s.nis FROM Student s")
+    List<Long> findAllNis();
+
+    // Lookup banyak student sekaligus (satu query), kelas dan tahun ajaran ikut di-fetch
+    @Query("SELECT s FROM Student s LEFT JOIN FETCH s.classes c LEFT JOIN FETCH c.schoolYear WHERE s.id IN :ids")
+    List<Student> findAllWithClassesByIdIn(@Param("ids") Collection<Long> ids);
     // Filter by School Year, Search Name, and Soft Delete Check
     @Query("SELECT s FROM Student s " +
             "JOIN s.classes c " +
@@ -29,6 +38,29 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
             Pageable pageable
     );
 
-
+    // Pencarian nama berbasis pg_trgm: cocok untuk substring maupun salah ketik (operator <%),
+    // diurutkan berdasarkan kemiripan. Memakai index idx_students_name_trgm.
+    @Query(value = "SELECT s.* FROM students s " +
+            "JOIN classes c ON c.class_id = s.class_id " +
+            "JOIN school_years sy ON sy.school_year_id = c.school_year_id " +
+            "WHERE (CAST(:startDate AS date) IS NULL OR sy.start_date >= CAST(:startDate AS date)) " +
+            "AND (CAST(:endDate AS date) IS NULL OR sy.end_date <= CAST(:endDate AS date)) " +
+            "AND (LOWER(s.name) LIKE CONCAT('%', LOWER(:search), '%') OR LOWER(:search) <% LOWER(s.name)) " +
+            "AND s.deleted_at IS NULL " +
+            "ORDER BY word_similarity(LOWER(:search), LOWER(s.name)) DESC, s.name ASC, s.student_id ASC",
+            countQuery = "SELECT COUNT(*) FROM students s " +
+                    "JOIN classes c ON c.class_id = s.class_id " +
+                    "JOIN school_years sy ON sy.school_year_id = c.school_year_id " +
+                    "WHERE (CAST(:startDate AS date) IS NULL OR sy.start_date >= CAST(:startDate AS date)) " +
+                    "AND (CAST(:endDate AS date) IS NULL OR sy.end_date <= CAST(:endDate AS date)) " +
+                    "AND (LOWER(s.name) LIKE CONCAT('%', LOWER(:search), '%') OR LOWER(:search) <% LOWER(s.name)) " +
+                    "AND s.deleted_at IS NULL",
+            nativeQuery = true)
+    Page<Student> searchStudentsByTrigram(
+            @Param("search") String search,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            Pageable pageable
+    );
 
 }
@@ -0,0 +1,12 @@
+package com.beta.schoolpayment.repository;
+
+import com.beta.schoolpayment.dto.request.StudentRequest;
+
+import java.util.Collection;
+import java.util.Set;
+
+public interface StudentRepositoryCustom {
+
+    // Insert banyak student dalam satu statement; NIS yang sudah ada dilewati. Mengembalikan NIS yang benar-benar di-insert.
+    Set<Long> insertIgnoringExistingNis(Collection<StudentRequest> students);
+}
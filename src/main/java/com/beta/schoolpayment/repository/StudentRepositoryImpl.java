@@ -0,0 +1,64 @@
+package com.beta.schoolpayment.repository;
+
+import com.beta.schoolpayment.dto.request.StudentRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+public class StudentRepositoryImpl implements StudentRepositoryCustom {
+
+    // Satu round trip per potongan: kolom dikirim sebagai array lalu di-unnest menjadi baris.
+    // RETURNING memberi tahu baris mana yang ter-insert (ON CONFLICT DO NOTHING tidak mengembalikan baris).
+    private static final String INSERT_SQL = "INSERT INTO students (nis, name, class_id, birthdate, address, phone_number, created_at, updated_at) " +
+            "SELECT r.nis, r.name, r.class_id, r.birthdate, r.address, r.phone_number, now(), now() " +
+            "FROM unnest(CAST(? AS bigint[]), CAST(? AS varchar[]), CAST(? AS bigint[]), CAST(? AS date[]), " +
+            "CAST(? AS text[]), CAST(? AS varchar[])) AS r(nis, name, class_id, birthdate, address, phone_number) " +
+            "ON CONFLICT (nis) DO NOTHING " +
+            "RETURNING nis";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Set<Long> insertIgnoringExistingNis(Collection<StudentRequest> students) {
+        if (students.isEmpty()) {
+            return Set.of();
+        }
+        int size = students.size();
+        Long[] nis = new Long[size];
+        String[] names = new String[size];
+        Long[] classIds = new Long[size];
+        String[] birthdates = new String[size];
+        String[] addresses = new String[size];
+        String[] phoneNumbers = new String[size];
+        int i = 0;
+        for (StudentRequest student : students) {
+            nis[i] = student.getNis();
+            names[i] = student.getName();
+            classIds[i] = student.getClassId();
+            birthdates[i] = student.getBirthdate() != null ? student.getBirthdate().toString() : null;
+            addresses[i] = student.getAddress();
+            phoneNumbers[i] = student.getPhoneNumber();
+            i++;
+        }
+
+        Set<Long> inserted = new HashSet<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_SQL);
+            ps.setArray(1, connection.createArrayOf("bigint", nis));
+            ps.setArray(2, connection.createArrayOf("varchar", names));
+            ps.setArray(3, connection.createArrayOf("bigint", classIds));
+            ps.setArray(4, connection.createArrayOf("varchar", birthdates));
+            ps.setArray(5, connection.createArrayOf("text", addresses));
+            ps.setArray(6, connection.createArrayOf("varchar", phoneNumbers));
+            return ps;
+        }, rs -> {
+            inserted.add(rs.getLong(1));
+        });
+        return inserted;
+    }
+}
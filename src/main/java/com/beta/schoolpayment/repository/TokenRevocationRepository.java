@@ -0,0 +1,21 @@
+package com.beta.schoolpayment.repository;
+
+import com.beta.schoolpayment.model.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, String> {
+    List<TokenRevocation> findByRevokedAtAfter(LocalDateTime since);
+
+    // Revocation yang lebih tua dari umur token tidak lagi berpengaruh
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TokenRevocation t WHERE t.revokedAt < :before")
+    int deleteByRevokedAtBefore(@Param("before") LocalDateTime before);
+}
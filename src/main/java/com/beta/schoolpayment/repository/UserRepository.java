@@ -4,7 +4,12 @@ import com.beta.schoolpayment.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -14,4 +19,25 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByEmailOrNis(String email, Long nis);
     Page<User> findByRoleOrderByUpdatedAtDesc(String role, Pageable pageable);
     Optional<User> findByEmail(String email);
+
+    // Hanya kolom path foto, untuk endpoint gambar (user yang sudah dihapus tidak ditampilkan)
+    @Query("SELECT u.profilePicture FROM User u WHERE u.userId = :userId AND u.deletedAt IS NULL AND u.profilePicture IS NOT NULL")
+    Optional<String> findProfilePictureById(@Param("userId") UUID userId);
+
+    // Foto lama berupa path yyyy/MM/dd/<uuid>.ext (sebelum ImageStore); key content-addressed tidak mengandung '/'
+    @Query("SELECT u FROM User u WHERE u.profilePicture LIKE '%/%'")
+    List<User> findWithLegacyProfilePicture();
+
+    // Diganti hanya jika nilainya masih sama (node lain mungkin sudah memigrasi atau user sudah upload foto baru)
+    @Modifying
+    @Query("UPDATE User u SET u.profilePicture = :imageKey WHERE u.userId = :userId AND u.profilePicture = :legacyPath")
+    int replaceProfilePicture(@Param("userId") UUID userId, @Param("legacyPath") String legacyPath,
+                              @Param("imageKey") String imageKey);
+
+    // Rehash password saat login; hanya jika hash belum diganti sejak dibaca
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.userId = :userId AND u.password = :oldHash")
+    int updatePasswordHash(@Param("userId") UUID userId, @Param("oldHash") String oldHash,
+                           @Param("newHash") String newHash);
 }
@@ -0,0 +1,28 @@
+package com.beta.schoolpayment.search;
+
+import com.beta.schoolpayment.model.Student;
+import com.beta.schoolpayment.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+// Default: LOWER(name) LIKE '%term%', hasil diurutkan berdasarkan nama
+@Component
+@ConditionalOnProperty(name = "search.backend", havingValue = "like", matchIfMissing = true)
+public class LikeStudentSearchStrategy implements StudentSearchStrategy {
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Override
+    public Page<Student> findStudents(String search, LocalDate startDate, LocalDate endDate,
+                                      Sort.Direction direction, int page, int size) {
+        PageRequest pageable = PageRequest.of(page, size, Sort.by(direction, "name"));
+        return studentRepository.findStudents(search, startDate, endDate, pageable);
+    }
+}
@@ -0,0 +1,15 @@
+package com.beta.schoolpayment.search;
+
+import com.beta.schoolpayment.model.Student;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+
+// Strategi pencarian nama siswa, dipilih lewat properti search.backend (like | trigram)
+public interface StudentSearchStrategy {
+
+    // search sudah dinormalisasi (tidak null); direction berlaku untuk urutan nama
+    Page<Student> findStudents(String search, LocalDate startDate, LocalDate endDate,
+                               Sort.Direction direction, int page, int size);
+}
@@ -0,0 +1,33 @@
+package com.beta.schoolpayment.search;
+
+import com.beta.schoolpayment.model.Student;
+import com.beta.schoolpayment.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+// pg_trgm (lihat migrasi V2): hasil diurutkan dari nama yang paling mirip dengan kata kunci.
+// Tanpa kata kunci, tidak ada yang bisa diranking sehingga jatuh ke urutan nama biasa.
+@Component
+@ConditionalOnProperty(name = "search.backend", havingValue = "trigram")
+public class TrigramStudentSearchStrategy implements StudentSearchStrategy {
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Override
+    public Page<Student> findStudents(String search, LocalDate startDate, LocalDate endDate,
+                                      Sort.Direction direction, int page, int size) {
+        if (search.isBlank()) {
+            PageRequest pageable = PageRequest.of(page, size, Sort.by(direction, "name"));
+            return studentRepository.findStudents(search, startDate, endDate, pageable);
+        }
+        // Urutan ditentukan oleh ORDER BY ranking pada native query
+        return studentRepository.searchStudentsByTrigram(search.trim(), startDate, endDate, PageRequest.of(page, size));
+    }
+}
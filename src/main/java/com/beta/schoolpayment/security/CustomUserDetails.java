@@ -1,6 +1,7 @@
 package com.beta.schoolpayment.security;
 
 import com.beta.schoolpayment.model.User;
+import io.jsonwebtoken.Claims;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.springframework.security.core.GrantedAuthority;
@@ -68,6 +69,23 @@ public class CustomUserDetails implements UserDetails {
         return user.getNis();
     }
 
+    // Principal ringan dari claims token yang sudah diverifikasi (tanpa password dan tanpa query database)
+    public static CustomUserDetails fromClaims(Claims claims) {
+        User user = new User();
+        Object userId = claims.get("userId");
+        if (userId != null) {
+            user.setUserId(UUID.fromString(userId.toString()));
+        }
+        Number nis = claims.get("nis", Number.class);
+        if (nis != null) {
+            user.setNis(nis.longValue());
+        }
+        user.setEmail(claims.get("email", String.class));
+        user.setName(claims.get("name", String.class));
+        user.setRole(claims.get("role", String.class));
+        return new CustomUserDetails(user);
+    }
+
 
 }
 
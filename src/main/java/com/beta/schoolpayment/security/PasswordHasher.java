@@ -0,0 +1,81 @@
+package com.beta.schoolpayment.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Verifikasi BCrypt di executor terbatas, terpisah dari thread Tomcat. Saat lonjakan login, jumlah hash yang
+// dihitung bersamaan tidak melebihi jumlah thread; antrian penuh ditolak (RejectedExecutionException -> 503)
+// sehingga request lain (yang tidak butuh BCrypt) tetap dilayani dan waktu login tetap terprediksi.
+@Component
+public class PasswordHasher {
+
+    @Value("${security.password.threads:0}")
+    private int hashThreads;
+
+    @Value("${security.password.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private ThreadPoolExecutor hashExecutor;
+
+    // Hasil verifikasi; upgradedHash diisi jika hash tersimpan perlu diganti ke cost yang dikonfigurasi
+    public record Verification(boolean matches, String upgradedHash) {
+    }
+
+    @PostConstruct
+    void startExecutor() {
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        hashExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        hashExecutor.shutdown();
+    }
+
+    // 🔹 Cocokkan password dan (jika cocok) hitung hash baru dalam tugas yang sama.
+    // Melempar RejectedExecutionException jika antrian penuh.
+    public Verification verify(String rawPassword, String encodedPassword) {
+        return await(CompletableFuture.supplyAsync(() -> {
+            if (rawPassword == null || encodedPassword == null || !passwordEncoder.matches(rawPassword, encodedPassword)) {
+                return new Verification(false, null);
+            }
+            String upgradedHash = passwordEncoder.upgradeEncoding(encodedPassword)
+                    ? passwordEncoder.encode(rawPassword)
+                    : null;
+            return new Verification(true, upgradedHash);
+        }, hashExecutor));
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.beta.schoolpayment.security;
+
+import com.beta.schoolpayment.model.TokenRevocation;
+import com.beta.schoolpayment.model.User;
+import com.beta.schoolpayment.repository.TokenRevocationRepository;
+import com.beta.schoolpayment.util.JwtUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Daftar subject yang token lamanya dicabut (role berubah, user dihapus, email/password diganti).
+// Disimpan di tabel token_revocations dan disalin ke memori; tiap node menyinkronkan salinannya
+// secara berkala, sehingga pengecekan per request tidak menyentuh database.
+@Component
+public class TokenRevocationRegistry {
+
+    @Autowired
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    // Revocation cukup disimpan selama umur access token
+    @Value("${jwt.access-token-ttl:PT15M}")
+    private Duration tokenValidity = JwtUtil.TOKEN_VALIDITY;
+
+    private final Map<String, LocalDateTime> revokedBefore = new ConcurrentHashMap<>();
+
+    // Subject token bisa berupa email atau NIS, jadi keduanya dicabut
+    public void revoke(User user) {
+        if (user.getEmail() != null) {
+            revoke(user.getEmail());
+        }
+        if (user.getNis() != null) {
+            revoke(user.getNis().toString());
+        }
+    }
+
+    public void revoke(String subject) {
+        // iat JWT hanya presisi detik: token yang dibuat di detik yang sama tetap berlaku
+        LocalDateTime revokedAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        tokenRevocationRepository.save(new TokenRevocation(subject, revokedAt));
+        revokedBefore.merge(subject, revokedAt, (old, current) -> current.isAfter(old) ? current : old);
+    }
+
+    public boolean isRevoked(String subject, Date issuedAt) {
+        LocalDateTime revokedAt = revokedBefore.get(subject);
+        if (revokedAt == null) {
+            return false;
+        }
+        // Token tanpa iat tidak bisa dibandingkan, anggap dicabut
+        return issuedAt == null || LocalDateTime.ofInstant(issuedAt.toInstant(), ZoneId.systemDefault()).isBefore(revokedAt);
+    }
+
+    // Ambil revocation dari node lain dan buang yang sudah lebih tua dari umur token
+    @Scheduled(fixedDelayString = "${auth.revocation.refresh-interval:30000}")
+    public void refresh() {
+        LocalDateTime oldestRelevant = LocalDateTime.now().minus(tokenValidity);
+        for (TokenRevocation revocation : tokenRevocationRepository.findByRevokedAtAfter(oldestRelevant)) {
+            revokedBefore.merge(revocation.getSubject(), revocation.getRevokedAt(),
+                    (old, current) -> current.isAfter(old) ? current : old);
+        }
+        revokedBefore.values().removeIf(revokedAt -> revokedAt.isBefore(oldestRelevant));
+        tokenRevocationRepository.deleteByRevokedAtBefore(oldestRelevant);
+    }
+}
@@ -0,0 +1,44 @@
+package com.beta.schoolpayment.security;
+
+import com.beta.schoolpayment.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+// Cache CustomUserDetails per subject JWT agar request terautentikasi tidak perlu query user ke database.
+// Perubahan user (role, profil, delete) harus memanggil evict setelah commit; TTL membatasi data basi di luar itu.
+@Component
+public class UserDetailsCache {
+
+    private final Cache<String, CustomUserDetails> cache;
+
+    public UserDetailsCache(@Value("${auth.user-cache.max-size:10000}") long maxSize,
+                            @Value("${auth.user-cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public CustomUserDetails get(String subject, Function<String, CustomUserDetails> loader) {
+        return cache.get(subject, loader);
+    }
+
+    // Subject token bisa berupa email atau NIS, jadi keduanya dihapus
+    public void evict(User user) {
+        if (user.getEmail() != null) {
+            evict(user.getEmail());
+        }
+        if (user.getNis() != null) {
+            evict(user.getNis().toString());
+        }
+    }
+
+    public void evict(String subject) {
+        cache.invalidate(subject);
+    }
+}
@@ -0,0 +1,186 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.dto.request.ArrearsCriteria;
+import com.beta.schoolpayment.dto.response.ArrearsClassGroup;
+import com.beta.schoolpayment.dto.response.ArrearsReportResponse;
+import com.beta.schoolpayment.dto.response.ArrearsStudentRow;
+import com.beta.schoolpayment.exception.ValidationException;
+import com.beta.schoolpayment.repository.PaymentRepository;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Laporan tunggakan: student dengan payment PENDING/FAILED yang lewat jatuh tempo, dikelompokkan per kelas.
+// Dihitung langsung dari payments dengan satu query set-based (lihat PaymentRepositoryImpl), tanpa query per student.
+@Service
+public class ArrearsReportService {
+
+    private static final String[] COLUMNS = {"Class", "Student ID", "NIS", "Student Name", "Overdue Payments",
+            "Overdue Amount", "Oldest Due Date", "Days Overdue"};
+
+    // Lebar kolom (dalam karakter) ditetapkan di awal, autoSizeColumn tidak bisa dipakai pada SXSSF
+    private static final int[] COLUMN_WIDTHS = {20, 12, 16, 30, 18, 18, 16, 14};
+
+    // Jumlah baris yang ditahan di memori, sisanya di-flush ke file sementara
+    private static final int ROW_ACCESS_WINDOW = 100;
+
+    static final int MAX_PAGE_SIZE = 100;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    // 🔹 Satu halaman laporan; page/size dihitung dalam kelas, semua student menunggak di kelas itu ikut ditampilkan
+    public ArrearsReportResponse getReport(ArrearsCriteria criteria, int page, int size) {
+        if (page < 0) {
+            throw new ValidationException("page tidak boleh negatif");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ValidationException("size harus antara 1 dan " + MAX_PAGE_SIZE);
+        }
+        ArrearsCriteria effective = withDefaults(criteria);
+        long totalClasses = paymentRepository.countArrearsClasses(effective);
+        long firstClass = (long) page * size + 1;
+        List<ArrearsStudentRow> rows = firstClass > totalClasses
+                ? List.of()
+                : paymentRepository.findArrears(effective, firstClass, firstClass + size - 1);
+
+        ArrearsReportResponse response = new ArrearsReportResponse();
+        response.setAsOf(effective.getAsOf());
+        response.setPage(page);
+        response.setSize(size);
+        response.setTotalClasses(totalClasses);
+        response.setTotalPages((int) ((totalClasses + size - 1) / size));
+        response.setClasses(groupByClass(rows));
+        return response;
+    }
+
+    // 🔹 Export CSV seluruh tunggakan sesuai filter, ditulis baris per baris ke output stream
+    public void exportCsv(ArrearsCriteria criteria, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(String.join(",", COLUMNS));
+        writer.write("\r\n");
+        try {
+            paymentRepository.forEachArrears(withDefaults(criteria), row -> {
+                try {
+                    writer.write(csvLine(row));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    // 🔹 Export XLSX (SXSSF) seluruh tunggakan sesuai filter
+    public void exportXlsx(ArrearsCriteria criteria, OutputStream outputStream) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            Sheet sheet = workbook.createSheet("Arrears");
+
+            // 🔹 Buat header row
+            Row headerRow = sheet.createRow(0);
+            CellStyle headerStyle = getHeaderStyle(workbook);
+            for (int i = 0; i < COLUMNS.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(COLUMNS[i]);
+                cell.setCellStyle(headerStyle);
+                sheet.setColumnWidth(i, COLUMN_WIDTHS[i] * 256);
+            }
+
+            // 🔹 Isi data
+            int[] rowNum = {1};
+            paymentRepository.forEachArrears(withDefaults(criteria), row -> writeRow(sheet.createRow(rowNum[0]++), row));
+
+            workbook.write(outputStream);
+        } finally {
+            workbook.dispose(); // Hapus file sementara SXSSF
+            workbook.close();
+        }
+    }
+
+    // Baris sudah urut per kelas dari query, jadi cukup digabung berurutan
+    static List<ArrearsClassGroup> groupByClass(List<ArrearsStudentRow> rows) {
+        Map<List<Object>, ArrearsClassGroup> groups = new LinkedHashMap<>();
+        for (ArrearsStudentRow row : rows) {
+            ArrearsClassGroup group = groups.computeIfAbsent(
+                    Arrays.asList(row.getClassId(), row.getClassName()), key -> {
+                        ArrearsClassGroup created = new ArrearsClassGroup();
+                        created.setClassId(row.getClassId());
+                        created.setClassName(row.getClassName());
+                        return created;
+                    });
+            group.getStudents().add(row);
+            group.setOverdueCount(group.getOverdueCount() + row.getOverdueCount());
+            group.setOverdueAmount(group.getOverdueAmount().add(row.getOverdueAmount()));
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private static ArrearsCriteria withDefaults(ArrearsCriteria criteria) {
+        ArrearsCriteria effective = new ArrearsCriteria();
+        effective.setAsOf(criteria.getAsOf() != null ? criteria.getAsOf() : LocalDate.now());
+        effective.setSchoolYearId(criteria.getSchoolYearId());
+        effective.setClassId(criteria.getClassId());
+        effective.setPaymentTypeId(criteria.getPaymentTypeId());
+        return effective;
+    }
+
+    private static String csvLine(ArrearsStudentRow row) {
+        return String.join(",",
+                csv(row.getClassName()),
+                csv(row.getStudentId()),
+                csv(row.getNis()),
+                csv(row.getStudentName()),
+                csv(row.getOverdueCount()),
+                csv(row.getOverdueAmount() != null ? row.getOverdueAmount().toPlainString() : null),
+                csv(row.getOldestDueDate()),
+                csv(row.getDaysOverdue())) + "\r\n";
+    }
+
+    // RFC 4180: field berisi pemisah, kutip, atau newline diapit tanda kutip
+    static String csv(Object value) {
+        String text = Objects.toString(value, "");
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
+    private void writeRow(Row row, ArrearsStudentRow arrears) {
+        row.createCell(0).setCellValue(arrears.getClassName() != null ? arrears.getClassName() : "N/A");
+        row.createCell(1).setCellValue(arrears.getStudentId());
+        row.createCell(2).setCellValue(arrears.getNis() != null ? arrears.getNis().toString() : "N/A");
+        row.createCell(3).setCellValue(arrears.getStudentName() != null ? arrears.getStudentName() : "N/A");
+        row.createCell(4).setCellValue(arrears.getOverdueCount());
+        row.createCell(5).setCellValue(arrears.getOverdueAmount() != null ? arrears.getOverdueAmount().doubleValue() : 0.0);
+        row.createCell(6).setCellValue(arrears.getOldestDueDate() != null ? arrears.getOldestDueDate().toString() : "N/A");
+        row.createCell(7).setCellValue(arrears.getDaysOverdue());
+    }
+
+    private CellStyle getHeaderStyle(Workbook workbook) {
+        CellStyle headerStyle = workbook.createCellStyle();
+        Font font = workbook.createFont();
+        font.setBold(true);
+        headerStyle.setFont(font);
+        return headerStyle;
+    }
+}
@@ -0,0 +1,291 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.dto.request.BillingRunRequest;
+import com.beta.schoolpayment.dto.response.BillingRunResponse;
+import com.beta.schoolpayment.exception.DataNotFoundException;
+import com.beta.schoolpayment.exception.DuplicateDataException;
+import com.beta.schoolpayment.exception.ValidationException;
+import com.beta.schoolpayment.model.BillingRun;
+import com.beta.schoolpayment.model.PaymentType;
+import com.beta.schoolpayment.repository.BillingRunRepository;
+import com.beta.schoolpayment.repository.ClassesRepository;
+import com.beta.schoolpayment.repository.PaymentTypeRepository;
+import com.beta.schoolpayment.repository.SchoolYearRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Tagihan berulang (mis. SPP bulanan) untuk semua student aktif dalam satu kelas atau tahun ajaran.
+// Student diproses per chunk (urut student_id); tiap chunk = satu INSERT ... SELECT ... ON CONFLICT DO NOTHING
+// ditambah update checkpoint di transaksi yang sama, sehingga run bisa dilanjutkan setelah crash tanpa tagihan ganda.
+@Service
+public class BillingRunService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BillingRunService.class);
+
+    static final String SCOPE_CLASS = "CLASS";
+    static final String SCOPE_SCHOOL_YEAR = "SCHOOL_YEAR";
+    static final String RUNNING = "RUNNING";
+    static final String COMPLETED = "COMPLETED";
+    static final String FAILED = "FAILED";
+
+    @Autowired
+    private BillingRunRepository billingRunRepository;
+
+    @Autowired
+    private PaymentTypeRepository paymentTypeRepository;
+
+    @Autowired
+    private ClassesRepository classesRepository;
+
+    @Autowired
+    private SchoolYearRepository schoolYearRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Jumlah student per INSERT ... SELECT
+    @Value("${billing.chunk-size:1000}")
+    private int chunkSize;
+
+    // Run RUNNING yang checkpoint-nya tidak maju selama ini dianggap mati dan dilanjutkan recovery job
+    @Value("${billing.stale-after:PT2M}")
+    private Duration staleAfter;
+
+    private final Set<UUID> activeRuns = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService runner = Executors.newVirtualThreadPerTaskExecutor();
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+    }
+
+    // 🔹 Mulai billing run. Request ulang untuk scope + periode yang sama melanjutkan run yang ada dari checkpoint-nya
+    // (student baru setelah checkpoint ikut ditagih, yang sudah ditagih dilewati). Nama, jumlah dan jatuh tempo
+    // harus sama dengan run tersebut; bila berbeda ditolak (409) agar tagihan dalam satu run tidak bercampur.
+    public BillingRunResponse startRun(BillingRunRequest request, UUID userId) {
+        if ((request.getClassId() == null) == (request.getSchoolYearId() == null)) {
+            throw new ValidationException("Isi salah satu dari classId atau schoolYearId");
+        }
+        if (request.getAmount() == null || request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new ValidationException("Jumlah tagihan harus lebih dari 0");
+        }
+        String period = parsePeriod(request.getBillingPeriod());
+        if (request.getPaymentTypeId() == null) {
+            throw new ValidationException("Jenis pembayaran wajib diisi");
+        }
+        PaymentType paymentType = paymentTypeRepository.findById(request.getPaymentTypeId())
+                .orElseThrow(() -> new DataNotFoundException("Jenis pembayaran tidak ditemukan"));
+
+        String scopeType = request.getClassId() != null ? SCOPE_CLASS : SCOPE_SCHOOL_YEAR;
+        Long scopeId = request.getClassId() != null ? request.getClassId() : request.getSchoolYearId();
+        if (SCOPE_CLASS.equals(scopeType) ? !classesRepository.existsById(scopeId) : !schoolYearRepository.existsById(scopeId)) {
+            throw new DataNotFoundException(SCOPE_CLASS.equals(scopeType) ? "Class not found" : "School year not found");
+        }
+
+        String paymentName = request.getPaymentName() != null && !request.getPaymentName().isBlank()
+                ? request.getPaymentName()
+                : paymentType.getPaymentTypeName() + " " + period;
+        LocalDate dueDate = request.getDueDate() != null ? request.getDueDate() : YearMonth.parse(period).atEndOfMonth();
+
+        BillingRun run = billingRunRepository
+                .findByPaymentTypeIdAndBillingPeriodAndScopeTypeAndScopeId(paymentType.getPaymentTypeId(), period, scopeType, scopeId)
+                .orElse(null);
+        if (run == null) {
+            run = new BillingRun();
+            run.setRunId(UUID.randomUUID());
+            run.setPaymentTypeId(paymentType.getPaymentTypeId());
+            run.setBillingPeriod(period);
+            run.setScopeType(scopeType);
+            run.setScopeId(scopeId);
+            run.setPaymentName(paymentName);
+            run.setDescription(request.getDescription());
+            run.setAmount(request.getAmount());
+            run.setDueDate(dueDate);
+            run.setStatus(RUNNING);
+            run.setCreatedBy(userId);
+            try {
+                run = billingRunRepository.saveAndFlush(run);
+            } catch (DataIntegrityViolationException e) {
+                // Request yang sama dibuat bersamaan: pakai run yang sudah tersimpan
+                run = billingRunRepository
+                        .findByPaymentTypeIdAndBillingPeriodAndScopeTypeAndScopeId(paymentType.getPaymentTypeId(), period, scopeType, scopeId)
+                        .orElseThrow(() -> e);
+                requireSameParameters(run, paymentName, request.getAmount(), dueDate);
+            }
+        } else {
+            requireSameParameters(run, paymentName, request.getAmount(), dueDate);
+            if (!RUNNING.equals(run.getStatus())) {
+                run.setStatus(RUNNING);
+                run.setError(null);
+                run.setFinishedAt(null);
+                run.setUpdatedAt(LocalDateTime.now());
+                run = billingRunRepository.save(run);
+            }
+        }
+
+        submit(run.getRunId());
+        return toResponse(run);
+    }
+
+    private static void requireSameParameters(BillingRun run, String paymentName, BigDecimal amount, LocalDate dueDate) {
+        if (!run.getPaymentName().equals(paymentName)
+                || run.getAmount().compareTo(amount) != 0
+                || !run.getDueDate().equals(dueDate)) {
+            throw new DuplicateDataException("Billing run " + run.getRunId() + " untuk periode " + run.getBillingPeriod() +
+                    " sudah ada dengan nama, jumlah atau jatuh tempo berbeda (" + run.getPaymentName() + ", " +
+                    run.getAmount() + ", " + run.getDueDate() + ")");
+        }
+    }
+
+    public BillingRunResponse getRun(UUID runId) {
+        return billingRunRepository.findById(runId)
+                .map(BillingRunService::toResponse)
+                .orElseThrow(() -> new DataNotFoundException("Billing run tidak ditemukan: " + runId));
+    }
+
+    // Recovery: lanjutkan run yang tertinggal RUNNING karena proses sebelumnya mati
+    @Scheduled(fixedDelayString = "${billing.recovery-interval:60000}")
+    public void resumeStaleRuns() {
+        LocalDateTime staleBefore = LocalDateTime.now().minus(staleAfter);
+        for (BillingRun run : billingRunRepository.findByStatusAndUpdatedAtBefore(RUNNING, staleBefore)) {
+            if (!activeRuns.contains(run.getRunId())) {
+                logger.info("Melanjutkan billing run {} dari student_id {}", run.getRunId(), run.getLastStudentId());
+                submit(run.getRunId());
+            }
+        }
+    }
+
+    private void submit(UUID runId) {
+        // Satu run hanya diproses sekali di node ini
+        if (activeRuns.add(runId)) {
+            runner.execute(() -> {
+                try {
+                    process(runId);
+                } finally {
+                    activeRuns.remove(runId);
+                }
+            });
+        }
+    }
+
+    void process(UUID runId) {
+        BillingRun run = billingRunRepository.findById(runId)
+                .orElseThrow(() -> new DataNotFoundException("Billing run tidak ditemukan: " + runId));
+        try {
+            List<Long> classIds = SCOPE_CLASS.equals(run.getScopeType())
+                    ? List.of(run.getScopeId())
+                    : classesRepository.findIdsBySchoolYearId(run.getScopeId());
+
+            Long afterId = run.getLastStudentId();
+            while (!classIds.isEmpty()) {
+                Long checkpoint = afterId;
+                Long upToId = transactionTemplate.execute(status -> processChunk(run, classIds, checkpoint));
+                if (upToId == null) {
+                    break;
+                }
+                afterId = upToId;
+            }
+            finish(runId, COMPLETED, null);
+        } catch (CheckpointTakenException e) {
+            // Worker lain (node lain) sudah memajukan checkpoint, run diteruskan olehnya
+            logger.info("Billing run {} diproses worker lain", runId);
+        } catch (Exception e) {
+            logger.error("Billing run {} gagal: {}", runId, e.getMessage(), e);
+            finish(runId, FAILED, e.getMessage());
+        }
+    }
+
+    // Satu chunk: ambil id student berikutnya, insert tagihan, majukan checkpoint. null jika student habis.
+    private Long processChunk(BillingRun run, List<Long> classIds, Long afterId) {
+        List<Long> studentIds = billingRunRepository.findNextStudentIds(classIds, afterId, chunkSize);
+        if (studentIds.isEmpty()) {
+            return null;
+        }
+        Long upToId = studentIds.get(studentIds.size() - 1);
+        int created = billingRunRepository.insertPendingPayments(classIds, afterId, upToId,
+                run.getPaymentName(), run.getDescription(), run.getCreatedBy(), run.getPaymentTypeId(),
+                run.getAmount(), run.getBillingPeriod(), run.getDueDate());
+        int advanced = billingRunRepository.advanceCheckpoint(run.getRunId(), afterId, upToId,
+                studentIds.size(), created, LocalDateTime.now());
+        if (advanced == 0) {
+            // Exception membatalkan transaksi chunk ini; insert-nya memang sudah dilakukan worker lain
+            throw new CheckpointTakenException();
+        }
+        return upToId;
+    }
+
+    private void finish(UUID runId, String status, String error) {
+        transactionTemplate.executeWithoutResult(tx -> billingRunRepository.findById(runId).ifPresent(run -> {
+            run.setStatus(status);
+            run.setError(error);
+            run.setUpdatedAt(LocalDateTime.now());
+            run.setFinishedAt(LocalDateTime.now());
+            billingRunRepository.save(run);
+        }));
+    }
+
+    private static String parsePeriod(String period) {
+        if (period == null) {
+            throw new ValidationException("Periode tagihan wajib diisi (format yyyy-MM)");
+        }
+        try {
+            return YearMonth.parse(period).toString();
+        } catch (DateTimeParseException e) {
+            throw new ValidationException("Periode tagihan tidak valid, gunakan format yyyy-MM");
+        }
+    }
+
+    static BillingRunResponse toResponse(BillingRun run) {
+        BillingRunResponse response = new BillingRunResponse();
+        response.setRunId(run.getRunId());
+        response.setPaymentTypeId(run.getPaymentTypeId());
+        response.setBillingPeriod(run.getBillingPeriod());
+        response.setScopeType(run.getScopeType());
+        response.setScopeId(run.getScopeId());
+        response.setPaymentName(run.getPaymentName());
+        response.setAmount(run.getAmount());
+        response.setDueDate(run.getDueDate());
+        response.setStatus(run.getStatus());
+        response.setLastStudentId(run.getLastStudentId());
+        response.setStudentsProcessed(run.getStudentsProcessed());
+        response.setPaymentsCreated(run.getPaymentsCreated());
+        response.setError(run.getError());
+        response.setCreatedAt(run.getCreatedAt());
+        response.setUpdatedAt(run.getUpdatedAt());
+        response.setFinishedAt(run.getFinishedAt());
+        return response;
+    }
+
+    private static class CheckpointTakenException extends RuntimeException {
+    }
+}
@@ -0,0 +1,143 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.dto.response.ExportJobResponse;
+import com.beta.schoolpayment.dto.response.PaymentResponse;
+import com.beta.schoolpayment.exception.DataNotFoundException;
+import com.beta.schoolpayment.job.ExportJobService;
+import com.beta.schoolpayment.job.ExportProgress;
+import com.beta.schoolpayment.repository.ClassesRepository;
+import com.beta.schoolpayment.repository.PaymentRepository;
+import com.beta.schoolpayment.repository.SchoolYearRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// ZIP berisi receipt semua payment COMPLETED dalam satu kelas atau satu tahun ajaran, dijalankan sebagai job export
+@Service
+public class BulkReceiptService {
+
+    static final String JOB_TYPE = "receipts";
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private ClassesRepository classesRepository;
+
+    @Autowired
+    private SchoolYearRepository schoolYearRepository;
+
+    @Autowired
+    private PaymentReceiptService paymentReceiptService;
+
+    @Autowired
+    private ExportJobService exportJobService;
+
+    // Jumlah receipt yang dirender bersamaan per job (0 = jumlah core)
+    @Value("${receipt.bulk.parallelism:0}")
+    private int parallelism;
+
+    public ExportJobResponse startForClass(Long classId, UUID ownerId) {
+        if (!classesRepository.existsById(classId)) {
+            throw new DataNotFoundException("Class not found");
+        }
+        return start(ownerId, "receipts_class_" + classId + ".zip",
+                () -> paymentRepository.findCompletedResponsesByClassId(classId));
+    }
+
+    public ExportJobResponse startForSchoolYear(Long schoolYearId, UUID ownerId) {
+        if (!schoolYearRepository.existsById(schoolYearId)) {
+            throw new DataNotFoundException("School year not found");
+        }
+        return start(ownerId, "receipts_school_year_" + schoolYearId + ".zip",
+                () -> paymentRepository.findCompletedResponsesBySchoolYearId(schoolYearId));
+    }
+
+    private ExportJobResponse start(UUID ownerId, String filename, Supplier<List<PaymentResponse>> source) {
+        return exportJobService.submit(ownerId, JOB_TYPE, filename, "application/zip",
+                (outputStream, progress) -> writeArchive(source.get(), outputStream, progress));
+    }
+
+    // Receipt dirender paralel di virtual thread dan ditulis ke ZIP sesuai urutan selesai. Paling banyak
+    // `parallelism` render berjalan; render berikutnya baru disubmit saat satu selesai, sehingga job yang dibatalkan
+    // (interrupt) atau gagal menulis ZIP tidak meninggalkan antrian render untuk archive yang akan dibuang.
+    // Yang ditahan di memori hanya path file receipt, isi PDF langsung disalin dari disk ke ZIP.
+    void writeArchive(List<PaymentResponse> payments, OutputStream outputStream, ExportProgress progress)
+            throws IOException, InterruptedException {
+        progress.setTotal(payments.size());
+        int permits = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+
+        ExecutorService renderers = Executors.newVirtualThreadPerTaskExecutor();
+        try (ZipOutputStream zip = new ZipOutputStream(outputStream)) {
+            // PDF sudah terkompresi, kompresi ZIP cukup yang tercepat
+            zip.setLevel(Deflater.BEST_SPEED);
+
+            CompletionService<RenderedReceipt> completed = new ExecutorCompletionService<>(renderers);
+            Iterator<PaymentResponse> pending = payments.iterator();
+            int inFlight = 0;
+            for (; inFlight < permits && pending.hasNext(); inFlight++) {
+                submitRender(completed, pending.next());
+            }
+
+            while (inFlight > 0) {
+                Future<RenderedReceipt> next = completed.take();
+                inFlight--;
+                if (pending.hasNext()) {
+                    submitRender(completed, pending.next());
+                    inFlight++;
+                }
+                try {
+                    RenderedReceipt receipt = next.get();
+                    zip.putNextEntry(new ZipEntry(entryName(receipt.payment())));
+                    try {
+                        Files.copy(receipt.file(), zip);
+                    } catch (NoSuchFileException e) {
+                        // Receipt dihapus dari store (status berubah) setelah dirender: tulis ulang langsung ke ZIP
+                        paymentReceiptService.writePaymentReceipt(receipt.payment(), zip);
+                    }
+                    zip.closeEntry();
+                } catch (ExecutionException e) {
+                    progress.itemFailed();
+                }
+                progress.itemProcessed();
+            }
+        } finally {
+            // Selesai normal: tidak ada task tersisa. Batal atau gagal: render yang masih berjalan di-interrupt,
+            // tidak ditunggu (close() akan menunggu semuanya selesai)
+            renderers.shutdownNow();
+        }
+    }
+
+    private void submitRender(CompletionService<RenderedReceipt> completed, PaymentResponse payment) {
+        completed.submit(() -> new RenderedReceipt(payment, paymentReceiptService.storedReceipt(payment)));
+    }
+
+    // <studentId>_<nama siswa>/receipt_<paymentId>.pdf
+    private static String entryName(PaymentResponse payment) {
+        String student = payment.getStudentId() + "_" +
+                (payment.getStudentName() != null ? payment.getStudentName().replaceAll("[^A-Za-z0-9._-]+", "_") : "siswa");
+        return student + "/receipt_" + payment.getPaymentId() + ".pdf";
+    }
+
+    private record RenderedReceipt(PaymentResponse payment, Path file) {
+    }
+}
@@ -0,0 +1,171 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.repository.ImageBlobRepository;
+import com.beta.schoolpayment.storage.ImageStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+// Gambar content-addressed: key = sha256(isi) + ekstensi, sehingga foto yang sama di-upload dua kali hanya
+// disimpan sekali dan URL /api/images/{key} tidak pernah berubah isinya. Pemakaian dihitung di image_blobs;
+// blob tanpa referensi dihapus garbage collector setelah masa tenggang.
+@Service
+public class ImageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageService.class);
+
+    // <sha256>.jpg | <sha256>.png, thumbnail: <sha256>_<size>.jpg
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}(_[0-9]+)?\\.(jpg|png)");
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @Autowired
+    private ImageBlobRepository imageBlobRepository;
+
+    @Autowired
+    private ProfilePictureThumbnailService profilePictureThumbnailService;
+
+    // Blob tanpa referensi baru dihapus setelah masa ini (upload yang transaksinya belum selesai tidak ikut terhapus)
+    @Value("${image.gc.grace-period:P1D}")
+    private Duration gcGracePeriod;
+
+    @Value("${image.gc.batch-size:100}")
+    private int gcBatchSize;
+
+    public static boolean isImageKey(String value) {
+        return value != null && KEY_PATTERN.matcher(value).matches();
+    }
+
+    // 🔹 Upload dari request. Transaksi sendiri (REQUIRES_NEW): baris image_blobs terkunci selama blob ditulis,
+    // lalu di-commit sebelum transaksi pemanggil memakai key-nya.
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public String store(MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return storeStream(in, extension(file.getContentType()));
+        }
+    }
+
+    // 🔹 Upload dari file lokal (migrasi foto lama)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public String store(Path file, String contentType) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return storeStream(in, extension(contentType));
+        }
+    }
+
+    // Isi ditulis ke file sementara sambil di-hash (tidak ditampung di memori); key baru diketahui setelah byte terakhir
+    private String storeStream(InputStream in, String extension) throws IOException {
+        Path temp = Files.createTempFile("image-upload-", "." + extension);
+        try {
+            MessageDigest digest = sha256();
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                in.transferTo(out);
+            }
+            String key = HexFormat.of().formatHex(digest.digest()) + "." + extension;
+            imageBlobRepository.register(key);
+            if (!imageStore.exists(key)) {
+                imageStore.put(key, temp, contentType(key));
+            }
+            return key;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // 🔹 Referensi baru / dilepas, dalam transaksi yang sama dengan perubahan kolom yang menyimpan key.
+    // Nilai lama yang bukan key content-addressed (path sebelum migrasi) diabaikan.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void acquire(String key) {
+        if (isImageKey(key)) {
+            imageBlobRepository.acquire(key);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(String key) {
+        if (isImageKey(key)) {
+            imageBlobRepository.release(key);
+        }
+    }
+
+    public Optional<Resource> find(String key) {
+        return imageStore.find(key);
+    }
+
+    public boolean isSupportedThumbnailSize(int size) {
+        return profilePictureThumbnailService.isSupportedSize(size);
+    }
+
+    // Dipanggil saat thumbnail diminta tetapi belum ada (upload sebelum fitur thumbnail, atau antrian sempat penuh)
+    public void requestThumbnails(String key) {
+        profilePictureThumbnailService.generateAsync(key);
+    }
+
+    // Strong ETag = key tanpa ekstensi (isi blob tidak pernah berubah untuk key yang sama)
+    public static String etag(String key) {
+        return "\"" + key.substring(0, key.lastIndexOf('.')) + "\"";
+    }
+
+    // 🔹 Hapus blob tanpa referensi (beserta thumbnail-nya). Baris dikunci sampai blob terhapus, jadi upload ulang
+    // isi yang sama menunggu dan kemudian menulis blob baru.
+    @Scheduled(fixedDelayString = "${image.gc.interval:3600000}", initialDelayString = "${image.gc.interval:3600000}")
+    @Transactional
+    public void collectGarbage() {
+        List<String> keys = imageBlobRepository.lockUnreferenced(LocalDateTime.now().minus(gcGracePeriod), gcBatchSize);
+        if (keys.isEmpty()) {
+            return;
+        }
+        try {
+            for (String key : keys) {
+                for (int size : profilePictureThumbnailService.getSizes()) {
+                    imageStore.delete(ProfilePictureThumbnailService.thumbnailKey(key, size));
+                }
+                imageStore.delete(key);
+            }
+        } catch (IOException e) {
+            // Transaksi di-rollback, baris tetap ada dan dicoba lagi pada jadwal berikutnya
+            throw new IllegalStateException("Gagal menghapus blob gambar: " + e.getMessage(), e);
+        }
+        int deleted = imageBlobRepository.deleteUnreferenced(keys);
+        logger.info("Garbage collection gambar: {} blob dihapus", deleted);
+    }
+
+    static String contentType(String key) {
+        return key.endsWith(".png") ? "image/png" : "image/jpeg";
+    }
+
+    private static String extension(String contentType) {
+        return "image/png".equals(contentType) ? "png" : "jpg";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
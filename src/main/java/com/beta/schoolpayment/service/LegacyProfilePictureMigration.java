@@ -0,0 +1,88 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.model.User;
+import com.beta.schoolpayment.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Sekali jalan saat startup: foto profil lama (file.IMAGE_DIR/yyyy/MM/dd/<uuid>.ext) dipindah ke ImageStore dan
+// kolom users.profile_picture diganti dengan key content-addressed. Aman dijalankan di beberapa node sekaligus:
+// penggantian kolom bersyarat, jadi referensi hanya ditambah oleh node yang berhasil mengganti.
+// File lama tidak dihapus; folder lama boleh dibersihkan manual setelah semua user termigrasi.
+@Component
+@ConditionalOnProperty(name = "image.store.migrate-legacy", havingValue = "true", matchIfMissing = true)
+public class LegacyProfilePictureMigration implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LegacyProfilePictureMigration.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private ProfilePictureCache profilePictureCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${file.IMAGE_DIR:src/main/resources/static/images}")
+    private String legacyDirectory;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<User> users = userRepository.findWithLegacyProfilePicture();
+        if (users.isEmpty()) {
+            return;
+        }
+        int migrated = 0;
+        for (User user : users) {
+            String legacyPath = user.getProfilePicture();
+            Path file = Path.of(legacyDirectory, legacyPath);
+            if (!Files.isRegularFile(file)) {
+                logger.warn("Foto profil lama tidak ditemukan: {}", file);
+                continue;
+            }
+            try {
+                String imageKey = imageService.store(file, legacyPath.toLowerCase().endsWith(".png") ? "image/png" : "image/jpeg");
+                Boolean replaced = transactionTemplate.execute(status -> {
+                    if (userRepository.replaceProfilePicture(user.getUserId(), legacyPath, imageKey) == 0) {
+                        return false;
+                    }
+                    imageService.acquire(imageKey);
+                    return true;
+                });
+                if (Boolean.TRUE.equals(replaced)) {
+                    profilePictureCache.evict(user.getUserId());
+                    imageService.requestThumbnails(imageKey);
+                    migrated++;
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Gagal memigrasi foto profil {}: {}", file, e.getMessage());
+            }
+        }
+        logger.info("Migrasi foto profil ke ImageStore: {} dari {} user", migrated, users.size());
+    }
+}
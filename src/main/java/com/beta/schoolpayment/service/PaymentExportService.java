@@ -1,59 +1,92 @@
 package com.beta.schoolpayment.service;
 
+import com.beta.schoolpayment.dto.request.PaymentFilterCriteria;
 import com.beta.schoolpayment.dto.response.PaymentResponse;
+import com.beta.schoolpayment.job.ExportProgress;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public class PaymentExportService {
 
+    private static final String[] COLUMNS = {"Payment ID", "Payment Name", "User ID", "Student ID", "Student Name", "Amount", "Status", "Created At"};
+
+    // Lebar kolom (dalam karakter) ditetapkan di awal, autoSizeColumn tidak bisa dipakai pada SXSSF
+    private static final int[] COLUMN_WIDTHS = {38, 30, 38, 12, 30, 16, 12, 22};
+
+    // Jumlah baris yang ditahan di memori, sisanya di-flush ke file sementara
+    private static final int ROW_ACCESS_WINDOW = 100;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    // 🔹 Export pembayaran aktif sesuai filter langsung ke output stream
+    public void exportPaymentsToExcel(PaymentFilterCriteria criteria, OutputStream outputStream) throws IOException {
+        writeWorkbook(outputStream, action -> paymentService.forEachPayment(criteria, action));
+    }
+
+    // 🔹 Versi job export: tiap baris yang ditulis dilaporkan ke progres job
+    public void exportPaymentsToExcel(PaymentFilterCriteria criteria, OutputStream outputStream,
+                                      ExportProgress progress) throws IOException {
+        writeWorkbook(outputStream, action -> paymentService.forEachPayment(criteria, payment -> {
+            action.accept(payment);
+            progress.itemProcessed();
+        }));
+    }
+
     public byte[] exportPaymentsToExcel(List<PaymentResponse> payments) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook()) {
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            writeWorkbook(outputStream, payments::forEach);
+            return outputStream.toByteArray();
+        }
+    }
+
+    private void writeWorkbook(OutputStream outputStream, Consumer<Consumer<PaymentResponse>> source) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
             Sheet sheet = workbook.createSheet("Payments");
 
             // 🔹 Buat header row
             Row headerRow = sheet.createRow(0);
-            String[] columns = {"Payment ID", "Payment Name", "User ID", "Student ID","Student Name", "Amount", "Status", "Created At"};
-            for (int i = 0; i < columns.length; i++) {
+            CellStyle headerStyle = getHeaderStyle(workbook);
+            for (int i = 0; i < COLUMNS.length; i++) {
                 Cell cell = headerRow.createCell(i);
-                cell.setCellValue(columns[i]);
-                cell.setCellStyle(getHeaderStyle(workbook));
+                cell.setCellValue(COLUMNS[i]);
+                cell.setCellStyle(headerStyle);
+                sheet.setColumnWidth(i, COLUMN_WIDTHS[i] * 256);
             }
 
             // 🔹 Isi data
-            int rowNum = 1;
-            for (PaymentResponse payment : payments) {
-                Row row = sheet.createRow(rowNum++);
-
-                row.createCell(0).setCellValue(payment.getPaymentId() != null ? payment.getPaymentId().toString() : "N/A");
-                row.createCell(1).setCellValue(payment.getPaymentName() != null ? payment.getPaymentName() : "N/A");
-                row.createCell(2).setCellValue(payment.getUserId() != null ? payment.getUserId().toString() : "N/A");
-                row.createCell(3).setCellValue(payment.getStudentName() != null ? payment.getStudentName() : "N/A");
-                row.createCell(4).setCellValue(payment.getStudentId() != null ? payment.getStudentId().toString() : "N/A");
-                row.createCell(5).setCellValue(payment.getAmount() != null ? payment.getAmount().doubleValue() : 0.0);
-                row.createCell(6).setCellValue(payment.getPaymentStatus() != null ? payment.getPaymentStatus() : "N/A");
-                row.createCell(7).setCellValue(payment.getCreatedAt() != null ? payment.getCreatedAt().toString() : "N/A");
-            }
+            int[] rowNum = {1};
+            source.accept(payment -> writeRow(sheet.createRow(rowNum[0]++), payment));
 
-
-            // 🔹 Auto-size kolom
-            for (int i = 0; i < columns.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
-
-            // 🔹 Simpan workbook ke dalam ByteArrayOutputStream
-            try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-                workbook.write(outputStream);
-                return outputStream.toByteArray();
-            }
+            workbook.write(outputStream);
+        } finally {
+            workbook.dispose(); // Hapus file sementara SXSSF
+            workbook.close();
         }
     }
 
+    private void writeRow(Row row, PaymentResponse payment) {
+        row.createCell(0).setCellValue(payment.getPaymentId() != null ? payment.getPaymentId().toString() : "N/A");
+        row.createCell(1).setCellValue(payment.getPaymentName() != null ? payment.getPaymentName() : "N/A");
+        row.createCell(2).setCellValue(payment.getUserId() != null ? payment.getUserId().toString() : "N/A");
+        row.createCell(3).setCellValue(payment.getStudentId() != null ? payment.getStudentId().toString() : "N/A");
+        row.createCell(4).setCellValue(payment.getStudentName() != null ? payment.getStudentName() : "N/A");
+        row.createCell(5).setCellValue(payment.getAmount() != null ? payment.getAmount().doubleValue() : 0.0);
+        row.createCell(6).setCellValue(payment.getPaymentStatus() != null ? payment.getPaymentStatus() : "N/A");
+        row.createCell(7).setCellValue(payment.getCreatedAt() != null ? payment.getCreatedAt().toString() : "N/A");
+    }
+
     private CellStyle getHeaderStyle(Workbook workbook) {
         CellStyle headerStyle = workbook.createCellStyle();
         Font font = workbook.createFont();
@@ -1,36 +1,201 @@
 package com.beta.schoolpayment.service;
 
 import com.beta.schoolpayment.dto.response.PaymentResponse;
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
 import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
 import com.itextpdf.kernel.pdf.PdfWriter;
-import com.itextpdf.layout.Document;
-import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DeflaterOutputStream;
 
 @Service
 public class PaymentReceiptService {
 
+    private static final String[] LABELS = {
+            "ID Pembayaran", "Nama Pembayaran", "Nama Siswa", "Jumlah", "Status", "Tanggal Pembayaran"
+    };
+
+    // Posisi layout template (satuan point, A4 = 595 x 842)
+    private static final float LABEL_X = 72;
+    private static final float VALUE_X = 220;
+    private static final float FIRST_ROW_Y = 700;
+    private static final float ROW_HEIGHT = 24;
+    private static final float FONT_SIZE = 11;
+
+    // FontProgram hasil parse dipakai bersama; PdfFont tetap dibuat per dokumen (terikat ke satu PdfDocument)
+    private static final FontProgram VALUE_FONT = loadFont(StandardFonts.HELVETICA);
+    private static final FontProgram LABEL_FONT = loadFont(StandardFonts.HELVETICA_BOLD);
+
+    // Bagian statis receipt digambar sekali saat class dimuat; per receipt hanya disalin sebagai form XObject
+    private static final Template TEMPLATE = buildTemplate();
+
+    @Value("${receipt.render.threads:0}")
+    private int renderThreads;
+
+    @Value("${receipt.render.queue-capacity:500}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor renderExecutor;
+
+    @Autowired
+    private PaymentReceiptStore paymentReceiptStore;
+
+    @PostConstruct
+    void startExecutor() {
+        int threads = renderThreads > 0 ? renderThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        // Antrian terbatas: jika penuh, submit ditolak (RejectedExecutionException) dan controller membalas 503
+        renderExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "receipt-render-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        renderExecutor.shutdown();
+    }
+
+    // 🔹 File receipt dari store; hanya dirender (di executor terbatas) jika versi ini belum ada di disk.
+    // Melempar RejectedExecutionException jika antrian render penuh.
+    public CompletableFuture<Path> receiptFile(PaymentResponse payment) {
+        return paymentReceiptStore.find(payment)
+                .map(CompletableFuture::completedFuture)
+                .orElseGet(() -> CompletableFuture.supplyAsync(() -> storedReceipt(payment), renderExecutor));
+    }
+
+    // File receipt dari store, dirender di thread pemanggil jika belum ada
+    public Path storedReceipt(PaymentResponse payment) {
+        return paymentReceiptStore.find(payment)
+                .orElseGet(() -> paymentReceiptStore.write(payment, outputStream -> writePaymentReceipt(payment, outputStream)));
+    }
+
     public byte[] generatePaymentReceipt(PaymentResponse payment) {
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(4096);
+        writePaymentReceipt(payment, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    // 🔹 Tulis PDF langsung ke output stream (stream tidak ditutup).
+    // Template statis disalin dari TEMPLATE, lalu nilai ditulis dengan operator canvas tanpa layout engine.
+    public void writePaymentReceipt(PaymentResponse payment, OutputStream outputStream) {
+        try {
             PdfWriter writer = new PdfWriter(outputStream);
+            writer.setCloseStream(false);
             PdfDocument pdfDocument = new PdfDocument(writer);
-            Document document = new Document(pdfDocument);
+            PdfCanvas canvas = new PdfCanvas(pdfDocument.addNewPage(PageSize.A4));
 
-            document.add(new Paragraph("TANDA TERIMA PEMBAYARAN"));
-            document.add(new Paragraph("ID Pembayaran: " + payment.getPaymentId()));
-            document.add(new Paragraph("Nama Pembayaran: " + payment.getPaymentName()));
-            document.add(new Paragraph("Nama Siswa: " + payment.getStudentName()));
-            document.add(new Paragraph("Jumlah: Rp " + payment.getAmount()));
-            document.add(new Paragraph("Status: " + payment.getPaymentStatus()));
-            document.add(new Paragraph("Tanggal Pembayaran: " + payment.getUpdatedAt()));
+            canvas.addXObject(TEMPLATE.copyTo(pdfDocument), 0, 0);
 
-            document.close();
+            String[] values = {
+                    String.valueOf(payment.getPaymentId()),
+                    payment.getPaymentName(),
+                    payment.getStudentName(),
+                    "Rp " + payment.getAmount(),
+                    payment.getPaymentStatus(),
+                    String.valueOf(payment.getUpdatedAt())
+            };
+            canvas.beginText().setFontAndSize(PdfFontFactory.createFont(VALUE_FONT, PdfEncodings.WINANSI), FONT_SIZE);
+            for (int i = 0; i < values.length; i++) {
+                canvas.setTextMatrix(VALUE_X, FIRST_ROW_Y - i * ROW_HEIGHT)
+                        .showText(values[i] != null ? values[i] : "-");
+            }
+            canvas.endText();
 
-            return outputStream.toByteArray();
+            pdfDocument.close();
         } catch (Exception e) {
             throw new RuntimeException("Gagal membuat PDF tanda terima pembayaran", e);
         }
     }
+
+    // Bagian statis receipt: judul, label field, dan garis pembatas
+    private static void drawTemplate(PdfCanvas canvas, PdfFont labelFont) {
+        canvas.beginText()
+                .setFontAndSize(labelFont, 16)
+                .setTextMatrix(LABEL_X, FIRST_ROW_Y + 2 * ROW_HEIGHT)
+                .showText("TANDA TERIMA PEMBAYARAN");
+        canvas.setFontAndSize(labelFont, FONT_SIZE);
+        for (int i = 0; i < LABELS.length; i++) {
+            canvas.setTextMatrix(LABEL_X, FIRST_ROW_Y - i * ROW_HEIGHT).showText(LABELS[i]);
+            canvas.setTextMatrix(VALUE_X - 12, FIRST_ROW_Y - i * ROW_HEIGHT).showText(":");
+        }
+        canvas.endText();
+
+        float right = PageSize.A4.getWidth() - LABEL_X;
+        float top = FIRST_ROW_Y + ROW_HEIGHT + 4;
+        float bottom = FIRST_ROW_Y - LABELS.length * ROW_HEIGHT + 8;
+        canvas.moveTo(LABEL_X, top).lineTo(right, top)
+                .moveTo(LABEL_X, bottom).lineTo(right, bottom)
+                .stroke();
+    }
+
+    // Content stream template dirender ke dokumen sementara, lalu disimpan sudah terkompresi (FlateDecode)
+    // sehingga per receipt tidak ada operator yang digambar ulang maupun dikompresi ulang
+    private static Template buildTemplate() {
+        // Dokumen sementara hanya dipakai sebagai konteks canvas; tidak pernah ditutup karena tidak punya halaman
+        PdfDocument scratch = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()));
+        PdfFormXObject form = new PdfFormXObject(PageSize.A4);
+        drawTemplate(new PdfCanvas(form, scratch), PdfFontFactory.createFont(LABEL_FONT, PdfEncodings.WINANSI));
+        PdfName labelFontName = form.getResources().getResourceNames(PdfName.Font).iterator().next();
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(compressed)) {
+            deflater.write(form.getPdfObject().getBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Template(compressed.toByteArray(), labelFontName);
+    }
+
+    private record Template(byte[] content, PdfName labelFontName) {
+
+        // Form XObject baru di dokumen tujuan; hanya font label yang dibuat per dokumen
+        PdfFormXObject copyTo(PdfDocument pdfDocument) {
+            PdfFormXObject form = new PdfFormXObject(PageSize.A4);
+            PdfName fontName = form.getResources().addFont(pdfDocument,
+                    PdfFontFactory.createFont(LABEL_FONT, PdfEncodings.WINANSI));
+            if (!fontName.equals(labelFontName)) {
+                throw new IllegalStateException("Nama resource font template berbeda: " + fontName + " != " + labelFontName);
+            }
+            // Filter sudah di-set, sehingga iText menulis isi apa adanya tanpa kompresi ulang
+            form.getPdfObject().setData(content);
+            form.getPdfObject().put(PdfName.Filter, PdfName.FlateDecode);
+            return form;
+        }
+    }
+
+    private static FontProgram loadFont(String name) {
+        try {
+            return FontProgramFactory.createFont(name);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -0,0 +1,99 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.dto.response.PaymentResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Penyimpanan PDF receipt di disk: <dir>/<paymentId>/<versi>.pdf, versi diturunkan dari updatedAt.
+// Isi receipt hanya berubah jika payment berubah, sehingga file dengan versi yang sama selalu identik.
+@Component
+public class PaymentReceiptStore {
+
+    @Value("${receipt.store.dir:data/receipts}")
+    private String storeDir;
+
+    // Versi = updatedAt dalam mikrodetik (UTC), hex
+    public String version(PaymentResponse payment) {
+        if (payment.getUpdatedAt() == null) {
+            return "0";
+        }
+        long micros = ChronoUnit.MICROS.between(Instant.EPOCH,
+                payment.getUpdatedAt().toInstant(ZoneOffset.UTC));
+        return Long.toHexString(micros);
+    }
+
+    // Strong ETag: byte receipt identik untuk paymentId + versi yang sama
+    public String etag(PaymentResponse payment) {
+        return "\"" + payment.getPaymentId() + "-" + version(payment) + "\"";
+    }
+
+    public Optional<Path> find(PaymentResponse payment) {
+        Path path = path(payment);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    // Tulis ke file sementara lalu rename atomik, sehingga pembaca tidak pernah melihat file setengah jadi
+    public Path write(PaymentResponse payment, Consumer<OutputStream> writer) {
+        Path target = path(payment);
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), "receipt-", ".tmp");
+            try {
+                try (OutputStream outputStream = Files.newOutputStream(temp)) {
+                    writer.accept(outputStream);
+                }
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            deleteOtherVersions(target);
+            return target;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Gagal menyimpan receipt " + payment.getPaymentId(), e);
+        }
+    }
+
+    // 🔹 Dipanggil saat payment berubah (status, delete); semua versi receipt payment ini dihapus
+    public void evict(UUID paymentId) {
+        Path directory = Path.of(storeDir, paymentId.toString());
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            // File lama tidak berbahaya: versi baru punya nama berbeda dan tidak akan pernah cocok dengan file lama
+        }
+    }
+
+    private Path path(PaymentResponse payment) {
+        return Path.of(storeDir, payment.getPaymentId().toString(), version(payment) + ".pdf");
+    }
+
+    private void deleteOtherVersions(Path current) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(current.getParent(), "*.pdf")) {
+            for (Path file : files) {
+                if (!file.equals(current)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+}
@@ -1,31 +1,57 @@
 package com.beta.schoolpayment.service;
 
+import com.beta.schoolpayment.dto.request.PaymentCursor;
 import com.beta.schoolpayment.dto.request.PaymentFilterCriteria;
 import com.beta.schoolpayment.dto.request.PaymentRequest;
+import com.beta.schoolpayment.dto.response.PaymentBatchItemResult;
+import com.beta.schoolpayment.dto.response.PaymentBatchResponse;
 import com.beta.schoolpayment.dto.response.PaymentResponse;
+import com.beta.schoolpayment.exception.PaymentStatusConflictException;
+import com.beta.schoolpayment.exception.ValidationException;
 import com.beta.schoolpayment.model.Payment;
+import com.beta.schoolpayment.model.PaymentStatus;
+import com.beta.schoolpayment.model.PaymentStatusRequest;
 import com.beta.schoolpayment.model.PaymentType;
 import com.beta.schoolpayment.model.Student;
 import com.beta.schoolpayment.model.User;
 import com.beta.schoolpayment.repository.PaymentRepository;
+import com.beta.schoolpayment.repository.PaymentStatusRequestRepository;
 import com.beta.schoolpayment.repository.PaymentTypeRepository;
 import com.beta.schoolpayment.repository.StudentRepository;
 import com.beta.schoolpayment.repository.UserRepository;
 import com.beta.schoolpayment.specification.PaymentSpecification;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -40,10 +66,38 @@ public class PaymentService {
     @Autowired
     private StudentRepository studentRepository;
 
+    @Autowired
+    private PaymentReceiptStore paymentReceiptStore;
+
     @Autowired
     private PaymentTypeRepository paymentTypeRepository;
 
+    @Autowired
+    private PaymentSummaryService paymentSummaryService;
+
+    @Autowired
+    private PaymentStatusRequestRepository paymentStatusRequestRepository;
+
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 100;
+
+    // Sama dengan hibernate.jdbc.batch_size: satu flush = satu JDBC batch insert
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int insertBatchSize;
+
+    // Jumlah baris per partisi keyset saat export
+    @Value("${payment.export.partition-size:5000}")
+    private int exportPartitionSize;
+
+    // Jumlah partisi yang dibaca bersamaan saat export
+    @Value("${payment.export.parallelism:4}")
+    private int exportParallelism;
+
+    // Lama Idempotency-Key perubahan status disimpan
+    @Value("${payment.status.idempotency-retention:P2D}")
+    private Duration idempotencyRetention;
+
     // ✅ Create Payment
+    @Transactional
     public PaymentResponse createPayment(PaymentRequest request, UserDetails userDetails) {
         // Ambil user berdasarkan email dari token JWT
         User user = userRepository.findByEmail(userDetails.getUsername())
@@ -68,26 +122,105 @@ public class PaymentService {
         payment.setAmount(request.getAmount());
         payment.setPaymentStatus(request.getPaymentStatus());
         payment.setDescription(request.getDescription());
+        payment.setDueDate(request.getDueDate());
 
         // Simpan ke database
         Payment savedPayment = paymentRepository.save(payment);
+        paymentSummaryService.paymentCreated(savedPayment);
         return convertToResponse(savedPayment);
     }
 
+    // ✅ Create Payment Batch
+    // Student dan jenis pembayaran di-lookup sekali untuk seluruh batch, item yang valid di-insert per JDBC batch.
+    // Item yang tidak valid dilaporkan per index tanpa menggagalkan item lain.
+    @Transactional
+    public PaymentBatchResponse createPayments(List<PaymentRequest> requests, UserDetails userDetails) {
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new RuntimeException("User tidak ditemukan"));
+
+        Map<Long, Student> students = studentRepository.findAllWithClassesByIdIn(
+                        collectIds(requests, PaymentRequest::getStudentId)).stream()
+                .collect(Collectors.toMap(Student::getId, Function.identity()));
+        Map<Long, PaymentType> paymentTypes = paymentTypeRepository.findAllById(
+                        collectIds(requests, PaymentRequest::getPaymentTypeId)).stream()
+                .collect(Collectors.toMap(PaymentType::getPaymentTypeId, Function.identity()));
+
+        PaymentBatchItemResult[] results = new PaymentBatchItemResult[requests.size()];
+        List<Payment> payments = new ArrayList<>();
+        List<Integer> paymentIndexes = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            PaymentRequest request = requests.get(i);
+            String error = validateBatchItem(request, students, paymentTypes);
+            if (error != null) {
+                results[i] = PaymentBatchItemResult.failed(i, error);
+                continue;
+            }
+            Payment payment = new Payment();
+            payment.setPaymentName(request.getPaymentName());
+            payment.setUser(user);
+            payment.setStudent(students.get(request.getStudentId()));
+            payment.setPaymentType(paymentTypes.get(request.getPaymentTypeId()));
+            payment.setAmount(request.getAmount());
+            payment.setPaymentStatus(PaymentStatus.from(request.getPaymentStatus()).name());
+            payment.setDescription(request.getDescription());
+            payment.setDueDate(request.getDueDate());
+            payments.add(payment);
+            paymentIndexes.add(i);
+        }
+
+        paymentRepository.persistInBatches(payments, insertBatchSize);
+        paymentSummaryService.paymentsCreated(payments);
+
+        for (int i = 0; i < payments.size(); i++) {
+            int index = paymentIndexes.get(i);
+            results[index] = PaymentBatchItemResult.created(index, convertToResponse(payments.get(i)));
+        }
+        return new PaymentBatchResponse(requests.size(), payments.size(), requests.size() - payments.size(),
+                Arrays.asList(results));
+    }
+
+    private static String validateBatchItem(PaymentRequest request, Map<Long, Student> students,
+                                            Map<Long, PaymentType> paymentTypes) {
+        if (request == null) {
+            return "Item kosong";
+        }
+        if (request.getPaymentName() == null || request.getPaymentName().isBlank()) {
+            return "Nama pembayaran wajib diisi";
+        }
+        if (request.getAmount() == null || request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Jumlah pembayaran harus lebih dari 0";
+        }
+        try {
+            PaymentStatus.from(request.getPaymentStatus());
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        if (request.getStudentId() == null || !students.containsKey(request.getStudentId())) {
+            return "Student tidak ditemukan";
+        }
+        if (request.getPaymentTypeId() == null || !paymentTypes.containsKey(request.getPaymentTypeId())) {
+            return "Jenis pembayaran tidak ditemukan";
+        }
+        return null;
+    }
+
+    private static Set<Long> collectIds(List<PaymentRequest> requests, Function<PaymentRequest, Long> id) {
+        return requests.stream()
+                .filter(Objects::nonNull)
+                .map(id)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
     // ✅ Get Payment by ID
     public PaymentResponse getPaymentById(UUID paymentId) {
-        Payment payment = paymentRepository.findById(paymentId)
+        return paymentRepository.findResponseById(paymentId)
                 .orElseThrow(() -> new IllegalArgumentException("Payment dengan ID " + paymentId + " tidak ditemukan"));
-        return convertToResponse(payment);
     }
 
     // ✅ Get User Payments (Hanya untuk pengguna yang login & tanpa soft deleted)
     public List<PaymentResponse> getUserPayments(UUID userId) {
-        List<Payment> payments = paymentRepository.findByUser_UserIdAndDeletedAtIsNull(userId);
-
-        return payments.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return paymentRepository.findResponsesByUserId(userId);
     }
 
     // ✅ Get All Payments (Dengan Pagination, Sorting, dan Filtering)
@@ -98,48 +231,143 @@ public class PaymentService {
         Pageable pageable = PageRequest.of(page, size, sort);
 
         Specification<Payment> spec = new PaymentSpecification(criteria);
-        Page<Payment> payments = paymentRepository.findAll(spec, pageable);
+        return paymentRepository.findResponses(spec, pageable);
+    }
+
+    // ✅ Get Payments dengan Keyset Pagination (cursor, tanpa OFFSET dan tanpa total count)
+    public Slice<PaymentResponse> getPaymentsByCursor(
+            PaymentFilterCriteria criteria, String cursor, int size, String sortDirection) {
 
-        return payments.map(this::convertToResponse);
+        Sort.Direction direction = Sort.Direction.fromString(sortDirection);
+        PaymentCursor after = (cursor == null || cursor.isBlank()) ? null : PaymentCursor.decode(cursor);
+        if (after != null && after.getDirection() != direction) {
+            throw new IllegalArgumentException("Cursor dibuat untuk sortDirection " + after.getDirection() +
+                    ", bukan " + direction);
+        }
+        Specification<Payment> spec = new PaymentSpecification(criteria);
+        return paymentRepository.findResponsesAfter(spec, after, size, direction);
+    }
+
+    // ✅ Export Payments (Filter sama dengan getAllPayments, hanya yang belum dihapus)
+    // Data dibagi per rentang keyset (createdAt, paymentId), dibaca paralel, lalu diteruskan berurutan
+    public void forEachPayment(PaymentFilterCriteria criteria, Consumer<PaymentResponse> action) {
+        Specification<Payment> spec = Specification.where(new PaymentSpecification(criteria))
+                .and(PaymentSpecification.notDeleted());
+        List<PaymentCursor> boundaries = paymentRepository.findPartitionBoundaries(spec, exportPartitionSize);
+        int partitions = boundaries.size() + 1;
+
+        Deque<Future<List<PaymentResponse>>> inFlight = new ArrayDeque<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            try {
+                int next = 0;
+                while (next < partitions || !inFlight.isEmpty()) {
+                    // Maksimal exportParallelism partisi dibaca bersamaan
+                    while (next < partitions && inFlight.size() < Math.max(1, exportParallelism)) {
+                        PaymentCursor after = next == 0 ? null : boundaries.get(next - 1);
+                        PaymentCursor upTo = next < boundaries.size() ? boundaries.get(next) : null;
+                        inFlight.add(executor.submit(() -> paymentRepository.findKeysetRange(spec, after, upTo)));
+                        next++;
+                    }
+                    awaitPartition(inFlight.poll()).forEach(action);
+                }
+            } finally {
+                inFlight.forEach(future -> future.cancel(true));
+            }
+        }
     }
 
-    // ✅ Get All Active Payments (Tanpa soft delete)
-    public List<PaymentResponse> getAllActivePayments() {
-        return paymentRepository.findAll().stream()
-                .filter(payment -> payment.getDeletedAt() == null) // Hanya yang belum dihapus
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    private List<PaymentResponse> awaitPartition(Future<List<PaymentResponse>> partition) {
+        try {
+            return partition.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Export pembayaran dibatalkan", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Gagal membaca data pembayaran", e.getCause());
+        }
     }
 
     // ✅ Soft Delete Payment (Set deletedAt)
+    @Transactional
     public void deletePayment(UUID id) {
         Payment payment = paymentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Payment tidak ditemukan"));
 
+        boolean active = payment.getDeletedAt() == null;
         payment.setDeletedAt(LocalDateTime.now()); // Soft delete
         paymentRepository.save(payment);
+        if (active) {
+            paymentSummaryService.paymentDeleted(payment);
+        }
+        paymentReceiptStore.evict(id);
     }
 
     // ✅ Update Payment Status
-    public PaymentResponse updatePaymentStatus(UUID id, String status) {
-        Payment payment = paymentRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Payment tidak ditemukan dengan ID: " + id));
+    // Transisi compare-and-set: expectedStatus (opsional) = status yang diyakini client saat ini; jika kosong
+    // dibaca dulu. Idempotency-Key yang sudah pernah diproses membuat request menjadi no-op.
+    @Transactional
+    public PaymentResponse updatePaymentStatus(UUID id, String status, String expectedStatus, String idempotencyKey) {
+        PaymentStatus target = PaymentStatus.from(status);
+        String key = idempotencyKey != null && !idempotencyKey.isBlank() ? idempotencyKey.trim() : null;
+        if (key != null && key.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key maksimal " + MAX_IDEMPOTENCY_KEY_LENGTH + " karakter");
+        }
+        PaymentStatus expected = expectedStatus != null
+                ? PaymentStatus.from(expectedStatus)
+                : PaymentStatus.from(paymentRepository.findActiveStatusById(id)
+                        .orElseThrow(() -> new EntityNotFoundException("Payment tidak ditemukan dengan ID: " + id)));
+        if (expected == target) {
+            // Tidak ada yang diubah, tetapi expectedStatus dari client tetap dicocokkan dengan status tersimpan
+            PaymentResponse current = getActivePayment(id);
+            if (!target.name().equals(current.getPaymentStatus())) {
+                throw new PaymentStatusConflictException("Status payment saat ini " + current.getPaymentStatus() +
+                        " (diharapkan " + expected + ")");
+            }
+            return current;
+        }
+        if (!expected.canTransitionTo(target)) {
+            throw new PaymentStatusConflictException("Perubahan status " + expected + " -> " + target + " tidak diizinkan");
+        }
 
-        // Validasi status pembayaran yang diperbolehkan
-        List<String> validStatuses = Arrays.asList("PENDING","FAILED", "REFUNDED", "COMPLETED");
-        if (!validStatuses.contains(status.toUpperCase())) {
-            throw new IllegalArgumentException("Status pembayaran tidak valid. Pilihan: ,FAILED, PENDING,REFUNDED, CANCELED, COMPLETED");
+        PaymentRepository.StatusTransition result = paymentRepository.transitionStatus(id, expected.name(), target.name(), key);
+        if (result.getUpdated() == 1) {
+            // Receipt versi lama tidak berlaku lagi
+            paymentReceiptStore.evict(id);
+            return getActivePayment(id);
         }
+        if (key != null && result.getClaimed() == 0) {
+            // Retry dengan key yang sama: kembalikan keadaan sekarang tanpa mengubah apa pun
+            PaymentStatusRequest previous = paymentStatusRequestRepository.findById(key)
+                    .orElseThrow(() -> new IllegalStateException("Idempotency-Key tidak ditemukan: " + key));
+            if (!previous.getPaymentId().equals(id) || !previous.getTargetStatus().equals(target.name())) {
+                throw new ValidationException("Idempotency-Key sudah dipakai untuk perubahan status lain");
+            }
+            return getActivePayment(id);
+        }
+
+        // Compare-and-set gagal: status sudah diubah request lain sejak dibaca
+        PaymentResponse current = getActivePayment(id);
+        if (target.name().equals(current.getPaymentStatus())) {
+            return current;
+        }
+        throw new PaymentStatusConflictException("Status payment sudah berubah menjadi " + current.getPaymentStatus() +
+                " (diharapkan " + expected + ")");
+    }
 
-        payment.setPaymentStatus(status.toUpperCase());
-        payment.setUpdatedAt(LocalDateTime.now());
+    // 🔹 Hapus Idempotency-Key yang sudah lewat masa retry
+    @Scheduled(fixedDelayString = "${payment.status.idempotency-cleanup-interval:3600000}")
+    public void purgeIdempotencyKeys() {
+        paymentStatusRequestRepository.deleteByCreatedAtBefore(LocalDateTime.now().minus(idempotencyRetention));
+    }
 
-        Payment updatedPayment = paymentRepository.save(payment);
-        return convertToResponse(updatedPayment);
+    private PaymentResponse getActivePayment(UUID id) {
+        return paymentRepository.findResponseById(id)
+                .filter(payment -> payment.getDeletedAt() == null)
+                .orElseThrow(() -> new EntityNotFoundException("Payment tidak ditemukan dengan ID: " + id));
     }
 
     // ✅ Convert Payment Entity to DTO Response
-    private PaymentResponse convertToResponse(Payment payment) {
+    public static PaymentResponse convertToResponse(Payment payment) {
         PaymentResponse response = new PaymentResponse();
         response.setPaymentId(payment.getPaymentId());
         response.setPaymentName(payment.getPaymentName());
@@ -0,0 +1,144 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.dto.response.PaymentStatusTotal;
+import com.beta.schoolpayment.dto.response.PaymentSummaryResponse;
+import com.beta.schoolpayment.dto.response.PaymentSummaryRow;
+import com.beta.schoolpayment.exception.ValidationException;
+import com.beta.schoolpayment.model.Payment;
+import com.beta.schoolpayment.model.PaymentStatus;
+import com.beta.schoolpayment.repository.PaymentSummaryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Ringkasan pembayaran (payment_summaries) untuk dashboard keuangan.
+// Delta ditulis dalam transaksi yang sama dengan perubahan payment; job malam membangun ulang seluruh tabel
+// dari payments untuk membersihkan selisih (mis. student pindah kelas, perubahan data langsung di database).
+@Service
+public class PaymentSummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentSummaryService.class);
+
+    // Urutan tetap saat menulis banyak baris ringkasan, agar dua transaksi tidak saling menunggu (deadlock)
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::studentId)
+            .thenComparing(Key::paymentTypeId)
+            .thenComparing(Key::paymentStatus);
+
+    @Autowired
+    private PaymentSummaryRepository paymentSummaryRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void paymentCreated(Payment payment) {
+        apply(keyOf(payment, payment.getPaymentStatus()), 1, payment.getAmount());
+    }
+
+    // Batch insert: delta digabung per baris ringkasan, satu upsert per baris (bukan per payment)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void paymentsCreated(Collection<Payment> payments) {
+        Map<Key, Delta> deltas = new TreeMap<>(KEY_ORDER);
+        for (Payment payment : payments) {
+            deltas.computeIfAbsent(keyOf(payment, payment.getPaymentStatus()), key -> new Delta())
+                    .add(1, payment.getAmount());
+        }
+        deltas.forEach((key, delta) -> apply(key, delta.count, delta.amount));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void paymentDeleted(Payment payment) {
+        apply(keyOf(payment, payment.getPaymentStatus()), -1, payment.getAmount().negate());
+    }
+
+    // 🔹 Bangun ulang seluruh ringkasan dari tabel payments
+    @Scheduled(cron = "${payment.summary.rebuild-cron:0 0 2 * * *}")
+    @Transactional
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        paymentSummaryRepository.lockForRebuild();
+        paymentSummaryRepository.deleteAllRows();
+        int rows = paymentSummaryRepository.insertFromPayments();
+        logger.info("Ringkasan pembayaran dibangun ulang: {} baris dalam {} ms", rows, System.currentTimeMillis() - start);
+    }
+
+    // 🔹 Rekap per kelompok (student, class, school-year, payment-type) dengan filter opsional
+    @Transactional(readOnly = true)
+    public List<PaymentSummaryResponse> getSummary(String groupBy, Long schoolYearId, Long classId, Long paymentTypeId) {
+        String group = groupBy == null ? "class" : groupBy.toLowerCase(Locale.ROOT);
+        List<PaymentSummaryRow> rows = switch (group) {
+            case "student" -> paymentSummaryRepository.summarizeByStudent(schoolYearId, classId, paymentTypeId);
+            case "class" -> paymentSummaryRepository.summarizeByClass(schoolYearId, classId, paymentTypeId);
+            case "school-year" -> paymentSummaryRepository.summarizeBySchoolYear(schoolYearId, classId, paymentTypeId);
+            case "payment-type" -> paymentSummaryRepository.summarizeByPaymentType(schoolYearId, classId, paymentTypeId);
+            default -> throw new ValidationException(
+                    "groupBy tidak valid. Pilihan: student, class, school-year, payment-type");
+        };
+        return toResponses(rows);
+    }
+
+    // Baris (kelompok, status) dari query digabung menjadi satu response per kelompok, urutan query dipertahankan
+    static List<PaymentSummaryResponse> toResponses(List<PaymentSummaryRow> rows) {
+        Map<Long, PaymentSummaryResponse> byGroup = new LinkedHashMap<>();
+        for (PaymentSummaryRow row : rows) {
+            PaymentSummaryResponse response = byGroup.computeIfAbsent(row.getGroupId(), id -> emptyResponse(id, row.getGroupName()));
+            long count = row.getPaymentCount() != null ? row.getPaymentCount() : 0;
+            BigDecimal amount = row.getTotalAmount() != null ? row.getTotalAmount() : BigDecimal.ZERO;
+            PaymentStatusTotal total = response.getStatuses()
+                    .computeIfAbsent(row.getPaymentStatus(), status -> new PaymentStatusTotal(0, BigDecimal.ZERO));
+            total.setCount(total.getCount() + count);
+            total.setAmount(total.getAmount().add(amount));
+            response.setTotalCount(response.getTotalCount() + count);
+        }
+        for (PaymentSummaryResponse response : byGroup.values()) {
+            response.setOutstandingAmount(response.getStatuses().get("PENDING").getAmount());
+            response.setCollectedAmount(response.getStatuses().get("COMPLETED").getAmount());
+        }
+        return new ArrayList<>(byGroup.values());
+    }
+
+    private static PaymentSummaryResponse emptyResponse(Long id, String name) {
+        PaymentSummaryResponse response = new PaymentSummaryResponse();
+        response.setId(id);
+        response.setName(name);
+        Map<String, PaymentStatusTotal> statuses = new LinkedHashMap<>();
+        for (PaymentStatus status : PaymentStatus.values()) {
+            statuses.put(status.name(), new PaymentStatusTotal(0, BigDecimal.ZERO));
+        }
+        response.setStatuses(statuses);
+        return response;
+    }
+
+    private void apply(Key key, long countDelta, BigDecimal amountDelta) {
+        paymentSummaryRepository.applyDelta(key.studentId(), key.paymentTypeId(), key.paymentStatus(), countDelta, amountDelta);
+    }
+
+    private static Key keyOf(Payment payment, String status) {
+        return new Key(payment.getStudent().getId(), payment.getPaymentType().getPaymentTypeId(), status);
+    }
+
+    private record Key(Long studentId, Long paymentTypeId, String paymentStatus) {
+    }
+
+    private static class Delta {
+        private long count;
+        private BigDecimal amount = BigDecimal.ZERO;
+
+        Delta add(long count, BigDecimal amount) {
+            this.count += count;
+            this.amount = this.amount.add(amount);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.beta.schoolpayment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+// Cache path foto profil per user (kosong = user tanpa foto) agar request gambar yang berulang
+// (grid avatar di halaman admin) tidak query ke database. Upload foto dan delete user harus memanggil evict.
+@Component
+public class ProfilePictureCache {
+
+    private final Cache<UUID, Optional<String>> cache;
+
+    public ProfilePictureCache(@Value("${user.profile-picture.cache.max-size:10000}") long maxSize,
+                               @Value("${user.profile-picture.cache.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public Optional<String> get(UUID userId, Function<UUID, Optional<String>> loader) {
+        return cache.get(userId, loader);
+    }
+
+    public void evict(UUID userId) {
+        cache.invalidate(userId);
+    }
+}
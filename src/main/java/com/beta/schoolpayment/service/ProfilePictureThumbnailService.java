@@ -0,0 +1,223 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.storage.ImageStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Thumbnail foto profil (mis. 64 dan 256 px sisi terpanjang), disimpan di ImageStore sebagai <key asli>_<size>.jpg.
+// Dibuat di worker pool terbatas setelah upload; selama belum ada, endpoint gambar mengirim file asli.
+// Thumbnail diturunkan secara deterministik dari isi file asli, jadi key-nya juga immutable.
+@Service
+public class ProfilePictureThumbnailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfilePictureThumbnailService.class);
+
+    @Value("${user.profile-picture.thumbnail.sizes:64,256}")
+    private int[] sizes;
+
+    @Value("${user.profile-picture.thumbnail.quality:0.8}")
+    private float quality;
+
+    @Value("${user.profile-picture.thumbnail.threads:2}")
+    private int threads;
+
+    @Value("${user.profile-picture.thumbnail.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    private ThreadPoolExecutor thumbnailExecutor;
+
+    // Key asli yang sedang/akan diproses, agar request berulang tidak mengantri pekerjaan yang sama
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void startExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        // Antrian terbatas: jika penuh, pekerjaan dilewati (file asli tetap dikirim dan thumbnail dibuat ulang saat diminta)
+        thumbnailExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "profile-thumbnail-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        thumbnailExecutor.shutdown();
+    }
+
+    public boolean isSupportedSize(int size) {
+        return Arrays.stream(sizes).anyMatch(supported -> supported == size);
+    }
+
+    public int[] getSizes() {
+        return sizes.clone();
+    }
+
+    // 🔹 <sha256>.png -> <sha256>_64.jpg
+    public static String thumbnailKey(String key, int size) {
+        int dot = key.lastIndexOf('.');
+        String baseName = dot > 0 ? key.substring(0, dot) : key;
+        return baseName + "_" + size + ".jpg";
+    }
+
+    // 🔹 Jadwalkan pembuatan semua ukuran; tidak pernah melempar exception ke pemanggil
+    public void generateAsync(String original) {
+        if (!inFlight.add(original)) {
+            return;
+        }
+        try {
+            thumbnailExecutor.execute(() -> {
+                try {
+                    generate(original);
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Gagal membuat thumbnail {}: {}", original, e.getMessage());
+                } finally {
+                    inFlight.remove(original);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(original);
+            logger.warn("Antrian thumbnail penuh, {} dilewati", original);
+        }
+    }
+
+    // Gambar asli didekode sekali (dengan subsampling bila jauh lebih besar dari ukuran terbesar), lalu diperkecil
+    // berurutan dari ukuran terbesar ke terkecil
+    void generate(String original) throws IOException {
+        Optional<Resource> source = imageStore.find(original);
+        if (source.isEmpty()) {
+            throw new IOException("Gambar asli tidak ditemukan");
+        }
+        int largest = Arrays.stream(sizes).max().orElse(0);
+        BufferedImage image;
+        try (InputStream in = source.get().getInputStream()) {
+            image = decode(in, largest);
+        }
+        if (image == null) {
+            throw new IOException("Format gambar tidak dikenali");
+        }
+        int[] descending = Arrays.stream(sizes).boxed()
+                .sorted((a, b) -> b - a)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        for (int size : descending) {
+            String target = thumbnailKey(original, size);
+            if (imageStore.exists(target)) {
+                continue;
+            }
+            image = resize(image, size);
+            writeJpeg(image, target);
+        }
+    }
+
+    private static BufferedImage decode(InputStream source, int largest) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source)) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                // Foto kamera 4000px tidak perlu didekode penuh untuk thumbnail 256px
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longest / (largest * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Sisi terpanjang menjadi maxSize (gambar kecil tidak diperbesar). Diperkecil bertahap setengah demi setengah
+    // dengan bilinear agar hasilnya halus; transparansi PNG diganti latar putih karena JPEG tidak punya alpha.
+    static BufferedImage resize(BufferedImage source, int maxSize) {
+        double scale = Math.min(1.0, (double) maxSize / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    // Ditulis ke file sementara lalu disimpan ke ImageStore, yang menulisnya secara atomik
+    private void writeJpeg(BufferedImage image, String key) throws IOException {
+        Path temp = Files.createTempFile("thumbnail-", ".jpg");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            imageStore.put(key, temp, "image/jpeg");
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.exception.UnauthorizedException;
+import com.beta.schoolpayment.model.RefreshToken;
+import com.beta.schoolpayment.model.User;
+import com.beta.schoolpayment.repository.RefreshTokenRepository;
+import com.beta.schoolpayment.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+// Refresh token opaque (256 bit acak) yang dirotasi setiap dipakai. Perpanjangan sesi hanya butuh satu hash SHA-256
+// dan lookup primary key, tanpa BCrypt, sehingga access token bisa dibuat pendek tanpa memaksa user login ulang.
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${auth.refresh-token.ttl:P30D}")
+    private Duration refreshTokenValidity;
+
+    // Token baru beserta user pemiliknya (untuk membuat access token)
+    public record Rotation(User user, String refreshToken) {
+    }
+
+    // 🔹 Token pertama dari login dengan password: family baru
+    @Transactional
+    public String issue(User user) {
+        return issue(user.getUserId(), UUID.randomUUID());
+    }
+
+    // 🔹 Tukar refresh token dengan token baru di family yang sama. Token yang sudah pernah ditukar lalu dipakai lagi
+    // berarti salah satu salinannya bocor: seluruh family dicabut (pencabutan tetap di-commit walau exception).
+    @Transactional(noRollbackFor = UnauthorizedException.class)
+    public Rotation rotate(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            throw new UnauthorizedException("Refresh token tidak valid");
+        }
+        String tokenHash = hash(rawToken);
+        LocalDateTime now = LocalDateTime.now();
+        if (refreshTokenRepository.markUsed(tokenHash, now) == 0) {
+            refreshTokenRepository.findById(tokenHash)
+                    .filter(token -> token.getUsedAt() != null && token.getRevokedAt() == null)
+                    .ifPresent(token -> {
+                        refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+                        logger.warn("Refresh token dipakai ulang, family {} milik user {} dicabut",
+                                token.getFamilyId(), token.getUserId());
+                    });
+            throw new UnauthorizedException("Refresh token tidak valid");
+        }
+        RefreshToken current = refreshTokenRepository.findById(tokenHash)
+                .orElseThrow(() -> new UnauthorizedException("Refresh token tidak valid"));
+        User user = userRepository.findById(current.getUserId())
+                .filter(found -> found.getDeletedAt() == null)
+                .orElse(null);
+        if (user == null) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+            throw new UnauthorizedException("Refresh token tidak valid");
+        }
+        return new Rotation(user, issue(user.getUserId(), current.getFamilyId()));
+    }
+
+    // 🔹 Logout: cabut family dari token ini (token tidak dikenal diabaikan)
+    @Transactional
+    public void revoke(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            return;
+        }
+        refreshTokenRepository.findById(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId(), LocalDateTime.now()));
+    }
+
+    // 🔹 Semua sesi user (password/email/role berubah, user dihapus)
+    @Transactional
+    public void revokeAll(UUID userId) {
+        refreshTokenRepository.revokeByUserId(userId, LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${auth.refresh-token.cleanup-interval:3600000}")
+    public void deleteExpired() {
+        int deleted = refreshTokenRepository.deleteByExpiresAtBefore(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.info("Refresh token kadaluarsa dihapus: {}", deleted);
+        }
+    }
+
+    private String issue(UUID userId, UUID familyId) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.save(new RefreshToken(hash(rawToken), familyId, userId, now,
+                now.plus(refreshTokenValidity), null, null));
+        return rawToken;
+    }
+
+    static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.dto.request.StudentRequest;
+import com.beta.schoolpayment.dto.response.StudentImportError;
+import com.beta.schoolpayment.dto.response.StudentImportResponse;
+import com.beta.schoolpayment.exception.FileInvalidException;
+import com.beta.schoolpayment.exception.ValidationException;
+import com.beta.schoolpayment.importer.SpreadsheetRowReader;
+import com.beta.schoolpayment.repository.ClassesRepository;
+import com.beta.schoolpayment.repository.StudentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Import student massal dari XLSX/CSV. File dibaca streaming dan diproses per potongan (chunk-size baris):
+// validasi paralel, lalu satu INSERT untuk semua baris valid di potongan itu. Memori dibatasi oleh ukuran
+// potongan, set NIS terdaftar, dan laporan error (max-errors), bukan oleh jumlah baris file.
+@Service
+public class StudentImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentImportService.class);
+
+    // Nama kolom header (huruf kecil tanpa spasi/underscore) -> field StudentRequest
+    private static final Map<String, String> HEADER_ALIASES = Map.ofEntries(
+            Map.entry("nis", "nis"),
+            Map.entry("name", "name"),
+            Map.entry("nama", "name"),
+            Map.entry("classid", "classId"),
+            Map.entry("birthdate", "birthdate"),
+            Map.entry("tanggallahir", "birthdate"),
+            Map.entry("address", "address"),
+            Map.entry("alamat", "address"),
+            Map.entry("phonenumber", "phoneNumber"),
+            Map.entry("phone", "phoneNumber")
+    );
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("nis", "name", "classId", "birthdate");
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private ClassesRepository classesRepository;
+
+    @Value("${student.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${student.import.max-errors:1000}")
+    private int maxErrors;
+
+    public StudentImportResponse importStudents(MultipartFile file) throws IOException {
+        String filename = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase(Locale.ROOT) : "";
+        if (file.isEmpty()) {
+            throw new FileInvalidException("File tidak boleh kosong");
+        }
+        if (filename.endsWith(".xlsx")) {
+            // POI event API membutuhkan file di disk agar zip tidak dimuat utuh ke memori
+            Path temp = Files.createTempFile("student-import-", ".xlsx");
+            try {
+                try (InputStream in = file.getInputStream()) {
+                    Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+                }
+                return importXlsx(temp);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        if (filename.endsWith(".csv")) {
+            try (InputStream in = file.getInputStream()) {
+                return importCsv(in);
+            }
+        }
+        throw new FileInvalidException("Format file harus .xlsx atau .csv");
+    }
+
+    StudentImportResponse importXlsx(Path file) throws IOException {
+        StudentImport studentImport = newImport();
+        SpreadsheetRowReader.readXlsx(file, studentImport::row);
+        return studentImport.finish();
+    }
+
+    StudentImportResponse importCsv(InputStream in) throws IOException {
+        StudentImport studentImport = newImport();
+        SpreadsheetRowReader.readCsv(in, studentImport::row);
+        return studentImport.finish();
+    }
+
+    // NIS terdaftar dan id kelas aktif dimuat sekali per import (satu query masing-masing), bukan per baris
+    private StudentImport newImport() {
+        return new StudentImport(new HashSet<>(studentRepository.findAllNis()),
+                new HashSet<>(classesRepository.findActiveIds()));
+    }
+
+    private record RawRow(int rowNumber, List<String> cells) {
+    }
+
+    private record ValidatedRow(int rowNumber, String nis, StudentRequest student, String error) {
+    }
+
+    // State satu proses import
+    private class StudentImport {
+
+        private final Set<Long> registeredNis;
+        private final Set<Long> classIds;
+        private final Set<Long> fileNis = new HashSet<>();
+        private final List<StudentImportError> errors = new ArrayList<>();
+        private Map<String, Integer> columns;
+        private List<RawRow> chunk = new ArrayList<>();
+        private int total;
+        private int created;
+        private int failed;
+
+        StudentImport(Set<Long> registeredNis, Set<Long> classIds) {
+            this.registeredNis = registeredNis;
+            this.classIds = classIds;
+        }
+
+        void row(int rowNumber, List<String> cells) {
+            if (cells.stream().allMatch(cell -> cell == null || cell.isBlank())) {
+                return;
+            }
+            if (columns == null) {
+                columns = readHeader(cells);
+                return;
+            }
+            total++;
+            chunk.add(new RawRow(rowNumber, cells));
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        StudentImportResponse finish() {
+            if (columns == null) {
+                throw new ValidationException("File tidak memiliki header");
+            }
+            flush();
+            return new StudentImportResponse(total, created, failed, failed > errors.size(), errors);
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            // Validasi tidak mengubah state bersama (set hanya dibaca) sehingga aman dijalankan paralel
+            List<ValidatedRow> validated = chunk.parallelStream().map(this::validate).toList();
+            chunk = new ArrayList<>();
+
+            // Duplikat di dalam file dicek berurutan agar baris pertama yang menang
+            Map<Long, ValidatedRow> valid = new LinkedHashMap<>();
+            for (ValidatedRow row : validated) {
+                if (row.error() != null) {
+                    reject(row.rowNumber(), row.nis(), row.error());
+                } else if (!fileNis.add(row.student().getNis())) {
+                    reject(row.rowNumber(), row.nis(), "NIS " + row.nis() + " duplikat dengan baris sebelumnya di file");
+                } else {
+                    valid.put(row.student().getNis(), row);
+                }
+            }
+            if (valid.isEmpty()) {
+                return;
+            }
+
+            Set<Long> inserted;
+            try {
+                inserted = studentRepository.insertIgnoringExistingNis(
+                        valid.values().stream().map(ValidatedRow::student).toList());
+            } catch (DataAccessException e) {
+                logger.error("Gagal menyimpan potongan import student: {}", e.getMessage(), e);
+                for (ValidatedRow row : valid.values()) {
+                    reject(row.rowNumber(), row.nis(), "Gagal menyimpan data: " + e.getMostSpecificCause().getMessage());
+                }
+                return;
+            }
+            for (ValidatedRow row : valid.values()) {
+                if (inserted.contains(row.student().getNis())) {
+                    created++;
+                } else {
+                    // NIS didaftarkan proses lain setelah set NIS dimuat
+                    reject(row.rowNumber(), row.nis(), "NIS " + row.nis() + " is already registered.");
+                }
+            }
+        }
+
+        private ValidatedRow validate(RawRow row) {
+            String nisText = cell(row, "nis");
+            List<String> problems = new ArrayList<>();
+
+            Long nis = null;
+            if (nisText.isEmpty()) {
+                problems.add("NIS wajib diisi");
+            } else {
+                try {
+                    nis = Long.parseLong(nisText);
+                    if (nis <= 0) {
+                        problems.add("NIS harus berupa angka positif");
+                    } else if (registeredNis.contains(nis)) {
+                        problems.add("NIS " + nis + " is already registered.");
+                    }
+                } catch (NumberFormatException e) {
+                    problems.add("NIS harus berupa angka");
+                }
+            }
+
+            String name = cell(row, "name");
+            if (name.isEmpty()) {
+                problems.add("Nama wajib diisi");
+            }
+
+            Long classId = null;
+            String classText = cell(row, "classId");
+            try {
+                classId = Long.parseLong(classText);
+                if (!classIds.contains(classId)) {
+                    problems.add("Class not found: " + classText);
+                }
+            } catch (NumberFormatException e) {
+                problems.add(classText.isEmpty() ? "classId wajib diisi" : "classId harus berupa angka");
+            }
+
+            LocalDate birthdate = null;
+            String birthdateText = cell(row, "birthdate");
+            try {
+                birthdate = LocalDate.parse(birthdateText);
+            } catch (DateTimeParseException e) {
+                problems.add(birthdateText.isEmpty() ? "Tanggal lahir wajib diisi" : "Tanggal lahir harus berformat yyyy-MM-dd");
+            }
+
+            String phoneNumber = cell(row, "phoneNumber");
+            if (phoneNumber.length() > 20) {
+                problems.add("Nomor telepon maksimal 20 karakter");
+            }
+
+            if (!problems.isEmpty()) {
+                return new ValidatedRow(row.rowNumber(), nisText, null, String.join("; ", problems));
+            }
+            StudentRequest student = new StudentRequest();
+            student.setNis(nis);
+            student.setName(name);
+            student.setClassId(classId);
+            student.setBirthdate(birthdate);
+            student.setAddress(emptyToNull(cell(row, "address")));
+            student.setPhoneNumber(emptyToNull(phoneNumber));
+            return new ValidatedRow(row.rowNumber(), nisText, student, null);
+        }
+
+        private void reject(int rowNumber, String nis, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new StudentImportError(rowNumber, nis, message));
+            }
+        }
+
+        private String cell(RawRow row, String field) {
+            Integer index = columns.get(field);
+            if (index == null || index >= row.cells().size() || row.cells().get(index) == null) {
+                return "";
+            }
+            return row.cells().get(index).trim();
+        }
+    }
+
+    private static Map<String, Integer> readHeader(List<String> cells) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < cells.size(); i++) {
+            String key = cells.get(i) == null ? "" : cells.get(i).toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+            String field = HEADER_ALIASES.get(key);
+            if (field != null) {
+                columns.putIfAbsent(field, i);
+            }
+        }
+        List<String> missing = REQUIRED_COLUMNS.stream().filter(column -> !columns.containsKey(column)).toList();
+        if (!missing.isEmpty()) {
+            throw new ValidationException("Kolom wajib tidak ditemukan di header: " + String.join(", ", missing));
+        }
+        return columns;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
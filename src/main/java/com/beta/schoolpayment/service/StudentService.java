@@ -8,6 +8,7 @@ import com.beta.schoolpayment.model.Classes;
 import com.beta.schoolpayment.model.Student;
 import com.beta.schoolpayment.repository.ClassesRepository;
 import com.beta.schoolpayment.repository.StudentRepository;
+import com.beta.schoolpayment.search.StudentSearchStrategy;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -29,6 +30,9 @@ public class StudentService {
     @Autowired
     private ClassesRepository classesRepository;
 
+    @Autowired
+    private StudentSearchStrategy studentSearchStrategy;
+
     public Page<StudentResponse> getAllStudents(int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
         Page<Student> students = studentRepository.findAll(pageable);
@@ -107,10 +111,9 @@ public class StudentService {
         // Pastikan search tidak null (menghindari error LOWER(NULL))
         search = (search == null) ? "" : search;
 
-        // Atur sorting berdasarkan nama
-        Sort sortBy = Sort.by(sort.equalsIgnoreCase("desc") ? Sort.Order.desc("name") : Sort.Order.asc("name"));
-        Pageable pageable = PageRequest.of(page, size, sortBy);
-        Page<Student> students = studentRepository.findStudents(search, startDate, endDate, pageable);
+        // Atur sorting berdasarkan nama (backend trigram mengurutkan berdasarkan kemiripan jika ada kata kunci)
+        Sort.Direction direction = sort.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Page<Student> students = studentSearchStrategy.findStudents(search, startDate, endDate, direction, page, size);
 
         return students.map(StudentService::convertToResponse);
     }
@@ -10,34 +10,32 @@ import com.beta.schoolpayment.model.User;
 import com.beta.schoolpayment.repository.StudentRepository;
 import com.beta.schoolpayment.repository.UserRepository;
 import com.beta.schoolpayment.security.CustomUserDetails;
+import com.beta.schoolpayment.security.PasswordHasher;
+import com.beta.schoolpayment.security.TokenRevocationRegistry;
+import com.beta.schoolpayment.security.UserDetailsCache;
 import com.beta.schoolpayment.util.JwtUtil;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -47,30 +45,57 @@ public class UserService implements UserDetailsService {
     private final StudentRepository studentRepository;
 
     @Autowired
-    @Lazy
-    private AuthenticationManager authenticationManager;
+    private PasswordEncoder passwordEncoder;
 
-    private final PasswordEncoder passwordEncoder;
+    @Autowired
+    private PasswordHasher passwordHasher;
 
     @Autowired
     private JwtUtil jwtUtil;
 
-    private static final String imageDirectory="src/main/resources/static/images";
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private ProfilePictureCache profilePictureCache;
+
+    @Autowired
+    private ProfilePictureThumbnailService profilePictureThumbnailService;
+
+    @Autowired
+    private ImageService imageService;
+
     private static final String[] allowedFileTypes = {"image/jpeg", "image/png", "image/jpg"};
 
     @Autowired
     public UserService(UserRepository userRepository, StudentRepository studentRepository) {
         this.userRepository =userRepository;
         this.studentRepository = studentRepository;
-        this.passwordEncoder=new BCryptPasswordEncoder();
     }
     @Override
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
-        User user = userRepository.findByEmailOrNis(usernameOrEmail, convertNis(usernameOrEmail))
+        User user = findByIdentifier(usernameOrEmail)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
         return new CustomUserDetails(user);
     }
 
+    // Identifier angka = NIS, selain itu email; masing-masing satu lookup di unique index (bukan OR dua kolom)
+    private Optional<User> findByIdentifier(String identifier) {
+        Long nis = convertNis(identifier);
+        return nis != null ? userRepository.findUserByNis(nis) : userRepository.findUserByEmail(identifier);
+    }
+
+    // Dipakai JwtRequestFilter: user dari subject token diambil dari cache, database hanya saat cache miss
+    public CustomUserDetails loadUserBySubject(String subject) throws UsernameNotFoundException {
+        return userDetailsCache.get(subject, key -> (CustomUserDetails) loadUserByUsername(key));
+    }
+
     // Method tambahan untuk konversi NIS jika memungkinkan
     public Long convertNis(String input) {
         try {
@@ -116,26 +141,34 @@ public class UserService implements UserDetailsService {
             return convertToResponse(savedUser);
     }
     //login
+    // 🔹 Satu query user, lalu BCrypt di executor terbatas (PasswordHasher). Melempar RejectedExecutionException
+    // jika antrian verifikasi penuh.
     public AuthResponse login(AuthRequest authRequest) {
-        String identifier = authRequest.getIdentifier();
-        Long nis = convertNis(identifier); // Cek apakah identifier ini NIS
-
-        // Cari user berdasarkan Email atau NIS
-        User user = userRepository.findByEmailOrNis(identifier, nis)
+        User user = findByIdentifier(authRequest.getIdentifier())
                 .orElseThrow(() -> new DataNotFoundException("User not found"));
-        // Gunakan email user untuk autentikasi karena Spring Security mengenal email sebagai username
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(user.getEmail(), authRequest.getPassword())
-        );
-
-        if (authentication.isAuthenticated()) {
-            // Generate token JWT
-            String token = jwtUtil.generateToken(user);
-            return new AuthResponse(token);
-        } else {
-            throw new RuntimeException("Invalid authentication");
+
+        PasswordHasher.Verification verification = passwordHasher.verify(authRequest.getPassword(), user.getPassword());
+        if (!verification.matches()) {
+            throw new BadCredentialsException("Bad credentials");
         }
+        // Hash lama dengan cost di bawah konfigurasi diganti; bersyarat agar tidak menimpa password yang baru diubah
+        if (verification.upgradedHash() != null
+                && userRepository.updatePasswordHash(user.getUserId(), user.getPassword(), verification.upgradedHash()) == 1) {
+            userDetailsCache.evict(user);
+        }
+        return new AuthResponse(jwtUtil.generateToken(user), refreshTokenService.issue(user));
+    }
+
+    // 🔹 Access token baru dari refresh token (dirotasi), tanpa verifikasi password
+    public AuthResponse refresh(String refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        return new AuthResponse(jwtUtil.generateToken(rotation.user()), rotation.refreshToken());
+    }
+
+    public void logout(String refreshToken) {
+        refreshTokenService.revoke(refreshToken);
     }
+
     public UserResponse me(Authentication authentication) {
         UserDetails auth = (UserDetails) authentication.getPrincipal();
         String username = auth.getUsername();
@@ -174,6 +207,9 @@ public class UserService implements UserDetailsService {
         User user = userRepository.findById(userId).orElseThrow(() -> new DataNotFoundException("User not found"));
         user.setRole(userRequest.getRole());
         User updatedUser = userRepository.save(user);
+        afterCommit(() -> userDetailsCache.evict(updatedUser));
+        tokenRevocationRegistry.revoke(updatedUser);
+        refreshTokenService.revokeAll(updatedUser.getUserId());
         return convertToResponse(updatedUser);
     }
     @Transactional
@@ -181,12 +217,24 @@ public class UserService implements UserDetailsService {
         User user = userRepository.findById(userId).orElseThrow(() -> new DataNotFoundException("User not found"));
         user.setDeletedAt(LocalDateTime.now());
         User deletedUser = userRepository.save(user);
+        afterCommit(() -> {
+            userDetailsCache.evict(deletedUser);
+            profilePictureCache.evict(deletedUser.getUserId());
+        });
+        tokenRevocationRegistry.revoke(deletedUser);
+        refreshTokenService.revokeAll(deletedUser.getUserId());
         return convertToResponse(deletedUser);
     }
     @Transactional
     public void hardDelete(UUID userId) {
         User user = userRepository.findById(userId).orElseThrow(() -> new DataNotFoundException("User not found"));
         userRepository.delete(user);
+        imageService.release(user.getProfilePicture());
+        afterCommit(() -> {
+            userDetailsCache.evict(user);
+            profilePictureCache.evict(user.getUserId());
+        });
+        tokenRevocationRegistry.revoke(user);
     }
     //Validasi file
     public static void validateFile(MultipartFile file){
@@ -206,15 +254,12 @@ public class UserService implements UserDetailsService {
             throw new ValidationException("File type must be image/jpeg, image/png, or image/jpg");
         }
     }
-    private String generateUniqueFileName(String originalFileName) {
-        String extension = originalFileName.substring(originalFileName.lastIndexOf("."));
-        return UUID.randomUUID().toString() + extension;
-    }
     @Transactional
     public UserResponse updateProfile(Authentication authentication, UserRequest userRequest) {
         UserDetails auth = (UserDetails) authentication.getPrincipal();
         String username = auth.getUsername();
         User user = userRepository.findByEmail(username).orElseThrow(() -> new DataNotFoundException("User not found"));
+        String previousEmail = user.getEmail();
         if (userRequest.getEmail() != null) {
             if (userRepository.findUserByEmail(userRequest.getEmail()).isPresent()) {
                 throw new IllegalArgumentException("Email already exists");
@@ -231,44 +276,59 @@ public class UserService implements UserDetailsService {
             user.setPassword(passwordEncoder.encode(userRequest.getPassword()));
         }
         if(userRequest.getProfilePicture() != null && !userRequest.getProfilePicture().isEmpty()) {
-            System.out.println(imageDirectory);
             MultipartFile file = userRequest.getProfilePicture();
             validateFile(file);
-            String uniqueFileName = generateUniqueFileName(Objects.requireNonNull(file.getOriginalFilename()));
-            String datePath = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-            Path fullPath = Path.of(imageDirectory, datePath, uniqueFileName);
-            System.out.println("File original name: " + fullPath);
-
-            Path imagePath = Path.of(datePath, uniqueFileName);
-
+            String imageKey;
             try {
-                Files.createDirectories(fullPath.getParent());
-                Files.copy(file.getInputStream(), fullPath, StandardCopyOption.REPLACE_EXISTING);
+                imageKey = imageService.store(file);
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
-            user.setProfilePicture(imagePath.toString());
+            if (!imageKey.equals(user.getProfilePicture())) {
+                imageService.acquire(imageKey);
+                imageService.release(user.getProfilePicture());
+                user.setProfilePicture(imageKey);
+            }
+            profilePictureThumbnailService.generateAsync(imageKey);
         }
         User updatedUser = userRepository.save(user);
+        // Cache dengan email lama juga dihapus, subject token lama masih memakai email tersebut
+        afterCommit(() -> {
+            userDetailsCache.evict(previousEmail);
+            userDetailsCache.evict(updatedUser);
+            profilePictureCache.evict(updatedUser.getUserId());
+        });
+        // Token lama masih membawa email/credential lama
+        if (userRequest.getEmail() != null || userRequest.getPassword() != null) {
+            if (!previousEmail.equals(updatedUser.getEmail())) {
+                tokenRevocationRegistry.revoke(previousEmail);
+            }
+            tokenRevocationRegistry.revoke(updatedUser);
+            refreshTokenService.revokeAll(updatedUser.getUserId());
+        }
         return convertToResponse(updatedUser);
     }
 
-    public byte[] getImageById(UUID userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new DataNotFoundException("User not found"));
-        Path imagePath = Path.of(imageDirectory, user.getProfilePicture());
-        System.out.println(imagePath);
-        if (!Files.exists(imagePath)) {
-            throw new DataNotFoundException("Profile picture not found for user: " + userId);
-        }
-
-        try {
-            return Files.readAllBytes(imagePath);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to read profile picture for user: " + userId, e);
+    // Cache baru dihapus setelah commit: sebelum commit, request lain masih membaca data lama dari database dan
+    // akan mengisi ulang cache dengan data tersebut. Tanpa transaksi aktif langsung dijalankan.
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
         }
     }
 
+    // 🔹 Key foto profil user, dari cache (database hanya saat cache miss)
+    public String getProfilePictureKey(UUID userId) {
+        return profilePictureCache.get(userId, userRepository::findProfilePictureById)
+                .orElseThrow(() -> new DataNotFoundException("Profile picture not found for user: " + userId));
+    }
 
     public UserResponse convertToResponse(User user) {
         UserResponse response = new UserResponse();
@@ -277,6 +337,12 @@ public class UserService implements UserDetailsService {
         response.setEmail(user.getEmail());
         response.setName(user.getName());
         response.setRole(user.getRole());
+        if (user.getProfilePicture() != null) {
+            // URL content-addressed: sama di semua node dan boleh di-cache browser tanpa revalidasi
+            response.setProfilePicture(ImageService.isImageKey(user.getProfilePicture())
+                    ? "/api/images/" + user.getProfilePicture()
+                    : "/api/users/profile/picture/" + user.getUserId());
+        }
         response.setCreatedAt(user.getCreatedAt());
         response.setUpdatedAt(user.getUpdatedAt());
         response.setDeletedAt(user.getDeletedAt());
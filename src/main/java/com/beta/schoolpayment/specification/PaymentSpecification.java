@@ -24,8 +24,10 @@ public class PaymentSpecification implements Specification<Payment> {
             predicates.add(cb.like(cb.lower(root.get("paymentName")), "%" + criteria.getPaymentName().toLowerCase() + "%"));
         }
 
+        boolean filterBySchoolYear = criteria.getSchoolYearStartDate() != null && criteria.getSchoolYearEndDate() != null;
+
         Join<Object, Object> studentJoin = null;
-        if (criteria.getStudentName() != null || criteria.getSchoolYearStartDate() != null) {
+        if (criteria.getStudentName() != null || filterBySchoolYear) {
             studentJoin = root.join("student", JoinType.LEFT);
         }
 
@@ -38,8 +40,9 @@ public class PaymentSpecification implements Specification<Payment> {
             predicates.add(cb.like(cb.lower(userJoin.get("name")), "%" + criteria.getUserName().toLowerCase() + "%"));
         }
 
-        if (criteria.getSchoolYearStartDate() != null && criteria.getSchoolYearEndDate() != null) {
-            Join<Object, Object> schoolYearJoin = studentJoin.join("schoolYear", JoinType.LEFT);
+        if (filterBySchoolYear) {
+            // Student -> Classes -> SchoolYear
+            Join<Object, Object> schoolYearJoin = studentJoin.join("classes", JoinType.LEFT).join("schoolYear", JoinType.LEFT);
             predicates.add(cb.between(
                     schoolYearJoin.get("startDate"),
                     criteria.getSchoolYearStartDate(),
@@ -51,8 +54,13 @@ public class PaymentSpecification implements Specification<Payment> {
             predicates.add(cb.equal(root.get("paymentStatus"), criteria.getPaymentStatus()));
         }
 
-        query.distinct(true); // Menghindari duplikasi hasil jika ada multiple joins
+        // Semua join bertipe many-to-one sehingga tidak ada baris duplikat, DISTINCT tidak diperlukan
 
         return cb.and(predicates.toArray(new Predicate[0]));
     }
+
+    // Hanya payment yang belum di-soft delete
+    public static Specification<Payment> notDeleted() {
+        return (root, query, cb) -> cb.isNull(root.get("deletedAt"));
+    }
 }
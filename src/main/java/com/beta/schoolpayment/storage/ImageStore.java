@@ -0,0 +1,22 @@
+package com.beta.schoolpayment.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+// Backend penyimpanan blob gambar, dipilih lewat properti image.store.backend (local | s3).
+// Key bersifat immutable: isi blob dengan key yang sama tidak pernah berubah, jadi semua node API
+// bisa menyajikan URL yang sama dan boleh di-cache selamanya.
+public interface ImageStore {
+
+    boolean exists(String key);
+
+    Optional<Resource> find(String key);
+
+    // Simpan file lokal (sudah lengkap) sebagai key; jika key sudah ada, tidak melakukan apa-apa
+    void put(String key, Path file, String contentType) throws IOException;
+
+    void delete(String key) throws IOException;
+}
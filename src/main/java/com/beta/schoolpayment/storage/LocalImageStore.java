@@ -0,0 +1,63 @@
+package com.beta.schoolpayment.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+// Default: blob di filesystem, <dir>/<2 karakter>/<2 karakter>/<key> agar satu folder tidak berisi jutaan file.
+// Untuk lebih dari satu node API, dir harus berupa volume bersama (NFS dll.) atau gunakan backend s3.
+@Component
+@ConditionalOnProperty(name = "image.store.backend", havingValue = "local", matchIfMissing = true)
+public class LocalImageStore implements ImageStore {
+
+    @Value("${image.store.local.dir:data/images}")
+    private String storeDir;
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(path(key));
+    }
+
+    @Override
+    public Optional<Resource> find(String key) {
+        Path path = path(key);
+        return Files.isRegularFile(path) ? Optional.of(new FileSystemResource(path)) : Optional.empty();
+    }
+
+    // Disalin ke file sementara di folder tujuan lalu di-rename atomik: pembaca tidak pernah melihat blob setengah jadi
+    @Override
+    public void put(String key, Path file, String contentType) throws IOException {
+        Path target = path(key);
+        if (Files.isRegularFile(target)) {
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "upload-", ".tmp");
+        try {
+            Files.copy(file, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Node lain menulis isi yang sama lebih dulu
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(path(key));
+    }
+
+    private Path path(String key) {
+        return Path.of(storeDir, key.substring(0, 2), key.substring(2, 4), key);
+    }
+}
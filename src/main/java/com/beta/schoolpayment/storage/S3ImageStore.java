@@ -0,0 +1,169 @@
+package com.beta.schoolpayment.storage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Optional;
+
+// Blob di bucket S3 atau object storage S3-compatible (MinIO, Ceph, dll. lewat image.store.s3.endpoint).
+// Semua node API membaca bucket yang sama, sehingga tidak ada state gambar di disk node.
+@Component
+@ConditionalOnProperty(name = "image.store.backend", havingValue = "s3")
+public class S3ImageStore implements ImageStore {
+
+    @Value("${image.store.s3.bucket}")
+    private String bucket;
+
+    @Value("${image.store.s3.region:us-east-1}")
+    private String region;
+
+    // Kosong = endpoint AWS; diisi untuk MinIO dll. (mis. http://minio:9000)
+    @Value("${image.store.s3.endpoint:}")
+    private String endpoint;
+
+    // Kosong = rantai kredensial default AWS (env, profile, IAM role)
+    @Value("${image.store.s3.access-key:}")
+    private String accessKey;
+
+    @Value("${image.store.s3.secret-key:}")
+    private String secretKey;
+
+    @Value("${image.store.s3.path-style:false}")
+    private boolean pathStyle;
+
+    private S3Client s3;
+
+    public S3ImageStore() {
+    }
+
+    // Untuk test: client sudah dibuat oleh pemanggil
+    S3ImageStore(S3Client s3, String bucket) {
+        this.s3 = s3;
+        this.bucket = bucket;
+    }
+
+    @PostConstruct
+    void startClient() {
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .forcePathStyle(pathStyle);
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        builder.credentialsProvider(accessKey.isBlank()
+                ? DefaultCredentialsProvider.create()
+                : StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
+        s3 = builder.build();
+    }
+
+    @PreDestroy
+    void stopClient() {
+        s3.close();
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return head(key).isPresent();
+    }
+
+    @Override
+    public Optional<Resource> find(String key) {
+        return head(key).map(head -> new S3ObjectResource(key, head.contentLength()));
+    }
+
+    @Override
+    public void put(String key, Path file, String contentType) throws IOException {
+        if (exists(key)) {
+            return;
+        }
+        try {
+            s3.putObject(request -> request.bucket(bucket).key(key).contentType(contentType),
+                    RequestBody.fromFile(file));
+        } catch (SdkException e) {
+            throw new IOException("Gagal menyimpan " + key + " ke S3: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3.deleteObject(request -> request.bucket(bucket).key(key));
+        } catch (SdkException e) {
+            throw new IOException("Gagal menghapus " + key + " dari S3: " + e.getMessage(), e);
+        }
+    }
+
+    private Optional<HeadObjectResponse> head(String key) {
+        try {
+            return Optional.of(s3.headObject(request -> request.bucket(bucket).key(key)));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    // Isi object dibaca streaming saat response ditulis; panjang dari HEAD agar Spring bisa melayani Range
+    private class S3ObjectResource extends AbstractResource {
+
+        private final String key;
+        private final long contentLength;
+
+        S3ObjectResource(String key, long contentLength) {
+            this.key = key;
+            this.contentLength = contentLength;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            try {
+                return s3.getObject(request -> request.bucket(bucket).key(key));
+            } catch (SdkException e) {
+                throw new IOException("Gagal membaca " + key + " dari S3: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public String getFilename() {
+            return key;
+        }
+
+        @Override
+        public String getDescription() {
+            return "S3 object [" + bucket + "/" + key + "]";
+        }
+    }
+}
@@ -2,56 +2,99 @@ package com.beta.schoolpayment.util;
 
 import com.beta.schoolpayment.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Duration;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    // Masa berlaku access token (default jwt.access-token-ttl). Dibuat pendek: sesi diperpanjang lewat refresh token
+    public static final Duration TOKEN_VALIDITY = Duration.ofMinutes(15);
 
-    // Generate SecretKey using Keys.hmacShaKeyFor
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${jwt.access-token-ttl:PT15M}")
+    private Duration tokenValidity = TOKEN_VALIDITY;
+
+    // Key dan parser dibuat sekali saat startup; keduanya immutable dan aman dipakai bersama antar thread
+    private final String signingKeyId;
+    private final SecretKey signingKey;
+    private final Map<String, SecretKey> keyRing;
+    private final JwtParser parser;
+
+    // retiredKeys: "kid:secret" untuk key lama yang tokennya masih harus diterima selama masa rotasi
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.key-id:primary}") String keyId,
+                   @Value("${jwt.retired-keys:}") List<String> retiredKeys) {
+        this.signingKeyId = keyId;
+        this.signingKey = hmacKey(secret);
+
+        Map<String, SecretKey> keys = new HashMap<>();
+        for (String retired : retiredKeys) {
+            int separator = retired.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("jwt.retired-keys harus berformat kid:secret");
+            }
+            keys.put(retired.substring(0, separator).trim(), hmacKey(retired.substring(separator + 1).trim()));
+        }
+        keys.put(keyId, signingKey);
+        this.keyRing = Map.copyOf(keys);
+
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return resolveKey(header.getKeyId());
+                    }
+                })
+                .build();
     }
 
-    // Extract username (subject) from token
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    private static SecretKey hmacKey(String secret) {
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
     }
 
-    // Extract specific claim from token
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    // Token tanpa kid (dibuat sebelum ada rotasi key) diverifikasi dengan key aktif
+    private Key resolveKey(String keyId) {
+        if (keyId == null) {
+            return signingKey;
+        }
+        SecretKey key = keyRing.get(keyId);
+        if (key == null) {
+            throw new SignatureException("Unknown JWT key id: " + keyId);
+        }
+        return key;
     }
 
-    // Extract all claims using parserBuilder
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    // Extract username (subject) from token
+    public String extractUsername(String token) {
+        return parseClaims(token).getSubject();
     }
 
-    // Check if the token is expired
-    private boolean isTokenExpired(String token) {
-        return extractClaim(token, Claims::getExpiration).before(new Date());
+    // Parse dan verifikasi token sekali; token kadaluarsa atau signature salah melempar JwtException
+    public Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
     // Generate token with custom claims
     public String generateToken(User user) {
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKeyId) // Key yang dipakai untuk verifikasi
                 .claim("role", user.getRole())   // Role pengguna
                 .claim("userId", user.getUserId()) // ID user dalam database
                 .claim("name", user.getName())  // Nama lengkap pengguna
@@ -59,15 +102,23 @@ public class JwtUtil {
                 .claim("nis", user.getNis())   // NIS pengguna
                 .setSubject(user.getEmail() != null ? user.getEmail() : user.getNis().toString()) // Gunakan Email jika ada, jika tidak pakai NIS
                 .setIssuedAt(new Date()) // Waktu pembuatan token
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10)) // Berlaku 10 jam
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .setExpiration(new Date(System.currentTimeMillis() + tokenValidity.toMillis())) // Berlaku selama jwt.access-token-ttl
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
 
-    // Validate the token
+    public Duration getTokenValidity() {
+        return tokenValidity;
+    }
+
+    // Validate the token (satu kali parse)
     public boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateClaims(parseClaims(token), userDetails);
+    }
+
+    // Validasi dari claims yang sudah di-parse oleh parseClaims (tanpa parse ulang)
+    public boolean validateClaims(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && claims.getExpiration().after(new Date());
     }
 }
@@ -0,0 +1,70 @@
+-- Schema awal, sama dengan yang sebelumnya dibuat oleh Hibernate auto-DDL.
+-- Database yang sudah ada di-baseline pada versi ini (spring.flyway.baseline-on-migrate).
+
+CREATE TABLE IF NOT EXISTS users (
+    user_id         UUID         NOT NULL PRIMARY KEY,
+    nis             BIGINT       UNIQUE,
+    email           VARCHAR(255) NOT NULL UNIQUE,
+    name            VARCHAR(255) NOT NULL,
+    password        VARCHAR(255) NOT NULL,
+    role            VARCHAR(50)  NOT NULL,
+    created_at      TIMESTAMP(6),
+    updated_at      TIMESTAMP(6),
+    deleted_at      TIMESTAMP(6),
+    profile_picture VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS school_years (
+    school_year_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    school_year    VARCHAR(50) NOT NULL,
+    start_date     DATE        NOT NULL,
+    end_date       DATE        NOT NULL,
+    created_at     TIMESTAMP(6),
+    updated_at     TIMESTAMP(6),
+    deleted_at     TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS classes (
+    class_id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    class_name     VARCHAR(255),
+    school_year_id BIGINT NOT NULL REFERENCES school_years (school_year_id),
+    created_at     TIMESTAMP(6),
+    updated_at     TIMESTAMP(6),
+    deleted_at     TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS students (
+    student_id   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nis          BIGINT       NOT NULL UNIQUE,
+    name         VARCHAR(255) NOT NULL,
+    class_id     BIGINT CONSTRAINT fk_class REFERENCES classes (class_id),
+    birthdate    DATE         NOT NULL,
+    address      TEXT,
+    phone_number VARCHAR(20),
+    created_at   TIMESTAMP(6),
+    updated_at   TIMESTAMP(6),
+    deleted_at   TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS payment_type (
+    payment_type_id   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    payment_type_name VARCHAR(255) NOT NULL UNIQUE,
+    created_at        TIMESTAMP(6) NOT NULL,
+    updated_at        TIMESTAMP(6) NOT NULL,
+    deleted_at        TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS payments (
+    payment_id      UUID           NOT NULL PRIMARY KEY,
+    payment_name    VARCHAR(255)   NOT NULL,
+    user_id         UUID REFERENCES users (user_id),
+    student_id      BIGINT         NOT NULL REFERENCES students (student_id),
+    payment_type_id BIGINT         NOT NULL REFERENCES payment_type (payment_type_id),
+    amount          NUMERIC(38, 2) NOT NULL,
+    payment_status  VARCHAR(20)    NOT NULL
+        CHECK (payment_status IN ('PENDING', 'COMPLETED', 'FAILED', 'REFUNDED')),
+    description     VARCHAR(255),
+    created_at      TIMESTAMP(6)   NOT NULL,
+    updated_at      TIMESTAMP(6)   NOT NULL,
+    deleted_at      TIMESTAMP(6)
+);
@@ -0,0 +1,23 @@
+-- Index untuk query pembayaran yang paling sering dipakai.
+
+-- PaymentRepository.findByUser_UserIdAndDeletedAtIsNull / findResponsesByUserId
+CREATE INDEX IF NOT EXISTS idx_payments_user_active ON payments (user_id) WHERE deleted_at IS NULL;
+
+-- PaymentRepository.findByStudent_Id dan join payments -> students
+CREATE INDEX IF NOT EXISTS idx_payments_student ON payments (student_id);
+
+-- PaymentRepository.findByPaymentStatus dan filter paymentStatus yang diurutkan createdAt
+CREATE INDEX IF NOT EXISTS idx_payments_status_created ON payments (payment_status, created_at);
+
+-- Keyset pagination dan partisi export pada (createdAt, paymentId)
+CREATE INDEX IF NOT EXISTS idx_payments_created_id ON payments (created_at, payment_id);
+
+-- Join filter tahun ajaran: students -> classes -> school_years
+CREATE INDEX IF NOT EXISTS idx_students_class ON students (class_id);
+CREATE INDEX IF NOT EXISTS idx_classes_school_year ON classes (school_year_id);
+
+-- Filter lower(x) LIKE '%term%' pada PaymentSpecification dan StudentRepository.findStudents
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_payments_payment_name_trgm ON payments USING gin (lower(payment_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_students_name_trgm ON students USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_users_name_trgm ON users USING gin (lower(name) gin_trgm_ops);
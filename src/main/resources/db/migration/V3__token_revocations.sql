@@ -0,0 +1,7 @@
+-- Revocation token JWT per subject (email / NIS) untuk mode autentikasi stateless
+CREATE TABLE IF NOT EXISTS token_revocations (
+    subject    VARCHAR(255) NOT NULL PRIMARY KEY,
+    revoked_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_token_revocations_revoked_at ON token_revocations (revoked_at);
@@ -0,0 +1,36 @@
+-- Tagihan berulang (mis. SPP bulanan): satu payment per (student, jenis pembayaran, periode).
+-- Payment biasa tidak punya billing_period dan tidak terkena unique index ini.
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS billing_period VARCHAR(7);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_payments_billing_period
+    ON payments (student_id, payment_type_id, billing_period)
+    WHERE billing_period IS NOT NULL;
+
+-- Billing run sekaligus checkpoint: last_student_id adalah student terakhir yang sudah ditagih,
+-- dimajukan dalam transaksi yang sama dengan insert per chunk
+CREATE TABLE IF NOT EXISTS billing_runs (
+    run_id             UUID           NOT NULL PRIMARY KEY,
+    payment_type_id    BIGINT         NOT NULL REFERENCES payment_type (payment_type_id),
+    billing_period     VARCHAR(7)     NOT NULL,
+    scope_type         VARCHAR(20)    NOT NULL CHECK (scope_type IN ('CLASS', 'SCHOOL_YEAR')),
+    scope_id           BIGINT         NOT NULL,
+    payment_name       VARCHAR(255)   NOT NULL,
+    description        VARCHAR(255),
+    amount             NUMERIC(38, 2) NOT NULL,
+    status             VARCHAR(20)    NOT NULL CHECK (status IN ('RUNNING', 'COMPLETED', 'FAILED')),
+    last_student_id    BIGINT         NOT NULL DEFAULT 0,
+    students_processed INTEGER        NOT NULL DEFAULT 0,
+    payments_created   INTEGER        NOT NULL DEFAULT 0,
+    error              TEXT,
+    created_by         UUID REFERENCES users (user_id),
+    created_at         TIMESTAMP(6)   NOT NULL,
+    updated_at         TIMESTAMP(6)   NOT NULL,
+    finished_at        TIMESTAMP(6)
+);
+
+-- Satu run per scope dan periode: request ulang melanjutkan run yang sama
+CREATE UNIQUE INDEX IF NOT EXISTS ux_billing_runs_scope
+    ON billing_runs (payment_type_id, billing_period, scope_type, scope_id);
+
+-- Recovery job mencari run RUNNING yang berhenti diperbarui
+CREATE INDEX IF NOT EXISTS idx_billing_runs_running ON billing_runs (updated_at) WHERE status = 'RUNNING';
@@ -0,0 +1,30 @@
+-- Ringkasan pembayaran (jumlah dan total amount per status) pada level student x jenis pembayaran.
+-- Rekap per kelas / tahun ajaran / jenis pembayaran = SUM atas tabel ini, tanpa scan tabel payments.
+-- Diperbarui per transaksi pembayaran (delta) dan dibangun ulang penuh oleh job malam.
+CREATE TABLE IF NOT EXISTS payment_summaries (
+    student_id      BIGINT         NOT NULL REFERENCES students (student_id) ON DELETE CASCADE,
+    payment_type_id BIGINT         NOT NULL REFERENCES payment_type (payment_type_id),
+    payment_status  VARCHAR(20)    NOT NULL,
+    -- Kelas dan tahun ajaran student saat ringkasan terakhir diperbarui (denormalisasi untuk rekap)
+    class_id        BIGINT,
+    school_year_id  BIGINT,
+    payment_count   BIGINT         NOT NULL DEFAULT 0,
+    total_amount    NUMERIC(38, 2) NOT NULL DEFAULT 0,
+    updated_at      TIMESTAMP(6),
+    PRIMARY KEY (student_id, payment_type_id, payment_status)
+);
+
+CREATE INDEX IF NOT EXISTS idx_payment_summaries_class ON payment_summaries (class_id);
+CREATE INDEX IF NOT EXISTS idx_payment_summaries_school_year ON payment_summaries (school_year_id);
+CREATE INDEX IF NOT EXISTS idx_payment_summaries_payment_type ON payment_summaries (payment_type_id);
+
+-- Isi awal dari data yang sudah ada
+INSERT INTO payment_summaries (student_id, payment_type_id, payment_status, class_id, school_year_id,
+                               payment_count, total_amount, updated_at)
+SELECT p.student_id, p.payment_type_id, p.payment_status, s.class_id, c.school_year_id,
+       count(*), sum(p.amount), now()
+FROM payments p
+         JOIN students s ON s.student_id = p.student_id
+         LEFT JOIN classes c ON c.class_id = s.class_id
+WHERE p.deleted_at IS NULL
+GROUP BY p.student_id, p.payment_type_id, p.payment_status, s.class_id, c.school_year_id;
@@ -0,0 +1,19 @@
+-- Jatuh tempo pembayaran untuk laporan tunggakan. Payment tanpa due_date dianggap jatuh tempo pada tanggal dibuat.
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS due_date DATE;
+ALTER TABLE billing_runs ADD COLUMN IF NOT EXISTS due_date DATE;
+
+-- Tagihan berulang yang sudah ada: jatuh tempo di akhir bulan periodenya
+UPDATE payments
+SET due_date = CAST(to_date(billing_period, 'YYYY-MM') + INTERVAL '1 month' - INTERVAL '1 day' AS date)
+WHERE billing_period IS NOT NULL AND due_date IS NULL;
+
+UPDATE billing_runs
+SET due_date = CAST(to_date(billing_period, 'YYYY-MM') + INTERVAL '1 month' - INTERVAL '1 day' AS date)
+WHERE due_date IS NULL;
+
+-- Laporan tunggakan hanya membaca payment terbuka (PENDING/FAILED) yang lewat jatuh tempo:
+-- partial index kecil pada tanggal jatuh tempo efektif, amount ikut disimpan agar tabel tidak perlu dibaca
+CREATE INDEX IF NOT EXISTS idx_payments_open_due
+    ON payments ((COALESCE(due_date, CAST(created_at AS date))), student_id)
+    INCLUDE (amount, payment_type_id)
+    WHERE deleted_at IS NULL AND payment_status IN ('PENDING', 'FAILED');
@@ -0,0 +1,13 @@
+-- Optimistic locking payment: setiap perubahan menaikkan version
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+-- Idempotency-Key perubahan status payment. Key yang sudah tercatat membuat retry (callback gateway
+-- yang diulang, klik ganda admin) menjadi no-op; baris lama dibersihkan berkala.
+CREATE TABLE IF NOT EXISTS payment_status_requests (
+    idempotency_key VARCHAR(100) NOT NULL PRIMARY KEY,
+    payment_id      UUID         NOT NULL REFERENCES payments (payment_id),
+    target_status   VARCHAR(20)  NOT NULL,
+    created_at      TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_payment_status_requests_created_at ON payment_status_requests (created_at);
@@ -0,0 +1,9 @@
+-- Blob gambar content-addressed (key = sha256 isi file + ekstensi) dengan jumlah referensi.
+-- Blob dengan ref_count = 0 yang tidak disentuh selama masa tenggang dihapus oleh garbage collector.
+CREATE TABLE IF NOT EXISTS image_blobs (
+    image_key  VARCHAR(100) NOT NULL PRIMARY KEY,
+    ref_count  INTEGER      NOT NULL DEFAULT 0 CHECK (ref_count >= 0),
+    updated_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_image_blobs_unreferenced ON image_blobs (updated_at) WHERE ref_count = 0;
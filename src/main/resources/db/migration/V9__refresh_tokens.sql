@@ -0,0 +1,17 @@
+-- Refresh token opaque. Hanya hash SHA-256 yang disimpan; token asli hanya diketahui client.
+-- Setiap rotasi membuat token baru dalam family yang sama; token yang sudah dipakai lalu dipakai lagi
+-- (indikasi token dicuri) mencabut seluruh family.
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    token_hash VARCHAR(64)  NOT NULL PRIMARY KEY,
+    family_id  UUID         NOT NULL,
+    user_id    UUID         NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
+    created_at TIMESTAMP(6) NOT NULL,
+    expires_at TIMESTAMP(6) NOT NULL,
+    used_at    TIMESTAMP(6),
+    revoked_at TIMESTAMP(6)
+);
+
+-- Pencabutan per family / per user hanya menyentuh token yang masih aktif
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_family_active ON refresh_tokens (family_id) WHERE revoked_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_user_active ON refresh_tokens (user_id) WHERE revoked_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expires_at ON refresh_tokens (expires_at);
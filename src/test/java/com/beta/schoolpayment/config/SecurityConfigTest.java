@@ -0,0 +1,78 @@
+package com.beta.schoolpayment.config;
+
+import com.beta.schoolpayment.controller.ExportController;
+import com.beta.schoolpayment.controller.PaymentController;
+import com.beta.schoolpayment.job.ExportJobService;
+import com.beta.schoolpayment.security.TokenRevocationRegistry;
+import com.beta.schoolpayment.service.BulkReceiptService;
+import com.beta.schoolpayment.service.PaymentExportService;
+import com.beta.schoolpayment.service.PaymentReceiptService;
+import com.beta.schoolpayment.service.PaymentReceiptStore;
+import com.beta.schoolpayment.service.PaymentService;
+import com.beta.schoolpayment.service.UserService;
+import com.beta.schoolpayment.util.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Route admin dijaga di SecurityFilterChain (method security tidak diaktifkan, @PreAuthorize tidak dievaluasi)
+@WebMvcTest(controllers = {PaymentController.class, ExportController.class})
+@Import({SecurityConfig.class, PasswordConfig.class, JwtRequestFilter.class})
+class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private JwtUtil jwtUtil;
+
+    @MockitoBean
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
+    @MockitoBean
+    private PaymentService paymentService;
+
+    @MockitoBean
+    private PaymentExportService paymentExportService;
+
+    @MockitoBean
+    private PaymentReceiptService paymentReceiptService;
+
+    @MockitoBean
+    private PaymentReceiptStore paymentReceiptStore;
+
+    @MockitoBean
+    private BulkReceiptService bulkReceiptService;
+
+    @MockitoBean
+    private ExportJobService exportJobService;
+
+    @Test
+    @WithMockUser(roles = "STUDENT")
+    void bulkReceipts_Student_Forbidden() throws Exception {
+        mockMvc.perform(post("/api/payments/receipts/bulk").param("classId", "1"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(bulkReceiptService);
+    }
+
+    @Test
+    @WithMockUser(roles = "STUDENT")
+    void exportPayments_Student_Forbidden() throws Exception {
+        mockMvc.perform(post("/api/exports/payments"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(exportJobService, paymentExportService);
+    }
+}
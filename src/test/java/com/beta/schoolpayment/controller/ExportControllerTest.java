@@ -0,0 +1,142 @@
+package com.beta.schoolpayment.controller;
+
+import com.beta.schoolpayment.dto.request.PaymentFilterCriteria;
+import com.beta.schoolpayment.dto.response.ExportJobResponse;
+import com.beta.schoolpayment.exception.DataNotFoundException;
+import com.beta.schoolpayment.exception.TooManyJobsException;
+import com.beta.schoolpayment.job.ExportJob;
+import com.beta.schoolpayment.job.ExportJobService;
+import com.beta.schoolpayment.job.ExportProgress;
+import com.beta.schoolpayment.job.ExportTask;
+import com.beta.schoolpayment.security.CustomUserDetails;
+import com.beta.schoolpayment.service.PaymentExportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.http.HttpStatus.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportControllerTest {
+
+    @InjectMocks
+    private ExportController exportController;
+
+    @Mock
+    private ExportJobService exportJobService;
+
+    @Mock
+    private PaymentExportService paymentExportService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private CustomUserDetails userDetails;
+
+    @TempDir
+    Path tempDir;
+
+    private UUID userId;
+    private UUID jobId;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+        jobId = UUID.randomUUID();
+    }
+
+    @Test
+    void exportPayments_SubmitsJobThatStreamsWorkbook() throws Exception {
+        when(userDetails.getUserId()).thenReturn(userId);
+        PaymentFilterCriteria criteria = new PaymentFilterCriteria();
+        ExportJobResponse submitted = new ExportJobResponse();
+        ArgumentCaptor<ExportTask> task = ArgumentCaptor.forClass(ExportTask.class);
+        when(exportJobService.submit(eq(userId), eq("payments"), eq("payments.xlsx"), anyString(), task.capture()))
+                .thenReturn(submitted);
+
+        ResponseEntity<?> response = exportController.exportPayments(criteria, userDetails);
+
+        assertEquals(ACCEPTED, response.getStatusCode());
+        assertSame(submitted, response.getBody());
+        ExportProgress progress = mock(ExportProgress.class);
+        task.getValue().write(new ByteArrayOutputStream(), progress);
+        verify(paymentExportService).exportPaymentsToExcel(eq(criteria), any(OutputStream.class), eq(progress));
+    }
+
+    @Test
+    void exportPayments_LimitReached_ReturnsTooManyRequests() {
+        when(userDetails.getUserId()).thenReturn(userId);
+        when(exportJobService.submit(any(), anyString(), anyString(), anyString(), any()))
+                .thenThrow(new TooManyJobsException("limit"));
+
+        assertEquals(TOO_MANY_REQUESTS, exportController.exportPayments(new PaymentFilterCriteria(), userDetails).getStatusCode());
+    }
+
+    @Test
+    void exportPayments_QueueFull_ReturnsServiceUnavailable() {
+        when(userDetails.getUserId()).thenReturn(userId);
+        when(exportJobService.submit(any(), anyString(), anyString(), anyString(), any()))
+                .thenThrow(new RejectedExecutionException("full"));
+
+        ResponseEntity<?> response = exportController.exportPayments(new PaymentFilterCriteria(), userDetails);
+
+        assertEquals(SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertNotNull(response.getHeaders().getFirst("Retry-After"));
+    }
+
+    @Test
+    void getJob_Unknown_ReturnsNotFound() {
+        when(exportJobService.getJob(jobId, userDetails)).thenThrow(new DataNotFoundException("tidak ditemukan"));
+
+        assertEquals(NOT_FOUND, exportController.getJob(jobId, userDetails).getStatusCode());
+    }
+
+    @Test
+    void download_Completed_StreamsFile() throws Exception {
+        byte[] content = {80, 75, 3, 4};
+        Path file = Files.write(tempDir.resolve(jobId + ".zip"), content);
+        ExportJob job = mock(ExportJob.class);
+        when(job.getFile()).thenReturn(file);
+        when(job.getContentType()).thenReturn("application/zip");
+        when(job.getFilename()).thenReturn("receipts_class_1.zip");
+        when(exportJobService.getCompletedJob(jobId, userDetails)).thenReturn(job);
+
+        ResponseEntity<StreamingResponseBody> response = exportController.download(jobId, userDetails);
+
+        assertEquals(OK, response.getStatusCode());
+        assertEquals("application/zip", response.getHeaders().getContentType().toString());
+        assertEquals(content.length, response.getHeaders().getContentLength());
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        response.getBody().writeTo(body);
+        assertArrayEquals(content, body.toByteArray());
+    }
+
+    @Test
+    void download_NotFinished_ReturnsConflict() {
+        when(exportJobService.getCompletedJob(jobId, userDetails)).thenThrow(new IllegalStateException("belum selesai"));
+
+        assertEquals(CONFLICT, exportController.download(jobId, userDetails).getStatusCode());
+    }
+}
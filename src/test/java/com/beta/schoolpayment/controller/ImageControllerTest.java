@@ -0,0 +1,97 @@
+package com.beta.schoolpayment.controller;
+
+import com.beta.schoolpayment.service.ImageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class ImageControllerTest {
+
+    private static final String HASH = "e".repeat(64);
+    private static final String KEY = HASH + ".png";
+
+    @InjectMocks
+    private ImageController imageController;
+
+    @Mock
+    private ImageService imageService;
+
+    private Resource image;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        image = new ByteArrayResource(new byte[]{1, 2, 3}) {
+            @Override
+            public String getFilename() {
+                return KEY;
+            }
+        };
+    }
+
+    @Test
+    void testGetImage_ImmutableResponse() {
+        when(imageService.find(KEY)).thenReturn(Optional.of(image));
+
+        ResponseEntity<?> response = imageController.getImage(KEY, null, null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isSameAs(image);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"" + HASH + "\"");
+        assertThat(response.getHeaders().getCacheControl()).contains("immutable");
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.IMAGE_PNG);
+    }
+
+    @Test
+    void testGetImage_MatchingEtag_NotModifiedWithoutStorageAccess() {
+        ResponseEntity<?> response = imageController.getImage(KEY, null, "\"" + HASH + "\"");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        verify(imageService, never()).find(any());
+    }
+
+    @Test
+    void testGetImage_ThumbnailMissing_FallsBackToOriginalWithoutLongCache() {
+        when(imageService.isSupportedThumbnailSize(64)).thenReturn(true);
+        when(imageService.find(HASH + "_64.jpg")).thenReturn(Optional.empty());
+        when(imageService.find(KEY)).thenReturn(Optional.of(image));
+
+        ResponseEntity<?> response = imageController.getImage(KEY, 64, null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isSameAs(image);
+        assertThat(response.getHeaders().getCacheControl()).contains("no-cache");
+        verify(imageService).requestThumbnails(KEY);
+    }
+
+    @Test
+    void testGetImage_UnsupportedSize_BadRequest() {
+        when(imageService.isSupportedThumbnailSize(100)).thenReturn(false);
+
+        ResponseEntity<?> response = imageController.getImage(KEY, 100, null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody()).isEqualTo(Map.of("error", "Ukuran gambar tidak didukung: 100"));
+    }
+
+    @Test
+    void testGetImage_InvalidKey_NotFound() {
+        ResponseEntity<?> response = imageController.getImage("../application.properties", null, null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        verifyNoInteractions(imageService);
+    }
+}
@@ -1,23 +1,49 @@
 package com.beta.schoolpayment.controller;
 
+import com.beta.schoolpayment.dto.request.PaymentCursor;
 import com.beta.schoolpayment.dto.request.PaymentFilterCriteria;
 import com.beta.schoolpayment.dto.request.PaymentRequest;
+import com.beta.schoolpayment.dto.response.ExportJobResponse;
+import com.beta.schoolpayment.dto.response.PaymentBatchResponse;
+import com.beta.schoolpayment.dto.response.CursorPaginatedResponse;
 import com.beta.schoolpayment.dto.response.PaymentResponse;
+import com.beta.schoolpayment.exception.DataNotFoundException;
+import com.beta.schoolpayment.exception.PaymentStatusConflictException;
+import com.beta.schoolpayment.exception.TooManyJobsException;
 import com.beta.schoolpayment.security.CustomUserDetails;
+import com.beta.schoolpayment.service.BulkReceiptService;
 import com.beta.schoolpayment.service.PaymentExportService;
 import com.beta.schoolpayment.service.PaymentReceiptService;
+import com.beta.schoolpayment.service.PaymentReceiptStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.beta.schoolpayment.service.PaymentService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -38,6 +64,18 @@ class PaymentControllerTest {
     @Mock
     private PaymentReceiptService paymentReceiptService;
 
+    @Mock
+    private PaymentReceiptStore paymentReceiptStore;
+
+    @Mock
+    private BulkReceiptService bulkReceiptService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path tempDir;
+
     @Mock
     private CustomUserDetails userDetails;
 
@@ -55,8 +93,6 @@ class PaymentControllerTest {
         paymentResponse = new PaymentResponse();
         paymentResponse.setPaymentId(paymentId);
         paymentResponse.setPaymentStatus("COMPLETED");
-
-        when(userDetails.getUserId()).thenReturn(userId);
     }
 
     @Test
@@ -80,12 +116,40 @@ class PaymentControllerTest {
         when(paymentService.getAllPayments(any(), anyInt(), anyInt(), anyString(), anyString()))
                 .thenReturn(page);
 
-        ResponseEntity<?> response = paymentController.getAllPayments(null, null, null, null, null, null, 0, 10, "createdAt", "desc");
+        ResponseEntity<?> response = paymentController.getAllPayments(null, null, null, null, null, null, 0, 10, "createdAt", "desc", false, null);
 
         assertEquals(OK, response.getStatusCode());
         verify(paymentService).getAllPayments(any(), anyInt(), anyInt(), anyString(), anyString());
     }
 
+    @Test
+    void getAllPayments_KeysetMode() {
+        paymentResponse.setCreatedAt(LocalDateTime.of(2025, 1, 1, 8, 0));
+        Slice<PaymentResponse> slice = new SliceImpl<>(List.of(paymentResponse), PageRequest.of(0, 1), true);
+        when(paymentService.getPaymentsByCursor(any(), isNull(), eq(1), eq("desc"))).thenReturn(slice);
+
+        ResponseEntity<?> response = paymentController.getAllPayments(null, null, null, null, null, null, 0, 1, "createdAt", "desc", true, null);
+
+        assertEquals(OK, response.getStatusCode());
+        CursorPaginatedResponse<?> body = (CursorPaginatedResponse<?>) response.getBody();
+        assertTrue(body.isHasNext());
+        PaymentCursor next = PaymentCursor.decode(body.getNextCursor());
+        assertEquals(paymentId, next.getPaymentId());
+        assertEquals(paymentResponse.getCreatedAt(), next.getCreatedAt());
+        assertEquals(Sort.Direction.DESC, next.getDirection());
+        verify(paymentService, never()).getAllPayments(any(), anyInt(), anyInt(), anyString(), anyString());
+    }
+
+    @Test
+    void getAllPayments_InvalidCursor() {
+        when(paymentService.getPaymentsByCursor(any(), eq("not-a-cursor"), anyInt(), anyString()))
+                .thenThrow(new IllegalArgumentException("Cursor tidak valid"));
+
+        ResponseEntity<?> response = paymentController.getAllPayments(null, null, null, null, null, null, 0, 10, "createdAt", "desc", false, "not-a-cursor");
+
+        assertEquals(BAD_REQUEST, response.getStatusCode());
+    }
+
     @Test
     void getPaymentById_Success() {
         when(paymentService.getPaymentById(paymentId)).thenReturn(paymentResponse);
@@ -101,12 +165,23 @@ class PaymentControllerTest {
         Map<String, String> requestBody = new HashMap<>();
         requestBody.put("status", "PAID");
 
-        when(paymentService.updatePaymentStatus(paymentId, "PAID")).thenReturn(paymentResponse);
+        when(paymentService.updatePaymentStatus(paymentId, "PAID", null, "key-1")).thenReturn(paymentResponse);
 
-        ResponseEntity<?> response = paymentController.updatePaymentStatus(paymentId, requestBody);
+        ResponseEntity<?> response = paymentController.updatePaymentStatus(paymentId, requestBody, "key-1");
 
         assertEquals(OK, response.getStatusCode());
-        verify(paymentService).updatePaymentStatus(paymentId, "PAID");
+        verify(paymentService).updatePaymentStatus(paymentId, "PAID", null, "key-1");
+    }
+
+    @Test
+    void updatePaymentStatus_Conflict_Returns409() {
+        Map<String, String> requestBody = Map.of("status", "PENDING", "expectedStatus", "COMPLETED");
+        when(paymentService.updatePaymentStatus(paymentId, "PENDING", "COMPLETED", null))
+                .thenThrow(new PaymentStatusConflictException("Perubahan status COMPLETED -> PENDING tidak diizinkan"));
+
+        ResponseEntity<?> response = paymentController.updatePaymentStatus(paymentId, requestBody, null);
+
+        assertEquals(CONFLICT, response.getStatusCode());
     }
 
     @Test
@@ -119,16 +194,142 @@ class PaymentControllerTest {
         verify(paymentService).deletePayment(paymentId);
     }
 
+    @Test
+    void exportPaymentsToExcel_StreamsToResponse() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = paymentController.exportPaymentsToExcel(
+                null, "John", null, "COMPLETED", null, null);
+
+        assertEquals(OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        verifyNoInteractions(paymentExportService);
+
+        response.getBody().writeTo(new ByteArrayOutputStream());
+
+        verify(paymentExportService).exportPaymentsToExcel(
+                argThat(criteria -> "John".equals(criteria.getStudentName())
+                        && "COMPLETED".equals(criteria.getPaymentStatus())),
+                any(OutputStream.class));
+    }
+
     @Test
     void downloadPaymentReceipt_Success() throws Exception {
         when(paymentService.getPaymentById(paymentId)).thenReturn(paymentResponse);
         byte[] pdfBytes = {1, 2, 3, 4, 5};  // Simulasi file PDF
-        when(paymentReceiptService.generatePaymentReceipt(any())).thenReturn(pdfBytes);
+        Path file = Files.write(tempDir.resolve("receipt.pdf"), pdfBytes);
+        when(paymentReceiptStore.etag(paymentResponse)).thenReturn("\"v1\"");
+        when(paymentReceiptService.receiptFile(any())).thenReturn(CompletableFuture.completedFuture(file));
 
-        ResponseEntity<?> response = paymentController.downloadPaymentReceipt(paymentId);
+        ResponseEntity<StreamingResponseBody> response = paymentController.downloadPaymentReceipt(paymentId, null).get();
 
         assertEquals(OK, response.getStatusCode());
-        assertArrayEquals(pdfBytes, (byte[]) response.getBody());
-        verify(paymentReceiptService).generatePaymentReceipt(any());
+        assertEquals("\"v1\"", response.getHeaders().getETag());
+        assertEquals(pdfBytes.length, response.getHeaders().getContentLength());
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        response.getBody().writeTo(body);
+        assertArrayEquals(pdfBytes, body.toByteArray());
+        verify(paymentReceiptService).receiptFile(any());
+    }
+
+    @Test
+    void downloadPaymentReceipt_MatchingEtag_ReturnsNotModified() throws Exception {
+        when(paymentService.getPaymentById(paymentId)).thenReturn(paymentResponse);
+        when(paymentReceiptStore.etag(paymentResponse)).thenReturn("\"v1\"");
+
+        ResponseEntity<StreamingResponseBody> response =
+                paymentController.downloadPaymentReceipt(paymentId, "\"v0\", \"v1\"").get();
+
+        assertEquals(NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        verify(paymentReceiptService, never()).receiptFile(any());
+    }
+
+    @Test
+    void downloadPaymentReceipt_NotCompleted_ReturnsBadRequest() throws Exception {
+        paymentResponse.setPaymentStatus("PENDING");
+        when(paymentService.getPaymentById(paymentId)).thenReturn(paymentResponse);
+
+        ResponseEntity<StreamingResponseBody> response = paymentController.downloadPaymentReceipt(paymentId, null).get();
+
+        assertEquals(BAD_REQUEST, response.getStatusCode());
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        response.getBody().writeTo(body);
+        assertTrue(body.toString().contains("COMPLETED"));
+        verify(paymentReceiptService, never()).receiptFile(any());
+    }
+
+    @Test
+    void downloadPaymentReceipt_QueueFull_ReturnsServiceUnavailable() throws Exception {
+        when(paymentService.getPaymentById(paymentId)).thenReturn(paymentResponse);
+        when(paymentReceiptStore.etag(paymentResponse)).thenReturn("\"v1\"");
+        when(paymentReceiptService.receiptFile(any())).thenThrow(new RejectedExecutionException("queue full"));
+
+        ResponseEntity<StreamingResponseBody> response = paymentController.downloadPaymentReceipt(paymentId, null).get();
+
+        assertEquals(SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst("Retry-After"));
+    }
+
+    @Test
+    void startBulkReceipts_ForClass_ReturnsAccepted() {
+        ExportJobResponse job = new ExportJobResponse();
+        job.setJobId(UUID.randomUUID());
+        job.setStatus("QUEUED");
+        when(userDetails.getUserId()).thenReturn(userId);
+        when(bulkReceiptService.startForClass(3L, userId)).thenReturn(job);
+
+        ResponseEntity<?> response = paymentController.startBulkReceipts(3L, null, userDetails);
+
+        assertEquals(ACCEPTED, response.getStatusCode());
+        assertEquals(job, response.getBody());
+    }
+
+    @Test
+    void startBulkReceipts_BothOrNoneFilter_ReturnsBadRequest() {
+        assertEquals(BAD_REQUEST, paymentController.startBulkReceipts(null, null, userDetails).getStatusCode());
+        assertEquals(BAD_REQUEST, paymentController.startBulkReceipts(1L, 2L, userDetails).getStatusCode());
+        verifyNoInteractions(bulkReceiptService);
+    }
+
+    @Test
+    void startBulkReceipts_UnknownSchoolYear_ReturnsNotFound() {
+        when(userDetails.getUserId()).thenReturn(userId);
+        when(bulkReceiptService.startForSchoolYear(9L, userId)).thenThrow(new DataNotFoundException("School year not found"));
+
+        ResponseEntity<?> response = paymentController.startBulkReceipts(null, 9L, userDetails);
+
+        assertEquals(NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void startBulkReceipts_TooManyJobs_ReturnsTooManyRequests() {
+        when(userDetails.getUserId()).thenReturn(userId);
+        when(bulkReceiptService.startForClass(3L, userId)).thenThrow(new TooManyJobsException("limit"));
+
+        ResponseEntity<?> response = paymentController.startBulkReceipts(3L, null, userDetails);
+
+        assertEquals(TOO_MANY_REQUESTS, response.getStatusCode());
+    }
+
+    @Test
+    void createPayments_ReturnsPerItemResults() {
+        ReflectionTestUtils.setField(paymentController, "maxBatchSize", 10);
+        List<PaymentRequest> requests = List.of(paymentRequest, paymentRequest);
+        PaymentBatchResponse batch = new PaymentBatchResponse(2, 2, 0, List.of());
+        when(paymentService.createPayments(requests, userDetails)).thenReturn(batch);
+
+        ResponseEntity<?> response = paymentController.createPayments(requests, userDetails);
+
+        assertEquals(OK, response.getStatusCode());
+        assertEquals(batch, response.getBody());
+    }
+
+    @Test
+    void createPayments_OverMaxSize_ReturnsBadRequest() {
+        ReflectionTestUtils.setField(paymentController, "maxBatchSize", 1);
+
+        ResponseEntity<?> response = paymentController.createPayments(List.of(paymentRequest, paymentRequest), userDetails);
+
+        assertEquals(BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(paymentService);
     }
 }
@@ -3,8 +3,11 @@ import com.beta.schoolpayment.dto.request.StudentRequest;
 import com.beta.schoolpayment.dto.response.ApiResponse;
 import com.beta.schoolpayment.dto.response.ErrorResponse;
 import com.beta.schoolpayment.dto.response.StudentResponse;
+import com.beta.schoolpayment.dto.response.StudentImportResponse;
 import com.beta.schoolpayment.exception.DataNotFoundException;
+import com.beta.schoolpayment.exception.FileInvalidException;
 import com.beta.schoolpayment.exception.ValidationException;
+import com.beta.schoolpayment.service.StudentImportService;
 import com.beta.schoolpayment.service.StudentService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,6 +18,7 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
 
 import java.util.List;
 
@@ -27,6 +31,9 @@ class StudentControllerTest {
 
     @Mock
     private StudentService studentService;
+
+    @Mock
+    private StudentImportService studentImportService;
     private StudentRequest studentRequest;
     private StudentResponse studentResponse;
 
@@ -59,6 +66,28 @@ class StudentControllerTest {
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
     }
+    @Test
+    void testImportStudents_Success() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "students.csv", "text/csv", "nis".getBytes());
+        StudentImportResponse report = new StudentImportResponse(2, 1, 1, false, List.of());
+        when(studentImportService.importStudents(file)).thenReturn(report);
+
+        ResponseEntity<?> response = studentController.importStudents(file);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(((ApiResponse<?>) response.getBody())).isEqualTo(new ApiResponse<>(200, report));
+    }
+
+    @Test
+    void testImportStudents_InvalidFile() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "students.pdf", "application/pdf", new byte[]{1});
+        when(studentImportService.importStudents(file)).thenThrow(new FileInvalidException("Format file harus .xlsx atau .csv"));
+
+        ResponseEntity<?> response = studentController.importStudents(file);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
     @Test
     void testCreateStudent_Success() {
         when(studentService.createStudent(studentRequest)).thenReturn(studentResponse);
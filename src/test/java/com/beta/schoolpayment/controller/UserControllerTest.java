@@ -1,9 +1,11 @@
 package com.beta.schoolpayment.controller;
 
 import com.beta.schoolpayment.dto.request.AuthRequest;
+import com.beta.schoolpayment.dto.request.RefreshTokenRequest;
 import com.beta.schoolpayment.dto.request.UserRequest;
 import com.beta.schoolpayment.dto.response.*;
 import com.beta.schoolpayment.exception.DataNotFoundException;
+import com.beta.schoolpayment.exception.UnauthorizedException;
 import com.beta.schoolpayment.exception.ValidationException;
 import com.beta.schoolpayment.service.UserService;
 import org.assertj.core.api.AssertionsForClassTypes;
@@ -17,12 +19,11 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.core.Authentication;
-import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -31,14 +32,12 @@ public class UserControllerTest {
     @InjectMocks
     private UserController userController;
 
-    @Mock
-    private AuthenticationManager authenticationManager;
-
     @Mock
     private Authentication authentication;
 
     @Mock
     private UserService userService;
+
     private UserRequest userRequest;
     private UserResponse userResponse;
     private AuthRequest authRequest;
@@ -49,7 +48,6 @@ public class UserControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        ReflectionTestUtils.setField(userService, "authenticationManager", authenticationManager);
         userRequest = new UserRequest();
         userRequest.setName("johndoe");
         userRequest.setEmail("johndoe@example.com");
@@ -143,7 +141,7 @@ public class UserControllerTest {
 
         ApiResponse<?> apiResponse = (ApiResponse<?>) response.getBody();
         assertThat(apiResponse.getStatus()).isEqualTo(HttpStatus.OK.value());
-        assertThat(apiResponse.getData()).isEqualTo("valid-jwt-token");
+        assertThat(apiResponse.getData()).isSameAs(authResponse);
     }
 
     @Test
@@ -161,6 +159,52 @@ public class UserControllerTest {
         assertThat(errorResponse.getMessage()).isEqualTo("Invalid credentials");
     }
 
+    @Test
+    void testRefresh_Success() {
+        RefreshTokenRequest request = new RefreshTokenRequest();
+        request.setRefreshToken("old-refresh-token");
+        when(userService.refresh("old-refresh-token")).thenReturn(authResponse);
+
+        ResponseEntity<?> response = userController.refresh(request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(((ApiResponse<?>) response.getBody()).getData()).isSameAs(authResponse);
+    }
+
+    @Test
+    void testRefresh_InvalidToken_Unauthorized() {
+        RefreshTokenRequest request = new RefreshTokenRequest();
+        request.setRefreshToken("reused-refresh-token");
+        when(userService.refresh("reused-refresh-token")).thenThrow(new UnauthorizedException("Refresh token tidak valid"));
+
+        ResponseEntity<?> response = userController.refresh(request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(((ErrorResponse) response.getBody()).getMessage()).isEqualTo("Refresh token tidak valid");
+    }
+
+    @Test
+    void testLogout_NoContent() {
+        RefreshTokenRequest request = new RefreshTokenRequest();
+        request.setRefreshToken("refresh-token");
+
+        ResponseEntity<?> response = userController.logout(request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        verify(userService).logout("refresh-token");
+    }
+
+    @Test
+    void testLogin_HashQueueFull_ServiceUnavailable() {
+        when(userService.login(authRequest)).thenThrow(new RejectedExecutionException("queue full"));
+
+        ResponseEntity<?> response = userController.login(authRequest);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst("Retry-After")).isEqualTo("1");
+        assertThat(((ErrorResponse) response.getBody()).getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+    }
+
     @Test
     void testUpdateUser_Success() {
         when(userService.updateProfile(authentication, userRequest)).thenReturn(userResponse);
@@ -240,20 +284,43 @@ public class UserControllerTest {
     }
 
     @Test
-    void testGetProfilePicture_Success() {
-        when(userService.getImageById(userRequest.getUserId())).thenReturn(mockImage);
+    void testGetProfilePicture_RedirectsToContentAddressedUrl() {
+        String key = "a".repeat(64) + ".jpg";
+        when(userService.getProfilePictureKey(userRequest.getUserId())).thenReturn(key);
 
-        ResponseEntity<?> response = userController.getProfilePicture(userRequest.getUserId());
+        ResponseEntity<?> response = userController.getProfilePicture(userRequest.getUserId(), 64);
 
-        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(response.getBody()).isEqualTo(mockImage);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FOUND);
+        assertThat(response.getHeaders().getLocation()).hasToString("/api/images/" + key + "?size=64");
+        // Key berubah setiap foto diganti: redirect tidak boleh di-cache lama
+        assertThat(response.getHeaders().getCacheControl()).contains("no-cache");
+    }
+
+    @Test
+    void testGetProfilePicture_LegacyPath_NotFound() {
+        when(userService.getProfilePictureKey(userRequest.getUserId())).thenReturn("2024/03/12/abc.jpg");
+
+        ResponseEntity<?> response = userController.getProfilePicture(userRequest.getUserId(), null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void testGetProfilePicture_NotSet_NotFound() {
+        when(userService.getProfilePictureKey(userRequest.getUserId()))
+                .thenThrow(new DataNotFoundException("Profile picture not found for user: " + userRequest.getUserId()));
+
+        ResponseEntity<?> response = userController.getProfilePicture(userRequest.getUserId(), null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(((ErrorResponse) response.getBody()).getError()).isEqualTo("Data Not Found");
     }
 
     @Test
     void testGetProfilePicture_Failed() {
-        when(userService.getImageById(userRequest.getUserId())).thenThrow(new RuntimeException("Image not found"));
+        when(userService.getProfilePictureKey(userRequest.getUserId())).thenThrow(new RuntimeException("Image not found"));
 
-        ResponseEntity<?> response = userController.getProfilePicture(userRequest.getUserId());
+        ResponseEntity<?> response = userController.getProfilePicture(userRequest.getUserId(), null);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
         assertThat(response.getBody()).isInstanceOf(ErrorResponse.class);
@@ -0,0 +1,234 @@
+package com.beta.schoolpayment.job;
+
+import com.beta.schoolpayment.dto.response.ExportJobResponse;
+import com.beta.schoolpayment.exception.DataNotFoundException;
+import com.beta.schoolpayment.exception.TooManyJobsException;
+import com.beta.schoolpayment.security.CustomUserDetails;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExportJobServiceTest {
+
+    @TempDir
+    Path spoolDir;
+
+    private ExportJobService exportJobService;
+    private UUID ownerId;
+    private CustomUserDetails owner;
+
+    @BeforeEach
+    void setUp() {
+        exportJobService = new ExportJobService();
+        ReflectionTestUtils.setField(exportJobService, "spoolDir", spoolDir.toString());
+        ReflectionTestUtils.setField(exportJobService, "threads", 2);
+        ReflectionTestUtils.setField(exportJobService, "queueCapacity", 10);
+        ReflectionTestUtils.setField(exportJobService, "maxPerUser", 1);
+        ReflectionTestUtils.setField(exportJobService, "ttl", Duration.ofHours(1));
+        exportJobService.start();
+
+        ownerId = UUID.randomUUID();
+        owner = user(ownerId, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        exportJobService.stop();
+    }
+
+    @Test
+    void submit_WritesFileToSpoolAndCompletes() throws Exception {
+        ExportJobResponse submitted = exportJobService.submit(ownerId, "payments", "payments.xlsx", "application/zip",
+                (out, progress) -> {
+                    progress.setTotal(2);
+                    out.write("isi".getBytes());
+                    progress.itemProcessed();
+                    progress.itemProcessed();
+                });
+
+        ExportJobResponse job = awaitDone(submitted.getJobId());
+
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(2, job.getProcessed());
+        assertEquals("/api/exports/" + job.getJobId() + "/download", job.getDownloadUrl());
+        assertNotNull(job.getExpiresAt());
+        Path file = exportJobService.getCompletedJob(job.getJobId(), owner).getFile();
+        assertEquals(spoolDir, file.getParent());
+        assertTrue(file.toString().endsWith(".xlsx"));
+        assertEquals("isi", Files.readString(file));
+    }
+
+    @Test
+    void failingTask_MarksJobFailedAndRemovesPartialFile() throws Exception {
+        ExportJobResponse submitted = exportJobService.submit(ownerId, "payments", "payments.xlsx", "application/zip",
+                (out, progress) -> {
+                    out.write("setengah".getBytes());
+                    throw new IllegalStateException("query gagal");
+                });
+
+        ExportJobResponse job = awaitDone(submitted.getJobId());
+
+        assertEquals("FAILED", job.getStatus());
+        assertEquals("query gagal", job.getError());
+        try (var files = Files.list(spoolDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void submit_OverPerUserLimit_ThrowsUntilFirstJobFinishes() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExportJobResponse first = exportJobService.submit(ownerId, "payments", "a.xlsx", "application/zip",
+                (out, progress) -> release.await());
+
+        assertThrows(TooManyJobsException.class, () -> exportJobService.submit(ownerId, "payments", "b.xlsx",
+                "application/zip", (out, progress) -> { }));
+        // User lain tidak terpengaruh batas user pertama
+        assertNotNull(exportJobService.submit(UUID.randomUUID(), "payments", "c.xlsx", "application/zip",
+                (out, progress) -> { }));
+
+        release.countDown();
+        awaitDone(first.getJobId());
+        assertNotNull(exportJobService.submit(ownerId, "payments", "b.xlsx", "application/zip", (out, progress) -> { }));
+    }
+
+    @Test
+    void getJob_OtherUser_NotFound_AdminAllowed() throws Exception {
+        ExportJobResponse submitted = exportJobService.submit(ownerId, "payments", "a.xlsx", "application/zip",
+                (out, progress) -> { });
+
+        assertThrows(DataNotFoundException.class,
+                () -> exportJobService.getJob(submitted.getJobId(), user(UUID.randomUUID(), false)));
+        assertNotNull(exportJobService.getJob(submitted.getJobId(), user(UUID.randomUUID(), true)));
+        awaitDone(submitted.getJobId());
+    }
+
+    @Test
+    void getCompletedJob_StillRunning_ThrowsIllegalState() {
+        CountDownLatch release = new CountDownLatch(1);
+        ExportJobResponse submitted = exportJobService.submit(ownerId, "payments", "a.xlsx", "application/zip",
+                (out, progress) -> release.await());
+
+        assertThrows(IllegalStateException.class, () -> exportJobService.getCompletedJob(submitted.getJobId(), owner));
+        release.countDown();
+    }
+
+    @Test
+    void cancel_QueuedJob_FreesSlotAndForgetsJob() {
+        CountDownLatch release = new CountDownLatch(1);
+        // Kedua worker sibuk dengan job user lain, job owner tertahan di antrian
+        exportJobService.submit(UUID.randomUUID(), "payments", "x.xlsx", "application/zip", (out, progress) -> release.await());
+        exportJobService.submit(UUID.randomUUID(), "payments", "y.xlsx", "application/zip", (out, progress) -> release.await());
+        ExportJobResponse submitted = exportJobService.submit(ownerId, "payments", "a.xlsx", "application/zip",
+                (out, progress) -> { });
+        assertEquals("QUEUED", submitted.getStatus());
+
+        ExportJobResponse cancelled = exportJobService.cancel(submitted.getJobId(), owner);
+
+        assertEquals("CANCELLED", cancelled.getStatus());
+        assertThrows(DataNotFoundException.class, () -> exportJobService.getJob(submitted.getJobId(), owner));
+        assertNotNull(exportJobService.submit(ownerId, "payments", "b.xlsx", "application/zip", (out, progress) -> { }));
+        release.countDown();
+    }
+
+    @Test
+    void cancel_RunningJob_KeepsSlotUntilWorkerStops() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Task yang tidak langsung berhenti saat di-interrupt
+        ExportJobResponse submitted = exportJobService.submit(ownerId, "payments", "a.xlsx", "application/zip",
+                (out, progress) -> {
+                    started.countDown();
+                    awaitIgnoringInterrupt(release);
+                });
+        started.await();
+
+        ExportJobResponse cancelled = exportJobService.cancel(submitted.getJobId(), owner);
+
+        assertEquals("CANCELLED", cancelled.getStatus());
+        assertEquals("CANCELLED", exportJobService.getJob(submitted.getJobId(), owner).getStatus());
+        assertThrows(TooManyJobsException.class, () -> exportJobService.submit(ownerId, "payments", "b.xlsx",
+                "application/zip", (out, progress) -> { }));
+
+        release.countDown();
+        awaitForgotten(submitted.getJobId());
+        assertNotNull(exportJobService.submit(ownerId, "payments", "b.xlsx", "application/zip", (out, progress) -> { }));
+        try (var files = Files.list(spoolDir)) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().startsWith(submitted.getJobId().toString())));
+        }
+    }
+
+    @Test
+    void cleanup_RemovesExpiredResultsAndOldOrphanFiles() throws Exception {
+        ReflectionTestUtils.setField(exportJobService, "ttl", Duration.ofMillis(-1));
+        ExportJobResponse submitted = exportJobService.submit(ownerId, "payments", "a.xlsx", "application/zip",
+                (out, progress) -> out.write(1));
+        awaitDone(submitted.getJobId());
+        Path orphan = Files.writeString(spoolDir.resolve(UUID.randomUUID() + ".xlsx"), "lama");
+        Files.setLastModifiedTime(orphan, FileTime.from(Instant.now().minus(Duration.ofDays(1))));
+
+        exportJobService.cleanup();
+
+        assertThrows(DataNotFoundException.class, () -> exportJobService.getJob(submitted.getJobId(), owner));
+        try (var files = Files.list(spoolDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private ExportJobResponse awaitDone(UUID jobId) throws InterruptedException {
+        CustomUserDetails admin = user(UUID.randomUUID(), true);
+        for (int i = 0; i < 500; i++) {
+            ExportJobResponse job = exportJobService.getJob(jobId, admin);
+            if (!"QUEUED".equals(job.getStatus()) && !"RUNNING".equals(job.getStatus())) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        fail("Job tidak selesai");
+        return null;
+    }
+
+    private void awaitForgotten(UUID jobId) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            try {
+                exportJobService.getJob(jobId, owner);
+            } catch (DataNotFoundException e) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("Job yang dibatalkan masih tercatat");
+    }
+
+    private static void awaitIgnoringInterrupt(CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return;
+            } catch (InterruptedException ignored) {
+                // Sengaja diabaikan: mensimulasikan task yang lambat merespons cancel
+            }
+        }
+    }
+
+    private static CustomUserDetails user(UUID userId, boolean admin) {
+        CustomUserDetails userDetails = mock(CustomUserDetails.class);
+        when(userDetails.getUserId()).thenReturn(userId);
+        when(userDetails.isAdmin()).thenReturn(admin);
+        return userDetails;
+    }
+}
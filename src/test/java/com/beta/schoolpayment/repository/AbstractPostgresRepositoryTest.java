@@ -0,0 +1,50 @@
+package com.beta.schoolpayment.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+// Basis test repository di PostgreSQL sungguhan. Satu container dipakai bersama oleh semua subclass dan hidup
+// sampai JVM test selesai (bukan per class), sehingga context Spring yang di-cache tetap menunjuk ke database yang sama.
+// Tanpa Docker seluruh subclass dilewati.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+abstract class AbstractPostgresRepositoryTest {
+
+    @ServiceConnection
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    static {
+        postgres.start();
+    }
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    // Tahun ajaran 2025/2026 (1 Juli 2025 - 30 Juni 2026)
+    protected Long insertSchoolYear() {
+        jdbcTemplate.update("INSERT INTO school_years (school_year, start_date, end_date) VALUES ('2025/2026', DATE '2025-07-01', DATE '2026-06-30')");
+        return jdbcTemplate.queryForObject("SELECT max(school_year_id) FROM school_years", Long.class);
+    }
+
+    protected Long insertClass(String name, Long schoolYearId) {
+        jdbcTemplate.update("INSERT INTO classes (class_name, school_year_id) VALUES (?, ?)", name, schoolYearId);
+        return jdbcTemplate.queryForObject("SELECT max(class_id) FROM classes", Long.class);
+    }
+
+    protected Long insertPaymentType(String name) {
+        jdbcTemplate.update("INSERT INTO payment_type (payment_type_name, created_at, updated_at) VALUES (?, now(), now())", name);
+        return jdbcTemplate.queryForObject("SELECT max(payment_type_id) FROM payment_type", Long.class);
+    }
+
+    protected Long insertStudent(long nis, String name, Long classId) {
+        jdbcTemplate.update("INSERT INTO students (nis, name, class_id, birthdate) VALUES (?, ?, ?, DATE '2010-01-01')",
+                nis, name, classId);
+        return jdbcTemplate.queryForObject("SELECT max(student_id) FROM students", Long.class);
+    }
+}
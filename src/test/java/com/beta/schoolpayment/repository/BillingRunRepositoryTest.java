@@ -0,0 +1,79 @@
+package com.beta.schoolpayment.repository;
+
+import com.beta.schoolpayment.model.BillingRun;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// INSERT ... SELECT billing run pada Postgres asli: chunk per student_id dan idempotent per (student, jenis, periode)
+class BillingRunRepositoryTest extends AbstractPostgresRepositoryTest {
+
+    @Autowired
+    private BillingRunRepository billingRunRepository;
+
+    private Long classId;
+    private Long paymentTypeId;
+
+    @BeforeEach
+    void setUp() {
+        classId = insertClass("X-A", insertSchoolYear());
+        paymentTypeId = insertPaymentType("SPP");
+        jdbcTemplate.update("INSERT INTO students (nis, name, class_id, birthdate, deleted_at) " +
+                "SELECT 5000 + i, 'Student ' || i, ?, DATE '2010-01-01', CASE WHEN i = 3 THEN now() END " +
+                "FROM generate_series(1, 10) i", classId);
+    }
+
+    @Test
+    void chunkedInsert_SkipsDeletedStudentsAndIsIdempotent() {
+        List<Long> firstChunk = billingRunRepository.findNextStudentIds(List.of(classId), 0L, 5);
+        assertThat(firstChunk).hasSize(5);
+        Long upTo = firstChunk.get(4);
+
+        int created = insert(0L, upTo);
+        int createdAgain = insert(0L, upTo);
+        int rest = insert(upTo, Long.MAX_VALUE);
+
+        // 10 student, 1 soft-deleted
+        assertThat(created).isEqualTo(5);
+        assertThat(createdAgain).isZero();
+        assertThat(rest).isEqualTo(4);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM payments WHERE billing_period = '2025-07' AND payment_status = 'PENDING'", Long.class))
+                .isEqualTo(9);
+        // Tagihan baru langsung tercatat di payment_summaries, tagihan yang dilewati tidak dihitung dua kali
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT sum(payment_count) FROM payment_summaries WHERE payment_status = 'PENDING' AND class_id = ?",
+                Long.class, classId)).isEqualTo(9);
+    }
+
+    @Test
+    void advanceCheckpoint_OnlyFromExpectedPosition() {
+        BillingRun run = new BillingRun();
+        run.setRunId(UUID.randomUUID());
+        run.setPaymentTypeId(paymentTypeId);
+        run.setBillingPeriod("2025-07");
+        run.setScopeType("CLASS");
+        run.setScopeId(classId);
+        run.setPaymentName("SPP 2025-07");
+        run.setAmount(new BigDecimal("250000"));
+        run.setStatus("RUNNING");
+        billingRunRepository.saveAndFlush(run);
+
+        assertThat(billingRunRepository.advanceCheckpoint(run.getRunId(), 0L, 5L, 5, 5, LocalDateTime.now())).isEqualTo(1);
+        // Worker kedua yang masih memegang checkpoint lama tidak boleh memajukan lagi
+        assertThat(billingRunRepository.advanceCheckpoint(run.getRunId(), 0L, 5L, 5, 5, LocalDateTime.now())).isZero();
+    }
+
+    private int insert(Long afterId, Long upToId) {
+        return billingRunRepository.insertPendingPayments(List.of(classId), afterId, upToId, "SPP 2025-07", null,
+                null, paymentTypeId, new BigDecimal("250000"), "2025-07", LocalDate.of(2025, 7, 31));
+    }
+}
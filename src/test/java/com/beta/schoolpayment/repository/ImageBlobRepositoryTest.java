@@ -0,0 +1,56 @@
+package com.beta.schoolpayment.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Jumlah referensi blob gambar dan pemilihan kandidat garbage collection pada Postgres asli
+class ImageBlobRepositoryTest extends AbstractPostgresRepositoryTest {
+
+    private static final String KEY = "a".repeat(64) + ".jpg";
+
+    @Autowired
+    private ImageBlobRepository imageBlobRepository;
+
+    @Test
+    void registerAcquireRelease_CountsReferences() {
+        imageBlobRepository.register(KEY);
+        assertThat(refCount()).isZero();
+
+        imageBlobRepository.acquire(KEY);
+        imageBlobRepository.acquire(KEY);
+        // Upload ulang isi yang sama tidak mengubah jumlah referensi
+        imageBlobRepository.register(KEY);
+        assertThat(refCount()).isEqualTo(2);
+
+        imageBlobRepository.release(KEY);
+        imageBlobRepository.release(KEY);
+        imageBlobRepository.release(KEY);
+        assertThat(refCount()).isZero();
+    }
+
+    @Test
+    void lockUnreferenced_OnlyUnreferencedPastGracePeriod() {
+        String referenced = "b".repeat(64) + ".jpg";
+        String fresh = "c".repeat(64) + ".png";
+        imageBlobRepository.register(KEY);
+        imageBlobRepository.acquire(referenced);
+        imageBlobRepository.register(fresh);
+        jdbcTemplate.update("UPDATE image_blobs SET updated_at = now() - interval '2 days' WHERE image_key IN (?, ?)",
+                KEY, referenced);
+
+        List<String> candidates = imageBlobRepository.lockUnreferenced(LocalDateTime.now().minusDays(1), 10);
+
+        assertThat(candidates).containsExactly(KEY);
+        assertThat(imageBlobRepository.deleteUnreferenced(List.of(KEY, referenced))).isEqualTo(1);
+        assertThat(imageBlobRepository.existsById(referenced)).isTrue();
+    }
+
+    private int refCount() {
+        return jdbcTemplate.queryForObject("SELECT ref_count FROM image_blobs WHERE image_key = ?", Integer.class, KEY);
+    }
+}
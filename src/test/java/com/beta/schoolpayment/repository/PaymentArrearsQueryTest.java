@@ -0,0 +1,98 @@
+package com.beta.schoolpayment.repository;
+
+import com.beta.schoolpayment.dto.request.ArrearsCriteria;
+import com.beta.schoolpayment.dto.response.ArrearsStudentRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Query laporan tunggakan pada Postgres asli: filter jatuh tempo/status dan pagination per kelas (dense_rank)
+class PaymentArrearsQueryTest extends AbstractPostgresRepositoryTest {
+
+    private static final LocalDate AS_OF = LocalDate.of(2025, 8, 15);
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    private Long paymentTypeId;
+
+    @BeforeEach
+    void setUp() {
+        Long schoolYearId = insertSchoolYear();
+        paymentTypeId = insertPaymentType("SPP");
+
+        // Kelas X-B dibuat lebih dulu agar urutan halaman terbukti mengikuti nama kelas, bukan id
+        Long classB = insertClass("X-B", schoolYearId);
+        Long classA = insertClass("X-A", schoolYearId);
+        insertClass("X-C", schoolYearId);
+
+        Long budi = insertStudent(6001, "Budi", classA);
+        Long ani = insertStudent(6002, "Ani", classA);
+        Long citra = insertStudent(6003, "Citra", classB);
+        Long dewi = insertStudent(6004, "Dewi", classB);
+
+        insertPayment(budi, "PENDING", "100000", "2025-07-31", null);
+        insertPayment(budi, "FAILED", "50000", "2025-06-30", null);
+        insertPayment(budi, "PENDING", "70000", "2025-08-31", null);       // belum jatuh tempo
+        insertPayment(ani, "PENDING", "100000", null, null);               // tanpa due_date: tanggal dibuat (2025-07-01)
+        insertPayment(ani, "COMPLETED", "100000", "2025-06-30", null);     // sudah lunas
+        insertPayment(citra, "PENDING", "100000", "2025-07-31", "now()");  // dihapus
+        insertPayment(dewi, "PENDING", "100000", "2025-07-31", null);
+    }
+
+    @Test
+    void countAndPageByClass_OnlyOverdueOpenPayments() {
+        ArrearsCriteria criteria = criteria();
+
+        assertThat(paymentRepository.countArrearsClasses(criteria)).isEqualTo(2);
+
+        List<ArrearsStudentRow> firstPage = paymentRepository.findArrears(criteria, 1, 1);
+        assertThat(firstPage).extracting(ArrearsStudentRow::getStudentName).containsExactly("Ani", "Budi");
+        ArrearsStudentRow budi = firstPage.get(1);
+        assertThat(budi.getClassName()).isEqualTo("X-A");
+        assertThat(budi.getOverdueCount()).isEqualTo(2);
+        assertThat(budi.getOverdueAmount()).isEqualByComparingTo(new BigDecimal("150000"));
+        assertThat(budi.getOldestDueDate()).isEqualTo(LocalDate.of(2025, 6, 30));
+        assertThat(budi.getDaysOverdue()).isEqualTo(46);
+        assertThat(firstPage.get(0).getOldestDueDate()).isEqualTo(LocalDate.of(2025, 7, 1));
+
+        List<ArrearsStudentRow> secondPage = paymentRepository.findArrears(criteria, 2, 2);
+        assertThat(secondPage).extracting(ArrearsStudentRow::getStudentName).containsExactly("Dewi");
+    }
+
+    @Test
+    void filtersAndStream_UseSameOrdering() {
+        ArrearsCriteria criteria = criteria();
+        criteria.setAsOf(LocalDate.of(2025, 7, 15));
+
+        List<ArrearsStudentRow> rows = new ArrayList<>();
+        paymentRepository.forEachArrears(criteria, rows::add);
+
+        // Per 15 Juli hanya tagihan Juni (Budi) dan tagihan tanpa due_date (Ani) yang sudah lewat
+        assertThat(rows).extracting(ArrearsStudentRow::getStudentName).containsExactly("Ani", "Budi");
+
+        criteria.setPaymentTypeId(paymentTypeId + 1);
+        assertThat(paymentRepository.countArrearsClasses(criteria)).isZero();
+    }
+
+    private ArrearsCriteria criteria() {
+        ArrearsCriteria criteria = new ArrearsCriteria();
+        criteria.setAsOf(AS_OF);
+        return criteria;
+    }
+
+    private void insertPayment(Long studentId, String status, String amount, String dueDate, String deletedAt) {
+        jdbcTemplate.update("INSERT INTO payments (payment_id, payment_name, student_id, payment_type_id, amount, " +
+                        "payment_status, due_date, created_at, updated_at, deleted_at) " +
+                        "VALUES (gen_random_uuid(), 'SPP', ?, ?, ?, ?, CAST(? AS date), TIMESTAMP '2025-07-01 08:00', now(), " +
+                        (deletedAt != null ? deletedAt : "NULL") + ")",
+                studentId, paymentTypeId, new BigDecimal(amount), status, dueDate);
+    }
+}
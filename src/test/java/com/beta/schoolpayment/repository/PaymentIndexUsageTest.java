@@ -0,0 +1,156 @@
+package com.beta.schoolpayment.repository;
+
+import com.beta.schoolpayment.dto.request.PaymentCursor;
+import com.beta.schoolpayment.dto.request.PaymentFilterCriteria;
+import com.beta.schoolpayment.specification.PaymentSpecification;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Menjalankan migrasi Flyway pada Postgres asli dan memastikan query yang benar-benar dibuat Hibernate
+// (repository + PaymentSpecification) memakai index. SQL ditangkap lewat StatementInspector lalu di-EXPLAIN
+// sebagai generic plan (PostgreSQL 16), yaitu plan yang berlaku untuk nilai parameter apa pun.
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.beta.schoolpayment.repository.PaymentIndexUsageTest$CapturingStatementInspector")
+class PaymentIndexUsageTest extends AbstractPostgresRepositoryTest {
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (user_id, email, name, password, role) VALUES (?, 'parent@example.com', 'Parent', 'x', 'STUDENT')", userId);
+        insertPaymentType("SPP");
+        Long classId = insertClass("X-A", insertSchoolYear());
+        jdbcTemplate.update("INSERT INTO students (nis, name, class_id, birthdate) " +
+                "SELECT 1000 + i, 'Student ' || i, ?, DATE '2010-01-01' FROM generate_series(1, 200) i", classId);
+        jdbcTemplate.update("INSERT INTO payments (payment_id, payment_name, user_id, student_id, payment_type_id, amount, payment_status, created_at, updated_at) " +
+                "SELECT gen_random_uuid(), 'SPP ' || s.student_id, ?, s.student_id, pt.payment_type_id, 100000, " +
+                "(ARRAY['PENDING','COMPLETED','FAILED'])[1 + s.student_id % 3], now() - s.student_id * INTERVAL '1 minute', now() " +
+                "FROM students s CROSS JOIN payment_type pt", userId);
+        jdbcTemplate.execute("ANALYZE");
+        // Tabel uji kecil: paksa planner memilih index bila index tersebut bisa dipakai
+        jdbcTemplate.execute("SET enable_seqscan = off");
+    }
+
+    @Test
+    void userPayments_UsesPartialUserIndex() {
+        String sql = generatedSql(() -> paymentRepository.findResponsesByUserId(userId));
+
+        assertThat(explain(sql)).contains("idx_payments_user_active");
+    }
+
+    @Test
+    void paymentStatusSortedByCreatedAt_UsesStatusCreatedIndex() {
+        PaymentFilterCriteria criteria = new PaymentFilterCriteria();
+        criteria.setPaymentStatus("PENDING");
+
+        String sql = generatedSql(() -> paymentRepository.findResponses(new PaymentSpecification(criteria),
+                PageRequest.of(0, 10, Sort.by("createdAt"))));
+
+        assertThat(explain(sql)).contains("idx_payments_status_created");
+    }
+
+    @Test
+    void keysetPage_UsesCreatedIdIndex() {
+        PaymentCursor cursor = new PaymentCursor(LocalDateTime.now(), UUID.randomUUID());
+
+        String sql = generatedSql(() -> paymentRepository.findResponsesAfter(
+                new PaymentSpecification(new PaymentFilterCriteria()), cursor, 10, Sort.Direction.DESC));
+
+        assertThat(explain(sql)).contains("idx_payments_created_id");
+    }
+
+    @Test
+    void paymentNameFilter_UsesTrigramIndex() {
+        PaymentFilterCriteria criteria = new PaymentFilterCriteria();
+        criteria.setPaymentName("spp 1");
+
+        String sql = generatedSql(() -> paymentRepository.findResponses(new PaymentSpecification(criteria),
+                PageRequest.of(0, 10)));
+
+        assertThat(sql).contains("like");
+        assertThat(explain(sql)).contains("idx_payments_payment_name_trgm");
+    }
+
+    @Test
+    void studentNameFilter_UsesTrigramIndex() {
+        PaymentFilterCriteria criteria = new PaymentFilterCriteria();
+        criteria.setStudentName("student 12");
+
+        String sql = generatedSql(() -> paymentRepository.findResponses(new PaymentSpecification(criteria),
+                PageRequest.of(0, 10)));
+
+        assertThat(explain(sql)).contains("idx_students_name_trgm");
+    }
+
+    @Test
+    void studentTrigramSearch_UsesTrigramIndex() {
+        String sql = generatedSql(() -> studentRepository.searchStudentsByTrigram("studnt", null, null,
+                PageRequest.of(0, 10)));
+
+        assertThat(explain(sql)).contains("idx_students_name_trgm");
+    }
+
+    @Test
+    void userNameFilter_UsesTrigramIndex() {
+        PaymentFilterCriteria criteria = new PaymentFilterCriteria();
+        criteria.setUserName("paren");
+
+        String sql = generatedSql(() -> paymentRepository.findResponses(new PaymentSpecification(criteria),
+                PageRequest.of(0, 10)));
+
+        assertThat(explain(sql)).contains("idx_users_name_trgm");
+    }
+
+    // SQL pertama yang dikirim Hibernate saat query dijalankan (query data, sebelum query count bila ada)
+    private static String generatedSql(Runnable query) {
+        CapturingStatementInspector.STATEMENTS.clear();
+        query.run();
+        assertThat(CapturingStatementInspector.STATEMENTS).isNotEmpty();
+        return CapturingStatementInspector.STATEMENTS.get(0);
+    }
+
+    // Placeholder JDBC (?) diganti $1..$n agar bisa di-EXPLAIN tanpa nilai parameter
+    private String explain(String sql) {
+        StringBuilder numbered = new StringBuilder();
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN (GENERIC_PLAN) " + numbered, String.class));
+    }
+
+    // Didaftarkan lewat properti hibernate.session_factory.statement_inspector; Hibernate membuat instance-nya sendiri
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.beta.schoolpayment.repository;
+
+import com.beta.schoolpayment.dto.request.PaymentFilterCriteria;
+import com.beta.schoolpayment.dto.response.PaymentResponse;
+import com.beta.schoolpayment.model.*;
+import com.beta.schoolpayment.specification.PaymentSpecification;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Query proyeksi diuji pada Postgres asli dengan skema dari migrasi Flyway
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PaymentReadModelTest extends AbstractPostgresRepositoryTest {
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("parent@example.com");
+        user.setName("Parent");
+        user.setPassword("password123");
+        user.setRole("STUDENT");
+        entityManager.persist(user);
+
+        PaymentType paymentType = new PaymentType();
+        paymentType.setPaymentTypeName("SPP");
+        entityManager.persist(paymentType);
+
+        for (int i = 0; i < 3; i++) {
+            Student student = new Student();
+            student.setNis(1000L + i);
+            student.setName("Student " + i);
+            student.setBirthdate(LocalDate.of(2010, 1, 1));
+            entityManager.persist(student);
+
+            Payment payment = new Payment();
+            payment.setPaymentName("SPP " + i);
+            payment.setUser(user);
+            payment.setStudent(student);
+            payment.setPaymentType(paymentType);
+            payment.setAmount(new BigDecimal("100000"));
+            payment.setPaymentStatus("PENDING");
+            entityManager.persist(payment);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findResponses_OneStatementPerPage() {
+        Page<PaymentResponse> page = paymentRepository.findResponses(
+                new PaymentSpecification(new PaymentFilterCriteria()), PageRequest.of(0, 10, Sort.by("createdAt")));
+
+        assertThat(page.getContent()).hasSize(3);
+        assertThat(page.getContent()).allSatisfy(payment -> {
+            assertThat(payment.getStudentName()).startsWith("Student ");
+            assertThat(payment.getPaymentTypeName()).isEqualTo("SPP");
+            assertThat(payment.getUserId()).isEqualTo(user.getUserId());
+        });
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void findResponses_WithStudentFilter_NoEntityLoads() {
+        PaymentFilterCriteria criteria = new PaymentFilterCriteria();
+        criteria.setStudentName("student 1");
+
+        Page<PaymentResponse> page = paymentRepository.findResponses(
+                new PaymentSpecification(criteria), PageRequest.of(0, 10));
+
+        assertThat(page.getContent()).extracting(PaymentResponse::getStudentName).containsExactly("Student 1");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void findResponsesByUserId_SingleStatement() {
+        List<PaymentResponse> payments = paymentRepository.findResponsesByUserId(user.getUserId());
+
+        assertThat(payments).hasSize(3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+}
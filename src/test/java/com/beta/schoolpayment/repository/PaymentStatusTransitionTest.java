@@ -0,0 +1,79 @@
+package com.beta.schoolpayment.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Transisi status compare-and-set pada Postgres asli: version, ringkasan, dan Idempotency-Key dalam satu statement
+class PaymentStatusTransitionTest extends AbstractPostgresRepositoryTest {
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentSummaryRepository paymentSummaryRepository;
+
+    private UUID paymentId;
+
+    @BeforeEach
+    void setUp() {
+        Long classId = insertClass("X-A", insertSchoolYear());
+        Long paymentTypeId = insertPaymentType("SPP");
+        Long studentId = insertStudent(7001, "Budi", classId);
+
+        paymentId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO payments (payment_id, payment_name, student_id, payment_type_id, amount, " +
+                        "payment_status, created_at, updated_at) VALUES (?, 'SPP', ?, ?, ?, 'PENDING', now(), now())",
+                paymentId, studentId, paymentTypeId, new BigDecimal("250000"));
+        paymentSummaryRepository.insertFromPayments();
+    }
+
+    @Test
+    void transition_UpdatesStatusVersionAndSummary() {
+        PaymentRepository.StatusTransition result = paymentRepository.transitionStatus(paymentId, "PENDING", "COMPLETED", null);
+
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT payment_status FROM payments WHERE payment_id = ?", String.class, paymentId))
+                .isEqualTo("COMPLETED");
+        assertThat(jdbcTemplate.queryForObject("SELECT version FROM payments WHERE payment_id = ?", Long.class, paymentId))
+                .isEqualTo(1);
+        assertThat(summaryCount("PENDING")).isZero();
+        assertThat(summaryCount("COMPLETED")).isEqualTo(1);
+    }
+
+    @Test
+    void transition_StaleExpectedStatus_ChangesNothing() {
+        paymentRepository.transitionStatus(paymentId, "PENDING", "COMPLETED", null);
+
+        // Callback kedua yang masih mengira PENDING tidak boleh menimpa COMPLETED
+        PaymentRepository.StatusTransition result = paymentRepository.transitionStatus(paymentId, "PENDING", "FAILED", null);
+
+        assertThat(result.getUpdated()).isZero();
+        assertThat(summaryCount("FAILED")).isZero();
+        assertThat(summaryCount("COMPLETED")).isEqualTo(1);
+    }
+
+    @Test
+    void transition_SameIdempotencyKey_AppliedOnce() {
+        PaymentRepository.StatusTransition first = paymentRepository.transitionStatus(paymentId, "PENDING", "FAILED", "gw-1");
+        // Retry dengan key yang sama, meskipun expected-nya (keliru) cocok dengan status sekarang
+        PaymentRepository.StatusTransition retry = paymentRepository.transitionStatus(paymentId, "FAILED", "PENDING", "gw-1");
+
+        assertThat(first.getClaimed()).isEqualTo(1);
+        assertThat(first.getUpdated()).isEqualTo(1);
+        assertThat(retry.getClaimed()).isZero();
+        assertThat(retry.getUpdated()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT payment_status FROM payments WHERE payment_id = ?", String.class, paymentId))
+                .isEqualTo("FAILED");
+    }
+
+    private Long summaryCount(String status) {
+        return jdbcTemplate.queryForObject("SELECT coalesce(sum(payment_count), 0) FROM payment_summaries WHERE payment_status = ?",
+                Long.class, status);
+    }
+}
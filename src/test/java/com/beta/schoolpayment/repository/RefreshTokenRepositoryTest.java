@@ -0,0 +1,70 @@
+package com.beta.schoolpayment.repository;
+
+import com.beta.schoolpayment.model.RefreshToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Rotasi (markUsed sekali pakai) dan pencabutan per family pada Postgres asli
+class RefreshTokenRepositoryTest extends AbstractPostgresRepositoryTest {
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private UUID userId;
+    private UUID familyId;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+        familyId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (user_id, email, name, password, role) VALUES (?, ?, 'John Doe', 'x', 'STUDENT')",
+                userId, userId + "@example.com");
+    }
+
+    private void save(String tokenHash, LocalDateTime expiresAt) {
+        refreshTokenRepository.saveAndFlush(new RefreshToken(tokenHash, familyId, userId,
+                LocalDateTime.now(), expiresAt, null, null));
+    }
+
+    @Test
+    void markUsed_OnlyOnce() {
+        save("a".repeat(64), LocalDateTime.now().plusDays(1));
+
+        assertThat(refreshTokenRepository.markUsed("a".repeat(64), LocalDateTime.now())).isEqualTo(1);
+        assertThat(refreshTokenRepository.markUsed("a".repeat(64), LocalDateTime.now())).isZero();
+    }
+
+    @Test
+    void markUsed_ExpiredOrRevokedRejected() {
+        save("b".repeat(64), LocalDateTime.now().minusMinutes(1));
+        save("c".repeat(64), LocalDateTime.now().plusDays(1));
+        refreshTokenRepository.revokeFamily(familyId, LocalDateTime.now());
+
+        assertThat(refreshTokenRepository.markUsed("b".repeat(64), LocalDateTime.now())).isZero();
+        assertThat(refreshTokenRepository.markUsed("c".repeat(64), LocalDateTime.now())).isZero();
+    }
+
+    @Test
+    void revokeFamily_OnlyActiveTokens() {
+        save("d".repeat(64), LocalDateTime.now().plusDays(1));
+        save("e".repeat(64), LocalDateTime.now().plusDays(1));
+
+        assertThat(refreshTokenRepository.revokeFamily(familyId, LocalDateTime.now())).isEqualTo(2);
+        assertThat(refreshTokenRepository.revokeFamily(familyId, LocalDateTime.now())).isZero();
+    }
+
+    @Test
+    void deletingUser_CascadesToRefreshTokens() {
+        save("f".repeat(64), LocalDateTime.now().plusDays(1));
+
+        jdbcTemplate.update("DELETE FROM users WHERE user_id = ?", userId);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM refresh_tokens", Integer.class)).isZero();
+    }
+}
@@ -0,0 +1,55 @@
+package com.beta.schoolpayment.search;
+
+import com.beta.schoolpayment.model.Student;
+import com.beta.schoolpayment.repository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class TrigramStudentSearchStrategyTest {
+
+    @InjectMocks
+    private TrigramStudentSearchStrategy strategy;
+
+    @Mock
+    private StudentRepository studentRepository;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testFindStudents_WithSearch_UsesRankedQueryWithoutSort() {
+        Student student = new Student();
+        student.setName("John Doe");
+        when(studentRepository.searchStudentsByTrigram(eq("jon"), any(), any(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(student)));
+
+        Page<Student> result = strategy.findStudents(" jon ", null, null, Sort.Direction.ASC, 1, 20);
+
+        assertEquals(1, result.getContent().size());
+        verify(studentRepository).searchStudentsByTrigram("jon", null, null, PageRequest.of(1, 20));
+        verify(studentRepository, never()).findStudents(any(), any(), any(), any());
+    }
+
+    @Test
+    public void testFindStudents_WithoutSearch_FallsBackToNameOrder() {
+        when(studentRepository.findStudents(eq(""), any(), any(), any(Pageable.class))).thenReturn(Page.empty());
+
+        strategy.findStudents("", null, null, Sort.Direction.DESC, 0, 10);
+
+        verify(studentRepository).findStudents("", null, null, PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "name")));
+        verify(studentRepository, never()).searchStudentsByTrigram(any(), any(), any(), any());
+    }
+}
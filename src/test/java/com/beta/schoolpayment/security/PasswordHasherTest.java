@@ -0,0 +1,105 @@
+package com.beta.schoolpayment.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PasswordHasherTest {
+
+    private PasswordHasher passwordHasher;
+    private PasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void setUp() {
+        passwordEncoder = new BCryptPasswordEncoder(6);
+        passwordHasher = hasher(passwordEncoder, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(passwordHasher, "stopExecutor");
+    }
+
+    private static PasswordHasher hasher(PasswordEncoder encoder, int queueCapacity) {
+        PasswordHasher hasher = new PasswordHasher();
+        ReflectionTestUtils.setField(hasher, "passwordEncoder", encoder);
+        ReflectionTestUtils.setField(hasher, "hashThreads", 1);
+        ReflectionTestUtils.setField(hasher, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.invokeMethod(hasher, "startExecutor");
+        return hasher;
+    }
+
+    @Test
+    void verify_MatchingPasswordWithCurrentCost_NoUpgrade() {
+        PasswordHasher.Verification result = passwordHasher.verify("password123", passwordEncoder.encode("password123"));
+
+        assertTrue(result.matches());
+        assertNull(result.upgradedHash());
+    }
+
+    @Test
+    void verify_LowerCost_ReturnsHashWithConfiguredCost() {
+        PasswordHasher.Verification result = passwordHasher.verify("password123",
+                new BCryptPasswordEncoder(4).encode("password123"));
+
+        assertTrue(result.matches());
+        assertTrue(result.upgradedHash().startsWith("$2a$06$"));
+        assertTrue(passwordEncoder.matches("password123", result.upgradedHash()));
+    }
+
+    @Test
+    void verify_WrongPassword_NoMatch() {
+        PasswordHasher.Verification result = passwordHasher.verify("wrong", passwordEncoder.encode("password123"));
+
+        assertFalse(result.matches());
+        assertNull(result.upgradedHash());
+    }
+
+    @Test
+    void verify_QueueFull_Rejected() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slowEncoder = mock(PasswordEncoder.class);
+        when(slowEncoder.matches(any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return false;
+        });
+        PasswordHasher busy = hasher(slowEncoder, 1);
+        try {
+            // Satu sedang diproses, satu menunggu di antrian; yang ketiga ditolak
+            CompletableFuture<?> running = CompletableFuture.runAsync(() -> busy.verify("a", "hash"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<?> queued = CompletableFuture.runAsync(() -> busy.verify("b", "hash"));
+            waitForQueued(busy);
+
+            assertThrows(RejectedExecutionException.class, () -> busy.verify("c", "hash"));
+
+            release.countDown();
+            running.get(5, TimeUnit.SECONDS);
+            queued.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            ReflectionTestUtils.invokeMethod(busy, "stopExecutor");
+        }
+    }
+
+    private static void waitForQueued(PasswordHasher hasher) throws InterruptedException {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(hasher, "hashExecutor");
+        for (int i = 0; i < 500 && executor.getQueue().isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+    }
+}
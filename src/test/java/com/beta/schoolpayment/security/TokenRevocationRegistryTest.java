@@ -0,0 +1,66 @@
+package com.beta.schoolpayment.security;
+
+import com.beta.schoolpayment.model.TokenRevocation;
+import com.beta.schoolpayment.model.User;
+import com.beta.schoolpayment.repository.TokenRevocationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TokenRevocationRegistryTest {
+
+    @InjectMocks
+    private TokenRevocationRegistry registry;
+
+    @Mock
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private static Date at(LocalDateTime time) {
+        return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    @Test
+    void revoke_rejectsOlderTokensForEmailAndNis() {
+        User user = new User();
+        user.setEmail("johndoe@example.com");
+        user.setNis(12345L);
+
+        registry.revoke(user);
+
+        Date issuedBefore = at(LocalDateTime.now().minusMinutes(1));
+        assertTrue(registry.isRevoked("johndoe@example.com", issuedBefore));
+        assertTrue(registry.isRevoked("12345", issuedBefore));
+        assertFalse(registry.isRevoked("johndoe@example.com", at(LocalDateTime.now().plusSeconds(2))));
+        assertFalse(registry.isRevoked("other@example.com", issuedBefore));
+        verify(tokenRevocationRepository, times(2)).save(any(TokenRevocation.class));
+    }
+
+    @Test
+    void refresh_loadsRevocationsFromOtherNodes() {
+        LocalDateTime revokedAt = LocalDateTime.now().minusMinutes(5);
+        when(tokenRevocationRepository.findByRevokedAtAfter(any()))
+                .thenReturn(List.of(new TokenRevocation("johndoe@example.com", revokedAt)));
+
+        registry.refresh();
+
+        assertTrue(registry.isRevoked("johndoe@example.com", at(revokedAt.minusMinutes(1))));
+        assertFalse(registry.isRevoked("johndoe@example.com", at(revokedAt.plusMinutes(1))));
+        verify(tokenRevocationRepository).deleteByRevokedAtBefore(any());
+    }
+}
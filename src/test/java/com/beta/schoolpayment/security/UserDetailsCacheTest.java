@@ -0,0 +1,53 @@
+package com.beta.schoolpayment.security;
+
+import com.beta.schoolpayment.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserDetailsCacheTest {
+
+    private UserDetailsCache cache;
+    private User user;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserDetailsCache(100, Duration.ofMinutes(5));
+        user = new User();
+        user.setEmail("johndoe@example.com");
+        user.setNis(12345L);
+        user.setRole("STUDENT");
+        loads = new AtomicInteger();
+    }
+
+    private CustomUserDetails load(String subject) {
+        loads.incrementAndGet();
+        return new CustomUserDetails(user);
+    }
+
+    @Test
+    void get_loadsOncePerSubject() {
+        CustomUserDetails first = cache.get("johndoe@example.com", this::load);
+        CustomUserDetails second = cache.get("johndoe@example.com", this::load);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void evict_removesEmailAndNisEntries() {
+        cache.get("johndoe@example.com", this::load);
+        cache.get("12345", this::load);
+
+        cache.evict(user);
+        cache.get("johndoe@example.com", this::load);
+        cache.get("12345", this::load);
+
+        assertEquals(4, loads.get());
+    }
+}
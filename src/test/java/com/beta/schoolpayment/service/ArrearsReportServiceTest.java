@@ -0,0 +1,135 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.dto.request.ArrearsCriteria;
+import com.beta.schoolpayment.dto.response.ArrearsClassGroup;
+import com.beta.schoolpayment.dto.response.ArrearsReportResponse;
+import com.beta.schoolpayment.dto.response.ArrearsStudentRow;
+import com.beta.schoolpayment.exception.ValidationException;
+import com.beta.schoolpayment.repository.PaymentRepository;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ArrearsReportServiceTest {
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @InjectMocks
+    private ArrearsReportService arrearsReportService;
+
+    private final ArrearsStudentRow ani = new ArrearsStudentRow(1L, "X-A", 11L, 6002L, "Ani", 1,
+            new BigDecimal("100000"), LocalDate.of(2025, 7, 1), 45);
+    private final ArrearsStudentRow budi = new ArrearsStudentRow(1L, "X-A", 10L, 6001L, "Budi, S.", 2,
+            new BigDecimal("150000"), LocalDate.of(2025, 6, 30), 46);
+    private final ArrearsStudentRow dewi = new ArrearsStudentRow(2L, "X-B", 13L, 6004L, "Dewi", 1,
+            new BigDecimal("100000"), LocalDate.of(2025, 7, 31), 15);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void getReport_GroupsRowsPerClassAndPagesByClass() {
+        ArrearsCriteria criteria = new ArrearsCriteria();
+        criteria.setAsOf(LocalDate.of(2025, 8, 15));
+        when(paymentRepository.countArrearsClasses(any())).thenReturn(5L);
+        when(paymentRepository.findArrears(any(), eq(3L), eq(4L))).thenReturn(List.of(ani, budi, dewi));
+
+        ArrearsReportResponse response = arrearsReportService.getReport(criteria, 1, 2);
+
+        assertEquals(5, response.getTotalClasses());
+        assertEquals(3, response.getTotalPages());
+        assertEquals(LocalDate.of(2025, 8, 15), response.getAsOf());
+        List<ArrearsClassGroup> classes = response.getClasses();
+        assertEquals(2, classes.size());
+        assertEquals("X-A", classes.get(0).getClassName());
+        assertEquals(2, classes.get(0).getStudents().size());
+        assertEquals(3, classes.get(0).getOverdueCount());
+        assertEquals(0, new BigDecimal("250000").compareTo(classes.get(0).getOverdueAmount()));
+        assertEquals(List.of(dewi), classes.get(1).getStudents());
+    }
+
+    @Test
+    void getReport_PageBeyondLastClass_SkipsRowQuery() {
+        when(paymentRepository.countArrearsClasses(any())).thenReturn(2L);
+
+        ArrearsReportResponse response = arrearsReportService.getReport(new ArrearsCriteria(), 5, 20);
+
+        assertTrue(response.getClasses().isEmpty());
+        // asOf kosong diisi hari ini sebelum dikirim ke query
+        assertEquals(LocalDate.now(), response.getAsOf());
+        verify(paymentRepository, never()).findArrears(any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void getReport_InvalidSize_ThrowsValidation() {
+        assertThrows(ValidationException.class, () -> arrearsReportService.getReport(new ArrearsCriteria(), 0, 101));
+        assertThrows(ValidationException.class, () -> arrearsReportService.getReport(new ArrearsCriteria(), -1, 20));
+        verifyNoInteractions(paymentRepository);
+    }
+
+    @Test
+    void exportCsv_StreamsRowsWithEscaping() throws Exception {
+        stubRows(ani, budi);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        arrearsReportService.exportCsv(new ArrearsCriteria(), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals("Class,Student ID,NIS,Student Name,Overdue Payments,Overdue Amount,Oldest Due Date,Days Overdue", lines[0]);
+        assertEquals("X-A,11,6002,Ani,1,100000,2025-07-01,45", lines[1]);
+        assertEquals("X-A,10,6001,\"Budi, S.\",2,150000,2025-06-30,46", lines[2]);
+    }
+
+    @Test
+    void exportXlsx_WritesHeaderAndRows() throws Exception {
+        stubRows(ani, dewi);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        arrearsReportService.exportXlsx(new ArrearsCriteria(), out);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(2, workbook.getSheetAt(0).getLastRowNum());
+            assertEquals("Student Name", workbook.getSheetAt(0).getRow(0).getCell(3).getStringCellValue());
+            assertEquals("Dewi", workbook.getSheetAt(0).getRow(2).getCell(3).getStringCellValue());
+            assertEquals(100000.0, workbook.getSheetAt(0).getRow(2).getCell(5).getNumericCellValue());
+        }
+    }
+
+    @Test
+    void csv_QuotesOnlyWhenNeeded() {
+        assertEquals("plain", ArrearsReportService.csv("plain"));
+        assertEquals("\"say \"\"hi\"\"\"", ArrearsReportService.csv("say \"hi\""));
+        assertEquals("", ArrearsReportService.csv(null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubRows(ArrearsStudentRow... rows) {
+        doAnswer(invocation -> {
+            Consumer<ArrearsStudentRow> action = invocation.getArgument(1);
+            for (ArrearsStudentRow row : rows) {
+                action.accept(row);
+            }
+            return null;
+        }).when(paymentRepository).forEachArrears(any(), any());
+    }
+}
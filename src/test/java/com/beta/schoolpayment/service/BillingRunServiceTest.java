@@ -0,0 +1,204 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.dto.request.BillingRunRequest;
+import com.beta.schoolpayment.dto.response.BillingRunResponse;
+import com.beta.schoolpayment.exception.DuplicateDataException;
+import com.beta.schoolpayment.exception.ValidationException;
+import com.beta.schoolpayment.model.BillingRun;
+import com.beta.schoolpayment.model.PaymentType;
+import com.beta.schoolpayment.repository.BillingRunRepository;
+import com.beta.schoolpayment.repository.ClassesRepository;
+import com.beta.schoolpayment.repository.PaymentTypeRepository;
+import com.beta.schoolpayment.repository.SchoolYearRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BillingRunServiceTest {
+
+    @Mock
+    private BillingRunRepository billingRunRepository;
+
+    @Mock
+    private PaymentTypeRepository paymentTypeRepository;
+
+    @Mock
+    private ClassesRepository classesRepository;
+
+    @Mock
+    private SchoolYearRepository schoolYearRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private BillingRunService billingRunService;
+
+    private BillingRun run;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(billingRunService, "chunkSize", 3);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        billingRunService.init();
+
+        run = new BillingRun();
+        run.setRunId(UUID.randomUUID());
+        run.setPaymentTypeId(2L);
+        run.setBillingPeriod("2025-07");
+        run.setScopeType(BillingRunService.SCOPE_SCHOOL_YEAR);
+        run.setScopeId(7L);
+        run.setPaymentName("SPP 2025-07");
+        run.setAmount(new BigDecimal("250000"));
+        run.setDueDate(LocalDate.of(2025, 7, 31));
+        run.setStatus(BillingRunService.RUNNING);
+        run.setLastStudentId(0L);
+        when(billingRunRepository.findById(run.getRunId())).thenReturn(Optional.of(run));
+    }
+
+    @AfterEach
+    void tearDown() {
+        billingRunService.shutdown();
+    }
+
+    @Test
+    void process_InsertsPerChunkAndAdvancesCheckpoint() {
+        List<Long> classIds = List.of(11L, 12L);
+        when(classesRepository.findIdsBySchoolYearId(7L)).thenReturn(classIds);
+        when(billingRunRepository.findNextStudentIds(classIds, 0L, 3)).thenReturn(List.of(1L, 2L, 5L));
+        when(billingRunRepository.findNextStudentIds(classIds, 5L, 3)).thenReturn(List.of(8L));
+        when(billingRunRepository.findNextStudentIds(classIds, 8L, 3)).thenReturn(List.of());
+        when(billingRunRepository.insertPendingPayments(eq(classIds), anyLong(), anyLong(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(3, 1);
+        when(billingRunRepository.advanceCheckpoint(eq(run.getRunId()), anyLong(), anyLong(), anyInt(), anyInt(), any()))
+                .thenReturn(1);
+
+        billingRunService.process(run.getRunId());
+
+        verify(billingRunRepository).insertPendingPayments(classIds, 0L, 5L, "SPP 2025-07", null, null, 2L,
+                new BigDecimal("250000"), "2025-07", LocalDate.of(2025, 7, 31));
+        verify(billingRunRepository).advanceCheckpoint(eq(run.getRunId()), eq(0L), eq(5L), eq(3), eq(3), any());
+        verify(billingRunRepository).advanceCheckpoint(eq(run.getRunId()), eq(5L), eq(8L), eq(1), eq(1), any());
+        verify(billingRunRepository).save(run);
+        assertEquals(BillingRunService.COMPLETED, run.getStatus());
+        assertNotNull(run.getFinishedAt());
+    }
+
+    @Test
+    void process_CheckpointTakenByOtherWorker_DoesNotFinishRun() {
+        run.setScopeType(BillingRunService.SCOPE_CLASS);
+        when(billingRunRepository.findNextStudentIds(List.of(7L), 0L, 3)).thenReturn(List.of(1L, 2L));
+        when(billingRunRepository.advanceCheckpoint(any(), anyLong(), anyLong(), anyInt(), anyInt(), any())).thenReturn(0);
+
+        billingRunService.process(run.getRunId());
+
+        verify(billingRunRepository, never()).save(any());
+        assertEquals(BillingRunService.RUNNING, run.getStatus());
+    }
+
+    @Test
+    void process_InsertFails_MarksRunFailed() {
+        run.setScopeType(BillingRunService.SCOPE_CLASS);
+        when(billingRunRepository.findNextStudentIds(List.of(7L), 0L, 3)).thenReturn(List.of(1L));
+        when(billingRunRepository.insertPendingPayments(any(), anyLong(), anyLong(), any(), any(), any(), any(), any(), any(), any()))
+                .thenThrow(new IllegalStateException("koneksi putus"));
+
+        billingRunService.process(run.getRunId());
+
+        assertEquals(BillingRunService.FAILED, run.getStatus());
+        assertEquals("koneksi putus", run.getError());
+    }
+
+    @Test
+    void startRun_BothScopesGiven_ThrowsValidation() {
+        BillingRunRequest request = request();
+        request.setSchoolYearId(7L);
+
+        assertThrows(ValidationException.class, () -> billingRunService.startRun(request, UUID.randomUUID()));
+        verifyNoInteractions(paymentTypeRepository);
+    }
+
+    @Test
+    void startRun_InvalidPeriod_ThrowsValidation() {
+        BillingRunRequest request = request();
+        request.setBillingPeriod("07-2025");
+
+        assertThrows(ValidationException.class, () -> billingRunService.startRun(request, UUID.randomUUID()));
+    }
+
+    @Test
+    void startRun_ExistingFailedRun_IsResumedFromCheckpoint() {
+        BillingRun existing = new BillingRun();
+        existing.setRunId(UUID.randomUUID());
+        existing.setScopeType(BillingRunService.SCOPE_CLASS);
+        existing.setScopeId(3L);
+        existing.setPaymentName("SPP 2025-07");
+        existing.setAmount(new BigDecimal("250000.00"));
+        existing.setDueDate(LocalDate.of(2025, 7, 31));
+        existing.setStatus(BillingRunService.FAILED);
+        existing.setError("koneksi putus");
+        existing.setLastStudentId(42L);
+        PaymentType paymentType = new PaymentType();
+        paymentType.setPaymentTypeId(2L);
+        paymentType.setPaymentTypeName("SPP");
+        when(paymentTypeRepository.findById(2L)).thenReturn(Optional.of(paymentType));
+        when(classesRepository.existsById(3L)).thenReturn(true);
+        when(billingRunRepository.findByPaymentTypeIdAndBillingPeriodAndScopeTypeAndScopeId(2L, "2025-07", "CLASS", 3L))
+                .thenReturn(Optional.of(existing));
+        when(billingRunRepository.save(existing)).thenReturn(existing);
+
+        BillingRunResponse response = billingRunService.startRun(request(), UUID.randomUUID());
+
+        assertEquals(BillingRunService.RUNNING, response.getStatus());
+        assertEquals(42L, response.getLastStudentId());
+        assertNull(response.getError());
+        verify(billingRunRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void startRun_ExistingRunWithDifferentAmount_ThrowsConflict() {
+        run.setScopeType(BillingRunService.SCOPE_CLASS);
+        run.setScopeId(3L);
+        run.setStatus(BillingRunService.COMPLETED);
+        PaymentType paymentType = new PaymentType();
+        paymentType.setPaymentTypeId(2L);
+        paymentType.setPaymentTypeName("SPP");
+        when(paymentTypeRepository.findById(2L)).thenReturn(Optional.of(paymentType));
+        when(classesRepository.existsById(3L)).thenReturn(true);
+        when(billingRunRepository.findByPaymentTypeIdAndBillingPeriodAndScopeTypeAndScopeId(2L, "2025-07", "CLASS", 3L))
+                .thenReturn(Optional.of(run));
+        BillingRunRequest request = request();
+        request.setAmount(new BigDecimal("300000"));
+
+        assertThrows(DuplicateDataException.class, () -> billingRunService.startRun(request, UUID.randomUUID()));
+        assertEquals(BillingRunService.COMPLETED, run.getStatus());
+        verify(billingRunRepository, never()).save(any());
+        verify(billingRunRepository, never()).saveAndFlush(any());
+    }
+
+    private static BillingRunRequest request() {
+        BillingRunRequest request = new BillingRunRequest();
+        request.setPaymentTypeId(2L);
+        request.setAmount(new BigDecimal("250000"));
+        request.setBillingPeriod("2025-07");
+        request.setClassId(3L);
+        return request;
+    }
+}
@@ -0,0 +1,203 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.dto.response.ExportJobResponse;
+import com.beta.schoolpayment.dto.response.PaymentResponse;
+import com.beta.schoolpayment.exception.DataNotFoundException;
+import com.beta.schoolpayment.job.ExportJobService;
+import com.beta.schoolpayment.job.ExportProgress;
+import com.beta.schoolpayment.job.ExportTask;
+import com.beta.schoolpayment.repository.ClassesRepository;
+import com.beta.schoolpayment.repository.PaymentRepository;
+import com.beta.schoolpayment.repository.SchoolYearRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class BulkReceiptServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private ClassesRepository classesRepository;
+
+    @Mock
+    private SchoolYearRepository schoolYearRepository;
+
+    @Mock
+    private PaymentReceiptService paymentReceiptService;
+
+    @Mock
+    private ExportJobService exportJobService;
+
+    @Mock
+    private ExportProgress progress;
+
+    private final UUID adminId = UUID.randomUUID();
+
+    @InjectMocks
+    private BulkReceiptService bulkReceiptService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(bulkReceiptService, "parallelism", 2);
+    }
+
+    @Test
+    void startForClass_SubmitsReceiptJobThatWritesZip() throws Exception {
+        PaymentResponse payment = payment("Budi");
+        ExportJobResponse submitted = new ExportJobResponse();
+        when(classesRepository.existsById(1L)).thenReturn(true);
+        when(paymentRepository.findCompletedResponsesByClassId(1L)).thenReturn(List.of(payment));
+        when(paymentReceiptService.storedReceipt(payment)).thenReturn(Files.writeString(tempDir.resolve("a.pdf"), "pdf"));
+        ArgumentCaptor<ExportTask> task = ArgumentCaptor.forClass(ExportTask.class);
+        when(exportJobService.submit(eq(adminId), eq("receipts"), eq("receipts_class_1.zip"), eq("application/zip"),
+                task.capture())).thenReturn(submitted);
+
+        assertSame(submitted, bulkReceiptService.startForClass(1L, adminId));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        task.getValue().write(out, progress);
+        assertEquals(1, zipEntries(out.toByteArray()).size());
+        verify(progress).setTotal(1);
+    }
+
+    @Test
+    void writeArchive_OneZipEntryPerPayment() throws Exception {
+        List<PaymentResponse> payments = List.of(payment("Budi Santoso"), payment("Ani"), payment("Ani"));
+        when(paymentReceiptService.storedReceipt(any())).thenAnswer(invocation -> {
+            PaymentResponse payment = invocation.getArgument(0);
+            return Files.writeString(tempDir.resolve(payment.getPaymentId() + ".pdf"), "pdf-" + payment.getPaymentId());
+        });
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bulkReceiptService.writeArchive(payments, out, progress);
+
+        verify(progress).setTotal(3);
+        verify(progress, times(3)).itemProcessed();
+        verify(progress, never()).itemFailed();
+
+        List<String> entries = zipEntries(out.toByteArray());
+        assertEquals(3, entries.size());
+        for (PaymentResponse payment : payments) {
+            String name = payment.getStudentId() + "_" + payment.getStudentName().replace(' ', '_')
+                    + "/receipt_" + payment.getPaymentId() + ".pdf";
+            assertTrue(entries.contains(name), name);
+        }
+    }
+
+    @Test
+    void writeArchive_FailedReceiptIsCountedAndSkipped() throws Exception {
+        PaymentResponse ok = payment("Budi");
+        PaymentResponse broken = payment("Ani");
+        when(paymentReceiptService.storedReceipt(ok)).thenReturn(Files.writeString(tempDir.resolve("ok.pdf"), "pdf"));
+        when(paymentReceiptService.storedReceipt(broken)).thenThrow(new RuntimeException("render gagal"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bulkReceiptService.writeArchive(List.of(ok, broken), out, progress);
+
+        verify(progress, times(2)).itemProcessed();
+        verify(progress).itemFailed();
+        assertEquals(1, zipEntries(out.toByteArray()).size());
+    }
+
+    @Test
+    void writeArchive_StoredFileEvicted_FallsBackToDirectRender() throws Exception {
+        PaymentResponse payment = payment("Budi");
+        when(paymentReceiptService.storedReceipt(payment)).thenReturn(tempDir.resolve("missing.pdf"));
+
+        bulkReceiptService.writeArchive(List.of(payment), new ByteArrayOutputStream(), progress);
+
+        verify(paymentReceiptService).writePaymentReceipt(eq(payment), argThat(out -> out != null));
+    }
+
+    @Test
+    void writeArchive_CancelledMidArchive_StopsRendering() throws Exception {
+        List<PaymentResponse> payments = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            payments.add(payment("Siswa " + i));
+        }
+        Path rendered = Files.writeString(tempDir.resolve("a.pdf"), "pdf");
+        AtomicInteger renders = new AtomicInteger();
+        CountDownLatch neverReleased = new CountDownLatch(1);
+        when(paymentReceiptService.storedReceipt(any())).thenAnswer(invocation -> {
+            if (renders.incrementAndGet() > 1) {
+                neverReleased.await();
+            }
+            return rendered;
+        });
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread job = new Thread(() -> {
+            try {
+                bulkReceiptService.writeArchive(payments, new ByteArrayOutputStream(), progress);
+            } catch (Throwable e) {
+                thrown.set(e);
+            }
+        });
+
+        job.start();
+        verify(progress, timeout(5000)).itemProcessed();
+        job.interrupt();
+        job.join(5000);
+
+        assertFalse(job.isAlive());
+        assertInstanceOf(InterruptedException.class, thrown.get());
+        // parallelism 2: dua render awal + satu pengganti setelah receipt pertama selesai
+        assertTrue(renders.get() <= 3, "render dimulai: " + renders.get());
+    }
+
+    @Test
+    void startForClass_UnknownClass_ThrowsDataNotFound() {
+        when(classesRepository.existsById(99L)).thenReturn(false);
+
+        assertThrows(DataNotFoundException.class, () -> bulkReceiptService.startForClass(99L, adminId));
+        verifyNoInteractions(paymentRepository, exportJobService);
+    }
+
+    private static List<String> zipEntries(byte[] archive) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                names.add(entry.getName());
+            }
+        }
+        return names;
+    }
+
+    private static PaymentResponse payment(String studentName) {
+        PaymentResponse payment = new PaymentResponse();
+        payment.setPaymentId(UUID.randomUUID());
+        payment.setStudentId(10L);
+        payment.setStudentName(studentName);
+        payment.setPaymentStatus("COMPLETED");
+        return payment;
+    }
+}
@@ -0,0 +1,110 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.repository.ImageBlobRepository;
+import com.beta.schoolpayment.storage.ImageStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ImageServiceTest {
+
+    // sha256("abc")
+    private static final String ABC_SHA256 = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    @InjectMocks
+    private ImageService imageService;
+
+    @Mock
+    private ImageStore imageStore;
+
+    @Mock
+    private ImageBlobRepository imageBlobRepository;
+
+    @Mock
+    private ProfilePictureThumbnailService profilePictureThumbnailService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(imageService, "gcGracePeriod", Duration.ofDays(1));
+        ReflectionTestUtils.setField(imageService, "gcBatchSize", 100);
+    }
+
+    @Test
+    void store_KeyIsContentHash() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "foto.png", "image/png", "abc".getBytes());
+        when(imageStore.exists(any())).thenReturn(false);
+        doAnswer(invocation -> {
+            // File sementara masih ada saat diserahkan ke storage
+            assertArrayEquals("abc".getBytes(), Files.readAllBytes(invocation.getArgument(1, Path.class)));
+            return null;
+        }).when(imageStore).put(any(), any(), any());
+
+        String key = imageService.store(file);
+
+        assertEquals(ABC_SHA256 + ".png", key);
+        verify(imageBlobRepository).register(key);
+        verify(imageStore).put(eq(key), any(Path.class), eq("image/png"));
+    }
+
+    @Test
+    void store_ExistingBlobIsNotUploadedAgain() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "foto.jpg", "image/jpeg", "abc".getBytes());
+        when(imageStore.exists(ABC_SHA256 + ".jpg")).thenReturn(true);
+
+        String key = imageService.store(file);
+
+        assertEquals(ABC_SHA256 + ".jpg", key);
+        verify(imageBlobRepository).register(key);
+        verify(imageStore, never()).put(any(), any(), any());
+    }
+
+    @Test
+    void acquireRelease_LegacyPathIgnored() {
+        imageService.acquire("2025/01/01/foto.jpg");
+        imageService.release(null);
+
+        verifyNoInteractions(imageBlobRepository);
+    }
+
+    @Test
+    void collectGarbage_DeletesThumbnailsThenBlobThenRows() throws Exception {
+        String key = ABC_SHA256 + ".png";
+        when(imageBlobRepository.lockUnreferenced(any(), eq(100))).thenReturn(List.of(key));
+        when(profilePictureThumbnailService.getSizes()).thenReturn(new int[]{64, 256});
+        when(imageBlobRepository.deleteUnreferenced(List.of(key))).thenReturn(1);
+
+        imageService.collectGarbage();
+
+        var order = inOrder(imageStore, imageBlobRepository);
+        order.verify(imageStore).delete(ABC_SHA256 + "_64.jpg");
+        order.verify(imageStore).delete(ABC_SHA256 + "_256.jpg");
+        order.verify(imageStore).delete(key);
+        order.verify(imageBlobRepository).deleteUnreferenced(List.of(key));
+    }
+
+    @Test
+    void collectGarbage_StorageFailureKeepsRows() throws Exception {
+        String key = ABC_SHA256 + ".png";
+        when(imageBlobRepository.lockUnreferenced(any(), anyInt())).thenReturn(List.of(key));
+        when(profilePictureThumbnailService.getSizes()).thenReturn(new int[0]);
+        doThrow(new IOException("timeout")).when(imageStore).delete(key);
+
+        assertThrows(IllegalStateException.class, () -> imageService.collectGarbage());
+        verify(imageBlobRepository, never()).deleteUnreferenced(any());
+    }
+}
@@ -0,0 +1,87 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.dto.request.PaymentFilterCriteria;
+import com.beta.schoolpayment.dto.response.PaymentResponse;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+class PaymentExportServiceTest {
+
+    @InjectMocks
+    private PaymentExportService paymentExportService;
+
+    @Mock
+    private PaymentService paymentService;
+
+    private PaymentResponse payment;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        payment = new PaymentResponse();
+        payment.setPaymentId(UUID.randomUUID());
+        payment.setPaymentName("SPP Juli");
+        payment.setStudentId(7L);
+        payment.setStudentName("John Doe");
+        payment.setAmount(new BigDecimal("150000"));
+        payment.setPaymentStatus("COMPLETED");
+        payment.setCreatedAt(LocalDateTime.of(2025, 7, 1, 8, 0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportPaymentsToExcel_WritesEveryStreamedRow() throws Exception {
+        PaymentFilterCriteria criteria = new PaymentFilterCriteria();
+        criteria.setPaymentStatus("COMPLETED");
+        doAnswer(invocation -> {
+            Consumer<PaymentResponse> action = invocation.getArgument(1);
+            for (int i = 0; i < 250; i++) {
+                action.accept(payment);
+            }
+            return null;
+        }).when(paymentService).forEachPayment(eq(criteria), any(Consumer.class));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        paymentExportService.exportPaymentsToExcel(criteria, outputStream);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("Payments");
+            assertEquals(250, sheet.getLastRowNum());
+            Row row = sheet.getRow(250);
+            assertEquals("7", row.getCell(3).getStringCellValue());
+            assertEquals("John Doe", row.getCell(4).getStringCellValue());
+            assertEquals(150000.0, row.getCell(5).getNumericCellValue());
+        }
+    }
+
+    @Test
+    void exportPaymentsToExcel_FixedColumnWidths() throws Exception {
+        byte[] data = paymentExportService.exportPaymentsToExcel(List.of(payment));
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(data))) {
+            Sheet sheet = workbook.getSheet("Payments");
+            assertEquals("Student ID", sheet.getRow(0).getCell(3).getStringCellValue());
+            assertTrue(sheet.getColumnWidth(0) > sheet.getColumnWidth(3));
+        }
+    }
+}
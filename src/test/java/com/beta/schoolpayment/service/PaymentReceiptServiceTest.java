@@ -0,0 +1,93 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.dto.response.PaymentResponse;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentReceiptServiceTest {
+
+    private PaymentReceiptService paymentReceiptService;
+    private PaymentResponse payment;
+
+    @BeforeEach
+    void setUp() {
+        paymentReceiptService = new PaymentReceiptService();
+
+        payment = new PaymentResponse();
+        payment.setPaymentId(UUID.randomUUID());
+        payment.setPaymentName("SPP Juli");
+        payment.setStudentName("Budi Santoso");
+        payment.setAmount(new BigDecimal("150000"));
+        payment.setPaymentStatus("COMPLETED");
+        payment.setUpdatedAt(LocalDateTime.of(2025, 7, 1, 8, 30));
+    }
+
+    @Test
+    void generatePaymentReceipt_ContainsTemplateAndValues() throws IOException {
+        byte[] pdf = paymentReceiptService.generatePaymentReceipt(payment);
+
+        try (PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+            assertEquals(1, document.getNumberOfPages());
+            String text = PdfTextExtractor.getTextFromPage(document.getFirstPage());
+            assertTrue(text.contains("TANDA TERIMA PEMBAYARAN"));
+            assertTrue(text.contains("Nama Siswa"));
+            assertTrue(text.contains("Budi Santoso"));
+            assertTrue(text.contains("Rp 150000"));
+            assertTrue(text.contains(payment.getPaymentId().toString()));
+        }
+    }
+
+    @Test
+    void generatePaymentReceipt_SharedTemplateReusedAcrossDocuments() throws IOException {
+        PaymentResponse other = new PaymentResponse();
+        other.setPaymentId(UUID.randomUUID());
+        other.setStudentName("Ani");
+
+        String first = pageText(paymentReceiptService.generatePaymentReceipt(payment));
+        String second = pageText(paymentReceiptService.generatePaymentReceipt(other));
+
+        assertTrue(first.contains("TANDA TERIMA PEMBAYARAN") && first.contains("Budi Santoso"));
+        assertTrue(second.contains("TANDA TERIMA PEMBAYARAN") && second.contains("Tanggal Pembayaran"));
+        assertTrue(second.contains("Ani"));
+        assertFalse(second.contains("Budi Santoso"));
+    }
+
+    @Test
+    void writePaymentReceipt_DoesNotCloseOutputStream() {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                fail("Output stream tidak boleh ditutup oleh receipt writer");
+            }
+        };
+
+        paymentReceiptService.writePaymentReceipt(payment, outputStream);
+
+        assertTrue(outputStream.size() > 0);
+    }
+
+    @Test
+    void generatePaymentReceipt_NullFieldsRenderedAsDash() {
+        payment.setStudentName(null);
+
+        assertDoesNotThrow(() -> paymentReceiptService.generatePaymentReceipt(payment));
+    }
+
+    private static String pageText(byte[] pdf) throws IOException {
+        try (PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+            return PdfTextExtractor.getTextFromPage(document.getFirstPage());
+        }
+    }
+}
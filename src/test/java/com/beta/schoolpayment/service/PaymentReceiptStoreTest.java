@@ -0,0 +1,82 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.dto.response.PaymentResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentReceiptStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private PaymentReceiptStore store;
+    private PaymentResponse payment;
+
+    @BeforeEach
+    void setUp() {
+        store = new PaymentReceiptStore();
+        ReflectionTestUtils.setField(store, "storeDir", tempDir.toString());
+
+        payment = new PaymentResponse();
+        payment.setPaymentId(UUID.randomUUID());
+        payment.setUpdatedAt(LocalDateTime.of(2025, 7, 1, 8, 30, 0, 123_456_000));
+    }
+
+    @Test
+    void write_ThenFind_ReturnsSameFile() throws IOException {
+        Path written = store.write(payment, out -> writeQuietly(out, "pdf-v1"));
+
+        assertEquals(written, store.find(payment).orElseThrow());
+        assertEquals("pdf-v1", Files.readString(written));
+    }
+
+    @Test
+    void newVersion_ReplacesOldFileAndChangesEtag() {
+        String oldEtag = store.etag(payment);
+        Path oldFile = store.write(payment, out -> writeQuietly(out, "pdf-v1"));
+
+        payment.setUpdatedAt(payment.getUpdatedAt().plusSeconds(1));
+        Path newFile = store.write(payment, out -> writeQuietly(out, "pdf-v2"));
+
+        assertNotEquals(oldEtag, store.etag(payment));
+        assertNotEquals(oldFile, newFile);
+        assertFalse(Files.exists(oldFile));
+    }
+
+    @Test
+    void evict_RemovesAllVersions() {
+        store.write(payment, out -> writeQuietly(out, "pdf-v1"));
+
+        store.evict(payment.getPaymentId());
+
+        assertTrue(store.find(payment).isEmpty());
+        assertFalse(Files.exists(tempDir.resolve(payment.getPaymentId().toString())));
+    }
+
+    @Test
+    void etag_IsQuotedAndStable() {
+        String etag = store.etag(payment);
+
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        assertTrue(etag.contains(payment.getPaymentId().toString()));
+        assertEquals(etag, store.etag(payment));
+    }
+
+    private static void writeQuietly(java.io.OutputStream out, String content) {
+        try {
+            out.write(content.getBytes());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.dto.request.PaymentCursor;
+import com.beta.schoolpayment.dto.request.PaymentFilterCriteria;
+import com.beta.schoolpayment.dto.request.PaymentRequest;
+import com.beta.schoolpayment.dto.response.PaymentBatchResponse;
+import com.beta.schoolpayment.dto.response.PaymentResponse;
+import com.beta.schoolpayment.exception.PaymentStatusConflictException;
+import com.beta.schoolpayment.exception.ValidationException;
+import com.beta.schoolpayment.model.Payment;
+import com.beta.schoolpayment.model.PaymentStatusRequest;
+import com.beta.schoolpayment.model.PaymentType;
+import com.beta.schoolpayment.model.Student;
+import com.beta.schoolpayment.model.User;
+import com.beta.schoolpayment.repository.PaymentRepository;
+import com.beta.schoolpayment.repository.PaymentStatusRequestRepository;
+import com.beta.schoolpayment.repository.PaymentTypeRepository;
+import com.beta.schoolpayment.repository.StudentRepository;
+import com.beta.schoolpayment.repository.UserRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PaymentServiceTest {
+
+    @InjectMocks
+    private PaymentService paymentService;
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private StudentRepository studentRepository;
+
+    @Mock
+    private PaymentTypeRepository paymentTypeRepository;
+
+    @Mock
+    private PaymentReceiptStore paymentReceiptStore;
+
+    @Mock
+    private PaymentSummaryService paymentSummaryService;
+
+    @Mock
+    private PaymentStatusRequestRepository paymentStatusRequestRepository;
+
+    @Captor
+    private ArgumentCaptor<List<Payment>> inserted;
+
+    private Student student;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(paymentService, "exportPartitionSize", 2);
+        ReflectionTestUtils.setField(paymentService, "exportParallelism", 2);
+        ReflectionTestUtils.setField(paymentService, "insertBatchSize", 50);
+
+        student = new Student();
+        student.setId(1L);
+        student.setName("John Doe");
+    }
+
+    @Test
+    void forEachPayment_MergesPartitionsInKeyOrder() {
+        List<PaymentResponse> payments = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            payments.add(payment("Payment " + i, LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(i)));
+        }
+        PaymentCursor first = cursorOf(payments.get(1));
+        PaymentCursor second = cursorOf(payments.get(3));
+        when(paymentRepository.findPartitionBoundaries(any(), eq(2))).thenReturn(List.of(first, second));
+        when(paymentRepository.findKeysetRange(any(), isNull(), eq(first))).thenReturn(payments.subList(0, 2));
+        when(paymentRepository.findKeysetRange(any(), eq(first), eq(second))).thenReturn(payments.subList(2, 4));
+        when(paymentRepository.findKeysetRange(any(), eq(second), isNull())).thenReturn(payments.subList(4, 5));
+
+        List<String> exported = new ArrayList<>();
+        paymentService.forEachPayment(new PaymentFilterCriteria(), response -> exported.add(response.getPaymentName()));
+
+        assertEquals(List.of("Payment 0", "Payment 1", "Payment 2", "Payment 3", "Payment 4"), exported);
+        verify(paymentRepository, times(3)).findKeysetRange(any(), any(), any());
+    }
+
+    @Test
+    void forEachPayment_SinglePartitionWhenNoBoundaries() {
+        PaymentResponse payment = payment("SPP", LocalDateTime.now());
+        when(paymentRepository.findPartitionBoundaries(any(), anyInt())).thenReturn(List.of());
+        when(paymentRepository.findKeysetRange(any(), isNull(), isNull())).thenReturn(List.of(payment));
+
+        List<PaymentResponse> exported = new ArrayList<>();
+        paymentService.forEachPayment(new PaymentFilterCriteria(), exported::add);
+
+        assertEquals(1, exported.size());
+        assertEquals("John Doe", exported.get(0).getStudentName());
+    }
+
+    @Test
+    void getPaymentById_UsesProjection() {
+        PaymentResponse payment = payment("SPP", LocalDateTime.now());
+        when(paymentRepository.findResponseById(payment.getPaymentId())).thenReturn(Optional.of(payment));
+
+        PaymentResponse response = paymentService.getPaymentById(payment.getPaymentId());
+
+        assertSame(payment, response);
+        verify(paymentRepository, never()).findById(any());
+    }
+
+    @Test
+    void getPaymentById_NotFound() {
+        UUID id = UUID.randomUUID();
+        when(paymentRepository.findResponseById(id)).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> paymentService.getPaymentById(id));
+    }
+
+    @Test
+    void getPaymentsByCursor_DecodesCursorAndSeeksDescending() {
+        PaymentCursor cursor = new PaymentCursor(LocalDateTime.of(2025, 1, 1, 8, 0), UUID.randomUUID(), Sort.Direction.DESC);
+        Slice<PaymentResponse> slice = new SliceImpl<>(List.of());
+        when(paymentRepository.findResponsesAfter(any(), eq(cursor), eq(20), eq(Sort.Direction.DESC))).thenReturn(slice);
+
+        assertSame(slice, paymentService.getPaymentsByCursor(new PaymentFilterCriteria(), cursor.encode(), 20, "desc"));
+    }
+
+    @Test
+    void getPaymentsByCursor_DirectionMismatch_Throws() {
+        String cursor = new PaymentCursor(LocalDateTime.of(2025, 1, 1, 8, 0), UUID.randomUUID(), Sort.Direction.ASC).encode();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> paymentService.getPaymentsByCursor(new PaymentFilterCriteria(), cursor, 20, "desc"));
+        verifyNoInteractions(paymentRepository);
+    }
+
+    @Test
+    void getPaymentsByCursor_FirstPageWithoutCursor() {
+        when(paymentRepository.findResponsesAfter(any(), isNull(), eq(10), eq(Sort.Direction.ASC)))
+                .thenReturn(new SliceImpl<>(List.of()));
+
+        paymentService.getPaymentsByCursor(new PaymentFilterCriteria(), null, 10, "asc");
+
+        verify(paymentRepository).findResponsesAfter(any(), isNull(), eq(10), eq(Sort.Direction.ASC));
+    }
+
+    @Test
+    void getPaymentsByCursor_InvalidCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> paymentService.getPaymentsByCursor(new PaymentFilterCriteria(), "%%%", 10, "desc"));
+    }
+
+    @Test
+    void updatePaymentStatus_ConditionalUpdate_EvictsStoredReceipt() {
+        UUID id = UUID.randomUUID();
+        PaymentResponse updated = new PaymentResponse();
+        updated.setPaymentStatus("REFUNDED");
+        when(paymentRepository.findActiveStatusById(id)).thenReturn(Optional.of("COMPLETED"));
+        when(paymentRepository.transitionStatus(id, "COMPLETED", "REFUNDED", null)).thenReturn(transition(0, 1));
+        when(paymentRepository.findResponseById(id)).thenReturn(Optional.of(updated));
+
+        PaymentResponse response = paymentService.updatePaymentStatus(id, "refunded", null, null);
+
+        assertEquals("REFUNDED", response.getPaymentStatus());
+        verify(paymentReceiptStore).evict(id);
+        // Tidak ada read-modify-write entity: status dan ringkasan diubah oleh satu UPDATE bersyarat
+        verify(paymentRepository, never()).findById(any());
+        verify(paymentRepository, never()).save(any());
+    }
+
+    @Test
+    void updatePaymentStatus_ExpectedStatusGiven_SkipsRead() {
+        UUID id = UUID.randomUUID();
+        when(paymentRepository.transitionStatus(id, "PENDING", "COMPLETED", "gw-1")).thenReturn(transition(1, 1));
+        when(paymentRepository.findResponseById(id)).thenReturn(Optional.of(response("COMPLETED")));
+
+        paymentService.updatePaymentStatus(id, "COMPLETED", "PENDING", "gw-1");
+
+        verify(paymentRepository, never()).findActiveStatusById(any());
+    }
+
+    @Test
+    void updatePaymentStatus_ExpectedEqualsTargetButStoredDiffers_Throws() {
+        UUID id = UUID.randomUUID();
+        when(paymentRepository.findResponseById(id)).thenReturn(Optional.of(response("PENDING")));
+
+        assertThrows(PaymentStatusConflictException.class,
+                () -> paymentService.updatePaymentStatus(id, "COMPLETED", "COMPLETED", null));
+        verify(paymentRepository, never()).transitionStatus(any(), any(), any(), any());
+    }
+
+    @Test
+    void updatePaymentStatus_AlreadyAtTarget_ReturnsCurrent() {
+        UUID id = UUID.randomUUID();
+        when(paymentRepository.findResponseById(id)).thenReturn(Optional.of(response("COMPLETED")));
+
+        PaymentResponse response = paymentService.updatePaymentStatus(id, "COMPLETED", "COMPLETED", null);
+
+        assertEquals("COMPLETED", response.getPaymentStatus());
+        verify(paymentRepository, never()).transitionStatus(any(), any(), any(), any());
+    }
+
+    @Test
+    void updatePaymentStatus_TransitionNotAllowed_Throws() {
+        UUID id = UUID.randomUUID();
+        when(paymentRepository.findActiveStatusById(id)).thenReturn(Optional.of("COMPLETED"));
+
+        assertThrows(PaymentStatusConflictException.class,
+                () -> paymentService.updatePaymentStatus(id, "PENDING", null, null));
+        verify(paymentRepository, never()).transitionStatus(any(), any(), any(), any());
+    }
+
+    @Test
+    void updatePaymentStatus_ReplayedIdempotencyKey_IsNoOp() {
+        UUID id = UUID.randomUUID();
+        when(paymentRepository.transitionStatus(id, "PENDING", "COMPLETED", "gw-1")).thenReturn(transition(0, 0));
+        when(paymentStatusRequestRepository.findById("gw-1"))
+                .thenReturn(Optional.of(new PaymentStatusRequest("gw-1", id, "COMPLETED", LocalDateTime.now())));
+        when(paymentRepository.findResponseById(id)).thenReturn(Optional.of(response("COMPLETED")));
+
+        PaymentResponse response = paymentService.updatePaymentStatus(id, "COMPLETED", "PENDING", "gw-1");
+
+        assertEquals("COMPLETED", response.getPaymentStatus());
+        verify(paymentReceiptStore, never()).evict(any());
+    }
+
+    @Test
+    void updatePaymentStatus_IdempotencyKeyUsedForOtherPayment_Throws() {
+        UUID id = UUID.randomUUID();
+        when(paymentRepository.transitionStatus(id, "PENDING", "COMPLETED", "gw-1")).thenReturn(transition(0, 0));
+        when(paymentStatusRequestRepository.findById("gw-1"))
+                .thenReturn(Optional.of(new PaymentStatusRequest("gw-1", UUID.randomUUID(), "COMPLETED", LocalDateTime.now())));
+
+        assertThrows(ValidationException.class,
+                () -> paymentService.updatePaymentStatus(id, "COMPLETED", "PENDING", "gw-1"));
+    }
+
+    @Test
+    void updatePaymentStatus_LostRace_ConflictUnlessAlreadyAtTarget() {
+        UUID id = UUID.randomUUID();
+        when(paymentRepository.transitionStatus(eq(id), eq("PENDING"), any(), isNull())).thenReturn(transition(0, 0));
+        when(paymentRepository.findResponseById(id)).thenReturn(Optional.of(response("COMPLETED")));
+
+        // Request lain sudah menyelesaikan payment: callback yang sama cukup melihat hasilnya
+        assertEquals("COMPLETED", paymentService.updatePaymentStatus(id, "COMPLETED", "PENDING", null).getPaymentStatus());
+        // Tapi FAILED tidak boleh menimpa COMPLETED
+        assertThrows(PaymentStatusConflictException.class,
+                () -> paymentService.updatePaymentStatus(id, "FAILED", "PENDING", null));
+    }
+
+    @Test
+    void updatePaymentStatus_DeletedOrMissingPayment_NotFound() {
+        UUID id = UUID.randomUUID();
+        when(paymentRepository.findActiveStatusById(id)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> paymentService.updatePaymentStatus(id, "COMPLETED", null, null));
+    }
+
+    private static PaymentRepository.StatusTransition transition(int claimed, int updated) {
+        return new PaymentRepository.StatusTransition() {
+            @Override
+            public int getClaimed() {
+                return claimed;
+            }
+
+            @Override
+            public int getUpdated() {
+                return updated;
+            }
+        };
+    }
+
+    private static PaymentResponse response(String status) {
+        PaymentResponse response = new PaymentResponse();
+        response.setPaymentStatus(status);
+        return response;
+    }
+
+    @Test
+    void deletePayment_EvictsStoredReceipt() {
+        UUID id = UUID.randomUUID();
+        Payment payment = new Payment();
+        payment.setPaymentId(id);
+        when(paymentRepository.findById(id)).thenReturn(Optional.of(payment));
+
+        paymentService.deletePayment(id);
+
+        assertNotNull(payment.getDeletedAt());
+        verify(paymentReceiptStore).evict(id);
+        verify(paymentSummaryService).paymentDeleted(payment);
+    }
+
+    @Test
+    void deletePayment_AlreadyDeleted_DoesNotChangeSummaryAgain() {
+        UUID id = UUID.randomUUID();
+        Payment payment = new Payment();
+        payment.setPaymentId(id);
+        payment.setDeletedAt(LocalDateTime.now().minusDays(1));
+        when(paymentRepository.findById(id)).thenReturn(Optional.of(payment));
+
+        paymentService.deletePayment(id);
+
+        verify(paymentSummaryService, never()).paymentDeleted(any());
+    }
+
+    @Test
+    void createPayments_LooksUpOnceAndReportsPerItem() {
+        User user = new User();
+        user.setUserId(UUID.randomUUID());
+        UserDetails userDetails = mock(UserDetails.class);
+        when(userDetails.getUsername()).thenReturn("admin@school.id");
+        when(userRepository.findByEmail("admin@school.id")).thenReturn(Optional.of(user));
+        PaymentType spp = new PaymentType();
+        spp.setPaymentTypeId(5L);
+        spp.setPaymentTypeName("SPP");
+        when(studentRepository.findAllWithClassesByIdIn(Set.of(1L, 2L))).thenReturn(List.of(student));
+        when(paymentTypeRepository.findAllById(Set.of(5L))).thenReturn(List.of(spp));
+
+        List<PaymentRequest> requests = List.of(
+                paymentRequest(1L, 5L, "pending"),
+                paymentRequest(2L, 5L, "PENDING"),   // student tidak ada
+                paymentRequest(1L, 5L, "LUNAS"),     // status tidak valid
+                paymentRequest(1L, 5L, "COMPLETED"));
+
+        PaymentBatchResponse response = paymentService.createPayments(requests, userDetails);
+
+        assertEquals(4, response.getTotal());
+        assertEquals(2, response.getCreated());
+        assertEquals(2, response.getFailed());
+        assertEquals(List.of("CREATED", "FAILED", "FAILED", "CREATED"),
+                response.getResults().stream().map(result -> result.getStatus()).toList());
+        assertEquals("Student tidak ditemukan", response.getResults().get(1).getError());
+        assertEquals("Status pembayaran tidak valid. Pilihan: PENDING, COMPLETED, FAILED, REFUNDED",
+                response.getResults().get(2).getError());
+        assertEquals("PENDING", response.getResults().get(0).getPayment().getPaymentStatus());
+        assertEquals(3, response.getResults().get(3).getIndex());
+
+        verify(paymentRepository).persistInBatches(inserted.capture(), eq(50));
+        assertEquals(2, inserted.getValue().size());
+        verify(paymentSummaryService).paymentsCreated(inserted.getValue());
+        verify(studentRepository, never()).findById(any());
+        verify(paymentTypeRepository, never()).findById(any());
+    }
+
+    private PaymentResponse payment(String name, LocalDateTime createdAt) {
+        PaymentResponse payment = new PaymentResponse();
+        payment.setPaymentId(UUID.randomUUID());
+        payment.setPaymentName(name);
+        payment.setStudentId(student.getId());
+        payment.setStudentName(student.getName());
+        payment.setPaymentStatus("PENDING");
+        payment.setCreatedAt(createdAt);
+        return payment;
+    }
+
+    private static PaymentRequest paymentRequest(Long studentId, Long paymentTypeId, String status) {
+        PaymentRequest request = new PaymentRequest();
+        request.setPaymentName("SPP Juli");
+        request.setStudentId(studentId);
+        request.setPaymentTypeId(paymentTypeId);
+        request.setAmount(new BigDecimal("250000"));
+        request.setPaymentStatus(status);
+        return request;
+    }
+
+    private PaymentCursor cursorOf(PaymentResponse payment) {
+        return new PaymentCursor(payment.getCreatedAt(), payment.getPaymentId());
+    }
+}
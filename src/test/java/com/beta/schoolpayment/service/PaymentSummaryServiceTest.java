@@ -0,0 +1,112 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.dto.response.PaymentSummaryResponse;
+import com.beta.schoolpayment.dto.response.PaymentSummaryRow;
+import com.beta.schoolpayment.exception.ValidationException;
+import com.beta.schoolpayment.model.Payment;
+import com.beta.schoolpayment.model.PaymentType;
+import com.beta.schoolpayment.model.Student;
+import com.beta.schoolpayment.repository.PaymentSummaryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PaymentSummaryServiceTest {
+
+    @Mock
+    private PaymentSummaryRepository paymentSummaryRepository;
+
+    @InjectMocks
+    private PaymentSummaryService paymentSummaryService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void paymentCreated_AddsOneToStatusRow() {
+        paymentSummaryService.paymentCreated(payment(1L, 5L, "PENDING", "250000"));
+
+        verify(paymentSummaryRepository).applyDelta(1L, 5L, "PENDING", 1, new BigDecimal("250000"));
+    }
+
+    @Test
+    void paymentDeleted_SubtractsFromStatusRow() {
+        paymentSummaryService.paymentDeleted(payment(1L, 5L, "FAILED", "100000"));
+
+        verify(paymentSummaryRepository).applyDelta(1L, 5L, "FAILED", -1, new BigDecimal("-100000"));
+    }
+
+    @Test
+    void paymentsCreated_OneUpsertPerSummaryRow() {
+        paymentSummaryService.paymentsCreated(List.of(
+                payment(2L, 5L, "PENDING", "100000"),
+                payment(1L, 5L, "PENDING", "250000"),
+                payment(2L, 5L, "PENDING", "50000"),
+                payment(2L, 5L, "COMPLETED", "75000")));
+
+        verify(paymentSummaryRepository, times(3)).applyDelta(anyLong(), anyLong(), anyString(), anyLong(), any());
+        verify(paymentSummaryRepository).applyDelta(2L, 5L, "PENDING", 2, new BigDecimal("150000"));
+        verify(paymentSummaryRepository).applyDelta(1L, 5L, "PENDING", 1, new BigDecimal("250000"));
+        verify(paymentSummaryRepository).applyDelta(2L, 5L, "COMPLETED", 1, new BigDecimal("75000"));
+    }
+
+    @Test
+    void rebuild_LocksClearsAndReinserts() {
+        paymentSummaryService.rebuild();
+
+        InOrder order = inOrder(paymentSummaryRepository);
+        order.verify(paymentSummaryRepository).lockForRebuild();
+        order.verify(paymentSummaryRepository).deleteAllRows();
+        order.verify(paymentSummaryRepository).insertFromPayments();
+    }
+
+    @Test
+    void getSummary_ByClass_PivotsStatusesPerGroup() {
+        when(paymentSummaryRepository.summarizeByClass(7L, null, null)).thenReturn(List.of(
+                new PaymentSummaryRow(10L, "X-A", "COMPLETED", 3L, new BigDecimal("750000")),
+                new PaymentSummaryRow(10L, "X-A", "PENDING", 2L, new BigDecimal("500000")),
+                new PaymentSummaryRow(11L, "X-B", "PENDING", 1L, new BigDecimal("250000"))));
+
+        List<PaymentSummaryResponse> summary = paymentSummaryService.getSummary("CLASS", 7L, null, null);
+
+        assertEquals(2, summary.size());
+        PaymentSummaryResponse classA = summary.get(0);
+        assertEquals("X-A", classA.getName());
+        assertEquals(5, classA.getTotalCount());
+        assertEquals(new BigDecimal("500000"), classA.getOutstandingAmount());
+        assertEquals(new BigDecimal("750000"), classA.getCollectedAmount());
+        assertEquals(List.of("PENDING", "COMPLETED", "FAILED", "REFUNDED"), List.copyOf(classA.getStatuses().keySet()));
+        assertEquals(0, classA.getStatuses().get("REFUNDED").getCount());
+        assertEquals(BigDecimal.ZERO, summary.get(1).getCollectedAmount());
+    }
+
+    @Test
+    void getSummary_UnknownGroup_ThrowsValidation() {
+        assertThrows(ValidationException.class, () -> paymentSummaryService.getSummary("month", null, null, null));
+    }
+
+    private static Payment payment(Long studentId, Long paymentTypeId, String status, String amount) {
+        Student student = new Student();
+        student.setId(studentId);
+        PaymentType paymentType = new PaymentType();
+        paymentType.setPaymentTypeId(paymentTypeId);
+        Payment payment = new Payment();
+        payment.setStudent(student);
+        payment.setPaymentType(paymentType);
+        payment.setPaymentStatus(status);
+        payment.setAmount(new BigDecimal(amount));
+        return payment;
+    }
+}
@@ -0,0 +1,82 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.storage.LocalImageStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfilePictureThumbnailServiceTest {
+
+    private static final String KEY = "a".repeat(64);
+
+    @TempDir
+    Path tempDir;
+
+    private final ProfilePictureThumbnailService thumbnailService = new ProfilePictureThumbnailService();
+
+    private final LocalImageStore imageStore = new LocalImageStore();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(imageStore, "storeDir", tempDir.toString());
+        ReflectionTestUtils.setField(thumbnailService, "imageStore", imageStore);
+        ReflectionTestUtils.setField(thumbnailService, "sizes", new int[]{64, 256});
+        ReflectionTestUtils.setField(thumbnailService, "quality", 0.8f);
+    }
+
+    @Test
+    void thumbnailKey_DerivedFromOriginalKeyAsJpeg() {
+        assertEquals(KEY + "_64.jpg", ProfilePictureThumbnailService.thumbnailKey(KEY + ".png", 64));
+    }
+
+    @Test
+    void generate_WritesAllSizesKeepingAspectRatio() throws Exception {
+        Path original = tempDir.resolve("original.png");
+        // PNG transparan: JPEG tidak punya alpha, hasilnya harus tetap bisa dibaca
+        ImageIO.write(new BufferedImage(1000, 500, BufferedImage.TYPE_INT_ARGB), "png", original.toFile());
+        imageStore.put(KEY + ".png", original, "image/png");
+
+        thumbnailService.generate(KEY + ".png");
+
+        BufferedImage large = read(KEY + "_256.jpg");
+        BufferedImage small = read(KEY + "_64.jpg");
+        assertEquals(256, large.getWidth());
+        assertEquals(128, large.getHeight());
+        assertEquals(64, small.getWidth());
+        assertEquals(32, small.getHeight());
+        // Tidak ada file sementara yang tertinggal di folder blob
+        try (var files = Files.list(tempDir.resolve(KEY.substring(0, 2)).resolve(KEY.substring(2, 4)))) {
+            assertEquals(3, files.count());
+        }
+    }
+
+    @Test
+    void resize_SmallImageIsNotUpscaled() {
+        BufferedImage resized = ProfilePictureThumbnailService.resize(
+                new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB), 256);
+
+        assertEquals(40, resized.getWidth());
+        assertEquals(30, resized.getHeight());
+    }
+
+    @Test
+    void isSupportedSize_OnlyConfiguredSizes() {
+        assertTrue(thumbnailService.isSupportedSize(64));
+        assertFalse(thumbnailService.isSupportedSize(128));
+    }
+
+    private BufferedImage read(String key) throws Exception {
+        try (InputStream in = imageStore.find(key).orElseThrow().getInputStream()) {
+            return ImageIO.read(in);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.exception.UnauthorizedException;
+import com.beta.schoolpayment.model.RefreshToken;
+import com.beta.schoolpayment.model.User;
+import com.beta.schoolpayment.repository.RefreshTokenRepository;
+import com.beta.schoolpayment.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RefreshTokenServiceTest {
+
+    @InjectMocks
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private User user;
+    private UUID familyId;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(refreshTokenService, "refreshTokenValidity", Duration.ofDays(30));
+        user = new User();
+        user.setUserId(UUID.randomUUID());
+        user.setEmail("johndoe@example.com");
+        user.setRole("STUDENT");
+        familyId = UUID.randomUUID();
+    }
+
+    private RefreshToken stored(String rawToken, LocalDateTime usedAt) {
+        return new RefreshToken(RefreshTokenService.hash(rawToken), familyId, user.getUserId(),
+                LocalDateTime.now().minusHours(1), LocalDateTime.now().plusDays(29), usedAt, null);
+    }
+
+    @Test
+    void issue_StoresOnlyHashInNewFamily() {
+        String rawToken = refreshTokenService.issue(user);
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertEquals(RefreshTokenService.hash(rawToken), saved.getValue().getTokenHash());
+        assertNotEquals(rawToken, saved.getValue().getTokenHash());
+        assertEquals(user.getUserId(), saved.getValue().getUserId());
+        assertNotNull(saved.getValue().getFamilyId());
+        assertTrue(saved.getValue().getExpiresAt().isAfter(LocalDateTime.now().plusDays(29)));
+    }
+
+    @Test
+    void rotate_ValidToken_IssuesNewTokenInSameFamily() {
+        String hash = RefreshTokenService.hash("old-token");
+        when(refreshTokenRepository.markUsed(eq(hash), any())).thenReturn(1);
+        when(refreshTokenRepository.findById(hash)).thenReturn(Optional.of(stored("old-token", LocalDateTime.now())));
+        when(userRepository.findById(user.getUserId())).thenReturn(Optional.of(user));
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate("old-token");
+
+        assertSame(user, rotation.user());
+        assertNotEquals("old-token", rotation.refreshToken());
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertEquals(familyId, saved.getValue().getFamilyId());
+        assertEquals(RefreshTokenService.hash(rotation.refreshToken()), saved.getValue().getTokenHash());
+        verify(refreshTokenRepository, never()).revokeFamily(any(), any());
+    }
+
+    @Test
+    void rotate_ReusedToken_RevokesWholeFamily() {
+        String hash = RefreshTokenService.hash("stolen-token");
+        when(refreshTokenRepository.markUsed(eq(hash), any())).thenReturn(0);
+        when(refreshTokenRepository.findById(hash))
+                .thenReturn(Optional.of(stored("stolen-token", LocalDateTime.now().minusMinutes(5))));
+
+        assertThrows(UnauthorizedException.class, () -> refreshTokenService.rotate("stolen-token"));
+
+        verify(refreshTokenRepository).revokeFamily(eq(familyId), any());
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void rotate_UnknownToken_RejectedWithoutRevocation() {
+        when(refreshTokenRepository.markUsed(any(), any())).thenReturn(0);
+        when(refreshTokenRepository.findById(any())).thenReturn(Optional.empty());
+
+        assertThrows(UnauthorizedException.class, () -> refreshTokenService.rotate("unknown"));
+
+        verify(refreshTokenRepository, never()).revokeFamily(any(), any());
+    }
+
+    @Test
+    void rotate_DeletedUser_RevokesFamily() {
+        String hash = RefreshTokenService.hash("old-token");
+        user.setDeletedAt(LocalDateTime.now());
+        when(refreshTokenRepository.markUsed(eq(hash), any())).thenReturn(1);
+        when(refreshTokenRepository.findById(hash)).thenReturn(Optional.of(stored("old-token", LocalDateTime.now())));
+        when(userRepository.findById(user.getUserId())).thenReturn(Optional.of(user));
+
+        assertThrows(UnauthorizedException.class, () -> refreshTokenService.rotate("old-token"));
+
+        verify(refreshTokenRepository).revokeFamily(eq(familyId), any());
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void revoke_RevokesFamilyOfToken() {
+        String hash = RefreshTokenService.hash("current-token");
+        when(refreshTokenRepository.findById(hash)).thenReturn(Optional.of(stored("current-token", null)));
+
+        refreshTokenService.revoke("current-token");
+
+        verify(refreshTokenRepository).revokeFamily(eq(familyId), any());
+    }
+}
@@ -0,0 +1,201 @@
+package com.beta.schoolpayment.service;
+
+import com.beta.schoolpayment.dto.request.StudentRequest;
+import com.beta.schoolpayment.dto.response.StudentImportError;
+import com.beta.schoolpayment.dto.response.StudentImportResponse;
+import com.beta.schoolpayment.exception.FileInvalidException;
+import com.beta.schoolpayment.exception.ValidationException;
+import com.beta.schoolpayment.repository.ClassesRepository;
+import com.beta.schoolpayment.repository.StudentRepository;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class StudentImportServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private StudentRepository studentRepository;
+
+    @Mock
+    private ClassesRepository classesRepository;
+
+    @InjectMocks
+    private StudentImportService studentImportService;
+
+    // Semua batch yang dikirim ke repository, disalin karena list-nya dibuat ulang tiap potongan
+    private final List<List<StudentRequest>> insertedBatches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(studentImportService, "chunkSize", 2);
+        ReflectionTestUtils.setField(studentImportService, "maxErrors", 100);
+        when(studentRepository.findAllNis()).thenReturn(List.of(1000L));
+        when(classesRepository.findActiveIds()).thenReturn(List.of(1L, 2L));
+        when(studentRepository.insertIgnoringExistingNis(any())).thenAnswer(invocation -> {
+            Collection<StudentRequest> students = invocation.getArgument(0);
+            insertedBatches.add(new ArrayList<>(students));
+            return students.stream().map(StudentRequest::getNis).collect(Collectors.toSet());
+        });
+    }
+
+    @Test
+    void importCsv_ValidRowsInsertedPerChunk_InvalidRowsReported() throws Exception {
+        String csv = "nis,name,class_id,birthdate,address,phone_number\n" +
+                "2001,Budi,1,2010-01-01,\"Jl. Merdeka, No. 1\",0812\n" +
+                "2002,Ani,2,2010-02-02,,\n" +
+                "\n" +
+                "1000,Sudah Ada,1,2010-01-01,,\n" +
+                "abc,,9,01/01/2010,,\n" +
+                "2001,Budi Lagi,1,2010-01-01,,\n" +
+                "2003,Citra,1,2010-03-03,,\n";
+
+        StudentImportResponse response = studentImportService.importCsv(stream(csv));
+
+        assertEquals(6, response.getTotal());
+        assertEquals(3, response.getCreated());
+        assertEquals(3, response.getFailed());
+        assertFalse(response.isErrorsTruncated());
+        // Satu query preload per import, bukan per baris
+        verify(studentRepository, times(1)).findAllNis();
+        verify(classesRepository, times(1)).findActiveIds();
+        verify(studentRepository, never()).existsByNis(any());
+
+        assertEquals(2, insertedBatches.get(0).size());
+        StudentRequest budi = insertedBatches.get(0).get(0);
+        assertEquals("Jl. Merdeka, No. 1", budi.getAddress());
+        assertEquals(LocalDate.of(2010, 1, 1), budi.getBirthdate());
+        assertNull(insertedBatches.get(0).get(1).getAddress());
+
+        List<Integer> errorRows = response.getErrors().stream().map(StudentImportError::getRow).toList();
+        assertEquals(List.of(5, 6, 7), errorRows);
+        assertTrue(response.getErrors().get(0).getMessage().contains("already registered"));
+        String invalid = response.getErrors().get(1).getMessage();
+        assertTrue(invalid.contains("NIS harus berupa angka"));
+        assertTrue(invalid.contains("Nama wajib diisi"));
+        assertTrue(invalid.contains("Class not found"));
+        assertTrue(invalid.contains("yyyy-MM-dd"));
+        assertTrue(response.getErrors().get(2).getMessage().contains("duplikat"));
+    }
+
+    @Test
+    void importCsv_SemicolonDelimiterAndConcurrentDuplicate() throws Exception {
+        doReturn(Set.of(3001L)).when(studentRepository).insertIgnoringExistingNis(any());
+        String csv = "NIS;Nama;classId;tanggal_lahir\r\n3001;Dewi;1;2011-05-05\r\n3002;Eko;2;2011-06-06\r\n";
+
+        StudentImportResponse response = studentImportService.importCsv(stream(csv));
+
+        assertEquals(1, response.getCreated());
+        assertEquals(1, response.getFailed());
+        assertEquals(3, response.getErrors().get(0).getRow());
+        assertEquals("3002", response.getErrors().get(0).getNis());
+    }
+
+    @Test
+    void importCsv_MultilineQuotedField_ReportsStartingLine() throws Exception {
+        String csv = "nis,name,classId,birthdate,address\n" +
+                "4001,Fajar,1,2011-01-01,\"Jl. Mawar 2\r\nRT 01\nBandung\"\n" +
+                "x,Gita,1,2011-01-01,\n";
+
+        StudentImportResponse response = studentImportService.importCsv(stream(csv));
+
+        assertEquals(1, response.getCreated());
+        assertEquals("Jl. Mawar 2\r\nRT 01\nBandung", insertedBatches.get(0).get(0).getAddress());
+        // Record kedua dimulai di baris fisik 5 (record pertama memakai baris 2-4)
+        assertEquals(5, response.getErrors().get(0).getRow());
+    }
+
+    @Test
+    void importCsv_MissingRequiredColumn_ThrowsValidation() {
+        ValidationException e = assertThrows(ValidationException.class,
+                () -> studentImportService.importCsv(stream("nis,name\n1,A\n")));
+
+        assertTrue(e.getMessage().contains("classId"));
+        verify(studentRepository, never()).insertIgnoringExistingNis(any());
+    }
+
+    @Test
+    void importCsv_ErrorReportIsCapped() throws Exception {
+        ReflectionTestUtils.setField(studentImportService, "maxErrors", 1);
+
+        StudentImportResponse response = studentImportService.importCsv(stream(
+                "nis,name,classId,birthdate\nx,A,1,2010-01-01\ny,B,1,2010-01-01\nz,C,1,2010-01-01\n"));
+
+        assertEquals(3, response.getFailed());
+        assertEquals(1, response.getErrors().size());
+        assertTrue(response.isErrorsTruncated());
+    }
+
+    @Test
+    void importXlsx_ReadsNumericNisAndDateCells() throws Exception {
+        Path file = tempDir.resolve("students.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("dd/mm/yyyy"));
+            Sheet sheet = workbook.createSheet("Students");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("NIS");
+            header.createCell(1).setCellValue("Name");
+            header.createCell(2).setCellValue("Class ID");
+            header.createCell(3).setCellValue("Birthdate");
+            header.createCell(5).setCellValue("Phone Number");
+            Row row = sheet.createRow(1);
+            row.createCell(0).setCellValue(123456789012L);
+            row.createCell(1).setCellValue("Fajar");
+            row.createCell(2).setCellValue(2);
+            row.createCell(3).setCellValue(LocalDate.of(2012, 12, 31));
+            row.getCell(3).setCellStyle(dateStyle);
+            row.createCell(5).setCellValue("08123");
+            workbook.write(out);
+        }
+
+        StudentImportResponse response = studentImportService.importXlsx(file);
+
+        assertEquals(1, response.getCreated(), () -> String.valueOf(response.getErrors()));
+        StudentRequest student = insertedBatches.get(0).get(0);
+        assertEquals(123456789012L, student.getNis());
+        assertEquals(2L, student.getClassId());
+        assertEquals(LocalDate.of(2012, 12, 31), student.getBirthdate());
+        assertEquals("08123", student.getPhoneNumber());
+    }
+
+    @Test
+    void importStudents_UnsupportedExtension_ThrowsFileInvalid() {
+        MockMultipartFile file = new MockMultipartFile("file", "students.pdf", "application/pdf", new byte[]{1});
+
+        assertThrows(FileInvalidException.class, () -> studentImportService.importStudents(file));
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -8,6 +8,7 @@ import com.beta.schoolpayment.model.Classes;
 import com.beta.schoolpayment.model.Student;
 import com.beta.schoolpayment.repository.ClassesRepository;
 import com.beta.schoolpayment.repository.StudentRepository;
+import com.beta.schoolpayment.search.StudentSearchStrategy;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.mockito.InjectMocks;
@@ -33,6 +34,9 @@ public class StudentServiceTest {
     @Mock
     private ClassesRepository classesRepository;
 
+    @Mock
+    private StudentSearchStrategy studentSearchStrategy;
+
     private Student student;
     private StudentRequest studentRequest;
     private Classes classes;
@@ -215,4 +219,27 @@ public class StudentServiceTest {
         assertThrows(DataNotFoundException.class, () -> studentService.updateStudent(101L, studentRequest));
         verify(studentRepository, never()).save(any());
     }
+
+    @Test
+    public void testGetStudents_DelegatesToSearchStrategy() {
+        when(studentSearchStrategy.findStudents("john", null, null, Sort.Direction.DESC, 0, 10))
+                .thenReturn(new PageImpl<>(List.of(student)));
+
+        Page<StudentResponse> result = studentService.getStudents("john", null, null, "desc", 0, 10);
+
+        assertEquals(1, result.getTotalElements());
+        assertEquals("John Doe", result.getContent().get(0).getName());
+        verify(studentRepository, never()).findStudents(any(), any(), any(), any());
+    }
+
+    @Test
+    public void testGetStudents_NullSearchBecomesEmpty() {
+        when(studentSearchStrategy.findStudents("", null, null, Sort.Direction.ASC, 0, 10))
+                .thenReturn(Page.empty());
+
+        Page<StudentResponse> result = studentService.getStudents(null, null, null, "asc", 0, 10);
+
+        assertTrue(result.isEmpty());
+        verify(studentSearchStrategy).findStudents("", null, null, Sort.Direction.ASC, 0, 10);
+    }
 }
@@ -5,35 +5,42 @@ import com.beta.schoolpayment.dto.request.UserRequest;
 import com.beta.schoolpayment.dto.response.AuthResponse;
 import com.beta.schoolpayment.dto.response.UserResponse;
 import com.beta.schoolpayment.exception.DataNotFoundException;
+import com.beta.schoolpayment.exception.UnauthorizedException;
 import com.beta.schoolpayment.exception.ValidationException;
 import com.beta.schoolpayment.model.User;
 import com.beta.schoolpayment.repository.StudentRepository;
 import com.beta.schoolpayment.repository.UserRepository;
+import com.beta.schoolpayment.security.CustomUserDetails;
+import com.beta.schoolpayment.security.PasswordHasher;
+import com.beta.schoolpayment.security.TokenRevocationRegistry;
+import com.beta.schoolpayment.security.UserDetailsCache;
 import com.beta.schoolpayment.util.JwtUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
 import org.mockito.MockitoAnnotations;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -49,14 +56,29 @@ class UserServiceTest {
     @Mock
     private StudentRepository studentRepository;
 
+    @Mock
+    private JwtUtil jwtUtil;
 
     @Mock
-    private AuthenticationManager authenticationManager;
+    private UserDetailsCache userDetailsCache;
 
     @Mock
-    private JwtUtil jwtUtil;
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private ProfilePictureCache profilePictureCache;
+
+    @Mock
+    private ProfilePictureThumbnailService profilePictureThumbnailService;
+
+    @Mock
+    private ImageService imageService;
 
     private PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private PasswordHasher passwordHasher = new PasswordHasher();
     private UserRequest userRequest;
     private User user;
     private AuthRequest authRequest;
@@ -64,8 +86,19 @@ class UserServiceTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
 
-        ReflectionTestUtils.setField(userService, "authenticationManager", authenticationManager);
+        ReflectionTestUtils.setField(passwordHasher, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(passwordHasher, "hashThreads", 1);
+        ReflectionTestUtils.setField(passwordHasher, "queueCapacity", 10);
+        ReflectionTestUtils.invokeMethod(passwordHasher, "startExecutor");
+        ReflectionTestUtils.setField(userService, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(userService, "passwordHasher", passwordHasher);
         ReflectionTestUtils.setField(userService, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(userService, "userDetailsCache", userDetailsCache);
+        ReflectionTestUtils.setField(userService, "tokenRevocationRegistry", tokenRevocationRegistry);
+        ReflectionTestUtils.setField(userService, "refreshTokenService", refreshTokenService);
+        ReflectionTestUtils.setField(userService, "profilePictureCache", profilePictureCache);
+        ReflectionTestUtils.setField(userService, "profilePictureThumbnailService", profilePictureThumbnailService);
+        ReflectionTestUtils.setField(userService, "imageService", imageService);
 
         userRequest = new UserRequest();
         userRequest.setNis(12345L);
@@ -168,25 +201,36 @@ class UserServiceTest {
 
     @Test
     void testLogin_Success() {
-        when(userRepository.findByEmailOrNis(authRequest.getIdentifier(),null))
-                .thenReturn(Optional.of(user));
+        when(userRepository.findUserByEmail(authRequest.getIdentifier())).thenReturn(Optional.of(user));
+        when(jwtUtil.generateToken(user)).thenReturn("mocked-jwt-token");
+        when(refreshTokenService.issue(user)).thenReturn("mocked-refresh-token");
 
-        Authentication authentication = mock(Authentication.class);
-        when(authentication.isAuthenticated()).thenReturn(true);
-        when(authenticationManager.authenticate(any())).thenReturn(authentication);
+        AuthResponse response = userService.login(authRequest);
 
+        assertNotNull(response);
+        assertEquals("mocked-jwt-token", response.getToken());
+        assertEquals("mocked-refresh-token", response.getRefreshToken());
+        // Satu lookup berdasarkan email, tanpa rehash (cost sama dengan konfigurasi)
+        verify(userRepository, times(1)).findUserByEmail(authRequest.getIdentifier());
+        verify(userRepository, never()).findUserByNis(any());
+        verify(userRepository, never()).updatePasswordHash(any(), any(), any());
+    }
+
+    @Test
+    void testLogin_ByNis_LooksUpNisOnly() {
+        authRequest.setIdentifier("12345");
+        when(userRepository.findUserByNis(12345L)).thenReturn(Optional.of(user));
         when(jwtUtil.generateToken(user)).thenReturn("mocked-jwt-token");
 
         AuthResponse response = userService.login(authRequest);
 
-        assertNotNull(response);
         assertEquals("mocked-jwt-token", response.getToken());
-        verify(authenticationManager, times(1)).authenticate(any());
+        verify(userRepository, never()).findUserByEmail(any());
     }
 
     @Test
     void testLogin_Failure_UserNotFound() {
-        when(userRepository.findByEmailOrNis(authRequest.getIdentifier(), 123456L))
+        when(userRepository.findUserByEmail(authRequest.getIdentifier()))
                 .thenReturn(Optional.empty());
 
         DataNotFoundException exception = assertThrows(
@@ -198,24 +242,52 @@ class UserServiceTest {
     }
 
     @Test
-    void testLogin_Failure_InvalidAuthentication() {
-        when(userRepository.findByEmailOrNis(authRequest.getIdentifier(),null))
+    void testLogin_Failure_WrongPassword() {
+        when(userRepository.findUserByEmail(authRequest.getIdentifier()))
                 .thenReturn(Optional.of(user));
+        authRequest.setPassword("wrong-password");
 
-        Authentication authentication = mock(Authentication.class);
-        when(authentication.isAuthenticated()).thenReturn(false);
-        when(authenticationManager.authenticate(any())).thenReturn(authentication);
+        assertThrows(BadCredentialsException.class, () -> userService.login(authRequest));
+        verify(jwtUtil, never()).generateToken(any());
+    }
 
-        // Mock authentication failure
-        when(authenticationManager.authenticate(any()))
-                .thenThrow(new RuntimeException("Invalid authentication"));
+    @Test
+    void testLogin_WeakerHash_RehashedToConfiguredCost() {
+        String weakHash = new BCryptPasswordEncoder(4).encode("password123");
+        user.setUserId(UUID.randomUUID());
+        user.setPassword(weakHash);
+        when(userRepository.findUserByEmail(authRequest.getIdentifier())).thenReturn(Optional.of(user));
+        when(userRepository.updatePasswordHash(eq(user.getUserId()), eq(weakHash), any())).thenReturn(1);
+        when(jwtUtil.generateToken(user)).thenReturn("mocked-jwt-token");
 
-        RuntimeException exception = assertThrows(
-                RuntimeException.class,
-                () -> userService.login(authRequest)
-        );
+        userService.login(authRequest);
+
+        ArgumentCaptor<String> newHash = ArgumentCaptor.forClass(String.class);
+        verify(userRepository).updatePasswordHash(eq(user.getUserId()), eq(weakHash), newHash.capture());
+        assertTrue(newHash.getValue().startsWith("$2a$10$"));
+        assertTrue(passwordEncoder.matches("password123", newHash.getValue()));
+        verify(userDetailsCache).evict(user);
+    }
 
-        assertEquals("Invalid authentication", exception.getMessage());
+    @Test
+    void testRefresh_RotatesTokenWithoutPasswordCheck() {
+        when(refreshTokenService.rotate("old-refresh-token"))
+                .thenReturn(new RefreshTokenService.Rotation(user, "new-refresh-token"));
+        when(jwtUtil.generateToken(user)).thenReturn("mocked-jwt-token");
+
+        AuthResponse response = userService.refresh("old-refresh-token");
+
+        assertEquals("mocked-jwt-token", response.getToken());
+        assertEquals("new-refresh-token", response.getRefreshToken());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testRefresh_InvalidToken_Propagates() {
+        when(refreshTokenService.rotate("unknown")).thenThrow(new UnauthorizedException("Refresh token tidak valid"));
+
+        assertThrows(UnauthorizedException.class, () -> userService.refresh("unknown"));
+        verify(jwtUtil, never()).generateToken(any());
     }
 
     @Test
@@ -259,6 +331,17 @@ class UserServiceTest {
         verify(userRepository, times(1)).findByRoleOrderByUpdatedAtDesc(role, pageable);
     }
 
+    @Test
+    public void testLoadUserBySubject_usesCache() {
+        CustomUserDetails cached = new CustomUserDetails(user);
+        when(userDetailsCache.get(eq(user.getEmail()), any())).thenReturn(cached);
+
+        CustomUserDetails result = userService.loadUserBySubject(user.getEmail());
+
+        assertSame(cached, result);
+        verify(userRepository, never()).findUserByEmail(any());
+    }
+
     @Test
     public void testUpdateRole_success() {
         UUID userId = UUID.randomUUID();
@@ -275,6 +358,9 @@ class UserServiceTest {
 
         verify(userRepository, times(1)).findById(userId);
         verify(userRepository, times(1)).save(user);
+        verify(userDetailsCache, times(1)).evict(user);
+        verify(tokenRevocationRegistry, times(1)).revoke(user);
+        verify(refreshTokenService, times(1)).revokeAll(user.getUserId());
     }
 
     @Test
@@ -333,6 +419,28 @@ class UserServiceTest {
 
         verify(userRepository, times(1)).findById(userId);
         verify(userRepository, times(1)).save(user);
+        verify(userDetailsCache, times(1)).evict(user);
+    }
+
+    @Test
+    public void testSoftDelete_inTransaction_evictsAfterCommit() {
+        UUID userId = UUID.randomUUID();
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenReturn(user);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userService.softDelete(userId);
+
+            verify(userDetailsCache, never()).evict(any(User.class));
+            verify(profilePictureCache, never()).evict(any());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(userDetailsCache, times(1)).evict(user);
+        verify(profilePictureCache, times(1)).evict(user.getUserId());
     }
 
     @Test
@@ -357,6 +465,8 @@ class UserServiceTest {
 
         verify(userRepository, times(1)).findById(userId);
         verify(userRepository, times(1)).delete(user);
+        verify(imageService, times(1)).release("profile.jpg");
+        verify(userDetailsCache, times(1)).evict(user);
     }
 
     @Test
@@ -397,6 +507,11 @@ class UserServiceTest {
         verify(userRepository, times(1)).findByEmail("johndoe@example.com");
         verify(userRepository, times(1)).findUserByEmail(userRequest.getEmail());
         verify(userRepository, times(1)).save(user);
+        // Email lama dan email baru
+        verify(userDetailsCache, times(1)).evict("johndoe@example.com");
+        verify(userDetailsCache, times(1)).evict(user);
+        verify(tokenRevocationRegistry, times(1)).revoke("johndoe@example.com");
+        verify(tokenRevocationRegistry, times(1)).revoke(user);
     }
 
     @Test
@@ -481,7 +596,7 @@ class UserServiceTest {
         MultipartFile file = mock(MultipartFile.class);
         when(file.getOriginalFilename()).thenReturn("profile.jpg");
         when(file.getContentType()).thenReturn("image/jpeg"); // Mock file type to be valid
-        when(file.getInputStream()).thenThrow(new IOException("File upload error"));
+        when(imageService.store(file)).thenThrow(new IOException("File upload error"));
         UserRequest userRequest = new UserRequest();
         userRequest.setProfilePicture(file);
 
@@ -491,72 +606,96 @@ class UserServiceTest {
                 () -> userService.updateProfile(authentication, userRequest));
         System.out.println(exception);
         assertEquals("File upload error", exception.getCause().getMessage());
+        verify(imageService, never()).acquire(any());
     }
 
     @Test
-    public void testGetImageById_success() throws IOException {
-        UUID userId = UUID.randomUUID();
-        String profilePicturePath = "profile.jpg"; // Simulated stored path
-        String imageDirectory = "src/main/resources/static/images";
-        Path fullPath = Path.of(imageDirectory, profilePicturePath);
+    public void testUpdateProfile_newPicture_swapsImageReferences() throws IOException {
+        Authentication authentication = mock(Authentication.class);
+        UserDetails userDetails = mock(UserDetails.class);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        when(userDetails.getUsername()).thenReturn(user.getEmail());
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        byte[] fakeImageBytes = new byte[]{1, 2, 3, 4, 5}; // Fake image data
+        String previousKey = "a".repeat(64) + ".jpg";
+        String newKey = "b".repeat(64) + ".png";
+        user.setProfilePicture(previousKey);
+        MultipartFile file = mock(MultipartFile.class);
+        when(file.getContentType()).thenReturn("image/png");
+        when(imageService.store(file)).thenReturn(newKey);
+        UserRequest userRequest = new UserRequest();
+        userRequest.setProfilePicture(file);
 
-        try (MockedStatic<Files> mockedFiles = mockStatic(Files.class)) {
-            mockedFiles.when(() -> Files.exists(any(Path.class))).thenReturn(true);
-            mockedFiles.when(() -> Files.readAllBytes(fullPath)).thenReturn(fakeImageBytes);
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenReturn(user);
 
-            byte[] result = userService.getImageById(userId);
+        UserResponse response = userService.updateProfile(authentication, userRequest);
 
-            assertNotNull(result);
-            assertArrayEquals(fakeImageBytes, result);
+        assertEquals(newKey, user.getProfilePicture());
+        assertEquals("/api/images/" + newKey, response.getProfilePicture());
+        verify(imageService).acquire(newKey);
+        verify(imageService).release(previousKey);
+        verify(profilePictureThumbnailService).generateAsync(newKey);
+    }
 
-            verify(userRepository, times(1)).findById(userId);
-        }
+    @Test
+    public void testUpdateProfile_samePictureUploadedAgain_keepsReference() throws IOException {
+        Authentication authentication = mock(Authentication.class);
+        UserDetails userDetails = mock(UserDetails.class);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        when(userDetails.getUsername()).thenReturn(user.getEmail());
+
+        String key = "a".repeat(64) + ".jpg";
+        user.setProfilePicture(key);
+        MultipartFile file = mock(MultipartFile.class);
+        when(file.getContentType()).thenReturn("image/jpeg");
+        when(imageService.store(file)).thenReturn(key);
+        UserRequest userRequest = new UserRequest();
+        userRequest.setProfilePicture(file);
+
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenReturn(user);
+
+        userService.updateProfile(authentication, userRequest);
+
+        verify(imageService, never()).acquire(any());
+        verify(imageService, never()).release(any());
     }
 
     @Test
-    public void testGetImageById_userNotFound_throwsException() {
+    public void testGetProfilePictureKey_cacheMiss_loadsFromDatabase() {
         UUID userId = UUID.randomUUID();
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        String key = "a".repeat(64) + ".jpg";
+        when(profilePictureCache.get(eq(userId), any())).thenAnswer(invocation ->
+                invocation.<Function<UUID, Optional<String>>>getArgument(1).apply(userId));
+        when(userRepository.findProfilePictureById(userId)).thenReturn(Optional.of(key));
 
-        DataNotFoundException exception = assertThrows(DataNotFoundException.class,
-                () -> userService.getImageById(userId));
-
-        assertEquals("User not found", exception.getMessage());
-        verify(userRepository, times(1)).findById(userId);
+        assertEquals(key, userService.getProfilePictureKey(userId));
+        verify(userRepository, never()).findById(any());
     }
 
     @Test
-    public void testGetImageById_profilePictureNotSet_throwsException() {
+    public void testGetProfilePictureKey_notSet_throwsException() {
         UUID userId = UUID.randomUUID();
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        MockedStatic<Files> mockedFiles = mockStatic(Files.class);
-        mockedFiles.when(() -> Files.exists(any(Path.class))).thenReturn(false);
+        when(profilePictureCache.get(eq(userId), any())).thenReturn(Optional.empty());
 
         DataNotFoundException exception = assertThrows(DataNotFoundException.class,
-                () -> userService.getImageById(userId));
+                () -> userService.getProfilePictureKey(userId));
 
         assertEquals("Profile picture not found for user: " + userId, exception.getMessage());
     }
 
     @Test
-    public void testGetImageById_fileNotFound_throwsException() {
+    public void testConvertToResponse_contentAddressedProfilePictureUrl() {
         UUID userId = UUID.randomUUID();
-        String profilePicturePath = "2024/03/12/missing.jpg";
-        String imageDirectory="src/main/resources/static/images";
-        Path fullPath = Path.of(imageDirectory, profilePicturePath);
-
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        user.setProfilePicture(profilePicturePath);
-
-
-        DataNotFoundException exception = assertThrows(DataNotFoundException.class,
-                () -> userService.getImageById(userId));
+        String key = "a".repeat(64) + ".jpg";
+        user.setUserId(userId);
+        user.setProfilePicture(key);
 
-        assertThat(exception).hasMessageStartingWith("Profile picture not found for user:");
+        assertEquals("/api/images/" + key, userService.convertToResponse(user).getProfilePicture());
 
+        // Path lama yang belum termigrasi
+        user.setProfilePicture("2024/03/12/abc.jpg");
+        assertEquals("/api/users/profile/picture/" + userId, userService.convertToResponse(user).getProfilePicture());
     }
 
 }
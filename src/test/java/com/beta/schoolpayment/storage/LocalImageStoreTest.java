@@ -0,0 +1,68 @@
+package com.beta.schoolpayment.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalImageStoreTest {
+
+    private static final String KEY = "ab12" + "0".repeat(60) + ".png";
+
+    @TempDir
+    Path tempDir;
+
+    private final LocalImageStore imageStore = new LocalImageStore();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(imageStore, "storeDir", tempDir.resolve("store").toString());
+    }
+
+    @Test
+    void put_StoresBlobInShardedDirectory() throws Exception {
+        Path upload = Files.write(tempDir.resolve("upload.png"), new byte[]{1, 2, 3});
+
+        imageStore.put(KEY, upload, "image/png");
+
+        assertTrue(imageStore.exists(KEY));
+        assertTrue(Files.isRegularFile(tempDir.resolve("store").resolve("ab").resolve("12").resolve(KEY)));
+        Resource resource = imageStore.find(KEY).orElseThrow();
+        try (InputStream in = resource.getInputStream()) {
+            assertArrayEquals(new byte[]{1, 2, 3}, in.readAllBytes());
+        }
+        // Hanya blob yang tersisa, tanpa file sementara
+        try (var files = Files.list(tempDir.resolve("store").resolve("ab").resolve("12"))) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void put_ExistingKeyIsNotRewritten() throws Exception {
+        imageStore.put(KEY, Files.write(tempDir.resolve("first.png"), new byte[]{1}), "image/png");
+
+        imageStore.put(KEY, Files.write(tempDir.resolve("second.png"), new byte[]{2}), "image/png");
+
+        try (InputStream in = imageStore.find(KEY).orElseThrow().getInputStream()) {
+            assertArrayEquals(new byte[]{1}, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void delete_RemovesBlobAndIgnoresMissing() throws Exception {
+        imageStore.put(KEY, Files.write(tempDir.resolve("upload.png"), new byte[]{1}), "image/png");
+
+        imageStore.delete(KEY);
+        imageStore.delete(KEY);
+
+        assertFalse(imageStore.exists(KEY));
+        assertTrue(imageStore.find(KEY).isEmpty());
+    }
+}
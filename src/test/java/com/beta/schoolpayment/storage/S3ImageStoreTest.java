@@ -0,0 +1,77 @@
+package com.beta.schoolpayment.storage;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Backend S3 terhadap MinIO (object storage S3-compatible) di container
+@Testcontainers(disabledWithoutDocker = true)
+class S3ImageStoreTest {
+
+    private static final String BUCKET = "images";
+    private static final String KEY = "d".repeat(64) + ".jpg";
+
+    @Container
+    static MinIOContainer minio = new MinIOContainer("minio/minio:RELEASE.2024-12-18T13-15-44Z");
+
+    private static S3Client s3;
+    private static S3ImageStore imageStore;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    static void setUp() {
+        s3 = S3Client.builder()
+                .endpointOverride(URI.create(minio.getS3URL()))
+                .region(Region.US_EAST_1)
+                .forcePathStyle(true)
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(minio.getUserName(), minio.getPassword())))
+                .build();
+        s3.createBucket(request -> request.bucket(BUCKET));
+        imageStore = new S3ImageStore(s3, BUCKET);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        s3.close();
+    }
+
+    @Test
+    void putFindDelete_RoundTrip() throws Exception {
+        Path upload = Files.write(tempDir.resolve("upload.jpg"), new byte[]{9, 8, 7, 6});
+        assertFalse(imageStore.exists(KEY));
+
+        imageStore.put(KEY, upload, "image/jpeg");
+
+        Resource resource = imageStore.find(KEY).orElseThrow();
+        assertEquals(4, resource.contentLength());
+        assertEquals(KEY, resource.getFilename());
+        try (InputStream in = resource.getInputStream()) {
+            assertArrayEquals(new byte[]{9, 8, 7, 6}, in.readAllBytes());
+        }
+        assertEquals("image/jpeg", s3.headObject(request -> request.bucket(BUCKET).key(KEY)).contentType());
+
+        imageStore.delete(KEY);
+
+        assertFalse(imageStore.exists(KEY));
+        assertTrue(imageStore.find(KEY).isEmpty());
+    }
+}
@@ -0,0 +1,95 @@
+package com.beta.schoolpayment.util;
+
+import com.beta.schoolpayment.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final String OLD_SECRET = "old-secret-key-with-at-least-32-characters!!";
+    private static final String NEW_SECRET = "new-secret-key-with-at-least-32-characters!!";
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUserId(UUID.randomUUID());
+        user.setEmail("johndoe@example.com");
+        user.setName("John Doe");
+        user.setNis(12345L);
+        user.setRole("STUDENT");
+    }
+
+    @Test
+    void generateAndParse_roundTrip() {
+        JwtUtil jwtUtil = new JwtUtil(NEW_SECRET, "k2", List.of());
+
+        Claims claims = jwtUtil.parseClaims(jwtUtil.generateToken(user));
+
+        assertEquals("johndoe@example.com", claims.getSubject());
+        assertEquals("STUDENT", claims.get("role"));
+        assertTrue(claims.getExpiration().after(new Date()));
+    }
+
+    @Test
+    void parse_acceptsTokenSignedWithRetiredKey() {
+        String oldToken = new JwtUtil(OLD_SECRET, "k1", List.of()).generateToken(user);
+        JwtUtil rotated = new JwtUtil(NEW_SECRET, "k2", List.of("k1:" + OLD_SECRET));
+
+        assertEquals("johndoe@example.com", rotated.extractUsername(oldToken));
+    }
+
+    @Test
+    void parse_rejectsUnknownKeyId() {
+        String oldToken = new JwtUtil(OLD_SECRET, "k1", List.of()).generateToken(user);
+        JwtUtil rotated = new JwtUtil(NEW_SECRET, "k2", List.of());
+
+        assertThrows(JwtException.class, () -> rotated.parseClaims(oldToken));
+    }
+
+    @Test
+    void parse_tokenWithoutKeyIdUsesActiveKey() {
+        String legacyToken = Jwts.builder()
+                .setSubject("johndoe@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(NEW_SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertEquals("johndoe@example.com", new JwtUtil(NEW_SECRET, "k2", List.of()).extractUsername(legacyToken));
+    }
+
+    @Test
+    void validateToken_checksSubjectFromSingleParse() {
+        JwtUtil jwtUtil = new JwtUtil(NEW_SECRET, "k2", List.of());
+        String token = jwtUtil.generateToken(user);
+
+        assertTrue(jwtUtil.validateToken(token, userDetails("johndoe@example.com")));
+        assertFalse(jwtUtil.validateToken(token, userDetails("other@example.com")));
+    }
+
+    @Test
+    void constructor_rejectsMalformedRetiredKey() {
+        assertThrows(IllegalArgumentException.class, () -> new JwtUtil(NEW_SECRET, "k2", List.of(OLD_SECRET)));
+    }
+
+    private static UserDetails userDetails(String username) {
+        return org.springframework.security.core.userdetails.User.withUsername(username)
+                .password("x")
+                .roles("STUDENT")
+                .build();
+    }
+}